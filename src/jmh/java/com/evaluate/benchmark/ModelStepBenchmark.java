@@ -0,0 +1,111 @@
+package com.evaluate.benchmark;
+
+import com.evaluate.EvaluateApplication;
+import com.evaluate.entity.SurveyData;
+import com.evaluate.service.ISurveyDataService;
+import com.evaluate.service.ModelExecutionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模型步骤执行基准：在 h2 配置下启动应用，写入合成调查数据后执行乡镇模型（modelId=3）的
+ * 评估指标赋值（普通表达式）和属性向量归一化（@NORMALIZE 特殊标记）两个步骤，包含数据加载耗时
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ModelStepBenchmark {
+
+    private static final Long MODEL_ID = 3L;
+    private static final Long ASSIGNMENT_STEP_ID = 1L;
+    private static final Long NORMALIZATION_STEP_ID = 2L;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int regions;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private ConfigurableApplicationContext context;
+    private ModelExecutionService modelExecutionService;
+    private List<String> regionCodes;
+    private Map<String, Object> assignmentInput;
+    private Map<String, Object> normalizationInput;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(EvaluateApplication.class)
+                .profiles("h2")
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--logging.level.root=warn",
+                        "--logging.level.com.evaluate=warn",
+                        "--logging.file.name=",
+                        "--mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl",
+                        "--spring.h2.console.enabled=false",
+                        "--springfox.documentation.enabled=false",
+                        "--spring.devtools.restart.enabled=false");
+        modelExecutionService = context.getBean(ModelExecutionService.class);
+
+        List<SurveyData> rows = SyntheticDataGenerator.surveyData(regions, SyntheticDataGenerator.DEFAULT_SEED);
+        context.getBean(ISurveyDataService.class).saveBatch(rows, 1000);
+        regionCodes = new ArrayList<>(rows.size());
+        for (SurveyData row : rows) {
+            regionCodes.add(row.getRegionCode());
+        }
+
+        assignmentInput = newInput();
+        normalizationInput = newInput();
+        normalizationInput.put("step_INDICATOR_ASSIGNMENT",
+                modelExecutionService.executeStep(ASSIGNMENT_STEP_ID, regionCodes, newInput()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> indicatorAssignment() {
+        return modelExecutionService.executeStep(ASSIGNMENT_STEP_ID, regionCodes, new HashMap<>(assignmentInput));
+    }
+
+    @Benchmark
+    public Map<String, Object> vectorNormalization() {
+        return modelExecutionService.executeStep(NORMALIZATION_STEP_ID, regionCodes, new HashMap<>(normalizationInput));
+    }
+
+    private Map<String, Object> newInput() {
+        Map<String, Object> input = new HashMap<>();
+        input.put("modelId", MODEL_ID);
+        input.put(ModelExecutionService.PARALLEL_CONTEXT_KEY, parallel);
+        return input;
+    }
+}
@@ -0,0 +1,67 @@
+package com.evaluate.benchmark;
+
+import com.evaluate.service.impl.QLExpressServiceImpl;
+import com.ql.util.express.InstructionSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QLExpress 表达式执行基准：对全部地区执行第一步的8个指标赋值表达式
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QLExpressBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int regions;
+
+    private QLExpressServiceImpl qlExpressService;
+    private InstructionSet[] instructionSets;
+    private List<Map<String, Object>> contexts;
+
+    @Setup
+    public void setUp() {
+        qlExpressService = new QLExpressServiceImpl();
+        qlExpressService.init();
+        // 与步骤执行一致：步骤开始时预编译，逐地区直接执行编译结果
+        Map<String, InstructionSet> compiled = qlExpressService.precompile(
+                Arrays.asList(SyntheticDataGenerator.SECONDARY_EXPRESSIONS));
+        instructionSets = new InstructionSet[SyntheticDataGenerator.SECONDARY_EXPRESSIONS.length];
+        for (int i = 0; i < instructionSets.length; i++) {
+            instructionSets[i] = compiled.get(SyntheticDataGenerator.SECONDARY_EXPRESSIONS[i]);
+        }
+        contexts = new ArrayList<>(SyntheticDataGenerator.surveyContexts(regions, SyntheticDataGenerator.DEFAULT_SEED).values());
+    }
+
+    @Benchmark
+    public void executeIndicatorAssignment(Blackhole blackhole) throws Exception {
+        for (Map<String, Object> context : contexts) {
+            for (InstructionSet instructionSet : instructionSets) {
+                blackhole.consume(qlExpressService.execute(instructionSet, context));
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.evaluate.benchmark;
+
+import com.evaluate.service.algorithm.ColumnStatisticsCache;
+import com.evaluate.service.impl.SpecialAlgorithmServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 特殊标记算法基准：一个步骤内对全部地区执行归一化和优解距离计算，列统计缓存按步骤共享
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpecialAlgorithmBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int regions;
+
+    private SpecialAlgorithmServiceImpl specialAlgorithmService;
+    private Map<String, Map<String, Object>> allRegionData;
+    private String topsisIndicators;
+
+    @Setup
+    public void setUp() {
+        specialAlgorithmService = new SpecialAlgorithmServiceImpl();
+        allRegionData = SyntheticDataGenerator.secondaryIndicatorValues(regions, SyntheticDataGenerator.DEFAULT_SEED);
+        topsisIndicators = String.join(",", SyntheticDataGenerator.SECONDARY_INDICATORS);
+    }
+
+    @Benchmark
+    public void normalize(Blackhole blackhole) {
+        ColumnStatisticsCache statsCache = new ColumnStatisticsCache();
+        for (Map.Entry<String, Map<String, Object>> region : allRegionData.entrySet()) {
+            for (String indicator : SyntheticDataGenerator.SECONDARY_INDICATORS) {
+                blackhole.consume(specialAlgorithmService.executeSpecialAlgorithm("NORMALIZE", indicator,
+                        region.getKey(), region.getValue(), allRegionData, statsCache));
+            }
+        }
+    }
+
+    @Benchmark
+    public void topsisPositive(Blackhole blackhole) {
+        ColumnStatisticsCache statsCache = new ColumnStatisticsCache();
+        for (Map.Entry<String, Map<String, Object>> region : allRegionData.entrySet()) {
+            blackhole.consume(specialAlgorithmService.executeSpecialAlgorithm("TOPSIS_POSITIVE", topsisIndicators,
+                    region.getKey(), region.getValue(), allRegionData, statsCache));
+        }
+    }
+}
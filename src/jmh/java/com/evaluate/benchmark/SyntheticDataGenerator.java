@@ -0,0 +1,187 @@
+package com.evaluate.benchmark;
+
+import com.evaluate.entity.CommunityDisasterReductionCapacity;
+import com.evaluate.entity.SurveyData;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试合成数据生成器
+ *
+ * 按固定随机种子生成乡镇调查数据和社区减灾能力数据，同一规模每次生成的数据完全一致，
+ * 不同提交之间的基准结果才具有可比性。地区编码按 省/市/县/乡镇 逐级编号，保证唯一。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public final class SyntheticDataGenerator {
+
+    /**
+     * 默认随机种子
+     */
+    public static final long DEFAULT_SEED = 20251012L;
+
+    /**
+     * 第一步（评估指标赋值）的输出变量
+     */
+    public static final String[] SECONDARY_INDICATORS = {
+            "management_capability", "risk_assessment_capability", "funding_capability",
+            "material_capability", "medical_capability", "self_rescue_capability",
+            "public_avoidance_capability", "relocation_capability"
+    };
+
+    /**
+     * 第一步（评估指标赋值）的表达式，与 sql/migrations/003_init_model_formulas.sql 保持一致
+     */
+    public static final String[] SECONDARY_EXPRESSIONS = {
+            "(management_staff / population) * 10000",
+            "risk_assessment == \"是\" ? 1 : 0",
+            "(funding_amount / population) * 10000",
+            "(material_value / population) * 10000",
+            "(hospital_beds / population) * 10000",
+            "((firefighters + volunteers + militia_reserve) / population) * 10000",
+            "(training_participants / population) * 10000",
+            "(shelter_capacity / population) * 10000"
+    };
+
+    private static final String[] RISK_ASSESSMENT_VALUES = {"是", "否", "低", "中", "高"};
+
+    private SyntheticDataGenerator() {
+    }
+
+    /**
+     * 第 index 个地区的编码（12位：省2位、市2位、县2位、乡镇3位、补零3位）
+     */
+    public static String regionCode(int index) {
+        int township = index % 500;
+        int county = (index / 500) % 50;
+        int city = (index / 25000) % 20;
+        int province = 11 + index / 500000;
+        return String.format("%02d%02d%02d%03d000", province, city + 1, county + 1, township + 1);
+    }
+
+    /**
+     * 生成乡镇调查数据
+     */
+    public static List<SurveyData> surveyData(int regions, long seed) {
+        Random random = new Random(seed);
+        List<SurveyData> rows = new ArrayList<>(regions);
+        for (int i = 0; i < regions; i++) {
+            long population = 5000 + random.nextInt(95000);
+            SurveyData row = new SurveyData()
+                    .setRegionCode(regionCode(i))
+                    .setProvince("省" + regionCode(i).substring(0, 2))
+                    .setCity("市" + regionCode(i).substring(0, 4))
+                    .setCounty("县" + regionCode(i).substring(0, 6))
+                    .setTownship("乡镇" + (i + 1))
+                    .setPopulation(population)
+                    .setManagementStaff(1 + random.nextInt(60))
+                    .setRiskAssessment(RISK_ASSESSMENT_VALUES[random.nextInt(RISK_ASSESSMENT_VALUES.length)])
+                    .setFundingAmount(round(random.nextDouble() * 500))
+                    .setMaterialValue(round(random.nextDouble() * 300))
+                    .setHospitalBeds(random.nextInt(400))
+                    .setFirefighters(random.nextInt(80))
+                    .setVolunteers(random.nextInt(600))
+                    .setMilitiaReserve(random.nextInt(200))
+                    .setTrainingParticipants(random.nextInt(5000))
+                    .setShelterCapacity(random.nextInt(20000));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 生成社区减灾能力数据
+     */
+    public static List<CommunityDisasterReductionCapacity> communityData(int regions, long seed) {
+        Random random = new Random(seed);
+        List<CommunityDisasterReductionCapacity> rows = new ArrayList<>(regions);
+        for (int i = 0; i < regions; i++) {
+            String code = regionCode(i);
+            CommunityDisasterReductionCapacity row = new CommunityDisasterReductionCapacity();
+            row.setRegionCode(code);
+            row.setProvinceName("省" + code.substring(0, 2));
+            row.setCityName("市" + code.substring(0, 4));
+            row.setCountyName("县" + code.substring(0, 6));
+            row.setTownshipName("乡镇" + code.substring(0, 9));
+            row.setCommunityName("社区" + (i + 1));
+            row.setHasEmergencyPlan(yesNo(random));
+            row.setHasVulnerableGroupsList(yesNo(random));
+            row.setHasDisasterPointsList(yesNo(random));
+            row.setHasDisasterMap(yesNo(random));
+            row.setResidentPopulation(500 + random.nextInt(20000));
+            row.setLastYearFundingAmount(BigDecimal.valueOf(random.nextDouble() * 50).setScale(2, RoundingMode.HALF_UP));
+            row.setMaterialsEquipmentValue(BigDecimal.valueOf(random.nextDouble() * 30).setScale(2, RoundingMode.HALF_UP));
+            row.setMedicalServiceCount(random.nextInt(10));
+            row.setMilitiaReserveCount(random.nextInt(50));
+            row.setRegisteredVolunteerCount(random.nextInt(300));
+            row.setLastYearTrainingParticipants(random.nextInt(1000));
+            row.setLastYearDrillParticipants(random.nextInt(1000));
+            row.setEmergencyShelterCapacity(random.nextInt(3000));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 调查数据转换为表达式上下文（字段名与数据库列名一致）
+     */
+    public static Map<String, Object> toContext(SurveyData row) {
+        Map<String, Object> context = new LinkedHashMap<>();
+        context.put("region_code", row.getRegionCode());
+        context.put("population", row.getPopulation());
+        context.put("management_staff", row.getManagementStaff());
+        String risk = row.getRiskAssessment();
+        context.put("risk_assessment", "否".equals(risk) ? risk : "是");
+        context.put("funding_amount", row.getFundingAmount());
+        context.put("material_value", row.getMaterialValue());
+        context.put("hospital_beds", row.getHospitalBeds());
+        context.put("firefighters", row.getFirefighters());
+        context.put("volunteers", row.getVolunteers());
+        context.put("militia_reserve", row.getMilitiaReserve());
+        context.put("training_participants", row.getTrainingParticipants());
+        context.put("shelter_capacity", row.getShelterCapacity());
+        return context;
+    }
+
+    /**
+     * 全部地区的表达式上下文，按地区编码索引
+     */
+    public static Map<String, Map<String, Object>> surveyContexts(int regions, long seed) {
+        Map<String, Map<String, Object>> contexts = new LinkedHashMap<>();
+        for (SurveyData row : surveyData(regions, seed)) {
+            contexts.put(row.getRegionCode(), toContext(row));
+        }
+        return contexts;
+    }
+
+    /**
+     * 模拟第一步输出：每个地区8个二级指标的原始值，供归一化、定权和优劣解计算使用
+     */
+    public static Map<String, Map<String, Object>> secondaryIndicatorValues(int regions, long seed) {
+        Random random = new Random(seed);
+        Map<String, Map<String, Object>> values = new LinkedHashMap<>();
+        for (int i = 0; i < regions; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String indicator : SECONDARY_INDICATORS) {
+                row.put(indicator, round(random.nextDouble() * 100));
+            }
+            values.put(regionCode(i), row);
+        }
+        return values;
+    }
+
+    private static String yesNo(Random random) {
+        return random.nextBoolean() ? "是" : "否";
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.evaluate.benchmark;
+
+import com.evaluate.dto.topsis.TOPSISAlgorithmConfig;
+import com.evaluate.service.impl.TOPSISCalculationLoggerImpl;
+import com.evaluate.service.impl.UnifiedTOPSISCalculatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 统一TOPSIS距离计算基准：全部地区的正负理想解与欧氏距离，会话日志只保留在内存中
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TOPSISDistanceBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int regions;
+
+    private TOPSISCalculationLoggerImpl calculationLogger;
+    private UnifiedTOPSISCalculatorImpl calculator;
+    private Map<String, Map<String, Double>> weightedData;
+    private TOPSISAlgorithmConfig algorithmConfig;
+
+    @Setup
+    public void setUp() {
+        calculationLogger = new TOPSISCalculationLoggerImpl();
+        calculationLogger.initLogStore();
+        calculator = new UnifiedTOPSISCalculatorImpl();
+        ReflectionTestUtils.setField(calculator, "calculationLogger", calculationLogger);
+
+        weightedData = new LinkedHashMap<>();
+        SyntheticDataGenerator.secondaryIndicatorValues(regions, SyntheticDataGenerator.DEFAULT_SEED)
+                .forEach((regionCode, values) -> {
+                    Map<String, Double> row = new LinkedHashMap<>();
+                    values.forEach((indicator, value) -> row.put(indicator, ((Number) value).doubleValue()));
+                    weightedData.put(regionCode, row);
+                });
+        algorithmConfig = TOPSISAlgorithmConfig.builder()
+                .stepId(5L)
+                .modelId(3L)
+                .stepCode("TOPSIS_CALCULATION")
+                .algorithmCode("TOPSIS_POSITIVE")
+                .indicators(Arrays.asList(SyntheticDataGenerator.SECONDARY_INDICATORS))
+                .outputParam("topsis_distance")
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        calculationLogger.closeLogStore();
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Double>> calculateDistances() {
+        return calculator.calculateDistances(weightedData, algorithmConfig);
+    }
+}
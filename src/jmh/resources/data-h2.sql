@@ -0,0 +1,27 @@
+-- 基准测试用模型配置：乡镇模型（modelId=3）的评估指标赋值与属性向量归一化步骤
+-- 表达式与 sql/migrations/003_init_model_formulas.sql 保持一致
+
+INSERT INTO evaluation_model (id, model_name, model_code, description, is_default) VALUES
+(3, '乡镇减灾能力评估模型', 'TOWNSHIP_MODEL', '基准测试用乡镇模型', 0);
+
+INSERT INTO model_step (id, model_id, step_name, step_code, step_order, step_type, description) VALUES
+(1, 3, '评估指标赋值', 'INDICATOR_ASSIGNMENT', 1, 'CALCULATION', '根据调查数据计算8个二级指标的原始值'),
+(2, 3, '属性向量归一化', 'VECTOR_NORMALIZATION', 2, 'NORMALIZATION', '对二级指标进行向量归一化处理');
+
+INSERT INTO step_algorithm (step_id, algorithm_name, algorithm_code, algorithm_order, ql_expression, output_param, status) VALUES
+(1, '队伍管理能力计算', 'MANAGEMENT_CAPABILITY', 1, '(management_staff / population) * 10000', 'management_capability', 1),
+(1, '风险评估能力计算', 'RISK_ASSESSMENT_CAPABILITY', 2, 'risk_assessment == "是" ? 1 : 0', 'risk_assessment_capability', 1),
+(1, '财政投入能力计算', 'FUNDING_CAPABILITY', 3, '(funding_amount / population) * 10000', 'funding_capability', 1),
+(1, '物资储备能力计算', 'MATERIAL_CAPABILITY', 4, '(material_value / population) * 10000', 'material_capability', 1),
+(1, '医疗保障能力计算', 'MEDICAL_CAPABILITY', 5, '(hospital_beds / population) * 10000', 'medical_capability', 1),
+(1, '自救互救能力计算', 'SELF_RESCUE_CAPABILITY', 6, '((firefighters + volunteers + militia_reserve) / population) * 10000', 'self_rescue_capability', 1),
+(1, '公众避险能力计算', 'PUBLIC_AVOIDANCE_CAPABILITY', 7, '(training_participants / population) * 10000', 'public_avoidance_capability', 1),
+(1, '转移安置能力计算', 'RELOCATION_CAPABILITY', 8, '(shelter_capacity / population) * 10000', 'relocation_capability', 1),
+(2, '队伍管理能力归一化', 'MANAGEMENT_NORMALIZE', 1, '@NORMALIZE:management_capability', 'management_capability_norm', 1),
+(2, '风险评估能力归一化', 'RISK_ASSESSMENT_NORMALIZE', 2, '@NORMALIZE:risk_assessment_capability', 'risk_assessment_capability_norm', 1),
+(2, '财政投入能力归一化', 'FUNDING_NORMALIZE', 3, '@NORMALIZE:funding_capability', 'funding_capability_norm', 1),
+(2, '物资储备能力归一化', 'MATERIAL_NORMALIZE', 4, '@NORMALIZE:material_capability', 'material_capability_norm', 1),
+(2, '医疗保障能力归一化', 'MEDICAL_NORMALIZE', 5, '@NORMALIZE:medical_capability', 'medical_capability_norm', 1),
+(2, '自救互救能力归一化', 'SELF_RESCUE_NORMALIZE', 6, '@NORMALIZE:self_rescue_capability', 'self_rescue_capability_norm', 1),
+(2, '公众避险能力归一化', 'PUBLIC_AVOIDANCE_NORMALIZE', 7, '@NORMALIZE:public_avoidance_capability', 'public_avoidance_capability_norm', 1),
+(2, '转移安置能力归一化', 'RELOCATION_NORMALIZE', 8, '@NORMALIZE:relocation_capability', 'relocation_capability_norm', 1);
@@ -0,0 +1,104 @@
+-- 基准测试用 H2 表结构（MODE=MySQL），仅包含模型步骤执行所需的表
+-- 字段与 sql/migrations/002_create_model_management.sql 及实体类保持一致
+
+DROP TABLE IF EXISTS step_algorithm;
+DROP TABLE IF EXISTS model_step;
+DROP TABLE IF EXISTS evaluation_model;
+DROP TABLE IF EXISTS survey_data;
+DROP TABLE IF EXISTS community_disaster_reduction_capacity;
+
+CREATE TABLE evaluation_model (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    model_name VARCHAR(100) NOT NULL,
+    model_code VARCHAR(50) NOT NULL UNIQUE,
+    description TEXT,
+    version VARCHAR(20) DEFAULT '1.0',
+    status INT DEFAULT 1,
+    is_default TINYINT DEFAULT 0,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    create_by VARCHAR(50),
+    update_by VARCHAR(50)
+);
+
+CREATE TABLE model_step (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    model_id BIGINT NOT NULL,
+    step_name VARCHAR(100) NOT NULL,
+    step_code VARCHAR(50) NOT NULL,
+    step_order INT NOT NULL,
+    step_type VARCHAR(20) NOT NULL,
+    description TEXT,
+    input_variables TEXT,
+    output_variables TEXT,
+    depends_on VARCHAR(255),
+    status INT DEFAULT 1,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE step_algorithm (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    step_id BIGINT NOT NULL,
+    algorithm_name VARCHAR(100) NOT NULL,
+    algorithm_code VARCHAR(50) NOT NULL,
+    algorithm_order INT NOT NULL,
+    ql_expression TEXT NOT NULL,
+    input_params TEXT,
+    output_param VARCHAR(100),
+    description TEXT,
+    status INT DEFAULT 1,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE survey_data (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    region_code VARCHAR(20) NOT NULL,
+    province VARCHAR(50),
+    city VARCHAR(50),
+    county VARCHAR(50),
+    township VARCHAR(50),
+    population BIGINT,
+    management_staff INT,
+    risk_assessment VARCHAR(10),
+    funding_amount DOUBLE,
+    material_value DOUBLE,
+    hospital_beds INT,
+    firefighters INT,
+    volunteers INT,
+    militia_reserve INT,
+    training_participants INT,
+    shelter_capacity INT,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    is_deleted INT DEFAULT 0
+);
+
+CREATE TABLE community_disaster_reduction_capacity (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    region_code VARCHAR(50) NOT NULL,
+    province_name VARCHAR(50),
+    city_name VARCHAR(50),
+    county_name VARCHAR(50),
+    township_name VARCHAR(50),
+    community_name VARCHAR(100),
+    has_emergency_plan VARCHAR(10),
+    has_vulnerable_groups_list VARCHAR(10),
+    has_disaster_points_list VARCHAR(10),
+    has_disaster_map VARCHAR(10),
+    resident_population INT,
+    last_year_funding_amount DECIMAL(15, 2),
+    materials_equipment_value DECIMAL(15, 2),
+    medical_service_count INT,
+    militia_reserve_count INT,
+    registered_volunteer_count INT,
+    last_year_training_participants INT,
+    last_year_drill_participants INT,
+    emergency_shelter_capacity INT,
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_model_step_model_order ON model_step(model_id, step_order);
+CREATE INDEX idx_step_algorithm_step_order ON step_algorithm(step_id, algorithm_order);
+CREATE INDEX idx_survey_data_region_code ON survey_data(region_code);
+CREATE INDEX idx_community_region_code ON community_disaster_reduction_capacity(region_code);
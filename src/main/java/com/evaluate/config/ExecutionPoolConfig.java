@@ -0,0 +1,103 @@
+package com.evaluate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 模型执行线程池配置
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Configuration
+@EnableScheduling
+public class ExecutionPoolConfig {
+
+    /**
+     * 并行执行线程数，0 表示使用CPU核数
+     */
+    @Value("${evaluation.parallel.pool-size:0}")
+    private int poolSize;
+
+    /**
+     * 异步执行任务的并发数
+     */
+    @Value("${evaluation.job.pool-size:2}")
+    private int jobPoolSize;
+
+    /**
+     * 异步执行任务的排队上限，超出时拒绝提交
+     */
+    @Value("${evaluation.job.queue-capacity:20}")
+    private int jobQueueCapacity;
+
+    /**
+     * 批量评估线程数，0 表示使用CPU核数
+     */
+    @Value("${evaluation.batch-evaluation.pool-size:0}")
+    private int batchPoolSize;
+
+    /**
+     * 批量评估任务排队上限，超出时由提交线程直接执行
+     */
+    @Value("${evaluation.batch-evaluation.queue-capacity:1000}")
+    private int batchQueueCapacity;
+
+    /**
+     * 地区并行执行线程池（有界，所有请求共享）
+     */
+    @Bean(name = "regionExecutionPool", destroyMethod = "shutdown")
+    public ForkJoinPool regionExecutionPool() {
+        int parallelism = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("region-exec-" + thread.getPoolIndex());
+            return thread;
+        };
+        return new ForkJoinPool(parallelism, factory, null, false);
+    }
+
+    /**
+     * 异步模型执行任务线程池（有界队列，队列满时提交方收到 RejectedExecutionException）
+     */
+    @Bean(name = "modelJobExecutor", destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor modelJobExecutor() {
+        int threads = Math.max(1, jobPoolSize);
+        AtomicInteger index = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, jobQueueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "model-job-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 批量评估线程池（与地区并行计算线程池分开，批量任务不占用模型执行的线程）；
+     * 有界队列，队列满时由提交线程执行，形成背压
+     */
+    @Bean(name = "batchEvaluationExecutor", destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor batchEvaluationExecutor() {
+        int threads = batchPoolSize > 0 ? batchPoolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger index = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, batchQueueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "batch-eval-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -3,12 +3,13 @@ package com.evaluate.config;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
  * MyBatis Plus配置类
- * 
+ *
  * @author System
  * @since 2024-01-01
  */
@@ -25,4 +26,24 @@ public class MybatisPlusConfig {
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
         return interceptor;
     }
-}
\ No newline at end of file
+
+    /**
+     * SQL执行耗时统计插件（由 MyBatis Plus 自动配置注册到 SqlSessionFactory）
+     */
+    @Bean
+    public SqlTimingInterceptor sqlTimingInterceptor(
+            @Value("${evaluation.sql-monitor.enabled:true}") boolean enabled,
+            @Value("${evaluation.sql-monitor.slow-threshold-ms:200}") long slowThresholdMs,
+            @Value("${evaluation.sql-monitor.slow-log-capacity:200}") int slowLogCapacity,
+            @Value("${evaluation.sql-monitor.n-plus-one-threshold:50}") int nPlusOneThreshold) {
+        return new SqlTimingInterceptor(enabled, slowThresholdMs, slowLogCapacity, nPlusOneThreshold);
+    }
+
+    /**
+     * 请求范围标记，用于 N+1 查询检测
+     */
+    @Bean
+    public SqlRequestScopeFilter sqlRequestScopeFilter(SqlTimingInterceptor sqlTimingInterceptor) {
+        return new SqlRequestScopeFilter(sqlTimingInterceptor);
+    }
+}
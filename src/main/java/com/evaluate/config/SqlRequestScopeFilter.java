@@ -0,0 +1,37 @@
+package com.evaluate.config;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 标记HTTP请求范围，供 {@link SqlTimingInterceptor} 统计单个请求内同一语句的执行次数（N+1 检测）
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public class SqlRequestScopeFilter extends OncePerRequestFilter {
+
+    private final SqlTimingInterceptor sqlTimingInterceptor;
+
+    public SqlRequestScopeFilter(SqlTimingInterceptor sqlTimingInterceptor) {
+        this.sqlTimingInterceptor = sqlTimingInterceptor;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean started = sqlTimingInterceptor.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (started) {
+                sqlTimingInterceptor.endRequest(request.getMethod() + " " + request.getRequestURI());
+            }
+        }
+    }
+}
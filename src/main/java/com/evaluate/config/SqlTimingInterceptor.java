@@ -0,0 +1,313 @@
+package com.evaluate.config;
+
+import com.evaluate.util.EventRingBuffer;
+import com.evaluate.util.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL执行耗时拦截器
+ *
+ * 在 Executor 层记录每个 Mapper 方法（MappedStatement ID）的耗时分布、返回行数或影响行数；
+ * 耗时超过阈值的语句连同绑定参数写入慢查询环形缓冲区。HTTP 请求期间（由 {@link SqlRequestScopeFilter} 标记）
+ * 同一语句在当前线程执行次数超过阈值时记为一次 N+1 查询。统计经 /api/monitor/sql 查询，
+ * 生产环境可关闭 MyBatis 的逐条 SQL 日志而不丢失可见性。
+ *
+ * 批量执行器（ExecutorType.BATCH）的 update 在 flushStatements 时才真正执行，此处只记录加入批次的耗时；
+ * 游标查询只记录打开游标的耗时，不计行数；请求内派发到其他线程（如并行执行地区算法）的语句不计入 N+1 统计。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Slf4j
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "queryCursor",
+                args = {MappedStatement.class, Object.class, RowBounds.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class})
+})
+public class SqlTimingInterceptor implements Interceptor {
+
+    private static final int MAX_SQL_LENGTH = 2000;
+    private static final int MAX_PARAMETER_LENGTH = 200;
+
+    private final boolean enabled;
+    private final long slowThresholdNanos;
+    private final int nPlusOneThreshold;
+
+    private final Map<String, StatementStats> statementStats = new ConcurrentHashMap<>();
+
+    // 慢查询与 N+1 记录（无锁环形缓冲区，不按规则分组）
+    private final EventRingBuffer<Void> slowStatements;
+    private final EventRingBuffer<Void> nPlusOneEvents;
+
+    // 嵌套调用深度：分页等插件会在内部再次调用 query，只由最外层记录
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    // 当前请求内各语句的执行次数，请求范围外为 null
+    private final ThreadLocal<Map<String, int[]>> requestCounts = new ThreadLocal<>();
+
+    /**
+     * @param enabled 是否记录
+     * @param slowThresholdMs 慢查询阈值（毫秒）
+     * @param slowLogCapacity 慢查询环形缓冲区容量
+     * @param nPlusOneThreshold 单个请求内同一语句的执行次数超过该值记为 N+1
+     */
+    public SqlTimingInterceptor(boolean enabled, long slowThresholdMs, int slowLogCapacity, int nPlusOneThreshold) {
+        this.enabled = enabled;
+        this.slowThresholdNanos = Math.max(0L, slowThresholdMs) * 1_000_000L;
+        this.nPlusOneThreshold = Math.max(1, nPlusOneThreshold);
+        this.slowStatements = new EventRingBuffer<>(slowLogCapacity);
+        this.nPlusOneEvents = new EventRingBuffer<>(slowLogCapacity);
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        int[] level = depth.get();
+        if (!enabled || level[0] > 0) {
+            return invocation.proceed();
+        }
+        level[0]++;
+        long start = System.nanoTime();
+        Object result = null;
+        boolean success = false;
+        try {
+            result = invocation.proceed();
+            success = true;
+            return result;
+        } finally {
+            level[0]--;
+            long nanos = System.nanoTime() - start;
+            try {
+                record(invocation.getArgs(), result, nanos, success);
+            } catch (RuntimeException e) {
+                log.debug("记录SQL执行耗时失败", e);
+            }
+        }
+    }
+
+    private void record(Object[] args, Object result, long nanos, boolean success) {
+        MappedStatement ms = (MappedStatement) args[0];
+        String statementId = ms.getId();
+        long rows = rowCount(result);
+        statementStats.computeIfAbsent(statementId, id -> new StatementStats()).record(nanos, rows, success);
+
+        Map<String, int[]> counts = requestCounts.get();
+        if (counts != null) {
+            counts.computeIfAbsent(statementId, id -> new int[1])[0]++;
+        }
+
+        if (nanos >= slowThresholdNanos) {
+            BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : ms.getBoundSql(args[1]);
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("statementId", statementId);
+            event.put("sql", truncate(boundSql.getSql().replaceAll("\\s+", " "), MAX_SQL_LENGTH));
+            event.put("parameters", boundParameters(ms.getConfiguration(), boundSql));
+            event.put("executionTime", nanos / 1e6);
+            event.put("rows", rows);
+            event.put("success", success);
+            event.put("thread", Thread.currentThread().getName());
+            event.put("timestamp", System.currentTimeMillis());
+            slowStatements.append(event);
+            log.warn("慢SQL {} 耗时 {} ms, 行数 {}", statementId, nanos / 1_000_000L, rows);
+        }
+    }
+
+    /**
+     * 开始记录当前线程的请求范围（嵌套调用时保留外层范围）
+     *
+     * @return 是否由本次调用开启，开启者负责调用 {@link #endRequest(String)}
+     */
+    public boolean beginRequest() {
+        if (!enabled || requestCounts.get() != null) {
+            return false;
+        }
+        requestCounts.set(new HashMap<>());
+        return true;
+    }
+
+    /**
+     * 结束当前线程的请求范围，检查 N+1 查询
+     *
+     * @param requestUri 请求路径
+     */
+    public void endRequest(String requestUri) {
+        Map<String, int[]> counts = requestCounts.get();
+        requestCounts.remove();
+        if (counts == null) {
+            return;
+        }
+        for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+            int executions = entry.getValue()[0];
+            if (executions <= nPlusOneThreshold) {
+                continue;
+            }
+            StatementStats stats = statementStats.get(entry.getKey());
+            if (stats != null) {
+                stats.nPlusOneRequests.increment();
+            }
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("statementId", entry.getKey());
+            event.put("requestUri", requestUri);
+            event.put("executions", executions);
+            event.put("timestamp", System.currentTimeMillis());
+            nPlusOneEvents.append(event);
+            log.warn("疑似N+1查询: 请求 {} 中 {} 执行了 {} 次", requestUri, entry.getKey(), executions);
+        }
+    }
+
+    /**
+     * 各语句的统计（按累计耗时倒序），耗时单位为毫秒
+     *
+     * @param limit 最大条数
+     */
+    public List<Map<String, Object>> getStatementStats(int limit) {
+        List<Map<String, Object>> result = new ArrayList<>(statementStats.size());
+        statementStats.forEach((statementId, stats) -> result.add(stats.snapshot(statementId)));
+        result.sort(Comparator.comparingDouble(
+                (Map<String, Object> stats) -> ((Number) stats.get("totalExecutionTime")).doubleValue()).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * 最近的慢查询（按时间倒序）
+     */
+    public List<Map<String, Object>> getSlowStatements(int limit) {
+        return slowStatements.recent(limit);
+    }
+
+    /**
+     * 最近的 N+1 查询记录（按时间倒序）
+     */
+    public List<Map<String, Object>> getNPlusOneEvents(int limit) {
+        return nPlusOneEvents.recent(limit);
+    }
+
+    /**
+     * 监控配置与汇总
+     */
+    public Map<String, Object> getSummary() {
+        long executions = 0;
+        for (StatementStats stats : statementStats.values()) {
+            executions += stats.latency.getCount();
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("enabled", enabled);
+        summary.put("slowThresholdMs", slowThresholdNanos / 1_000_000L);
+        summary.put("nPlusOneThreshold", nPlusOneThreshold);
+        summary.put("statementCount", statementStats.size());
+        summary.put("totalExecutions", executions);
+        summary.put("slowStatementCount", slowStatements.size());
+        summary.put("nPlusOneEventCount", nPlusOneEvents.size());
+        return summary;
+    }
+
+    /**
+     * 清空统计与记录
+     */
+    public void reset() {
+        statementStats.clear();
+        slowStatements.clear();
+        nPlusOneEvents.clear();
+    }
+
+    private static long rowCount(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Number) {
+            // update 返回影响行数；批量执行器返回固定的负值，此时不计
+            return Math.max(0L, ((Number) result).longValue());
+        }
+        return 0L;
+    }
+
+    /**
+     * 按 MyBatis DefaultParameterHandler 的规则取绑定参数的值，只在记录慢查询时调用
+     */
+    private static List<Object> boundParameters(Configuration configuration, BoundSql boundSql) {
+        List<ParameterMapping> mappings = boundSql.getParameterMappings();
+        List<Object> values = new ArrayList<>(mappings.size());
+        Object parameterObject = boundSql.getParameterObject();
+        MetaObject metaObject = null;
+        for (ParameterMapping mapping : mappings) {
+            if (mapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = mapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameterObject == null) {
+                value = null;
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+                value = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                value = metaObject.getValue(property);
+            }
+            values.add(value == null || value instanceof Number || value instanceof Boolean
+                    ? value : truncate(String.valueOf(value), MAX_PARAMETER_LENGTH));
+        }
+        return values;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() > maxLength ? value.substring(0, maxLength) + "..." : value;
+    }
+
+    /**
+     * 单个语句的耗时分布与行数统计
+     */
+    private static final class StatementStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder totalRows = new LongAdder();
+        private final LongAdder nPlusOneRequests = new LongAdder();
+
+        private void record(long nanos, long rows, boolean success) {
+            latency.record(nanos, success);
+            totalRows.add(rows);
+        }
+
+        private Map<String, Object> snapshot(String statementId) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("statementId", statementId);
+            stats.putAll(latency.snapshot());
+            long executions = latency.getCount();
+            long rows = totalRows.sum();
+            stats.put("totalRows", rows);
+            stats.put("avgRows", executions == 0 ? 0.0 : (double) rows / executions);
+            stats.put("nPlusOneRequests", nPlusOneRequests.sum());
+            return stats;
+        }
+    }
+}
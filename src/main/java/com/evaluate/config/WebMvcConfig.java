@@ -61,6 +61,9 @@ public class WebMvcConfig implements WebMvcConfigurer {
         mediaTypes.add(new MediaType("application", "json", StandardCharsets.UTF_8));
         mediaTypes.add(new MediaType("text", "json", StandardCharsets.UTF_8));
         mediaTypes.add(MediaType.APPLICATION_JSON);
+        // Actuator 端点（health、metrics 等）的响应类型
+        mediaTypes.add(MediaType.parseMediaType("application/vnd.spring-boot.actuator.v3+json"));
+        mediaTypes.add(MediaType.parseMediaType("application/vnd.spring-boot.actuator.v2+json"));
         converter.setSupportedMediaTypes(mediaTypes);
         
         return converter;
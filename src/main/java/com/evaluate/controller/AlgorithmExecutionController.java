@@ -253,4 +253,17 @@ public class AlgorithmExecutionController {
             return Result.error("计算步骤结果失败: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * 获取分步评估计算缓存统计
+     */
+    @GetMapping("/step/cache/stats")
+    public Result<Map<String, Object>> getStepCacheStats() {
+        try {
+            return Result.success(algorithmExecutionService.getStepCacheStats());
+        } catch (Exception e) {
+            log.error("获取分步评估缓存统计失败", e);
+            return Result.error("获取分步评估缓存统计失败: " + e.getMessage());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.evaluate.controller;
 import com.evaluate.common.Result;
 import com.evaluate.entity.AlgorithmConfig;
 import com.evaluate.service.AlgorithmManagementService;
+import com.evaluate.service.ModelExecutionJobService;
 import com.evaluate.service.ModelExecutionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,9 @@ public class AlgorithmStepExecutionController {
     @Autowired
     private AlgorithmManagementService algorithmManagementService;
     
+    @Autowired
+    private ModelExecutionJobService modelExecutionJobService;
+    
     /**
      * 获取算法的所有步骤信息（用于显示步骤按钮）
      * 
@@ -136,6 +140,44 @@ public class AlgorithmStepExecutionController {
         }
     }
     
+    /**
+     * 异步执行多个步骤直到指定步骤：立即返回任务ID，进度通过 /api/execution-jobs/{jobId}/events 订阅
+     * 
+     * @param algorithmId 算法ID
+     * @param upToStepOrder 执行到第几步
+     * @param request 执行参数（regionCodes, weightConfigId）
+     * @return 任务状态
+     */
+    @PostMapping("/{algorithmId}/steps/execute-up-to/{upToStepOrder}/async")
+    public Result<Map<String, Object>> executeStepsUpToAsync(
+            @PathVariable Long algorithmId,
+            @PathVariable Integer upToStepOrder,
+            @RequestBody Map<String, Object> request) {
+        log.info("异步批量执行算法步骤到第{}步, algorithmId={}", upToStepOrder, algorithmId);
+        
+        try {
+            @SuppressWarnings("unchecked")
+            List<String> regionCodes = (List<String>) request.get("regionCodes");
+            Long weightConfigId = request.get("weightConfigId") != null 
+                    ? Long.valueOf(request.get("weightConfigId").toString()) : null;
+            
+            if (regionCodes == null || regionCodes.isEmpty()) {
+                return Result.error("地区代码列表不能为空");
+            }
+            
+            if (upToStepOrder == null || upToStepOrder <= 0) {
+                return Result.error("步骤顺序必须是正整数");
+            }
+            
+            return Result.success(modelExecutionJobService.submitAlgorithmExecution(
+                    algorithmId, upToStepOrder, regionCodes, weightConfigId));
+            
+        } catch (Exception e) {
+            log.error("提交算法步骤执行任务失败", e);
+            return Result.error("提交算法步骤执行任务失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 获取算法的详细配置信息（包括步骤和公式）
      * 
@@ -80,6 +80,20 @@ public class EvaluationController {
         }
     }
 
+    @PostMapping("/batch/summary")
+    public Result<Map<String, Object>> batchEvaluationWithSummary(
+            @RequestBody List<Long> surveyIds,
+            @RequestParam Long algorithmId,
+            @RequestParam Long weightConfigId) {
+        try {
+            Map<String, Object> results = evaluationService.batchEvaluationWithSummary(surveyIds, algorithmId, weightConfigId);
+            return Result.success(results);
+        } catch (Exception e) {
+            log.error("批量评估计算失败", e);
+            return Result.error("批量评估计算失败: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/process")
     public Result<Map<String, Object>> getAlgorithmProcessData(
             @RequestParam Long surveyId,
@@ -139,17 +153,19 @@ public class EvaluationController {
      * @param modelId 模型ID
      * @param regionCodes 地区代码列表
      * @param weightConfigId 权重配置ID
+     * @param parallel 是否并行执行各地区计算（可选，默认使用服务端配置）
      * @return 执行结果
      */
     @PostMapping("/execute-model")
     public Result<Map<String, Object>> executeModel(
             @RequestParam Long modelId,
             @RequestBody List<String> regionCodes,
-            @RequestParam Long weightConfigId) {
-        log.info("开始执行评估模型, modelId={}, regionCodes={}, weightConfigId={}", 
-                modelId, regionCodes, weightConfigId);
+            @RequestParam Long weightConfigId,
+            @RequestParam(required = false) Boolean parallel) {
+        log.info("开始执行评估模型, modelId={}, regionCodes={}, weightConfigId={}, parallel={}", 
+                modelId, regionCodes, weightConfigId, parallel);
         try {
-            Map<String, Object> result = modelExecutionService.executeModel(modelId, regionCodes, weightConfigId);
+            Map<String, Object> result = modelExecutionService.executeModel(modelId, regionCodes, weightConfigId, parallel);
             log.info("评估模型执行成功");
             return Result.success(result);
         } catch (Exception e) {
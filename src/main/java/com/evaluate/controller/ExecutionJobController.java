@@ -0,0 +1,113 @@
+package com.evaluate.controller;
+
+import com.evaluate.common.Result;
+import com.evaluate.service.ModelExecutionJobService;
+import com.evaluate.util.ExcelUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 异步执行任务控制器
+ * 查询任务状态与结果、订阅进度（SSE）、取消任务
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/execution-jobs")
+@CrossOrigin(origins = "*")
+public class ExecutionJobController {
+
+    @Autowired
+    private ModelExecutionJobService modelExecutionJobService;
+
+    /**
+     * 获取任务状态
+     *
+     * @param jobId 任务ID
+     * @return 任务状态与进度
+     */
+    @GetMapping("/{jobId}")
+    public Result<Map<String, Object>> getJobStatus(@PathVariable String jobId) {
+        Map<String, Object> status = modelExecutionJobService.getJobStatus(jobId);
+        if (status == null) {
+            return Result.error("任务不存在或已清理: " + jobId);
+        }
+        return Result.success(status);
+    }
+
+    /**
+     * 获取任务执行结果
+     *
+     * @param jobId 任务ID
+     * @return 执行结果
+     */
+    @GetMapping("/{jobId}/result")
+    public Result<Map<String, Object>> getJobResult(@PathVariable String jobId) {
+        Map<String, Object> status = modelExecutionJobService.getJobStatus(jobId);
+        if (status == null) {
+            return Result.error("任务不存在或已清理: " + jobId);
+        }
+        Map<String, Object> result = modelExecutionJobService.getJobResult(jobId);
+        if (result == null) {
+            return Result.error("任务尚未成功完成, 当前状态: " + status.get("status"));
+        }
+        return Result.success(result);
+    }
+
+    /**
+     * 下载任务执行结果二维表（tableData / columns）Excel，SXSSF 流式写入响应
+     *
+     * @param jobId 任务ID
+     * @param response HTTP响应
+     */
+    @GetMapping("/{jobId}/result/export")
+    @SuppressWarnings("unchecked")
+    public void exportJobResult(@PathVariable String jobId, HttpServletResponse response) throws IOException {
+        Map<String, Object> result = modelExecutionJobService.getJobResult(jobId);
+        Object tableData = result != null ? result.get("tableData") : null;
+        Object columns = result != null ? result.get("columns") : null;
+        if (!(tableData instanceof List) || !(columns instanceof List)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "任务不存在或尚未成功完成: " + jobId);
+            return;
+        }
+        Object modelName = result.get("modelName");
+        ExcelUtil.setDownloadHeaders(response, (modelName != null ? modelName : "评估结果") + "_" + jobId);
+        int rows = ExcelUtil.writeTable((List<Map<String, Object>>) columns,
+                (List<Map<String, Object>>) tableData, response.getOutputStream());
+        log.info("导出任务执行结果: jobId={}, 行数={}", jobId, rows);
+    }
+
+    /**
+     * 订阅任务进度（SSE 事件：status / step / progress）
+     *
+     * @param jobId 任务ID
+     * @return SSE 连接
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable String jobId) {
+        log.info("订阅任务进度: jobId={}", jobId);
+        return modelExecutionJobService.subscribe(jobId);
+    }
+
+    /**
+     * 取消任务
+     *
+     * @param jobId 任务ID
+     * @return 是否取消成功
+     */
+    @PostMapping("/{jobId}/cancel")
+    public Result<Boolean> cancelJob(@PathVariable String jobId) {
+        boolean cancelled = modelExecutionJobService.cancelJob(jobId);
+        return cancelled ? Result.success(true) : Result.error("任务不存在或已结束: " + jobId);
+    }
+}
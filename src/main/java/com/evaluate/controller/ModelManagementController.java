@@ -8,6 +8,7 @@ import com.evaluate.entity.StepAlgorithm;
 import com.evaluate.mapper.EvaluationModelMapper;
 import com.evaluate.mapper.ModelStepMapper;
 import com.evaluate.mapper.StepAlgorithmMapper;
+import com.evaluate.service.ModelExecutionJobService;
 import com.evaluate.service.QLExpressService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,6 +42,9 @@ public class ModelManagementController {
     @Autowired
     private QLExpressService qlExpressService;
 
+    @Autowired
+    private ModelExecutionJobService modelExecutionJobService;
+
     /**
      * 获取所有模型
      */
@@ -317,4 +321,33 @@ public class ModelManagementController {
         }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * 异步执行模型：立即返回任务ID，进度通过 /api/execution-jobs/{jobId}/events 订阅
+     */
+    @PostMapping("/models/{modelId}/execute-async")
+    public Map<String, Object> executeModelAsync(
+            @PathVariable Long modelId,
+            @RequestBody List<String> regionCodes,
+            @RequestParam(required = false) Long weightConfigId,
+            @RequestParam(required = false) Boolean parallel,
+            @RequestParam(required = false) String createBy) {
+        Map<String, Object> result = new HashMap<>();
+        try {
+            if (regionCodes == null || regionCodes.isEmpty()) {
+                result.put("success", false);
+                result.put("message", "地区代码列表不能为空");
+                return result;
+            }
+            Map<String, Object> job = modelExecutionJobService.submitModelExecution(
+                    modelId, regionCodes, weightConfigId, parallel, createBy);
+            result.put("success", true);
+            result.put("data", job);
+        } catch (Exception e) {
+            log.error("提交模型执行任务失败", e);
+            result.put("success", false);
+            result.put("message", e.getMessage());
+        }
+        return result;
+    }
+}
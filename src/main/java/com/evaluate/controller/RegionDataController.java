@@ -65,6 +65,70 @@ public class RegionDataController {
         }
     }
 
+    /**
+     * 根据区县名称获取乡镇列表
+     */
+    @GetMapping("/townships")
+    public Result<List<Map<String, Object>>> getTownships(
+            @RequestParam String dataType,
+            @RequestParam String provinceName,
+            @RequestParam String cityName,
+            @RequestParam String countyName) {
+        try {
+            List<Map<String, Object>> townships = regionDataService.getTownshipsByCounty(dataType, provinceName, cityName, countyName);
+            return Result.success(townships);
+        } catch (Exception e) {
+            return Result.error("获取乡镇列表失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 根据乡镇名称获取社区列表
+     */
+    @GetMapping("/communities")
+    public Result<List<Map<String, Object>>> getCommunities(
+            @RequestParam String dataType,
+            @RequestParam String provinceName,
+            @RequestParam String cityName,
+            @RequestParam String countyName,
+            @RequestParam String townshipName) {
+        try {
+            List<Map<String, Object>> communities = regionDataService.getCommunitiesByTownship(
+                    dataType, provinceName, cityName, countyName, townshipName);
+            return Result.success(communities);
+        } catch (Exception e) {
+            return Result.error("获取社区列表失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取所选节点（省/市/县/乡镇/社区）下的全部地区代码
+     */
+    @GetMapping("/region-codes")
+    public Result<List<String>> getRegionCodes(
+            @RequestParam String dataType,
+            @RequestParam String provinceName,
+            @RequestParam(required = false) String cityName,
+            @RequestParam(required = false) String countyName,
+            @RequestParam(required = false) String townshipName,
+            @RequestParam(required = false) String communityName) {
+        try {
+            List<String> regionCodes = regionDataService.getRegionCodes(
+                    dataType, provinceName, cityName, countyName, townshipName, communityName);
+            return Result.success(regionCodes);
+        } catch (Exception e) {
+            return Result.error("获取地区代码失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取层级索引统计信息
+     */
+    @GetMapping("/hierarchy/stats")
+    public Result<Map<String, Object>> getHierarchyStats() {
+        return Result.success(regionDataService.getHierarchyStats());
+    }
+
     /**
      * 根据选择的县获取对应的数据
      */
@@ -0,0 +1,89 @@
+package com.evaluate.controller;
+
+import com.evaluate.common.Result;
+import com.evaluate.config.SqlTimingInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL执行监控控制器
+ * 查询各 Mapper 方法的耗时分布与行数、最近的慢查询（含绑定参数）及疑似 N+1 查询
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/monitor/sql")
+@CrossOrigin(origins = "*")
+public class SqlMonitorController {
+
+    @Autowired
+    private SqlTimingInterceptor sqlTimingInterceptor;
+
+    /**
+     * 监控汇总
+     *
+     * @param limit 各列表的最大条数
+     * @return 配置、汇总信息及耗时最多的语句、最近的慢查询和 N+1 记录
+     */
+    @GetMapping
+    public Result<Map<String, Object>> getSummary(@RequestParam(defaultValue = "20") int limit) {
+        int bounded = Math.max(1, Math.min(limit, 500));
+        Map<String, Object> summary = new LinkedHashMap<>(sqlTimingInterceptor.getSummary());
+        summary.put("topStatements", sqlTimingInterceptor.getStatementStats(bounded));
+        summary.put("slowStatements", sqlTimingInterceptor.getSlowStatements(bounded));
+        summary.put("nPlusOneEvents", sqlTimingInterceptor.getNPlusOneEvents(bounded));
+        return Result.success(summary);
+    }
+
+    /**
+     * 各语句的耗时分布与行数统计（按累计耗时倒序）
+     *
+     * @param limit 最大条数
+     * @return 语句统计列表
+     */
+    @GetMapping("/statements")
+    public Result<List<Map<String, Object>>> getStatementStats(@RequestParam(defaultValue = "100") int limit) {
+        return Result.success(sqlTimingInterceptor.getStatementStats(Math.max(1, Math.min(limit, 1000))));
+    }
+
+    /**
+     * 最近的慢查询
+     *
+     * @param limit 最大条数
+     * @return 慢查询列表（按时间倒序）
+     */
+    @GetMapping("/slow")
+    public Result<List<Map<String, Object>>> getSlowStatements(@RequestParam(defaultValue = "50") int limit) {
+        return Result.success(sqlTimingInterceptor.getSlowStatements(Math.max(1, Math.min(limit, 1000))));
+    }
+
+    /**
+     * 最近的疑似 N+1 查询
+     *
+     * @param limit 最大条数
+     * @return N+1 记录列表（按时间倒序）
+     */
+    @GetMapping("/n-plus-one")
+    public Result<List<Map<String, Object>>> getNPlusOneEvents(@RequestParam(defaultValue = "50") int limit) {
+        return Result.success(sqlTimingInterceptor.getNPlusOneEvents(Math.max(1, Math.min(limit, 1000))));
+    }
+
+    /**
+     * 清空统计
+     *
+     * @return 操作结果
+     */
+    @DeleteMapping
+    public Result<Void> reset() {
+        sqlTimingInterceptor.reset();
+        log.info("SQL执行统计已清空");
+        return Result.success();
+    }
+}
@@ -3,11 +3,14 @@ package com.evaluate.controller;
 import com.evaluate.common.Result;
 import com.evaluate.entity.SurveyData;
 import com.evaluate.service.ISurveyDataService;
+import com.evaluate.util.ExcelUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -189,4 +192,42 @@ public class SurveyDataController {
             return Result.error("导出所有调查数据失败: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 下载调查数据Excel（流式写入响应，不在内存中生成完整文件）
+     */
+    @GetMapping("/export/{surveyName}/download")
+    public void downloadSurveyData(@PathVariable String surveyName, HttpServletResponse response) throws IOException {
+        try {
+            ExcelUtil.setDownloadHeaders(response, surveyName + "_调查数据");
+            surveyDataService.exportToExcel(surveyName, response.getOutputStream());
+        } catch (Exception e) {
+            log.error("下载调查数据失败", e);
+            sendDownloadError(response, "下载调查数据失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 下载所有调查数据Excel（流式写入响应，不在内存中生成完整文件）
+     */
+    @GetMapping("/export/all/download")
+    public void downloadAllSurveyData(HttpServletResponse response) throws IOException {
+        try {
+            ExcelUtil.setDownloadHeaders(response, "调查数据");
+            surveyDataService.exportAllToExcel(response.getOutputStream());
+        } catch (Exception e) {
+            log.error("下载所有调查数据失败", e);
+            sendDownloadError(response, "下载所有调查数据失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 尚未开始写出文件内容时改为返回错误状态；已开始写出时只能中断连接
+     */
+    private void sendDownloadError(HttpServletResponse response, String message) throws IOException {
+        if (!response.isCommitted()) {
+            response.reset();
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, message);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.evaluate.controller;
+
+import com.evaluate.common.Result;
+import com.evaluate.service.TOPSISCalculationLogger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TOPSIS计算会话日志控制器
+ * 查询最近完成的计算会话日志及日志存储状态
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/topsis/calculation-logs")
+@CrossOrigin(origins = "*")
+public class TOPSISCalculationLogController {
+
+    @Autowired
+    private TOPSISCalculationLogger calculationLogger;
+
+    /**
+     * 最近完成的会话日志
+     *
+     * @param limit 最大条数
+     * @return 会话日志列表（按完成时间倒序）
+     */
+    @GetMapping
+    public Result<List<Map<String, Object>>> getRecentSessionLogs(@RequestParam(defaultValue = "20") int limit) {
+        return Result.success(calculationLogger.getRecentSessionLogs(Math.max(1, Math.min(limit, 200))));
+    }
+
+    /**
+     * 会话日志详情
+     *
+     * @param sessionId 会话ID
+     * @return 会话日志
+     */
+    @GetMapping("/{sessionId}")
+    public Result<Map<String, Object>> getSessionLog(@PathVariable String sessionId) {
+        Map<String, Object> sessionLog = calculationLogger.getSessionLog(sessionId);
+        if (sessionLog == null) {
+            return Result.error("会话日志不存在或已超出保留范围: " + sessionId);
+        }
+        return Result.success(sessionLog);
+    }
+
+    /**
+     * 日志存储统计信息
+     *
+     * @return 统计信息
+     */
+    @GetMapping("/stats")
+    public Result<Map<String, Object>> getLogStoreStats() {
+        return Result.success(calculationLogger.getLogStoreStats());
+    }
+}
@@ -1,6 +1,7 @@
 package com.evaluate.controller;
 
 import com.evaluate.common.Result;
+import com.evaluate.service.ModelExecutionJobService;
 import com.evaluate.service.UnifiedEvaluationEngine;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +25,9 @@ public class UnifiedEvaluationController {
     @Autowired
     private UnifiedEvaluationEngine unifiedEvaluationEngine;
 
+    @Autowired
+    private ModelExecutionJobService modelExecutionJobService;
+
     /**
      * 获取支持的数据源类型
      */
@@ -48,44 +52,7 @@ public class UnifiedEvaluationController {
 
         try {
             // 构建评估请求
-            UnifiedEvaluationEngine.EvaluationRequest evaluationRequest = new UnifiedEvaluationEngine.EvaluationRequest();
-
-            // 解析请求参数
-            String dataSourceType = (String) request.get("dataSourceType");
-            if (dataSourceType == null || dataSourceType.trim().isEmpty()) {
-                return Result.error("数据源类型不能为空");
-            }
-            evaluationRequest.setDataSourceType(dataSourceType.trim());
-
-            // 算法ID
-            Object algorithmIdObj = request.get("algorithmId");
-            if (algorithmIdObj == null) {
-                return Result.error("算法ID不能为空");
-            }
-            evaluationRequest.setAlgorithmId(Long.valueOf(algorithmIdObj.toString()));
-
-            // 权重配置ID
-            Object weightConfigIdObj = request.get("weightConfigId");
-            if (weightConfigIdObj == null) {
-                return Result.error("权重配置ID不能为空");
-            }
-            evaluationRequest.setWeightConfigId(Long.valueOf(weightConfigIdObj.toString()));
-
-            // 地区代码列表
-            Object regionCodesObj = request.get("regionCodes");
-            if (regionCodesObj == null) {
-                return Result.error("地区代码列表不能为空");
-            }
-            @SuppressWarnings("unchecked")
-            java.util.List<String> regionCodes = (java.util.List<String>) regionCodesObj;
-            evaluationRequest.setRegionCodes(regionCodes);
-
-            // 额外参数
-            @SuppressWarnings("unchecked")
-            Map<String, Object> additionalParams = (Map<String, Object>) request.get("additionalParams");
-            if (additionalParams != null) {
-                evaluationRequest.setAdditionalParams(additionalParams);
-            }
+            UnifiedEvaluationEngine.EvaluationRequest evaluationRequest = buildEvaluationRequest(request);
 
             // 执行评估
             Map<String, Object> result = unifiedEvaluationEngine.executeEvaluation(evaluationRequest);
@@ -95,12 +62,81 @@ public class UnifiedEvaluationController {
         } catch (NumberFormatException e) {
             log.error("参数格式错误", e);
             return Result.error("参数格式错误: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
         } catch (Exception e) {
             log.error("执行统一评估计算失败", e);
             return Result.error("执行统一评估计算失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 异步执行完整评估计算：立即返回任务ID，进度通过 /api/execution-jobs/{jobId}/events 订阅
+     */
+    @PostMapping("/execute-async")
+    public Result<Map<String, Object>> executeEvaluationAsync(@RequestBody Map<String, Object> request) {
+        log.info("提交统一评估任务: {}", request);
+
+        try {
+            UnifiedEvaluationEngine.EvaluationRequest evaluationRequest = buildEvaluationRequest(request);
+            return Result.success(modelExecutionJobService.submitUnifiedEvaluation(evaluationRequest));
+
+        } catch (NumberFormatException e) {
+            log.error("参数格式错误", e);
+            return Result.error("参数格式错误: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return Result.error(e.getMessage());
+        } catch (Exception e) {
+            log.error("提交统一评估任务失败", e);
+            return Result.error("提交统一评估任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 解析完整评估请求参数，参数缺失时抛出 IllegalArgumentException
+     */
+    private UnifiedEvaluationEngine.EvaluationRequest buildEvaluationRequest(Map<String, Object> request) {
+        UnifiedEvaluationEngine.EvaluationRequest evaluationRequest = new UnifiedEvaluationEngine.EvaluationRequest();
+
+        // 解析请求参数
+        String dataSourceType = (String) request.get("dataSourceType");
+        if (dataSourceType == null || dataSourceType.trim().isEmpty()) {
+            throw new IllegalArgumentException("数据源类型不能为空");
+        }
+        evaluationRequest.setDataSourceType(dataSourceType.trim());
+
+        // 算法ID
+        Object algorithmIdObj = request.get("algorithmId");
+        if (algorithmIdObj == null) {
+            throw new IllegalArgumentException("算法ID不能为空");
+        }
+        evaluationRequest.setAlgorithmId(Long.valueOf(algorithmIdObj.toString()));
+
+        // 权重配置ID
+        Object weightConfigIdObj = request.get("weightConfigId");
+        if (weightConfigIdObj == null) {
+            throw new IllegalArgumentException("权重配置ID不能为空");
+        }
+        evaluationRequest.setWeightConfigId(Long.valueOf(weightConfigIdObj.toString()));
+
+        // 地区代码列表
+        Object regionCodesObj = request.get("regionCodes");
+        if (regionCodesObj == null) {
+            throw new IllegalArgumentException("地区代码列表不能为空");
+        }
+        @SuppressWarnings("unchecked")
+        java.util.List<String> regionCodes = (java.util.List<String>) regionCodesObj;
+        evaluationRequest.setRegionCodes(regionCodes);
+
+        // 额外参数
+        @SuppressWarnings("unchecked")
+        Map<String, Object> additionalParams = (Map<String, Object>) request.get("additionalParams");
+        if (additionalParams != null) {
+            evaluationRequest.setAdditionalParams(additionalParams);
+        }
+        return evaluationRequest;
+    }
+
     /**
      * 执行步骤评估计算
      */
@@ -0,0 +1,78 @@
+package com.evaluate.dto;
+
+import com.evaluate.entity.SurveyData;
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一次模型执行内共享的地区基础数据快照
+ *
+ * 由 RegionDataLoader 按 region_code IN (...) 批量加载，放入全局上下文后供各步骤复用，
+ * 避免每个步骤、每个地区单独查询数据库。
+ *
+ * @author System
+ * @since 2025-01-01
+ */
+@Data
+public class RegionDataSnapshot {
+
+    /**
+     * 社区数据（community_disaster_reduction_capacity，key为region_code，value为selectMaps原始行）
+     */
+    private Map<String, Map<String, Object>> communityRows = new HashMap<>();
+
+    /**
+     * 调查数据（survey_data，key为region_code）
+     */
+    private Map<String, SurveyData> surveyRows = new HashMap<>();
+
+    /**
+     * 已请求过社区数据的地区代码（包括库中不存在的代码，避免重复查询）
+     */
+    private Set<String> communityRequested = new HashSet<>();
+
+    /**
+     * 已请求过调查数据的地区代码
+     */
+    private Set<String> surveyRequested = new HashSet<>();
+
+    /**
+     * 累计查询批次数
+     */
+    private int batchCount;
+
+    /**
+     * 累计读取行数
+     */
+    private int rowsFetched;
+
+    /**
+     * 累计耗时（毫秒）
+     */
+    private long elapsedMillis;
+
+    /**
+     * 加载统计信息（用于日志与执行结果展示）
+     */
+    public Map<String, Object> toStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("communityRegions", communityRows.size());
+        stats.put("surveyRegions", surveyRows.size());
+        stats.put("batchCount", batchCount);
+        stats.put("rowsFetched", rowsFetched);
+        stats.put("elapsedMillis", elapsedMillis);
+        return stats;
+    }
+
+    /**
+     * 快照会随上下文一起进入调试日志，只输出统计信息，避免打印全部数据行
+     */
+    @Override
+    public String toString() {
+        return "RegionDataSnapshot" + toStats();
+    }
+}
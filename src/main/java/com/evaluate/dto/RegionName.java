@@ -0,0 +1,50 @@
+package com.evaluate.dto;
+
+import lombok.Data;
+
+/**
+ * 地区展示名称（省、市、县、乡镇、社区）
+ *
+ * 社区数据来自 community_disaster_reduction_capacity，调查数据来自 survey_data（无社区名称）。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Data
+public class RegionName {
+
+    private String regionCode;
+
+    private String provinceName;
+
+    private String cityName;
+
+    private String countyName;
+
+    private String townshipName;
+
+    private String communityName;
+
+    /**
+     * 完整名称：非空的省、市、县、乡镇、社区名称以"-"连接，都为空时返回地区代码
+     */
+    public String getFullName() {
+        StringBuilder fullName = new StringBuilder();
+        append(fullName, provinceName);
+        append(fullName, cityName);
+        append(fullName, countyName);
+        append(fullName, townshipName);
+        append(fullName, communityName);
+        return fullName.length() > 0 ? fullName.toString() : regionCode;
+    }
+
+    private static void append(StringBuilder fullName, String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return;
+        }
+        if (fullName.length() > 0) {
+            fullName.append("-");
+        }
+        fullName.append(name);
+    }
+}
@@ -1,9 +1,15 @@
 package com.evaluate.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.evaluate.entity.SurveyData;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.util.List;
 
@@ -62,4 +68,14 @@ public interface SurveyDataMapper extends BaseMapper<SurveyData> {
      * @return 调查数据列表
      */
     List<SurveyData> selectByCharsetAttribute(@Param("charsetAttribute") String charsetAttribute);
-}
\ No newline at end of file
+
+    /**
+     * 按条件以游标方式逐行读取调查数据（需在事务内遍历，用于导出等大数据量场景）
+     * 
+     * @param queryWrapper 查询条件
+     * @return 调查数据游标
+     */
+    @Select("SELECT * FROM survey_data ${ew.customSqlSegment}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 500)
+    Cursor<SurveyData> selectCursor(@Param(Constants.WRAPPER) Wrapper<SurveyData> queryWrapper);
+}
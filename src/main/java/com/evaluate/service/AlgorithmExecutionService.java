@@ -78,4 +78,11 @@ public interface AlgorithmExecutionService {
         List<String> regionIds,
         Map<String, Object> parameters
     );
-}
\ No newline at end of file
+    
+    /**
+     * 获取分步评估计算上下文缓存统计信息（条目数、容量、命中、未命中、命中率、淘汰次数）
+     * 
+     * @return 统计信息
+     */
+    Map<String, Object> getStepCacheStats();
+}
@@ -0,0 +1,34 @@
+package com.evaluate.service;
+
+import com.evaluate.entity.ModelStep;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式模型执行服务接口
+ *
+ * 评估模型的另一种执行方式：地区数据与各步骤输出按列存放为 double[]，
+ * 特殊标记与乡镇聚合按整列计算，只在返回结果时生成 stepResults 所需的 Map 结构。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public interface ColumnarExecutionService {
+
+    /**
+     * 按顺序执行模型的全部步骤
+     *
+     * @param modelId 模型ID
+     * @param steps 已按 step_order 排序的启用步骤
+     * @param regionCodes 地区代码列表
+     * @param sourceRows 各地区的源数据（key为地区代码，value为变量名到值的映射）
+     * @param globalContext 全局上下文（权重等，表达式中找不到列时回退读取）
+     * @param stepOutputParams 输出：步骤序号 -> 该步骤输出的算法名称列表
+     * @return 与逐地区执行相同结构的 stepResults（key为步骤编码）
+     */
+    Map<String, Object> executeSteps(Long modelId, List<ModelStep> steps, List<String> regionCodes,
+                                     Map<String, Map<String, Object>> sourceRows,
+                                     Map<String, Object> globalContext,
+                                     Map<Integer, List<String>> stepOutputParams);
+}
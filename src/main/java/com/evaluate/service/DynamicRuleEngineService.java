@@ -23,6 +23,15 @@ public interface DynamicRuleEngineService {
      */
     Object executeRule(DynamicRule rule, Map<String, Object> context);
 
+    /**
+     * 批量执行同一规则：规则只编译一次，逐个上下文执行，单个上下文失败不影响其余上下文
+     * 
+     * @param rule 动态规则
+     * @param contexts 执行上下文列表
+     * @return 执行结果（results 与 contexts 按序对应，失败项为null；errors 为失败序号与错误信息；performance 为规则性能统计）
+     */
+    Map<String, Object> executeRuleBatch(DynamicRule rule, List<Map<String, Object>> contexts);
+
     /**
      * 批量执行规则链
      * 
@@ -73,6 +82,13 @@ public interface DynamicRuleEngineService {
      */
     void clearRuleCache(Long ruleId);
 
+    /**
+     * 规则修改或删除后调用，使该规则的缓存和编译结果立即失效，下次执行时重新加载
+     *
+     * @param ruleId 规则ID
+     */
+    void invalidateRule(Long ruleId);
+
     /**
      * 获取规则性能统计
      * 
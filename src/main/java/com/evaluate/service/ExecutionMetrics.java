@@ -0,0 +1,82 @@
+package com.evaluate.service;
+
+/**
+ * 模型执行指标
+ *
+ * 执行引擎在步骤、算法、数据加载和结果整理等阶段结束时回调，由实现类导出为计时器和仪表
+ * （Actuator 的 /actuator/prometheus）。耗时单位均为纳秒；标签中的步骤编码、算法名称等取值
+ * 由实现类限制数量，超出部分合并为同一个取值。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public interface ExecutionMetrics {
+
+    /**
+     * 不记录任何指标（未配置指标实现时使用）
+     */
+    ExecutionMetrics NONE = new ExecutionMetrics() {
+    };
+
+    /**
+     * 单个算法的计时器，在步骤开始时按算法获取一次，逐地区执行时直接记录
+     */
+    @FunctionalInterface
+    interface AlgorithmTimer {
+
+        AlgorithmTimer NONE = (nanos, success) -> {
+        };
+
+        /**
+         * 记录算法在一个地区上的一次执行
+         *
+         * @param nanos 耗时
+         * @param success 是否执行成功
+         */
+        void record(long nanos, boolean success);
+    }
+
+    /**
+     * 获取算法计时器
+     *
+     * @param modelId 模型ID
+     * @param stepCode 步骤编码
+     * @param algorithmName 算法名称
+     * @param marker 是否为特殊标记算法（@MARKER），否则为QLExpress表达式
+     */
+    default AlgorithmTimer algorithmTimer(Long modelId, String stepCode, String algorithmName, boolean marker) {
+        return AlgorithmTimer.NONE;
+    }
+
+    /**
+     * 步骤执行完成
+     *
+     * @param modelId 模型ID
+     * @param stepCode 步骤编码
+     * @param nanos 耗时
+     * @param regionCount 地区数量
+     * @param contextSize 单个地区上下文的变量数量
+     */
+    default void recordStep(Long modelId, String stepCode, long nanos, int regionCount, int contextSize) {
+    }
+
+    /**
+     * 数据库加载完成
+     *
+     * @param source 数据来源（表名或加载阶段）
+     * @param nanos 耗时
+     * @param rows 加载行数
+     */
+    default void recordLoad(String source, long nanos, int rows) {
+    }
+
+    /**
+     * 执行阶段完成（乡镇聚合、结果表生成、列定义生成、整个模型执行等）
+     *
+     * @param modelId 模型ID
+     * @param phase 阶段名称
+     * @param nanos 耗时
+     */
+    default void recordPhase(Long modelId, String phase, long nanos) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.evaluate.service;
+
+import java.util.Map;
+
+/**
+ * 模型执行进度监听器
+ *
+ * 通过执行上下文（key 为 {@link ModelExecutionService#PROGRESS_CONTEXT_KEY}）传入执行引擎，
+ * 在步骤开始/结束以及地区计算完成时回调；并行执行时可能在多个线程中同时回调，实现需保证线程安全。
+ * 引擎在步骤与地区边界检查 {@link #isCancelled()}，返回 true 时抛出
+ * {@link java.util.concurrent.CancellationException} 终止执行。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public interface ExecutionProgressListener {
+
+    /**
+     * 不做任何处理的监听器（上下文中未传入监听器时使用）
+     */
+    ExecutionProgressListener NONE = new ExecutionProgressListener() {
+    };
+
+    /**
+     * 步骤开始执行
+     *
+     * @param stepCode 步骤编码
+     * @param stepName 步骤名称
+     * @param stepIndex 步骤序号（从0开始）
+     * @param stepCount 步骤总数
+     */
+    default void onStepStarted(String stepCode, String stepName, int stepIndex, int stepCount) {
+    }
+
+    /**
+     * 步骤内地区计算进度
+     *
+     * @param stepCode 步骤编码
+     * @param completed 已完成地区数
+     * @param total 地区总数
+     */
+    default void onRegionProgress(String stepCode, int completed, int total) {
+    }
+
+    /**
+     * 步骤执行完成
+     *
+     * @param stepCode 步骤编码
+     * @param stepIndex 步骤序号（从0开始）
+     * @param stepCount 步骤总数
+     */
+    default void onStepCompleted(String stepCode, int stepIndex, int stepCount) {
+    }
+
+    /**
+     * 执行是否已被取消
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * 从执行上下文中获取监听器，未设置时返回 {@link #NONE}
+     */
+    static ExecutionProgressListener of(Map<String, Object> context) {
+        Object listener = context.get(ModelExecutionService.PROGRESS_CONTEXT_KEY);
+        return listener instanceof ExecutionProgressListener ? (ExecutionProgressListener) listener : NONE;
+    }
+}
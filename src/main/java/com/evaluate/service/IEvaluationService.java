@@ -124,6 +124,16 @@ public interface IEvaluationService {
      */
     List<Map<String, Object>> batchEvaluation(List<Long> surveyIds, Long algorithmId, Long weightConfigId);
 
+    /**
+     * 批量评估计算并返回汇总信息
+     * 
+     * @param surveyIds 调查数据ID列表
+     * @param algorithmId 算法配置ID
+     * @param weightConfigId 权重配置ID
+     * @return results 为各调查数据的计算结果（与 surveyIds 按序对应），summary 为成功/失败数、耗时与吞吐量
+     */
+    Map<String, Object> batchEvaluationWithSummary(List<Long> surveyIds, Long algorithmId, Long weightConfigId);
+
     /**
      * 对比评估结果
      * 
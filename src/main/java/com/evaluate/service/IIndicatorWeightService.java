@@ -22,6 +22,13 @@ public interface IIndicatorWeightService extends IService<IndicatorWeight> {
      */
     List<IndicatorWeight> getByConfigId(Long configId);
 
+    /**
+     * 指标权重数据版本，每次通过本服务写入权重（新增、修改、删除）后递增，用于使依赖权重的计算缓存失效
+     *
+     * @return 当前版本
+     */
+    long getWeightVersion();
+
     /**
      * 根据配置ID和指标级别查询权重列表
      * 
@@ -29,6 +29,28 @@ public interface IRegionDataService {
      */
     List<Map<String, Object>> getCountiesByCity(String dataType, String provinceName, String cityName);
 
+    /**
+     * 根据区县名称获取乡镇列表
+     * @param dataType 数据类型（township/community）
+     * @param provinceName 省份名称
+     * @param cityName 城市名称
+     * @param countyName 县名称
+     * @return 乡镇列表（调查数据另含 regionCode）
+     */
+    List<Map<String, Object>> getTownshipsByCounty(String dataType, String provinceName, String cityName, String countyName);
+
+    /**
+     * 根据乡镇名称获取社区列表
+     * @param dataType 数据类型（township/community）
+     * @param provinceName 省份名称
+     * @param cityName 城市名称
+     * @param countyName 县名称
+     * @param townshipName 乡镇名称
+     * @return 社区列表（含 regionCode），调查数据无社区层级时为空
+     */
+    List<Map<String, Object>> getCommunitiesByTownship(String dataType, String provinceName, String cityName,
+                                                       String countyName, String townshipName);
+
     /**
      * 根据选择的县获取对应的数据
      * @param dataType 数据类型（township/community）
@@ -38,4 +60,23 @@ public interface IRegionDataService {
      * @return 数据列表
      */
     List<?> getDataByCounty(String dataType, String provinceName, String cityName, String countyName);
-}
\ No newline at end of file
+
+    /**
+     * 获取节点下的全部地区代码，用于一次选择整个区县或乡镇
+     * @param dataType 数据类型（township/community）
+     * @param provinceName 省份名称
+     * @param cityName 城市名称（可为空）
+     * @param countyName 县名称（可为空）
+     * @param townshipName 乡镇名称（可为空）
+     * @param communityName 社区名称（可为空）
+     * @return 地区代码列表
+     */
+    List<String> getRegionCodes(String dataType, String provinceName, String cityName, String countyName,
+                                String townshipName, String communityName);
+
+    /**
+     * 获取层级索引统计信息
+     * @return 统计信息
+     */
+    Map<String, Object> getHierarchyStats();
+}
@@ -4,6 +4,8 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.evaluate.entity.SurveyData;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -62,6 +64,16 @@ public interface ISurveyDataService extends IService<SurveyData> {
      */
     byte[] exportToExcel(String surveyName);
 
+    /**
+     * 导出调查数据到Excel输出流（游标逐行读取，SXSSF 流式写入）
+     * 
+     * @param surveyName 调查名称
+     * @param outputStream 输出流
+     * @return 导出的数据行数
+     * @throws IOException 写入失败
+     */
+    int exportToExcel(String surveyName, OutputStream outputStream) throws IOException;
+
     /**
      * 获取所有指标代码
      * 
@@ -107,4 +119,13 @@ public interface ISurveyDataService extends IService<SurveyData> {
      * @return Excel文件字节数组
      */
     byte[] exportAllToExcel();
+
+    /**
+     * 导出所有调查数据到Excel输出流（游标逐行读取，SXSSF 流式写入）
+     * 
+     * @param outputStream 输出流
+     * @return 导出的数据行数
+     * @throws IOException 写入失败
+     */
+    int exportAllToExcel(OutputStream outputStream) throws IOException;
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.evaluate.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 异步模型执行任务服务接口
+ *
+ * 提交后立即返回任务ID，任务在独立的有界线程池中执行；
+ * 步骤与地区进度通过 SSE 推送，模型执行同时写入 model_execution_record。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public interface ModelExecutionJobService {
+
+    /**
+     * 提交评估模型执行任务
+     *
+     * @param modelId 模型ID
+     * @param regionCodes 地区代码列表
+     * @param weightConfigId 权重配置ID
+     * @param parallel 是否并行执行，为null时使用配置默认值
+     * @param createBy 执行人
+     * @return 任务状态（包含 jobId）
+     */
+    Map<String, Object> submitModelExecution(Long modelId, List<String> regionCodes, Long weightConfigId,
+                                             Boolean parallel, String createBy);
+
+    /**
+     * 提交算法步骤批量执行任务（执行到指定步骤）
+     *
+     * @param algorithmId 算法ID
+     * @param upToStepOrder 执行到第几步（包含该步骤）
+     * @param regionCodes 地区代码列表
+     * @param weightConfigId 权重配置ID
+     * @return 任务状态（包含 jobId）
+     */
+    Map<String, Object> submitAlgorithmExecution(Long algorithmId, Integer upToStepOrder, List<String> regionCodes,
+                                                 Long weightConfigId);
+
+    /**
+     * 提交统一评估任务
+     *
+     * @param request 评估请求参数
+     * @return 任务状态（包含 jobId）
+     */
+    Map<String, Object> submitUnifiedEvaluation(UnifiedEvaluationEngine.EvaluationRequest request);
+
+    /**
+     * 获取任务状态（不含执行结果）
+     *
+     * @param jobId 任务ID
+     * @return 任务状态，任务不存在或已清理时返回null
+     */
+    Map<String, Object> getJobStatus(String jobId);
+
+    /**
+     * 获取任务执行结果
+     *
+     * @param jobId 任务ID
+     * @return 执行结果，任务未成功完成时返回null
+     */
+    Map<String, Object> getJobResult(String jobId);
+
+    /**
+     * 订阅任务进度（SSE），任务已结束时立即推送最终状态并关闭
+     *
+     * @param jobId 任务ID
+     * @return SSE 连接
+     */
+    SseEmitter subscribe(String jobId);
+
+    /**
+     * 取消任务（排队中的任务不再执行，执行中的任务在下一个步骤或地区边界终止）
+     *
+     * @param jobId 任务ID
+     * @return 是否取消成功
+     */
+    boolean cancelJob(String jobId);
+
+    /**
+     * 清理超过保留时间的已结束任务
+     *
+     * @return 清理的任务数量
+     */
+    int cleanupFinishedJobs();
+}
@@ -12,6 +12,16 @@ import java.util.Map;
  */
 public interface ModelExecutionService {
 
+    /**
+     * 上下文中控制是否并行执行地区计算的键（值为Boolean，不存在时使用配置 evaluation.parallel.enabled）
+     */
+    String PARALLEL_CONTEXT_KEY = "_parallelExecution";
+
+    /**
+     * 上下文中执行进度监听器的键（值为 {@link ExecutionProgressListener}）
+     */
+    String PROGRESS_CONTEXT_KEY = "_progressListener";
+
     /**
      * 执行评估模型
      * 
@@ -22,6 +32,30 @@ public interface ModelExecutionService {
      */
     Map<String, Object> executeModel(Long modelId, List<String> regionCodes, Long weightConfigId);
 
+    /**
+     * 执行评估模型，并指定本次请求是否并行执行各地区的计算
+     * 
+     * @param modelId 模型ID
+     * @param regionCodes 地区代码列表
+     * @param weightConfigId 权重配置ID
+     * @param parallel 是否并行执行，为null时使用配置默认值
+     * @return 执行结果（包含每个步骤的输出）
+     */
+    Map<String, Object> executeModel(Long modelId, List<String> regionCodes, Long weightConfigId, Boolean parallel);
+
+    /**
+     * 执行评估模型，并通过监听器报告步骤与地区进度（异步任务使用）
+     * 
+     * @param modelId 模型ID
+     * @param regionCodes 地区代码列表
+     * @param weightConfigId 权重配置ID
+     * @param parallel 是否并行执行，为null时使用配置默认值
+     * @param listener 进度监听器，可为null
+     * @return 执行结果（包含每个步骤的输出）
+     */
+    Map<String, Object> executeModel(Long modelId, List<String> regionCodes, Long weightConfigId, Boolean parallel,
+                                     ExecutionProgressListener listener);
+
     /**
      * 执行单个步骤
      * 
@@ -52,7 +86,7 @@ public interface ModelExecutionService {
     Map<String, Object> executeAlgorithmStep(Long algorithmId, Integer stepOrder, List<String> regionCodes, Long weightConfigId);
 
     /**
-     * 获取算法所有步骤的基本信息
+     * 获取算法所有步骤的基本信息（含各步骤公式的依赖图 dependencyGraph：节点、分层与关键路径）
      * 
      * @param algorithmId 算法ID
      * @return 算法步骤列表信息
@@ -69,4 +103,17 @@ public interface ModelExecutionService {
      * @return 所有已执行步骤的结果
      */
     Map<String, Object> executeAlgorithmStepsUpTo(Long algorithmId, Integer upToStepOrder, List<String> regionCodes, Long weightConfigId);
+
+    /**
+     * 批量执行算法步骤（直到指定步骤），并通过监听器报告步骤与地区进度（异步任务使用）
+     * 
+     * @param algorithmId 算法ID
+     * @param upToStepOrder 执行到第几步（包含该步骤）
+     * @param regionCodes 地区代码列表
+     * @param weightConfigId 权重配置ID
+     * @param listener 进度监听器，可为null
+     * @return 所有已执行步骤的结果
+     */
+    Map<String, Object> executeAlgorithmStepsUpTo(Long algorithmId, Integer upToStepOrder, List<String> regionCodes,
+                                                  Long weightConfigId, ExecutionProgressListener listener);
 }
\ No newline at end of file
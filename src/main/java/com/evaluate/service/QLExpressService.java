@@ -1,6 +1,11 @@
 package com.evaluate.service;
 
+import com.ql.util.express.IExpressContext;
+import com.ql.util.express.InstructionSet;
+
+import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * QLExpress规则引擎服务接口
@@ -20,6 +25,60 @@ public interface QLExpressService {
      */
     Object execute(String expression, Map<String, Object> context) throws Exception;
 
+    /**
+     * 使用调用方提供的上下文执行QLExpress表达式（如列式执行模式下的行上下文）
+     * 
+     * @param expression QLExpress表达式
+     * @param context QLExpress执行上下文
+     * @return 执行结果
+     * @throws Exception 执行异常
+     */
+    Object execute(String expression, IExpressContext<String, Object> context) throws Exception;
+
+    /**
+     * 执行预编译的表达式（步骤内各地区直接复用编译结果，不再查找编译缓存）
+     * 
+     * @param instructionSet 编译结果
+     * @param context 执行上下文参数
+     * @return 执行结果
+     * @throws Exception 执行异常
+     */
+    Object execute(InstructionSet instructionSet, Map<String, Object> context) throws Exception;
+
+    /**
+     * 使用调用方提供的上下文执行预编译的表达式
+     * 
+     * @param instructionSet 编译结果
+     * @param context QLExpress执行上下文
+     * @return 执行结果
+     * @throws Exception 执行异常
+     */
+    Object execute(InstructionSet instructionSet, IExpressContext<String, Object> context) throws Exception;
+
+    /**
+     * 预编译表达式并放入编译缓存（编译失败的表达式仅记录日志，执行时再报错）
+     * 
+     * @param expressions QLExpress表达式集合
+     * @return 表达式 -> 编译结果（不含编译失败的表达式），调用方在整个步骤内直接使用
+     */
+    Map<String, InstructionSet> precompile(Collection<String> expressions);
+
+    /**
+     * 获取表达式编译缓存统计信息（容量、命中、未命中、淘汰次数）
+     * 
+     * @return 统计信息
+     */
+    Map<String, Object> getCacheStats();
+
+    /**
+     * 获取表达式读取的外部变量名（基于编译结果，不执行表达式）
+     * 
+     * @param expression QLExpress表达式
+     * @return 变量名集合
+     * @throws Exception 表达式编译失败
+     */
+    Set<String> getReferencedVariables(String expression) throws Exception;
+
     /**
      * 验证QLExpress表达式语法
      * 
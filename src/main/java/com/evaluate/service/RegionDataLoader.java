@@ -0,0 +1,38 @@
+package com.evaluate.service;
+
+import com.evaluate.dto.RegionDataSnapshot;
+
+import java.util.Collection;
+
+/**
+ * 地区基础数据批量加载服务接口
+ * 按 region_code IN (...) 分批查询社区数据和调查数据，结果写入执行期共享的快照
+ *
+ * @author System
+ * @since 2025-01-01
+ */
+public interface RegionDataLoader {
+
+    /**
+     * 全局上下文中保存快照的键
+     */
+    String CONTEXT_KEY = "_regionDataSnapshot";
+
+    /**
+     * 确保快照中包含指定地区的社区数据（community_disaster_reduction_capacity）
+     * 已加载过的地区不会重复查询
+     *
+     * @param snapshot 执行期快照
+     * @param regionCodes 地区代码列表
+     */
+    void ensureCommunityData(RegionDataSnapshot snapshot, Collection<String> regionCodes);
+
+    /**
+     * 确保快照中包含指定地区的调查数据（survey_data）
+     * 已加载过的地区不会重复查询
+     *
+     * @param snapshot 执行期快照
+     * @param regionCodes 地区代码列表
+     */
+    void ensureSurveyData(RegionDataSnapshot snapshot, Collection<String> regionCodes);
+}
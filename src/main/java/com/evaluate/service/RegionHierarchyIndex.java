@@ -0,0 +1,93 @@
+package com.evaluate.service;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 行政区划层级索引服务接口
+ * 按数据类型（调查数据 survey_data / 社区数据 community_disaster_reduction_capacity）在内存中维护
+ * 省 → 市 → 县 → 乡镇 → 社区 的树，级联选择、按节点取数据和取地区代码都直接从树上返回。
+ * 数据写入或删除后通知索引，只重新查询受影响的区县；其他情况（如按条件批量删除）调用 {@link #invalidate(String)} 整体重建
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public interface RegionHierarchyIndex {
+
+    /**
+     * 乡镇（调查数据）类型
+     */
+    String DATA_TYPE_TOWNSHIP = "township";
+
+    /**
+     * 社区类型，其余取值均按调查数据处理
+     */
+    String DATA_TYPE_COMMUNITY = "community";
+
+    /**
+     * 节点的下级列表
+     *
+     * @param dataType 数据类型（township/community）
+     * @param path 节点路径（省、市、县、乡镇名称），为空时返回省份列表
+     * @return 下级节点（name、code、count，最末一级另含 regionCode），按数据ID首次出现的顺序；节点不存在时返回空列表
+     */
+    List<Map<String, Object>> getChildren(String dataType, String... path);
+
+    /**
+     * 节点下的全部数据行（按ID顺序），索引只用于判断节点是否存在，完整数据行按节点路径实时查询
+     *
+     * @param dataType 数据类型（township/community）
+     * @param path 节点路径（省、市、县、乡镇、社区名称）
+     * @return 数据行（SurveyData 或 CommunityDisasterReductionCapacity），节点不存在时返回空列表
+     */
+    List<?> getRows(String dataType, String... path);
+
+    /**
+     * 节点下的全部地区代码（去重，按ID顺序），用于一次选择整个区县或乡镇
+     *
+     * @param dataType 数据类型（township/community）
+     * @param path 节点路径（省、市、县、乡镇、社区名称）
+     * @return 地区代码列表，节点不存在时返回空列表
+     */
+    List<String> getRegionCodes(String dataType, String... path);
+
+    /**
+     * 数据新增或修改后调用，标记数据新旧所属的区县待重建
+     *
+     * @param dataType 数据类型（township/community）
+     * @param rows 写入的实体
+     */
+    void onRowsChanged(String dataType, Collection<?> rows);
+
+    /**
+     * 按ID删除数据后调用，标记数据原所属的区县待重建
+     *
+     * @param dataType 数据类型（township/community）
+     * @param ids 删除的数据ID
+     */
+    void onRowsRemoved(String dataType, Collection<? extends Serializable> ids);
+
+    /**
+     * 按乡镇名称写入或删除数据后调用，标记包含该乡镇的区县待重建
+     *
+     * @param dataType 数据类型（township/community）
+     * @param townshipName 乡镇名称
+     */
+    void onTownshipChanged(String dataType, String townshipName);
+
+    /**
+     * 使索引整体失效，下次访问时重新加载
+     *
+     * @param dataType 数据类型（township/community）
+     */
+    void invalidate(String dataType);
+
+    /**
+     * 索引统计信息（数据行数、区县数、全量构建与增量更新次数）
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
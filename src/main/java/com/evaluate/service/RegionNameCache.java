@@ -0,0 +1,51 @@
+package com.evaluate.service;
+
+import com.evaluate.dto.RegionName;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 地区名称缓存服务接口
+ * 按 region_code IN (...) 分批查询社区数据和调查数据中的名称字段，结果（包括库中不存在的代码）
+ * 按数据来源分别缓存，容量有上限；数据写入后调用对应的 invalidate 方法。
+ * 返回的名称对象为缓存中的共享实例，调用方不应修改
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public interface RegionNameCache {
+
+    /**
+     * 社区数据（community_disaster_reduction_capacity）中的地区名称
+     *
+     * @param regionCodes 地区代码列表
+     * @return 地区代码 -> 名称，不含库中不存在的代码（同一代码有多条时取ID最小的一条）
+     */
+    Map<String, RegionName> getCommunityNames(Collection<String> regionCodes);
+
+    /**
+     * 调查数据（survey_data）中的地区名称
+     *
+     * @param regionCodes 地区代码列表
+     * @return 地区代码 -> 名称，不含库中不存在的代码（同一代码有多条时取ID最小的一条）
+     */
+    Map<String, RegionName> getSurveyNames(Collection<String> regionCodes);
+
+    /**
+     * 社区数据写入后清空社区名称缓存
+     */
+    void invalidateCommunity();
+
+    /**
+     * 调查数据写入后清空调查数据名称缓存
+     */
+    void invalidateSurvey();
+
+    /**
+     * 缓存统计信息（条目数、命中数、查询批次数）
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -1,5 +1,7 @@
 package com.evaluate.service;
 
+import com.evaluate.service.algorithm.ColumnStatisticsCache;
+
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +32,27 @@ public interface SpecialAlgorithmService {
             Map<String, Map<String, Object>> allRegionData
     );
 
+    /**
+     * 执行特殊标记算法（使用步骤级列统计缓存）
+     * 同一步骤内对同一列的统计量只计算一次，各地区复用
+     * 
+     * @param marker 标记类型 (NORMALIZE, TOPSIS_POSITIVE, TOPSIS_NEGATIVE, GRADE)
+     * @param params 参数字符串
+     * @param currentRegionCode 当前区域代码
+     * @param regionContext 当前区域上下文数据
+     * @param allRegionData 所有区域的数据（Map<regionCode, contextData>）
+     * @param statsCache 步骤级列统计缓存
+     * @return 计算结果
+     */
+    Object executeSpecialAlgorithm(
+            String marker,
+            String params,
+            String currentRegionCode,
+            Map<String, Object> regionContext,
+            Map<String, Map<String, Object>> allRegionData,
+            ColumnStatisticsCache statsCache
+    );
+
     /**
      * 归一化算法：value / SQRT(SUMSQ(all_values))
      * 
@@ -0,0 +1,53 @@
+package com.evaluate.service;
+
+import com.evaluate.entity.SurveyData;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调查数据地区解析服务接口
+ * 一次查询 survey_data 构建内存索引，按乡镇名称、地区代码和名称片段查找调查数据；
+ * 调查数据写入后调用 {@link #invalidate()}，下次查找时重建索引
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public interface SurveyRegionResolver {
+
+    /**
+     * 按地区名称查找调查数据：优先精确匹配乡镇名称，
+     * 无结果时返回乡镇、区县、市、省名称包含该名称的数据（按ID顺序）
+     *
+     * @param region 地区名称
+     * @return 调查数据列表
+     */
+    List<SurveyData> findByRegion(String region);
+
+    /**
+     * 按地区代码查找调查数据
+     *
+     * @param regionCode 地区代码
+     * @return 调查数据，不存在时返回null（同一代码有多条时返回ID最小的一条）
+     */
+    SurveyData findByRegionCode(String regionCode);
+
+    /**
+     * 使索引失效，下次查找时重新加载
+     */
+    void invalidate();
+
+    /**
+     * 调查数据版本：每次 {@link #invalidate()} 加一，可作为依赖调查数据的缓存key的一部分
+     *
+     * @return 当前版本
+     */
+    long getDataVersion();
+
+    /**
+     * 索引统计信息（数据行数、名称数、构建次数、构建时间）
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -1,5 +1,6 @@
 package com.evaluate.service;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -75,4 +76,27 @@ public interface TOPSISCalculationLogger {
      * 清理当前会话日志
      */
     void clearCurrentSessionLog();
+
+    /**
+     * 查询已完成的会话日志
+     * 
+     * @param sessionId 会话ID（计算完成时日志中输出的会话ID）
+     * @return 会话日志，不存在或已超出保留范围时返回null
+     */
+    Map<String, Object> getSessionLog(String sessionId);
+    
+    /**
+     * 查询最近完成的会话日志（按完成时间倒序）
+     * 
+     * @param limit 最大条数
+     * @return 会话日志列表
+     */
+    List<Map<String, Object>> getRecentSessionLogs(int limit);
+    
+    /**
+     * 会话日志存储统计信息
+     * 
+     * @return 统计信息
+     */
+    Map<String, Object> getLogStoreStats();
 }
\ No newline at end of file
@@ -14,6 +14,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Collectors;
 
 /**
@@ -56,6 +57,18 @@ public class UnifiedEvaluationEngine {
      * @return 评估结果
      */
     public Map<String, Object> executeEvaluation(EvaluationRequest request) {
+        return executeEvaluation(request, ExecutionProgressListener.NONE);
+    }
+
+    /**
+     * 执行统一评估计算，并向监听器报告步骤与地区进度；在步骤与地区边界检查取消标记，
+     * 已取消时抛出 {@link CancellationException}
+     *
+     * @param request 评估请求参数
+     * @param listener 进度监听器
+     * @return 评估结果
+     */
+    public Map<String, Object> executeEvaluation(EvaluationRequest request, ExecutionProgressListener listener) {
         log.info("开始执行统一评估: {}", request);
 
         try {
@@ -68,31 +81,41 @@ public class UnifiedEvaluationEngine {
                 throw new IllegalArgumentException("不支持的数据源类型: " + request.getDataSourceType());
             }
 
-            // 3. 验证数据源
-            if (!adapter.validateDataSource(request.getRegionCodes(), request.getWeightConfigId())) {
-                throw new IllegalArgumentException("数据源验证失败");
-            }
+            // 同一请求内的验证、地区名称、指标数据共享一次数据加载
+            DataSourceAdapter.Session session = adapter.openSession();
+            try {
+                // 3. 验证数据源
+                if (!adapter.validateDataSource(request.getRegionCodes(), request.getWeightConfigId())) {
+                    throw new IllegalArgumentException("数据源验证失败");
+                }
 
-            // 4. 获取算法配置
-            Map<String, Object> algorithmDetail = modelExecutionService.getAlgorithmStepsInfo(request.getAlgorithmId());
-            if (algorithmDetail == null || !Boolean.TRUE.equals(algorithmDetail.get("success"))) {
-                throw new IllegalArgumentException("算法配置不存在");
-            }
+                // 4. 获取算法配置
+                Map<String, Object> algorithmDetail = modelExecutionService.getAlgorithmStepsInfo(request.getAlgorithmId());
+                if (algorithmDetail == null || !Boolean.TRUE.equals(algorithmDetail.get("success"))) {
+                    throw new IllegalArgumentException("算法配置不存在");
+                }
 
-            // 5. 获取地区名称映射
-            Map<String, String> regionNames = adapter.getRegionNames(request.getRegionCodes());
+                // 5. 获取地区名称映射
+                Map<String, String> regionNames = adapter.getRegionNames(request.getRegionCodes());
 
-            // 6. 获取权重配置
-            List<IndicatorWeight> indicatorWeights = indicatorWeightService.getByConfigId(request.getWeightConfigId());
-            Map<String, Double> weightMap = indicatorWeights.stream()
-                .collect(Collectors.toMap(IndicatorWeight::getIndicatorCode, IndicatorWeight::getWeight));
+                // 6. 获取权重配置
+                List<IndicatorWeight> indicatorWeights = indicatorWeightService.getByConfigId(request.getWeightConfigId());
+                Map<String, Double> weightMap = indicatorWeights.stream()
+                    .collect(Collectors.toMap(IndicatorWeight::getIndicatorCode, IndicatorWeight::getWeight));
 
-            // 7. 执行评估计算
-            Map<String, Object> result = performEvaluation(adapter, algorithmDetail, request, regionNames, weightMap);
+                // 7. 执行评估计算
+                Map<String, Object> result = performEvaluation(adapter, algorithmDetail, request, regionNames,
+                        weightMap, listener);
 
-            log.info("统一评估执行完成: {}", result.get("summary"));
-            return result;
+                log.info("统一评估执行完成: {}", result.get("summary"));
+                return result;
+            } finally {
+                session.close();
+            }
 
+        } catch (CancellationException e) {
+            log.info("统一评估已取消: {}", request);
+            throw e;
         } catch (Exception e) {
             log.error("统一评估执行失败", e);
             throw new RuntimeException("统一评估执行失败: " + e.getMessage(), e);
@@ -118,30 +141,36 @@ public class UnifiedEvaluationEngine {
                 throw new IllegalArgumentException("不支持的数据源类型: " + request.getDataSourceType());
             }
 
-            // 3. 验证数据源
-            if (!adapter.validateDataSource(request.getRegionCodes(), request.getWeightConfigId())) {
-                throw new IllegalArgumentException("数据源验证失败");
-            }
+            // 同一请求内的验证、地区名称、指标数据共享一次数据加载
+            DataSourceAdapter.Session session = adapter.openSession();
+            try {
+                // 3. 验证数据源
+                if (!adapter.validateDataSource(request.getRegionCodes(), request.getWeightConfigId())) {
+                    throw new IllegalArgumentException("数据源验证失败");
+                }
 
-            // 4. 获取算法配置
-            Map<String, Object> algorithmDetail = modelExecutionService.getAlgorithmStepsInfo(request.getAlgorithmId());
-            if (algorithmDetail == null || !Boolean.TRUE.equals(algorithmDetail.get("success"))) {
-                throw new IllegalArgumentException("算法配置不存在");
-            }
+                // 4. 获取算法配置
+                Map<String, Object> algorithmDetail = modelExecutionService.getAlgorithmStepsInfo(request.getAlgorithmId());
+                if (algorithmDetail == null || !Boolean.TRUE.equals(algorithmDetail.get("success"))) {
+                    throw new IllegalArgumentException("算法配置不存在");
+                }
 
-            // 5. 获取地区名称映射
-            Map<String, String> regionNames = adapter.getRegionNames(request.getRegionCodes());
+                // 5. 获取地区名称映射
+                Map<String, String> regionNames = adapter.getRegionNames(request.getRegionCodes());
 
-            // 6. 获取权重配置
-            List<IndicatorWeight> indicatorWeights = indicatorWeightService.getByConfigId(request.getWeightConfigId());
-            Map<String, Double> weightMap = indicatorWeights.stream()
-                .collect(Collectors.toMap(IndicatorWeight::getIndicatorCode, IndicatorWeight::getWeight));
+                // 6. 获取权重配置
+                List<IndicatorWeight> indicatorWeights = indicatorWeightService.getByConfigId(request.getWeightConfigId());
+                Map<String, Double> weightMap = indicatorWeights.stream()
+                    .collect(Collectors.toMap(IndicatorWeight::getIndicatorCode, IndicatorWeight::getWeight));
 
-            // 7. 执行步骤计算
-            Map<String, Object> result = performStepEvaluation(adapter, algorithmDetail, request, regionNames, weightMap);
+                // 7. 执行步骤计算
+                Map<String, Object> result = performStepEvaluation(adapter, algorithmDetail, request, regionNames, weightMap);
 
-            log.info("步骤评估执行完成: stepOrder={}", request.getStepOrder());
-            return result;
+                log.info("步骤评估执行完成: stepOrder={}", request.getStepOrder());
+                return result;
+            } finally {
+                session.close();
+            }
 
         } catch (Exception e) {
             log.error("步骤评估执行失败", e);
@@ -206,7 +235,8 @@ public class UnifiedEvaluationEngine {
             Map<String, Object> algorithmDetail,
             EvaluationRequest request,
             Map<String, String> regionNames,
-            Map<String, Double> weightMap) {
+            Map<String, Double> weightMap,
+            ExecutionProgressListener listener) {
 
         Map<String, Object> result = new HashMap<>();
 
@@ -226,9 +256,13 @@ public class UnifiedEvaluationEngine {
             ExpressRunner runner = new ExpressRunner();
 
             // 按顺序执行每个步骤
-            for (Map<String, Object> step : steps) {
+            for (int stepIndex = 0; stepIndex < steps.size(); stepIndex++) {
+                Map<String, Object> step = steps.get(stepIndex);
                 Integer stepOrder = (Integer) step.get("stepOrder");
                 String stepName = (String) step.get("stepName");
+                String stepCode = String.valueOf(stepOrder);
+                checkCancelled(listener);
+                listener.onStepStarted(stepCode, stepName, stepIndex, steps.size());
 
                 // 获取步骤算法（这里简化处理，暂时使用步骤信息本身）
                 // TODO: 后续需要根据实际需求完善步骤算法的获取
@@ -236,9 +270,10 @@ public class UnifiedEvaluationEngine {
 
                 // 执行步骤计算
                 Map<String, Object> stepResult = executeStep(
-                    runner, stepOrder, stepName, stepAlgorithms, indicatorData, weightMap, regionNames);
+                    runner, stepOrder, stepName, stepAlgorithms, indicatorData, weightMap, regionNames, listener);
 
                 stepResults.put(stepOrder, stepResult);
+                listener.onStepCompleted(stepCode, stepIndex, steps.size());
 
                 // 将当前步骤的结果作为下一步骤的输入
                 updateIndicatorDataForNextStep(indicatorData, stepResult);
@@ -257,6 +292,8 @@ public class UnifiedEvaluationEngine {
 
             return result;
 
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("执行评估计算失败", e);
             result.put("success", false);
@@ -304,8 +341,8 @@ public class UnifiedEvaluationEngine {
             ExpressRunner runner = new ExpressRunner();
 
             // 执行步骤计算
-            Map<String, Object> stepResult = executeStep(
-                runner, request.getStepOrder(), stepName, stepAlgorithms, indicatorData, weightMap, regionNames);
+            Map<String, Object> stepResult = executeStep(runner, request.getStepOrder(), stepName, stepAlgorithms,
+                indicatorData, weightMap, regionNames, ExecutionProgressListener.NONE);
 
             // 构建结果
             result.put("success", true);
@@ -339,13 +376,16 @@ public class UnifiedEvaluationEngine {
             List<StepAlgorithm> stepAlgorithms,
             Map<String, Map<String, Double>> indicatorData,
             Map<String, Double> weightMap,
-            Map<String, String> regionNames) {
+            Map<String, String> regionNames,
+            ExecutionProgressListener listener) {
 
         Map<String, Object> stepResult = new LinkedHashMap<>();
+        String stepCode = String.valueOf(stepOrder);
 
         try {
             // 为每个地区执行计算
             for (Map.Entry<String, Map<String, Double>> entry : indicatorData.entrySet()) {
+                checkCancelled(listener);
                 String regionCode = entry.getKey();
                 Map<String, Double> regionData = entry.getValue();
 
@@ -401,8 +441,11 @@ public class UnifiedEvaluationEngine {
                 }
 
                 stepResult.put(regionCode, regionResult);
+                listener.onRegionProgress(stepCode, stepResult.size(), indicatorData.size());
             }
 
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("执行步骤计算失败: stepOrder={}, stepName={}", stepOrder, stepName, e);
             throw new RuntimeException("步骤计算失败: " + e.getMessage(), e);
@@ -411,6 +454,15 @@ public class UnifiedEvaluationEngine {
         return stepResult;
     }
 
+    /**
+     * 执行已被取消时终止（在步骤与地区边界调用）
+     */
+    private void checkCancelled(ExecutionProgressListener listener) {
+        if (listener.isCancelled()) {
+            throw new CancellationException("执行已取消");
+        }
+    }
+
     /**
      * 更新下一步骤的输入数据
      */
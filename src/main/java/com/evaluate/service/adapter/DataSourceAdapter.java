@@ -74,4 +74,23 @@ public interface DataSourceAdapter {
      * @return 描述信息
      */
     String getDescription();
+
+    /**
+     * 开启一次评估请求内的数据加载会话
+     * 会话期间（同一线程内）各方法共享已加载的地区数据，避免重复查询；关闭会话时释放
+     * @return 数据加载会话，使用完毕后在 finally 中关闭
+     */
+    default Session openSession() {
+        return () -> {
+        };
+    }
+
+    /**
+     * 数据加载会话
+     */
+    interface Session extends AutoCloseable {
+
+        @Override
+        void close();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.evaluate.service.adapter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 数据源实体的指标取值器注册表
+ *
+ * 创建时为实体的每个字段预先生成一次取值器（MethodHandle，优先使用 getter），
+ * 指标代码到取值器的解析结果按指标代码缓存：每个指标代码只解析一次（包括不存在对应字段的代码），
+ * 之后每个（地区，指标）单元格的取值都是一次查表加一次方法调用，不再逐个反射查找字段。
+ *
+ * @param <T> 实体类型
+ * @author System
+ * @since 2025-01-01
+ */
+public class IndicatorAccessorRegistry<T> {
+
+    /**
+     * 字段取值器
+     */
+    @FunctionalInterface
+    public interface Getter<T> {
+        Object get(T target);
+    }
+
+    /**
+     * 指标取值器（包含字段查找与数值转换规则）
+     */
+    @FunctionalInterface
+    public interface IndicatorAccessor<T> {
+        Double read(T target);
+    }
+
+    /**
+     * 是/否类型字段的数值映射（英文按小写匹配）
+     */
+    private static final Map<String, Double> YES_NO_VALUES;
+    static {
+        Map<String, Double> values = new HashMap<>();
+        values.put("是", 1.0);
+        values.put("yes", 1.0);
+        values.put("1", 1.0);
+        values.put("否", 0.0);
+        values.put("no", 0.0);
+        values.put("0", 0.0);
+        YES_NO_VALUES = Collections.unmodifiableMap(values);
+    }
+
+    private final Class<T> type;
+    private final Map<String, Getter<T>> getters;
+    private final Map<String, IndicatorAccessor<T>> accessors = new ConcurrentHashMap<>();
+
+    public IndicatorAccessorRegistry(Class<T> type) {
+        this.type = type;
+        this.getters = Collections.unmodifiableMap(buildGetters(type));
+    }
+
+    /**
+     * 按字段名获取取值器
+     *
+     * @param fieldName 字段名
+     * @return 取值器，字段不存在时返回null
+     */
+    public Getter<T> getter(String fieldName) {
+        return getters.get(fieldName);
+    }
+
+    /**
+     * 获取指标代码对应的取值器，首次使用时调用解析函数并缓存结果
+     *
+     * @param indicatorCode 指标代码
+     * @param resolver 解析函数
+     * @return 指标取值器
+     */
+    public IndicatorAccessor<T> accessor(String indicatorCode, Function<String, IndicatorAccessor<T>> resolver) {
+        return accessors.computeIfAbsent(indicatorCode, resolver);
+    }
+
+    /**
+     * 已注册的字段数量
+     */
+    public int getFieldCount() {
+        return getters.size();
+    }
+
+    /**
+     * 字段值转换为数值：数值类型直接转换，字符串按数字解析
+     *
+     * @param value 字段值
+     * @param yesNo 是否将 是/否、yes/no 转换为 1/0
+     * @return 数值，值为空或空白字符串时返回null
+     * @throws NumberFormatException 字符串无法解析为数值时
+     */
+    public static Double toDouble(Object value, boolean yesNo) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        String text = value.toString().trim();
+        if (text.isEmpty()) {
+            return null;
+        }
+        if (yesNo) {
+            Double mapped = YES_NO_VALUES.get(text.toLowerCase());
+            if (mapped != null) {
+                return mapped;
+            }
+        }
+        return Double.valueOf(text);
+    }
+
+    /**
+     * 为实体（含父类）的每个非静态字段生成取值器：有公开 getter 时使用 getter，否则直接读取字段
+     */
+    private static <T> Map<String, Getter<T>> buildGetters(Class<T> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType genericType = MethodType.methodType(Object.class, Object.class);
+        Map<String, Getter<T>> getters = new HashMap<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || getters.containsKey(field.getName())) {
+                    continue;
+                }
+                try {
+                    Method getter = findGetter(type, field);
+                    MethodHandle handle;
+                    if (getter != null) {
+                        handle = lookup.unreflect(getter);
+                    } else {
+                        field.setAccessible(true);
+                        handle = lookup.unreflectGetter(field);
+                    }
+                    MethodHandle generic = handle.asType(genericType);
+                    getters.put(field.getName(), target -> invoke(generic, target));
+                } catch (IllegalAccessException | RuntimeException e) {
+                    throw new IllegalStateException("无法生成字段取值器: " + type.getSimpleName() + "." + field.getName(), e);
+                }
+            }
+        }
+        return getters;
+    }
+
+    private static Method findGetter(Class<?> type, Field field) {
+        String name = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        String[] candidates = field.getType() == boolean.class
+                ? new String[]{"is" + name, "get" + name} : new String[]{"get" + name};
+        for (String candidate : candidates) {
+            try {
+                Method method = type.getMethod(candidate);
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // 继续尝试下一个名称
+            }
+        }
+        return null;
+    }
+
+    private static Object invoke(MethodHandle handle, Object target) {
+        try {
+            return (Object) handle.invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IndicatorAccessorRegistry{type=" + type.getSimpleName() + ", fields=" + getters.size()
+                + ", resolvedIndicators=" + accessors.size() + "}";
+    }
+}
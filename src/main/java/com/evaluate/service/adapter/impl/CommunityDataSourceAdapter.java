@@ -1,15 +1,19 @@
 package com.evaluate.service.adapter.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.evaluate.dto.RegionName;
 import com.evaluate.entity.CommunityDisasterReductionCapacity;
 import com.evaluate.entity.IndicatorWeight;
 import com.evaluate.service.ICommunityDisasterReductionCapacityService;
 import com.evaluate.service.IIndicatorWeightService;
+import com.evaluate.service.RegionNameCache;
 import com.evaluate.service.adapter.DataSourceAdapter;
+import com.evaluate.service.adapter.IndicatorAccessorRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,12 +28,93 @@ import java.util.stream.Collectors;
 @Component("communityDataSourceAdapter")
 public class CommunityDataSourceAdapter implements DataSourceAdapter {
 
+    /**
+     * 社区数据字段取值器（启动时生成）
+     */
+    private static final IndicatorAccessorRegistry<CommunityDisasterReductionCapacity> ACCESSORS =
+            new IndicatorAccessorRegistry<>(CommunityDisasterReductionCapacity.class);
+
+    /**
+     * 特殊字段映射：处理乡镇模型指标代码到社区模型字段的映射
+     */
+    private static final Map<String, String> SPECIAL_FIELD_MAPPING = new HashMap<>();
+    static {
+        // 管理人员相关：乡镇模型的management_staff映射到社区的民兵预备役或志愿者
+        SPECIAL_FIELD_MAPPING.put("managementStaff", "militiaReserveCount");
+        SPECIAL_FIELD_MAPPING.put("management_staff", "militiaReserveCount");
+
+        // 人口相关：乡镇模型的population映射到社区的resident_population
+        SPECIAL_FIELD_MAPPING.put("population", "residentPopulation");
+        SPECIAL_FIELD_MAPPING.put("resident_population", "residentPopulation");
+
+        // 资金相关：乡镇模型的funding_amount映射到社区的last_year_funding_amount
+        SPECIAL_FIELD_MAPPING.put("fundingAmount", "lastYearFundingAmount");
+        SPECIAL_FIELD_MAPPING.put("funding_amount", "lastYearFundingAmount");
+        SPECIAL_FIELD_MAPPING.put("lastYearFundingAmount", "lastYearFundingAmount");
+
+        // 物资相关：乡镇模型的material_value映射到社区的materials_equipment_value
+        SPECIAL_FIELD_MAPPING.put("materialValue", "materialsEquipmentValue");
+        SPECIAL_FIELD_MAPPING.put("material_value", "materialsEquipmentValue");
+        SPECIAL_FIELD_MAPPING.put("materialsEquipmentValue", "materialsEquipmentValue");
+
+        // 医疗相关：乡镇模型的hospital_beds映射到社区的medical_service_count
+        SPECIAL_FIELD_MAPPING.put("hospitalBeds", "medicalServiceCount");
+        SPECIAL_FIELD_MAPPING.put("hospital_beds", "medicalServiceCount");
+        SPECIAL_FIELD_MAPPING.put("medicalServiceCount", "medicalServiceCount");
+
+        // 志愿者相关
+        SPECIAL_FIELD_MAPPING.put("volunteers", "registeredVolunteerCount");
+        SPECIAL_FIELD_MAPPING.put("volunteerCount", "registeredVolunteerCount");
+        SPECIAL_FIELD_MAPPING.put("registered_volunteer_count", "registeredVolunteerCount");
+        SPECIAL_FIELD_MAPPING.put("registeredVolunteerCount", "registeredVolunteerCount");
+
+        // 民兵相关
+        SPECIAL_FIELD_MAPPING.put("militiaReserve", "militiaReserveCount");
+        SPECIAL_FIELD_MAPPING.put("militia_reserve", "militiaReserveCount");
+        SPECIAL_FIELD_MAPPING.put("militiaReserveCount", "militiaReserveCount");
+
+        // 培训相关
+        SPECIAL_FIELD_MAPPING.put("trainingParticipants", "lastYearTrainingParticipants");
+        SPECIAL_FIELD_MAPPING.put("training_participants", "lastYearTrainingParticipants");
+        SPECIAL_FIELD_MAPPING.put("lastYearTrainingParticipants", "lastYearTrainingParticipants");
+
+        // 避难场所相关
+        SPECIAL_FIELD_MAPPING.put("shelterCapacity", "emergencyShelterCapacity");
+        SPECIAL_FIELD_MAPPING.put("shelter_capacity", "emergencyShelterCapacity");
+        SPECIAL_FIELD_MAPPING.put("emergencyShelterCapacity", "emergencyShelterCapacity");
+    }
+
     @Autowired
     private ICommunityDisasterReductionCapacityService communityService;
 
     @Autowired
     private IIndicatorWeightService indicatorWeightService;
 
+    @Autowired
+    private RegionNameCache regionNameCache;
+
+    /**
+     * 每批 IN 查询的地区代码数量
+     */
+    @Value("${evaluation.region-loader.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 当前线程的数据加载会话（见 {@link #openSession()}）
+     */
+    private final ThreadLocal<CommunityDataCache> sessionCache = new ThreadLocal<>();
+
+    @Override
+    public Session openSession() {
+        if (sessionCache.get() != null) {
+            // 嵌套会话沿用外层已加载的数据，由外层负责释放
+            return () -> {
+            };
+        }
+        sessionCache.set(new CommunityDataCache());
+        return sessionCache::remove;
+    }
+
     @Override
     public String getAdapterType() {
         return "COMMUNITY";
@@ -43,16 +128,7 @@ public class CommunityDataSourceAdapter implements DataSourceAdapter {
 
         try {
             // 根据地区代码获取社区减灾能力数据
-            List<CommunityDisasterReductionCapacity> communityDataList = communityService.list();
-
-            // 筛选指定地区的数据
-            Map<String, CommunityDisasterReductionCapacity> regionDataMap = communityDataList.stream()
-                .filter(data -> regionCodes.contains(data.getRegionCode()))
-                .collect(Collectors.toMap(
-                    CommunityDisasterReductionCapacity::getRegionCode,
-                    data -> data,
-                    (existing, replacement) -> existing
-                ));
+            Map<String, CommunityDisasterReductionCapacity> regionDataMap = loadCommunityData(regionCodes);
 
             rawData.put("communityData", regionDataMap);
             rawData.put("regionCodes", regionCodes);
@@ -79,19 +155,16 @@ public class CommunityDataSourceAdapter implements DataSourceAdapter {
             List<IndicatorWeight> indicatorWeights = indicatorWeightService.getByConfigId(weightConfigId);
 
             // 获取社区减灾能力数据
-            List<CommunityDisasterReductionCapacity> communityDataList = communityService.list();
+            Map<String, CommunityDisasterReductionCapacity> regionDataMap = loadCommunityData(regionCodes);
 
             // 为每个地区构建指标数据
             for (String regionCode : regionCodes) {
                 Map<String, Double> regionIndicators = new HashMap<>();
 
                 // 查找该地区的社区数据
-                Optional<CommunityDisasterReductionCapacity> communityDataOpt = communityDataList.stream()
-                    .filter(data -> regionCode.equals(data.getRegionCode()))
-                    .findFirst();
+                CommunityDisasterReductionCapacity communityData = regionDataMap.get(regionCode);
 
-                if (communityDataOpt.isPresent()) {
-                    CommunityDisasterReductionCapacity communityData = communityDataOpt.get();
+                if (communityData != null) {
 
                     // 使用反射从CommunityDisasterReductionCapacity对象中获取指标值
                     for (IndicatorWeight weight : indicatorWeights) {
@@ -131,39 +204,13 @@ public class CommunityDataSourceAdapter implements DataSourceAdapter {
         Map<String, String> regionNames = new HashMap<>();
 
         try {
-            List<CommunityDisasterReductionCapacity> communityDataList = communityService.list();
+            // 名称（省+市+县+乡镇+社区）由地区名称缓存批量查询
+            Map<String, RegionName> names = regionNameCache.getCommunityNames(regionCodes);
 
             for (String regionCode : regionCodes) {
-                Optional<CommunityDisasterReductionCapacity> communityDataOpt = communityDataList.stream()
-                    .filter(data -> regionCode.equals(data.getRegionCode()))
-                    .findFirst();
-
-                if (communityDataOpt.isPresent()) {
-                    CommunityDisasterReductionCapacity communityData = communityDataOpt.get();
-                    // 构建地区名称：省+市+县+乡镇+社区
-                    StringBuilder regionName = new StringBuilder();
-                    if (communityData.getProvinceName() != null && !communityData.getProvinceName().trim().isEmpty()) {
-                        regionName.append(communityData.getProvinceName());
-                    }
-                    if (communityData.getCityName() != null && !communityData.getCityName().trim().isEmpty()) {
-                        if (regionName.length() > 0) regionName.append("-");
-                        regionName.append(communityData.getCityName());
-                    }
-                    if (communityData.getCountyName() != null && !communityData.getCountyName().trim().isEmpty()) {
-                        if (regionName.length() > 0) regionName.append("-");
-                        regionName.append(communityData.getCountyName());
-                    }
-                    if (communityData.getTownshipName() != null && !communityData.getTownshipName().trim().isEmpty()) {
-                        if (regionName.length() > 0) regionName.append("-");
-                        regionName.append(communityData.getTownshipName());
-                    }
-                    if (communityData.getCommunityName() != null && !communityData.getCommunityName().trim().isEmpty()) {
-                        if (regionName.length() > 0) regionName.append("-");
-                        regionName.append(communityData.getCommunityName());
-                    }
-
-                    String finalRegionName = regionName.length() > 0 ? regionName.toString() : regionCode;
-                    regionNames.put(regionCode, finalRegionName);
+                RegionName name = names.get(regionCode);
+                if (name != null) {
+                    regionNames.put(regionCode, name.getFullName());
                 } else {
                     log.warn("未找到地区{}的名称信息", regionCode);
                     regionNames.put(regionCode, regionCode); // 使用代码作为后备
@@ -193,10 +240,7 @@ public class CommunityDataSourceAdapter implements DataSourceAdapter {
             }
 
             // 检查地区数据是否存在
-            List<CommunityDisasterReductionCapacity> communityDataList = communityService.list();
-            Set<String> availableRegions = communityDataList.stream()
-                .map(CommunityDisasterReductionCapacity::getRegionCode)
-                .collect(Collectors.toSet());
+            Set<String> availableRegions = loadCommunityData(regionCodes).keySet();
 
             for (String regionCode : regionCodes) {
                 if (!availableRegions.contains(regionCode)) {
@@ -241,9 +285,7 @@ public class CommunityDataSourceAdapter implements DataSourceAdapter {
     @Override
     public boolean isRegionSupported(String regionCode) {
         try {
-            List<CommunityDisasterReductionCapacity> communityDataList = communityService.list();
-            return communityDataList.stream()
-                .anyMatch(data -> regionCode.equals(data.getRegionCode()));
+            return loadCommunityData(Collections.singletonList(regionCode)).containsKey(regionCode);
         } catch (Exception e) {
             log.error("检查地区支持状态失败", e);
             return false;
@@ -256,102 +298,125 @@ public class CommunityDataSourceAdapter implements DataSourceAdapter {
     }
 
     /**
-     * 从CommunityDisasterReductionCapacity对象中获取指标值
-     * 这里使用反射来动态获取字段值
+     * 按地区代码分批 IN 查询社区数据，返回 地区代码 -> 数据 的索引（同一地区取第一行）
+     * 会话期间已加载过的地区不再重复查询
      */
-    private Double getIndicatorValue(CommunityDisasterReductionCapacity communityData, String indicatorCode) {
-        try {
-            // 将指标代码转换为可能的字段名
-            String fieldName = convertIndicatorCodeToFieldName(indicatorCode);
-
-            java.lang.reflect.Field field = communityData.getClass().getDeclaredField(fieldName);
-            field.setAccessible(true);
-            Object value = field.get(communityData);
-
-            if (value instanceof Number) {
-                return ((Number) value).doubleValue();
-            } else if (value instanceof BigDecimal) {
-                return ((BigDecimal) value).doubleValue();
-            } else if (value != null && !value.toString().trim().isEmpty()) {
-                // 对于是/否类型的字段，转换为数值
-                String strValue = value.toString().trim();
-                if (strValue.equals("是") || strValue.equalsIgnoreCase("yes") || strValue.equals("1")) {
-                    return 1.0;
-                } else if (strValue.equals("否") || strValue.equalsIgnoreCase("no") || strValue.equals("0")) {
-                    return 0.0;
-                } else {
-                    return Double.valueOf(strValue);
+    private Map<String, CommunityDisasterReductionCapacity> loadCommunityData(Collection<String> regionCodes) {
+        CommunityDataCache cache = sessionCache.get();
+        if (cache == null) {
+            cache = new CommunityDataCache();
+        }
+
+        List<String> pending = new ArrayList<>();
+        for (String regionCode : new LinkedHashSet<>(regionCodes)) {
+            if (regionCode != null && !cache.requested.contains(regionCode)) {
+                pending.add(regionCode);
+            }
+        }
+        if (!pending.isEmpty()) {
+            int size = batchSize > 0 ? batchSize : 500;
+            for (int i = 0; i < pending.size(); i += size) {
+                QueryWrapper<CommunityDisasterReductionCapacity> query = new QueryWrapper<>();
+                query.in("region_code", pending.subList(i, Math.min(i + size, pending.size()))).orderByAsc("id");
+                for (CommunityDisasterReductionCapacity data : communityService.list(query)) {
+                    if (data.getRegionCode() != null) {
+                        cache.rows.putIfAbsent(data.getRegionCode(), data);
+                    }
                 }
             }
+            cache.requested.addAll(pending);
+            log.debug("批量加载社区数据: regions={}, loaded={}", pending.size(), cache.rows.size());
+        }
 
-        } catch (NoSuchFieldException e) {
-            // 如果没有找到对应字段，尝试其他可能的字段名
-            Double alternativeValue = tryAlternativeFieldNames(communityData, indicatorCode);
-            if (alternativeValue != null) {
-                return alternativeValue;
+        Map<String, CommunityDisasterReductionCapacity> regionDataMap = new HashMap<>();
+        for (String regionCode : regionCodes) {
+            CommunityDisasterReductionCapacity data = cache.rows.get(regionCode);
+            if (data != null) {
+                regionDataMap.put(regionCode, data);
             }
-        } catch (Exception e) {
-            log.warn("获取指标值失败: indicatorCode={}, error={}", indicatorCode, e.getMessage());
         }
-
-        // 如果所有方法都无法获取值，返回默认值以避免QLExpress中的NullPointerException
-        return getDefaultIndicatorValue(indicatorCode);
+        return regionDataMap;
     }
 
     /**
-     * 将指标代码转换为字段名
+     * 会话内已加载的社区数据
      */
-    private String convertIndicatorCodeToFieldName(String indicatorCode) {
-        // 特殊字段映射：处理乡镇模型指标代码到社区模型字段的映射
-        Map<String, String> specialMapping = new HashMap<>();
-
-        // 管理人员相关：乡镇模型的management_staff映射到社区的民兵预备役或志愿者
-        specialMapping.put("managementStaff", "militiaReserveCount");
-        specialMapping.put("management_staff", "militiaReserveCount");
-
-        // 人口相关：乡镇模型的population映射到社区的resident_population
-        specialMapping.put("population", "residentPopulation");
-        specialMapping.put("resident_population", "residentPopulation");
-
-        // 资金相关：乡镇模型的funding_amount映射到社区的last_year_funding_amount
-        specialMapping.put("fundingAmount", "lastYearFundingAmount");
-        specialMapping.put("funding_amount", "lastYearFundingAmount");
-        specialMapping.put("lastYearFundingAmount", "lastYearFundingAmount");
-
-        // 物资相关：乡镇模型的material_value映射到社区的materials_equipment_value
-        specialMapping.put("materialValue", "materialsEquipmentValue");
-        specialMapping.put("material_value", "materialsEquipmentValue");
-        specialMapping.put("materialsEquipmentValue", "materialsEquipmentValue");
-
-        // 医疗相关：乡镇模型的hospital_beds映射到社区的medical_service_count
-        specialMapping.put("hospitalBeds", "medicalServiceCount");
-        specialMapping.put("hospital_beds", "medicalServiceCount");
-        specialMapping.put("medicalServiceCount", "medicalServiceCount");
+    private static class CommunityDataCache {
+        private final Map<String, CommunityDisasterReductionCapacity> rows = new HashMap<>();
+        private final Set<String> requested = new HashSet<>();
+    }
 
-        // 志愿者相关
-        specialMapping.put("volunteers", "registeredVolunteerCount");
-        specialMapping.put("volunteerCount", "registeredVolunteerCount");
-        specialMapping.put("registered_volunteer_count", "registeredVolunteerCount");
-        specialMapping.put("registeredVolunteerCount", "registeredVolunteerCount");
+    /**
+     * 从CommunityDisasterReductionCapacity对象中获取指标值
+     * 指标代码首次使用时解析为预生成的字段取值器，之后直接调用
+     */
+    private Double getIndicatorValue(CommunityDisasterReductionCapacity communityData, String indicatorCode) {
+        return ACCESSORS.accessor(indicatorCode, this::resolveIndicatorAccessor).read(communityData);
+    }
 
-        // 民兵相关
-        specialMapping.put("militiaReserve", "militiaReserveCount");
-        specialMapping.put("militia_reserve", "militiaReserveCount");
-        specialMapping.put("militiaReserveCount", "militiaReserveCount");
+    /**
+     * 解析指标代码对应的取值器：
+     * 优先使用指标代码转换得到的字段（值为空或无法转换时返回默认值），
+     * 该字段不存在时依次尝试其他可能的字段名（取第一个有值的字段），都没有值时返回默认值
+     */
+    private IndicatorAccessorRegistry.IndicatorAccessor<CommunityDisasterReductionCapacity> resolveIndicatorAccessor(
+            String indicatorCode) {
+        // 返回默认值以避免QLExpress中的NullPointerException
+        Double defaultValue = getDefaultIndicatorValue(indicatorCode);
 
-        // 培训相关
-        specialMapping.put("trainingParticipants", "lastYearTrainingParticipants");
-        specialMapping.put("training_participants", "lastYearTrainingParticipants");
-        specialMapping.put("lastYearTrainingParticipants", "lastYearTrainingParticipants");
+        IndicatorAccessorRegistry.Getter<CommunityDisasterReductionCapacity> getter;
+        try {
+            getter = ACCESSORS.getter(convertIndicatorCodeToFieldName(indicatorCode));
+        } catch (Exception e) {
+            log.warn("获取指标值失败: indicatorCode={}, error={}", indicatorCode, e.getMessage());
+            return communityData -> defaultValue;
+        }
+        if (getter != null) {
+            return communityData -> {
+                try {
+                    Double value = IndicatorAccessorRegistry.toDouble(getter.get(communityData), true);
+                    return value != null ? value : defaultValue;
+                } catch (Exception e) {
+                    log.warn("获取指标值失败: indicatorCode={}, error={}", indicatorCode, e.getMessage());
+                    return defaultValue;
+                }
+            };
+        }
 
-        // 避难场所相关
-        specialMapping.put("shelterCapacity", "emergencyShelterCapacity");
-        specialMapping.put("shelter_capacity", "emergencyShelterCapacity");
-        specialMapping.put("emergencyShelterCapacity", "emergencyShelterCapacity");
+        List<IndicatorAccessorRegistry.Getter<CommunityDisasterReductionCapacity>> alternatives = new ArrayList<>();
+        for (String fieldName : getAlternativeFieldNames(indicatorCode)) {
+            IndicatorAccessorRegistry.Getter<CommunityDisasterReductionCapacity> alternative = ACCESSORS.getter(fieldName);
+            if (alternative != null) {
+                alternatives.add(alternative);
+            }
+        }
+        if (alternatives.isEmpty()) {
+            log.debug("指标{}没有对应的社区数据字段, 使用默认值{}", indicatorCode, defaultValue);
+            return communityData -> defaultValue;
+        }
+        return communityData -> {
+            for (IndicatorAccessorRegistry.Getter<CommunityDisasterReductionCapacity> alternative : alternatives) {
+                try {
+                    Double value = IndicatorAccessorRegistry.toDouble(alternative.get(communityData), true);
+                    if (value != null) {
+                        return value;
+                    }
+                } catch (Exception e) {
+                    // 继续尝试下一个字段名
+                }
+            }
+            return defaultValue;
+        };
+    }
 
+    /**
+     * 将指标代码转换为字段名
+     */
+    private String convertIndicatorCodeToFieldName(String indicatorCode) {
         // 检查是否有特殊映射
-        if (specialMapping.containsKey(indicatorCode)) {
-            return specialMapping.get(indicatorCode);
+        String mapped = SPECIAL_FIELD_MAPPING.get(indicatorCode);
+        if (mapped != null) {
+            return mapped;
         }
 
         // 默认转换：指标代码格式为 "INDICATOR_NAME"，转换为 "indicatorName"
@@ -371,44 +436,16 @@ public class CommunityDataSourceAdapter implements DataSourceAdapter {
     }
 
     /**
-     * 尝试其他可能的字段名
+     * 其他可能的字段名
      */
-    private Double tryAlternativeFieldNames(CommunityDisasterReductionCapacity communityData, String indicatorCode) {
+    private List<String> getAlternativeFieldNames(String indicatorCode) {
         // 尝试一些常见的字段名模式
-        String[] alternatives = {
+        return Arrays.asList(
             indicatorCode.toLowerCase(),
             indicatorCode,
             "has_" + indicatorCode.toLowerCase(),
             indicatorCode.toLowerCase() + "_value"
-        };
-
-        for (String fieldName : alternatives) {
-            try {
-                java.lang.reflect.Field field = communityData.getClass().getDeclaredField(fieldName);
-                field.setAccessible(true);
-                Object value = field.get(communityData);
-
-                if (value instanceof Number) {
-                    return ((Number) value).doubleValue();
-                } else if (value instanceof BigDecimal) {
-                    return ((BigDecimal) value).doubleValue();
-                } else if (value != null && !value.toString().trim().isEmpty()) {
-                    // 对于是/否类型的字段，转换为数值
-                    String strValue = value.toString().trim();
-                    if (strValue.equals("是") || strValue.equalsIgnoreCase("yes") || strValue.equals("1")) {
-                        return 1.0;
-                    } else if (strValue.equals("否") || strValue.equalsIgnoreCase("no") || strValue.equals("0")) {
-                        return 0.0;
-                    } else {
-                        return Double.valueOf(strValue);
-                    }
-                }
-            } catch (Exception e) {
-                // 继续尝试下一个字段名
-            }
-        }
-
-        return null;
+        );
     }
 
     /**
@@ -1,10 +1,13 @@
 package com.evaluate.service.adapter.impl;
 
+import com.evaluate.dto.RegionName;
 import com.evaluate.entity.IndicatorWeight;
 import com.evaluate.entity.SurveyData;
 import com.evaluate.service.adapter.DataSourceAdapter;
+import com.evaluate.service.adapter.IndicatorAccessorRegistry;
 import com.evaluate.service.IIndicatorWeightService;
 import com.evaluate.service.ISurveyDataService;
+import com.evaluate.service.RegionNameCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -23,12 +26,21 @@ import java.util.stream.Collectors;
 @Component("townshipDataSourceAdapter")
 public class TownshipDataSourceAdapter implements DataSourceAdapter {
 
+    /**
+     * 调查数据字段取值器（启动时生成）
+     */
+    private static final IndicatorAccessorRegistry<SurveyData> ACCESSORS =
+            new IndicatorAccessorRegistry<>(SurveyData.class);
+
     @Autowired
     private ISurveyDataService surveyDataService;
 
     @Autowired
     private IIndicatorWeightService indicatorWeightService;
 
+    @Autowired
+    private RegionNameCache regionNameCache;
+
   
     @Override
     public String getAdapterType() {
@@ -131,35 +143,13 @@ public class TownshipDataSourceAdapter implements DataSourceAdapter {
         Map<String, String> regionNames = new HashMap<>();
 
         try {
-            List<SurveyData> surveyDataList = surveyDataService.list();
+            // 名称（省+市+县+乡镇）由地区名称缓存批量查询
+            Map<String, RegionName> names = regionNameCache.getSurveyNames(regionCodes);
 
             for (String regionCode : regionCodes) {
-                Optional<SurveyData> surveyDataOpt = surveyDataList.stream()
-                    .filter(data -> regionCode.equals(data.getRegionCode()))
-                    .findFirst();
-
-                if (surveyDataOpt.isPresent()) {
-                    SurveyData surveyData = surveyDataOpt.get();
-                    // 构建地区名称：省+市+县+乡镇
-                    StringBuilder regionName = new StringBuilder();
-                    if (surveyData.getProvince() != null && !surveyData.getProvince().trim().isEmpty()) {
-                        regionName.append(surveyData.getProvince());
-                    }
-                    if (surveyData.getCity() != null && !surveyData.getCity().trim().isEmpty()) {
-                        if (regionName.length() > 0) regionName.append("-");
-                        regionName.append(surveyData.getCity());
-                    }
-                    if (surveyData.getCounty() != null && !surveyData.getCounty().trim().isEmpty()) {
-                        if (regionName.length() > 0) regionName.append("-");
-                        regionName.append(surveyData.getCounty());
-                    }
-                    if (surveyData.getTownship() != null && !surveyData.getTownship().trim().isEmpty()) {
-                        if (regionName.length() > 0) regionName.append("-");
-                        regionName.append(surveyData.getTownship());
-                    }
-
-                    String finalRegionName = regionName.length() > 0 ? regionName.toString() : regionCode;
-                    regionNames.put(regionCode, finalRegionName);
+                RegionName name = names.get(regionCode);
+                if (name != null) {
+                    regionNames.put(regionCode, name.getFullName());
                 } else {
                     log.warn("未找到地区{}的名称信息", regionCode);
                     regionNames.put(regionCode, regionCode); // 使用代码作为后备
@@ -253,31 +243,59 @@ public class TownshipDataSourceAdapter implements DataSourceAdapter {
 
     /**
      * 从SurveyData对象中获取指标值
-     * 这里使用反射来动态获取字段值
+     * 指标代码首次使用时解析为预生成的字段取值器，之后直接调用
      */
     private Double getIndicatorValue(SurveyData surveyData, String indicatorCode) {
-        try {
-            // 将指标代码转换为可能的字段名
-            String fieldName = convertIndicatorCodeToFieldName(indicatorCode);
-
-            java.lang.reflect.Field field = surveyData.getClass().getDeclaredField(fieldName);
-            field.setAccessible(true);
-            Object value = field.get(surveyData);
-
-            if (value instanceof Number) {
-                return ((Number) value).doubleValue();
-            } else if (value != null) {
-                return Double.valueOf(value.toString());
-            }
+        return ACCESSORS.accessor(indicatorCode, this::resolveIndicatorAccessor).read(surveyData);
+    }
 
-        } catch (NoSuchFieldException e) {
-            // 如果没有找到对应字段，尝试其他可能的字段名
-            return tryAlternativeFieldNames(surveyData, indicatorCode);
+    /**
+     * 解析指标代码对应的取值器：
+     * 优先使用指标代码转换得到的字段，该字段不存在时依次尝试其他可能的字段名（取第一个有值的字段）
+     */
+    private IndicatorAccessorRegistry.IndicatorAccessor<SurveyData> resolveIndicatorAccessor(String indicatorCode) {
+        IndicatorAccessorRegistry.Getter<SurveyData> getter;
+        try {
+            getter = ACCESSORS.getter(convertIndicatorCodeToFieldName(indicatorCode));
         } catch (Exception e) {
             log.warn("获取指标值失败: indicatorCode={}, error={}", indicatorCode, e.getMessage());
+            return surveyData -> null;
+        }
+        if (getter != null) {
+            return surveyData -> {
+                try {
+                    return IndicatorAccessorRegistry.toDouble(getter.get(surveyData), false);
+                } catch (Exception e) {
+                    log.warn("获取指标值失败: indicatorCode={}, error={}", indicatorCode, e.getMessage());
+                    return null;
+                }
+            };
         }
 
-        return null;
+        List<IndicatorAccessorRegistry.Getter<SurveyData>> alternatives = new ArrayList<>();
+        for (String fieldName : getAlternativeFieldNames(indicatorCode)) {
+            IndicatorAccessorRegistry.Getter<SurveyData> alternative = ACCESSORS.getter(fieldName);
+            if (alternative != null) {
+                alternatives.add(alternative);
+            }
+        }
+        if (alternatives.isEmpty()) {
+            log.debug("指标{}没有对应的调查数据字段", indicatorCode);
+            return surveyData -> null;
+        }
+        return surveyData -> {
+            for (IndicatorAccessorRegistry.Getter<SurveyData> alternative : alternatives) {
+                try {
+                    Double value = IndicatorAccessorRegistry.toDouble(alternative.get(surveyData), false);
+                    if (value != null) {
+                        return value;
+                    }
+                } catch (Exception e) {
+                    // 继续尝试下一个字段名
+                }
+            }
+            return null;
+        };
     }
 
     /**
@@ -301,34 +319,16 @@ public class TownshipDataSourceAdapter implements DataSourceAdapter {
     }
 
     /**
-     * 尝试其他可能的字段名
+     * 其他可能的字段名
      */
-    private Double tryAlternativeFieldNames(SurveyData surveyData, String indicatorCode) {
+    private List<String> getAlternativeFieldNames(String indicatorCode) {
         // 尝试一些常见的字段名模式
-        String[] alternatives = {
+        return Arrays.asList(
             indicatorCode.toLowerCase(),
             indicatorCode,
             "ind_" + indicatorCode.toLowerCase(),
             indicatorCode.toLowerCase() + "_value"
-        };
-
-        for (String fieldName : alternatives) {
-            try {
-                java.lang.reflect.Field field = surveyData.getClass().getDeclaredField(fieldName);
-                field.setAccessible(true);
-                Object value = field.get(surveyData);
-
-                if (value instanceof Number) {
-                    return ((Number) value).doubleValue();
-                } else if (value != null) {
-                    return Double.valueOf(value.toString());
-                }
-            } catch (Exception e) {
-                // 继续尝试下一个字段名
-            }
-        }
-
-        return null;
+        );
     }
 
     /**
@@ -0,0 +1,252 @@
+package com.evaluate.service.algorithm;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * 步骤内算法依赖图（DAG）
+ *
+ * 按执行顺序加入算法，根据每个算法读取的变量（QLExpress 表达式的外部变量、
+ * 特殊标记 @MARKER:params 的参数列）与输出参数建立依赖边：
+ * <ul>
+ *   <li>读后写：读取变量时依赖此前最后一个写该变量的算法</li>
+ *   <li>写后读：写变量时依赖此前所有读该变量的算法（保证它们读到旧值）</li>
+ *   <li>写后写：写变量时依赖此前最后一个写该变量的算法</li>
+ * </ul>
+ * 图按层划分：同一层的算法之间没有依赖，可以同时执行；每个算法所在层为其依赖的最大层 + 1，
+ * 因此特殊标记算法在输入列全部完成后即可开始，不再等待固定的执行阶段。
+ * 无法解析读取变量的算法视为屏障，依赖此前所有算法，此后所有算法也依赖它。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public class AlgorithmDependencyGraph {
+
+    /**
+     * 图节点（一个算法）
+     */
+    @Getter
+    public static class Node {
+        private final int index;
+        private final String name;
+        private final String expression;
+        private final String outputParam;
+        private final boolean marker;
+        private final Set<String> reads;
+        private final List<Integer> dependsOn = new ArrayList<>();
+        private int level;
+
+        private Node(int index, String name, String expression, String outputParam, Set<String> reads) {
+            this.index = index;
+            this.name = name;
+            this.expression = expression;
+            this.outputParam = outputParam != null && !outputParam.isEmpty() ? outputParam : null;
+            this.marker = expression != null && expression.startsWith("@");
+            this.reads = reads;
+        }
+    }
+
+    /**
+     * 表达式变量解析器
+     */
+    public interface VariableExtractor {
+        /**
+         * 解析普通表达式读取的外部变量
+         *
+         * @param expression QLExpress表达式
+         * @return 变量名集合，无法解析时返回null
+         */
+        Set<String> extract(String expression);
+    }
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final List<List<Node>> levels = new ArrayList<>();
+    private final Map<String, Integer> lastWriter = new HashMap<>();
+    private final Map<String, List<Integer>> readers = new HashMap<>();
+    private final VariableExtractor extractor;
+    private int lastBarrier = -1;
+
+    public AlgorithmDependencyGraph(VariableExtractor extractor) {
+        this.extractor = extractor;
+    }
+
+    /**
+     * 按执行顺序加入一个算法
+     *
+     * @param name 算法名称
+     * @param expression QLExpress表达式或特殊标记
+     * @param outputParam 输出参数
+     * @return 图节点
+     */
+    public Node add(String name, String expression, String outputParam) {
+        Set<String> reads = readsOf(expression);
+        Node node = new Node(nodes.size(), name, expression,
+                outputParam, reads != null ? reads : Collections.<String>emptySet());
+        Set<Integer> deps = new TreeSet<>();
+        if (reads == null) {
+            for (int i = 0; i < node.index; i++) {
+                deps.add(i);
+            }
+            lastBarrier = node.index;
+        } else {
+            if (lastBarrier >= 0) {
+                deps.add(lastBarrier);
+            }
+            for (String variable : reads) {
+                Integer writer = lastWriter.get(variable);
+                if (writer != null) {
+                    deps.add(writer);
+                }
+            }
+        }
+
+        String output = node.outputParam;
+        if (output != null) {
+            Integer writer = lastWriter.get(output);
+            if (writer != null) {
+                deps.add(writer);
+            }
+            List<Integer> previousReaders = readers.get(output);
+            if (previousReaders != null) {
+                deps.addAll(previousReaders);
+            }
+        }
+
+        int level = 0;
+        for (Integer dep : deps) {
+            node.dependsOn.add(dep);
+            level = Math.max(level, nodes.get(dep).level + 1);
+        }
+        node.level = level;
+
+        nodes.add(node);
+        while (levels.size() <= level) {
+            levels.add(new ArrayList<>());
+        }
+        levels.get(level).add(node);
+        for (String variable : node.reads) {
+            readers.computeIfAbsent(variable, k -> new ArrayList<>()).add(node.index);
+        }
+        if (output != null) {
+            lastWriter.put(output, node.index);
+        }
+        return node;
+    }
+
+    /**
+     * 所有节点（按加入顺序）
+     */
+    public List<Node> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    /**
+     * 分层后的节点，同一层内按加入顺序排列
+     */
+    public List<List<Node>> getLevels() {
+        return Collections.unmodifiableList(levels);
+    }
+
+    /**
+     * 关键路径：依赖链最长的一条路径（从第一层到最后一层）
+     */
+    public List<Node> getCriticalPath() {
+        LinkedList<Node> path = new LinkedList<>();
+        if (nodes.isEmpty()) {
+            return path;
+        }
+        Node current = levels.get(levels.size() - 1).get(0);
+        path.addFirst(current);
+        while (!current.dependsOn.isEmpty()) {
+            Node next = null;
+            for (Integer dep : current.dependsOn) {
+                Node candidate = nodes.get(dep);
+                if (candidate.level == current.level - 1) {
+                    next = candidate;
+                    break;
+                }
+            }
+            current = next;
+            path.addFirst(current);
+        }
+        return path;
+    }
+
+    /**
+     * 图的描述信息（节点、分层、关键路径），用于调优展示
+     */
+    public Map<String, Object> describe() {
+        List<Map<String, Object>> nodeInfos = new ArrayList<>();
+        for (Node node : nodes) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("name", node.name);
+            info.put("outputParam", node.outputParam);
+            info.put("marker", node.marker);
+            info.put("reads", new ArrayList<>(node.reads));
+            List<String> dependsOn = new ArrayList<>();
+            for (Integer dep : node.dependsOn) {
+                dependsOn.add(nodes.get(dep).name);
+            }
+            info.put("dependsOn", dependsOn);
+            info.put("level", node.level);
+            nodeInfos.add(info);
+        }
+
+        List<List<String>> levelNames = new ArrayList<>();
+        int maxParallelism = 0;
+        for (List<Node> level : levels) {
+            List<String> names = new ArrayList<>();
+            for (Node node : level) {
+                names.add(node.name);
+            }
+            levelNames.add(names);
+            maxParallelism = Math.max(maxParallelism, level.size());
+        }
+
+        List<String> criticalPath = new ArrayList<>();
+        for (Node node : getCriticalPath()) {
+            criticalPath.add(node.name);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("nodes", nodeInfos);
+        result.put("levels", levelNames);
+        result.put("criticalPath", criticalPath);
+        result.put("criticalPathLength", criticalPath.size());
+        result.put("maxParallelism", maxParallelism);
+        return result;
+    }
+
+    /**
+     * 解析算法读取的变量：特殊标记读取参数中的各列，普通表达式交给解析器
+     */
+    private Set<String> readsOf(String expression) {
+        if (expression == null || expression.isEmpty()) {
+            return Collections.emptySet();
+        }
+        if (expression.startsWith("@")) {
+            return markerColumns(expression);
+        }
+        return extractor.extract(expression);
+    }
+
+    /**
+     * 特殊标记 @MARKER:params 读取的列（参数按逗号分隔）
+     *
+     * @param expression 特殊标记表达式
+     * @return 列名集合
+     */
+    public static Set<String> markerColumns(String expression) {
+        String[] parts = expression.substring(1).split(":", 2);
+        Set<String> columns = new LinkedHashSet<>();
+        if (parts.length > 1) {
+            for (String column : parts[1].split(",")) {
+                if (!column.trim().isEmpty()) {
+                    columns.add(column.trim());
+                }
+            }
+        }
+        return columns;
+    }
+}
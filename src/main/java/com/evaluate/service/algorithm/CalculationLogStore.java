@@ -0,0 +1,294 @@
+package com.evaluate.service.algorithm;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 计算会话日志存储
+ *
+ * 计算线程只把会话日志放入有界队列（队列满时丢弃并计数，不阻塞计算），
+ * 由后台写入线程序列化为 JSON：追加写入本地日志文件（每行一个会话，超过大小上限时滚动为 .1），
+ * 并保留最近的会话供查询。内存中的会话按条数、保留时间和序列化后的总字节数三个上限淘汰最早的会话。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Slf4j
+public class CalculationLogStore implements Closeable {
+
+    private static final TypeReference<LinkedHashMap<String, Object>> MAP_TYPE =
+            new TypeReference<LinkedHashMap<String, Object>>() { };
+
+    private static final class Pending {
+        private final String sessionId;
+        private final Map<String, Object> sessionLog;
+
+        private Pending(String sessionId, Map<String, Object> sessionLog) {
+            this.sessionId = sessionId;
+            this.sessionLog = sessionLog;
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] json;
+        private final long createdAt;
+
+        private Entry(byte[] json, long createdAt) {
+            this.json = json;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final int maxSessions;
+    private final long ttlMillis;
+    private final long maxBytes;
+    private final Path file;
+    private final long maxFileBytes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<Pending> queue;
+    private final LinkedHashMap<String, Entry> sessions = new LinkedHashMap<>();
+    private final Thread writer;
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong writeErrors = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long totalBytes;
+    private volatile boolean closed;
+    private OutputStream fileOut;
+    private long fileBytes;
+
+    /**
+     * @param maxSessions 内存中保留的最大会话数
+     * @param ttlMillis 会话保留时间（毫秒）
+     * @param maxBytes 内存中会话日志序列化后的最大总字节数
+     * @param queueCapacity 待写入队列容量
+     * @param file 追加写入的日志文件，null 表示不写文件
+     * @param maxFileBytes 日志文件大小上限，超过时滚动，0 表示不滚动
+     */
+    public CalculationLogStore(int maxSessions, long ttlMillis, long maxBytes, int queueCapacity,
+                               Path file, long maxFileBytes) {
+        this.maxSessions = Math.max(1, maxSessions);
+        this.ttlMillis = ttlMillis;
+        this.maxBytes = maxBytes;
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.writer = new Thread(this::drain, "calculation-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * 提交会话日志（不阻塞），队列已满或已关闭时丢弃
+     *
+     * @return 是否已接收
+     */
+    public boolean offer(String sessionId, Map<String, Object> sessionLog) {
+        if (closed || !queue.offer(new Pending(sessionId, sessionLog))) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        accepted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 查询会话日志，不存在或已淘汰时返回null
+     */
+    public Map<String, Object> get(String sessionId) {
+        Entry entry;
+        synchronized (sessions) {
+            evictExpired(System.currentTimeMillis());
+            entry = sessions.get(sessionId);
+        }
+        return entry != null ? parse(entry.json) : null;
+    }
+
+    /**
+     * 最近的会话日志（按完成时间倒序）
+     *
+     * @param limit 最大条数
+     */
+    public List<Map<String, Object>> recent(int limit) {
+        List<Entry> entries = new ArrayList<>();
+        synchronized (sessions) {
+            evictExpired(System.currentTimeMillis());
+            entries.addAll(sessions.values());
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int i = entries.size() - 1; i >= 0 && result.size() < limit; i--) {
+            Map<String, Object> sessionLog = parse(entries.get(i).json);
+            if (sessionLog != null) {
+                result.add(sessionLog);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 存储统计信息（会话数、字节数、接收、丢弃、写入、写入失败、淘汰次数）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (sessions) {
+            stats.put("sessions", sessions.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("maxSessions", maxSessions);
+        stats.put("maxBytes", maxBytes);
+        stats.put("ttlMillis", ttlMillis);
+        stats.put("queued", queue.size());
+        stats.put("accepted", accepted.get());
+        stats.put("dropped", dropped.get());
+        stats.put("written", written.get());
+        stats.put("writeErrors", writeErrors.get());
+        stats.put("evictions", evictions.get());
+        stats.put("file", file != null ? file.toString() : null);
+        return stats;
+    }
+
+    /**
+     * 等待已提交的会话日志处理完成
+     *
+     * @return 超时前是否已处理完
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (written.get() + writeErrors.get() < accepted.get()) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Pending pending;
+                try {
+                    pending = closed ? queue.poll() : queue.take();
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if (pending == null) {
+                    break;
+                }
+                try {
+                    write(pending);
+                    // 队列暂时清空时刷写文件，避免逐条 flush
+                    if (queue.isEmpty() && fileOut != null) {
+                        fileOut.flush();
+                    }
+                } catch (Exception e) {
+                    writeErrors.incrementAndGet();
+                    log.warn("计算会话日志写入失败: sessionId={}, {}", pending.sessionId, e.getMessage());
+                }
+            }
+        } finally {
+            closeFile();
+        }
+    }
+
+    private void write(Pending pending) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(pending.sessionLog);
+        if (file != null) {
+            appendToFile(json);
+        }
+        long now = System.currentTimeMillis();
+        synchronized (sessions) {
+            Entry previous = sessions.remove(pending.sessionId);
+            if (previous != null) {
+                totalBytes -= previous.json.length;
+            }
+            sessions.put(pending.sessionId, new Entry(json, now));
+            totalBytes += json.length;
+            evictExpired(now);
+            Iterator<Entry> iterator = sessions.values().iterator();
+            while (sessions.size() > 1 && (sessions.size() > maxSessions || (maxBytes > 0 && totalBytes > maxBytes))) {
+                totalBytes -= iterator.next().json.length;
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        written.incrementAndGet();
+    }
+
+    private void appendToFile(byte[] json) throws IOException {
+        if (fileOut == null) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            fileBytes = Files.exists(file) ? Files.size(file) : 0;
+            fileOut = new BufferedOutputStream(new FileOutputStream(file.toFile(), true));
+        }
+        if (maxFileBytes > 0 && fileBytes > 0 && fileBytes + json.length + 1 > maxFileBytes) {
+            closeFile();
+            Files.move(file, file.resolveSibling(file.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            fileBytes = 0;
+            fileOut = new BufferedOutputStream(new FileOutputStream(file.toFile(), true));
+        }
+        fileOut.write(json);
+        fileOut.write('\n');
+        fileBytes += json.length + 1;
+    }
+
+    private void closeFile() {
+        if (fileOut != null) {
+            try {
+                fileOut.close();
+            } catch (IOException e) {
+                log.warn("关闭计算会话日志文件失败: {}", e.getMessage());
+            }
+            fileOut = null;
+        }
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            // 按完成时间顺序插入，遇到未过期的即可停止
+            if (now - entry.createdAt < ttlMillis) {
+                break;
+            }
+            totalBytes -= entry.json.length;
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private Map<String, Object> parse(byte[] json) {
+        try {
+            return objectMapper.readValue(json, MAP_TYPE);
+        } catch (IOException e) {
+            log.warn("解析计算会话日志失败: {}", e.getMessage());
+            return null;
+        }
+    }
+}
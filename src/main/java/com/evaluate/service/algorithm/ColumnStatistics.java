@@ -0,0 +1,134 @@
+package com.evaluate.service.algorithm;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 单个指标列在所有地区上的统计量
+ *
+ * 一次扫描收集该列的非空值，计算平方和、最小值、最大值、均值和样本标准差。
+ * 累加方式与原先基于 Stream 的逐地区计算保持一致，保证结果逐位相同。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public final class ColumnStatistics {
+
+    private final String column;
+    private final int count;
+    private final double sumSquares;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final double sampleStdDev;
+
+    private ColumnStatistics(String column, double[] values, int count) {
+        this.column = column;
+        this.count = count;
+        if (count == 0) {
+            this.sumSquares = 0.0;
+            this.min = 0.0;
+            this.max = 0.0;
+            this.mean = 0.0;
+            this.sampleStdDev = 0.0;
+            return;
+        }
+        this.sumSquares = Arrays.stream(values, 0, count).map(v -> v * v).sum();
+        this.min = Arrays.stream(values, 0, count).min().orElse(0.0);
+        this.max = Arrays.stream(values, 0, count).max().orElse(0.0);
+        this.mean = Arrays.stream(values, 0, count).average().orElse(0.0);
+        if (count > 1) {
+            double avg = this.mean;
+            double sumSquaredDiff = Arrays.stream(values, 0, count).map(v -> Math.pow(v - avg, 2)).sum();
+            this.sampleStdDev = Math.sqrt(sumSquaredDiff / (count - 1));
+        } else {
+            this.sampleStdDev = 0.0;
+        }
+    }
+
+    /**
+     * 扫描所有地区数据，计算指定列的统计量（空值不参与统计）
+     *
+     * @param column 列名（指标名）
+     * @param allRegionData 所有地区数据
+     * @return 统计量
+     */
+    public static ColumnStatistics compute(String column, Map<String, Map<String, Object>> allRegionData) {
+        double[] values = new double[allRegionData.size()];
+        int count = 0;
+        for (Map<String, Object> regionData : allRegionData.values()) {
+            Object value = regionData != null ? regionData.get(column) : null;
+            if (value != null) {
+                values[count++] = toDouble(value);
+            }
+        }
+        return new ColumnStatistics(column, values, count);
+    }
+
+    /**
+     * 由已收集的非空值构造统计量（列式执行时使用）
+     *
+     * @param column 列名
+     * @param values 非空值（按地区顺序，前 count 个有效）
+     * @param count 有效值个数
+     * @return 统计量
+     */
+    public static ColumnStatistics of(String column, double[] values, int count) {
+        return new ColumnStatistics(column, values, count);
+    }
+
+    /**
+     * 与 SpecialAlgorithmServiceImpl 相同的数值转换规则
+     */
+    static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return 0.0;
+            }
+        }
+        return 0.0;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public double getSumSquares() {
+        return sumSquares;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getSampleStdDev() {
+        return sampleStdDev;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStatistics{column=" + column + ", n=" + count + ", sumSq=" + sumSquares
+                + ", min=" + min + ", max=" + max + ", mean=" + mean + ", stdev=" + sampleStdDev + "}";
+    }
+}
@@ -0,0 +1,71 @@
+package com.evaluate.service.algorithm;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 步骤级列统计缓存
+ *
+ * 在一个模型步骤内，@NORMALIZE / @TOPSIS_* / @GRADE 对同一列的统计量只计算一次，
+ * 之后每个地区的标记计算都是 O(1) 查表。
+ * 当某列在本步骤中被写入（算法输出到同名参数）时需调用 {@link #invalidate(String)}，
+ * 步骤结束时调用 {@link #clear()}。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public class ColumnStatisticsCache {
+
+    private final Map<String, ColumnStatistics> statistics = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * 获取列统计量，未缓存时扫描所有地区数据计算
+     *
+     * @param column 列名
+     * @param allRegionData 所有地区数据
+     * @return 统计量
+     */
+    public ColumnStatistics get(String column, Map<String, Map<String, Object>> allRegionData) {
+        ColumnStatistics cached = statistics.get(column);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        ColumnStatistics computed = ColumnStatistics.compute(column, allRegionData);
+        statistics.put(column, computed);
+        return computed;
+    }
+
+    /**
+     * 列数据发生变化时使其统计量失效
+     */
+    public void invalidate(String column) {
+        if (column != null) {
+            statistics.remove(column);
+        }
+    }
+
+    /**
+     * 清空全部缓存（步骤结束时调用）
+     */
+    public void clear() {
+        statistics.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStatisticsCache{columns=" + statistics.size() + ", hits=" + hits + ", misses=" + misses + "}";
+    }
+}
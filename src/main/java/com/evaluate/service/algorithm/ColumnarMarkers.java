@@ -0,0 +1,170 @@
+package com.evaluate.service.algorithm;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 特殊标记算法的整列实现（列式执行模式）
+ *
+ * 与 SpecialAlgorithmServiceImpl 的逐地区实现结果一致，但每个标记对整列只做一次统计，
+ * 然后一次遍历写出所有地区的结果，不再为每个地区重复查找和装箱。
+ * 数值结果返回 double[]，GRADE 返回 String[]，下标为地区序号。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Slf4j
+public final class ColumnarMarkers {
+
+    private ColumnarMarkers() {
+    }
+
+    /**
+     * 执行特殊标记
+     *
+     * @param table 列式地区数据表
+     * @param marker 标记名（NORMALIZE / TOPSIS_POSITIVE / TOPSIS_NEGATIVE / TOPSIS_SCORE / GRADE）
+     * @param params 标记参数
+     * @return double[] 或 String[]
+     */
+    public static Object execute(RegionColumnTable table, String marker, String params) {
+        switch (marker) {
+            case "NORMALIZE":
+                return normalize(table, params);
+            case "TOPSIS_POSITIVE":
+                return topsisDistance(table, params, true);
+            case "TOPSIS_NEGATIVE":
+                return topsisDistance(table, params, false);
+            case "TOPSIS_SCORE":
+                return topsisScore(table, params);
+            case "GRADE":
+                return grade(table, params);
+            default:
+                log.warn("未知的特殊标记: {}", marker);
+                return new double[table.getRegionCount()];
+        }
+    }
+
+    /**
+     * 向量归一化：value / SQRT(SUMSQ(all_values))
+     */
+    public static double[] normalize(RegionColumnTable table, String indicatorName) {
+        int n = table.getRegionCount();
+        double[] result = new double[n];
+        RegionColumnTable.NumericColumn column = table.numeric(indicatorName);
+        ColumnStatistics stats = column.statistics(indicatorName);
+        if (stats.isEmpty()) {
+            log.warn("未找到任何指标值: {}", indicatorName);
+            return result;
+        }
+
+        double denominator = Math.sqrt(stats.getSumSquares());
+        if (denominator == 0) {
+            // 所有地区该指标都为0时归一化没有意义，直接返回当前值
+            log.warn("分母为0，所有值都是0或接近0，直接返回当前值: indicator={}", indicatorName);
+        }
+        double[] values = column.getValues();
+        for (int row = 0; row < n; row++) {
+            if (column.has(row)) {
+                result[row] = denominator == 0 ? values[row] : values[row] / denominator;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * TOPSIS 到正理想解（positive=true，取各列最大值）或负理想解（取各列最小值）的距离
+     */
+    public static double[] topsisDistance(RegionColumnTable table, String indicators, boolean positive) {
+        int n = table.getRegionCount();
+        double[] sumSquares = new double[n];
+        String[] indicatorArray = indicators.split(",");
+
+        if (n == 1) {
+            // 单区域：与理论最优值（当前值的120%）或理论最差值（当前值的20%）比较
+            for (String indicator : indicatorArray) {
+                RegionColumnTable.NumericColumn column = table.numeric(indicator.trim());
+                if (column.has(0)) {
+                    double current = column.getValues()[0];
+                    double target = positive ? current * 1.2 : Math.max(0, current * 0.2);
+                    double diff = target - current;
+                    sumSquares[0] += diff * diff;
+                }
+            }
+            sumSquares[0] = Math.sqrt(sumSquares[0]);
+            return sumSquares;
+        }
+
+        for (String indicator : indicatorArray) {
+            String trimmedIndicator = indicator.trim();
+            RegionColumnTable.NumericColumn column = table.numeric(trimmedIndicator);
+            ColumnStatistics stats = column.statistics(trimmedIndicator);
+            if (stats.isEmpty()) {
+                log.warn("未找到指标值: {}", trimmedIndicator);
+                continue;
+            }
+            double ideal = positive ? stats.getMax() : stats.getMin();
+            double[] values = column.getValues();
+            for (int row = 0; row < n; row++) {
+                if (column.has(row)) {
+                    double diff = ideal - values[row];
+                    sumSquares[row] += diff * diff;
+                }
+            }
+        }
+        for (int row = 0; row < n; row++) {
+            sumSquares[row] = Math.sqrt(sumSquares[row]);
+        }
+        return sumSquares;
+    }
+
+    /**
+     * TOPSIS 得分：D- / (D+ + D-)
+     */
+    public static double[] topsisScore(RegionColumnTable table, String params) {
+        int n = table.getRegionCount();
+        double[] result = new double[n];
+        String[] fields = params.split(",");
+        if (fields.length != 2) {
+            log.error("TOPSIS_SCORE参数格式错误，应为: POSITIVE_FIELD,NEGATIVE_FIELD，实际: {}", params);
+            return result;
+        }
+
+        RegionColumnTable.NumericColumn positive = table.numeric(fields[0].trim());
+        RegionColumnTable.NumericColumn negative = table.numeric(fields[1].trim());
+        double[] dPositive = positive.getValues();
+        double[] dNegative = negative.getValues();
+        for (int row = 0; row < n; row++) {
+            if (!positive.has(row) || !negative.has(row)) {
+                continue;
+            }
+            double denominator = dPositive[row] + dNegative[row];
+            if (denominator != 0) {
+                result[row] = dNegative[row] / denominator;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按均值与样本标准差分级
+     */
+    public static String[] grade(RegionColumnTable table, String scoreField) {
+        int n = table.getRegionCount();
+        String[] result = new String[n];
+        RegionColumnTable.NumericColumn column = table.numeric(scoreField);
+        ColumnStatistics stats = column.statistics(scoreField);
+        double[] values = column.getValues();
+
+        for (int row = 0; row < n; row++) {
+            if (stats.isEmpty() || !column.has(row)) {
+                result[row] = "中等";
+            } else if (stats.getCount() <= 1) {
+                result[row] = GradeRules.gradeByAbsoluteScore(values[row]);
+            } else {
+                result[row] = GradeRules.determineGrade(values[row], stats.getMean(), stats.getSampleStdDev());
+            }
+        }
+        log.debug("[分级] {} 统计: {}", scoreField, stats);
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+package com.evaluate.service.algorithm;
+
+import com.ql.util.express.IExpressContext;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * QLExpress 执行上下文视图
+ *
+ * 直接包装地区上下文 Map，只有表达式实际读取的变量才做数值转换
+ * （Integer / Long / Float / BigDecimal 转为 Double，避免整数除法精度丢失），
+ * 不再在每次执行前复制全部调查字段与前序步骤输出。
+ * 表达式内的赋值写入本地覆盖层，不会回写到原始上下文。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public class ExpressionContextView implements IExpressContext<String, Object> {
+
+    private final Map<String, Object> source;
+    private Map<String, Object> overlay;
+
+    public ExpressionContextView(Map<String, Object> source) {
+        this.source = source;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (overlay != null && overlay.containsKey(key)) {
+            return overlay.get(key);
+        }
+        return source != null ? toDoubleIfNumber(source.get(key)) : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (overlay == null) {
+            overlay = new HashMap<>();
+        }
+        return overlay.put(key, value);
+    }
+
+    /**
+     * 与原 DefaultContext 复制时的转换规则一致
+     */
+    static Object toDoubleIfNumber(Object value) {
+        if (value instanceof Integer) {
+            return ((Integer) value).doubleValue();
+        } else if (value instanceof Long) {
+            return ((Long) value).doubleValue();
+        } else if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).doubleValue();
+        }
+        return value;
+    }
+}
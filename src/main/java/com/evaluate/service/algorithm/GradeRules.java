@@ -0,0 +1,91 @@
+package com.evaluate.service.algorithm;
+
+/**
+ * 能力分级规则
+ *
+ * 逐地区计算（SpecialAlgorithmServiceImpl）与列式计算共用同一套阈值判断。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public final class GradeRules {
+
+    private GradeRules() {
+    }
+
+    /**
+     * 根据均值与样本标准差确定等级
+     *
+     * 规则：
+     * 如果 μ <= 0.5σ: ≥μ+1.5σ 强，≥μ+0.5σ 较强，否则 中等
+     * 如果 μ <= 1.5σ: ≥μ+1.5σ 强，≥μ+0.5σ 较强，≥μ-0.5σ 中等，否则 较弱
+     * 否则:           ≥μ+1.5σ 强，≥μ+0.5σ 较强，≥μ-0.5σ 中等，≥μ-1.5σ 较弱，否则 弱
+     */
+    public static String determineGrade(double value, double mean, double stdev) {
+        double halfStdev = 0.5 * stdev;
+        double oneAndHalfStdev = 1.5 * stdev;
+        double meanPlusHalf = mean + halfStdev;
+        double meanPlusOneAndHalf = mean + oneAndHalfStdev;
+        double meanMinusHalf = mean - halfStdev;
+        double meanMinusOneAndHalf = mean - oneAndHalfStdev;
+
+        // 确保值不小于0（根据规则中的[0,...)区间)
+        value = Math.max(0, value);
+
+        if (mean <= halfStdev) {
+            // 情况1：μ ≤ 0.5σ，分为3级
+            if (value >= meanPlusOneAndHalf) {
+                return "强";
+            } else if (value >= meanPlusHalf) {
+                return "较强";
+            } else {
+                return "中等";
+            }
+        } else if (mean <= oneAndHalfStdev) {
+            // 情况2：0.5σ < μ ≤ 1.5σ，分为4级
+            if (value >= meanPlusOneAndHalf) {
+                return "强";
+            } else if (value >= meanPlusHalf) {
+                return "较强";
+            } else if (value >= meanMinusHalf) {
+                return "中等";
+            } else {
+                return "较弱";
+            }
+        } else {
+            // 情况3：μ > 1.5σ，默认情况，使用5级分类
+            if (value >= meanPlusOneAndHalf) {
+                return "强";
+            } else if (value >= meanPlusHalf) {
+                return "较强";
+            } else if (value >= meanMinusHalf) {
+                return "中等";
+            } else if (value >= meanMinusOneAndHalf) {
+                return "较弱";
+            } else {
+                return "弱";
+            }
+        }
+    }
+
+    /**
+     * 单区域分级：无法进行统计分析时，基于分数绝对值分级
+     */
+    public static String gradeByAbsoluteScore(double score) {
+        // 如果分数为NaN（TOPSIS计算失败），给予保守分级
+        if (Double.isNaN(score)) {
+            return "中等";
+        }
+        if (score >= 0.8) {
+            return "强";
+        } else if (score >= 0.6) {
+            return "较强";
+        } else if (score >= 0.4) {
+            return "中等";
+        } else if (score >= 0.2) {
+            return "较弱";
+        } else {
+            return "弱";
+        }
+    }
+}
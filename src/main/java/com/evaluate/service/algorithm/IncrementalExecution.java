@@ -0,0 +1,300 @@
+package com.evaluate.service.algorithm;
+
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模型增量执行跟踪器
+ *
+ * 与上一次相同模型、相同地区列表、相同全局参数的执行结果（{@link Snapshot}）对比，
+ * 跟踪每个地区哪些变量的值与上次执行在同一时刻的值不同（"已变化"）：
+ * <ul>
+ *   <li>地区首次构建上下文时，与上次的源数据逐字段比较</li>
+ *   <li>算法写入输出后，与上次该步骤的输出比较，相同则清除变化标记</li>
+ * </ul>
+ * 算法在某地区可复用上次结果的条件：
+ * <ul>
+ *   <li>普通表达式：读取的变量在该地区均未变化（表达式只依赖本地区上下文）</li>
+ *   <li>特殊标记：参数中的各列在所有地区均未变化（列统计量与上次相同）</li>
+ * </ul>
+ * 步骤的算法配置与上次不同，或同一步骤内多个算法写同一输出时，该步骤全部重新计算，只比较最终输出。
+ * 复用的值就是上次在完全相同的输入下算出的值，因此结果与全量执行逐位一致。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public class IncrementalExecution {
+
+    /**
+     * 一次模型执行的结果快照
+     */
+    @Getter
+    public static class Snapshot {
+        private final Map<String, Object> globals;
+        private final Map<String, Map<String, Object>> sourceRows;
+        private final Map<String, List<String>> stepSignatures;
+        private final Map<String, Object> stepResults;
+
+        public Snapshot(Map<String, Object> globals, Map<String, Map<String, Object>> sourceRows,
+                        Map<String, List<String>> stepSignatures, Map<String, Object> stepResults) {
+            this.globals = globals;
+            this.sourceRows = sourceRows;
+            this.stepSignatures = stepSignatures;
+            this.stepResults = stepResults;
+        }
+    }
+
+    /**
+     * 单个步骤的复用判断与输出比较
+     */
+    public class StepTracker {
+        private final Map<String, Map<String, Object>> previousResults;
+        private final boolean reusable;
+
+        private StepTracker(Map<String, Map<String, Object>> previousResults, boolean reusable) {
+            this.previousResults = previousResults;
+            this.reusable = reusable;
+        }
+
+        /**
+         * 算法在该地区能否复用上次结果
+         *
+         * @param regionCode 地区代码
+         * @param outputParam 输出参数
+         * @param reads 算法读取的变量，null 表示无法解析（不复用）
+         * @param marker 是否特殊标记（读取整列）
+         */
+        public boolean canReuse(String regionCode, String outputParam, Set<String> reads, boolean marker) {
+            if (!reusable || outputParam == null || reads == null) {
+                return false;
+            }
+            Map<String, Object> previous = previousResults.get(regionCode);
+            if (previous == null || !previous.containsKey(outputParam)) {
+                return false;
+            }
+            if (marker) {
+                for (String column : reads) {
+                    if (changedCounts.getOrDefault(column, 0) > 0) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            Set<String> changed = changedByRegion.get(regionCode);
+            if (changed != null) {
+                for (String variable : reads) {
+                    if (changed.contains(variable)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 上次执行该算法在该地区的输出（调用前需 {@link #canReuse} 返回 true）
+         */
+        public Object previousValue(String regionCode, String outputParam) {
+            reusedValues.incrementAndGet();
+            return previousResults.get(regionCode).get(outputParam);
+        }
+
+        /**
+         * 记录算法输出写入上下文，与上次输出比较更新变化标记；
+         * 并行执行时不同地区可在多个线程中同时调用
+         */
+        public void record(String regionCode, String outputParam, Object value, boolean computed) {
+            if (outputParam == null) {
+                return;
+            }
+            if (computed) {
+                computedValues.incrementAndGet();
+            }
+            Map<String, Object> previous = previousResults != null ? previousResults.get(regionCode) : null;
+            boolean same = previous != null && previous.containsKey(outputParam)
+                    && Objects.equals(previous.get(outputParam), value);
+            if (!same) {
+                markChanged(regionCode, outputParam);
+            } else if (!writtenByEarlierSteps.contains(outputParam)) {
+                // 多个步骤写同一变量时上下文取值顺序不确定，保留已有变化标记
+                clearChanged(regionCode, outputParam);
+            }
+        }
+    }
+
+    private final Snapshot previous;
+    private final Map<String, Set<String>> changedByRegion = new ConcurrentHashMap<>();
+    private final Map<String, Integer> changedCounts = new ConcurrentHashMap<>();
+    private final Set<String> observedRegions = new HashSet<>();
+    private final Set<String> writtenByEarlierSteps = new HashSet<>();
+    private final Map<String, Map<String, Object>> sourceRows = new HashMap<>();
+    private final Map<String, List<String>> stepSignatures = new HashMap<>();
+    private final Set<String> stepOutputs = new HashSet<>();
+    private final AtomicLong reusedValues = new AtomicLong();
+    private final AtomicLong computedValues = new AtomicLong();
+    private int dirtyRegions;
+    private boolean reuseDisabled;
+
+    /**
+     * @param previous 上次执行的快照，null 表示全量执行（仍会记录本次快照）
+     */
+    public IncrementalExecution(Snapshot previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * 是否基于上次快照增量执行
+     */
+    public boolean isIncremental() {
+        return previous != null;
+    }
+
+    /**
+     * 地区上下文加载源数据时调用，每个地区只在首次调用时与上次源数据比较
+     *
+     * @param regionCode 地区代码
+     * @param sourceRow 转换后的源数据（未找到源数据时为空Map）
+     */
+    public void observeSource(String regionCode, Map<String, Object> sourceRow) {
+        if (!observedRegions.add(regionCode)) {
+            return;
+        }
+        sourceRows.put(regionCode, sourceRow);
+        if (previous == null) {
+            return;
+        }
+        Map<String, Object> previousRow = previous.sourceRows.get(regionCode);
+        if (previousRow == null) {
+            previousRow = Collections.emptyMap();
+        }
+        Set<String> keys = new HashSet<>(sourceRow.keySet());
+        keys.addAll(previousRow.keySet());
+        boolean dirty = false;
+        for (String key : keys) {
+            if (sourceRow.containsKey(key) != previousRow.containsKey(key)
+                    || !Objects.equals(sourceRow.get(key), previousRow.get(key))) {
+                markChanged(regionCode, key);
+                dirty = true;
+            }
+        }
+        if (dirty) {
+            dirtyRegions++;
+        }
+    }
+
+    /**
+     * 开始执行一个步骤
+     *
+     * @param stepCode 步骤编码
+     * @param signature 步骤算法配置签名（算法顺序、表达式、输出参数），null 表示不可复用
+     * @return 步骤跟踪器
+     */
+    @SuppressWarnings("unchecked")
+    public StepTracker beginStep(String stepCode, List<String> signature) {
+        writtenByEarlierSteps.addAll(stepOutputs);
+        stepOutputs.clear();
+        if (signature != null) {
+            stepSignatures.put(stepCode, signature);
+        }
+        Map<String, Map<String, Object>> previousResults = null;
+        boolean reusable = false;
+        if (previous != null && previous.stepResults.get(stepCode) instanceof Map) {
+            Object regionResults = ((Map<String, Object>) previous.stepResults.get(stepCode)).get("regionResults");
+            if (regionResults instanceof Map) {
+                previousResults = (Map<String, Map<String, Object>>) regionResults;
+                reusable = !reuseDisabled && signature != null
+                        && signature.equals(previous.stepSignatures.get(stepCode));
+            }
+        }
+        return new StepTracker(previousResults, reusable);
+    }
+
+    /**
+     * 记录一个全部重新计算的步骤（如乡镇聚合）的输出；
+     * 输出的地区集合与上次不同时，此后所有步骤全部重新计算
+     *
+     * @param stepCode 步骤编码
+     * @param regionResults 各地区输出
+     */
+    public void recordStepResults(String stepCode, Map<String, Map<String, Object>> regionResults) {
+        StepTracker tracker = beginStep(stepCode, null);
+        if (previous != null && (tracker.previousResults == null
+                || !tracker.previousResults.keySet().equals(regionResults.keySet()))) {
+            reuseDisabled = true;
+        }
+        for (Map.Entry<String, Map<String, Object>> entry : regionResults.entrySet()) {
+            for (Map.Entry<String, Object> output : entry.getValue().entrySet()) {
+                tracker.record(entry.getKey(), output.getKey(), output.getValue(), true);
+            }
+            addStepOutputs(entry.getValue().keySet());
+        }
+    }
+
+    /**
+     * 步骤写出的输出参数（用于判断变量是否被多个步骤写入）
+     */
+    public void addStepOutputs(Collection<String> outputParams) {
+        stepOutputs.addAll(outputParams);
+    }
+
+    /**
+     * 源数据与上次不同的地区数量
+     */
+    public int getDirtyRegionCount() {
+        return dirtyRegions;
+    }
+
+    /**
+     * 生成本次执行的快照；各步骤只复制保留地区输出（regionResults），
+     * 之后修改返回给调用方的执行结果不会影响快照
+     */
+    @SuppressWarnings("unchecked")
+    public Snapshot toSnapshot(Map<String, Object> globals, Map<String, Object> stepResults) {
+        Map<String, Object> resultsCopy = new HashMap<>();
+        for (Map.Entry<String, Object> step : stepResults.entrySet()) {
+            if (!(step.getValue() instanceof Map)) {
+                continue;
+            }
+            Object regionResults = ((Map<String, Object>) step.getValue()).get("regionResults");
+            if (regionResults instanceof Map) {
+                Map<String, Map<String, Object>> regionCopy = new HashMap<>();
+                for (Map.Entry<String, Map<String, Object>> region
+                        : ((Map<String, Map<String, Object>>) regionResults).entrySet()) {
+                    regionCopy.put(region.getKey(), new HashMap<>(region.getValue()));
+                }
+                resultsCopy.put(step.getKey(), Collections.singletonMap("regionResults", regionCopy));
+            }
+        }
+        Map<String, Map<String, Object>> sourceCopy = new HashMap<>();
+        sourceRows.forEach((regionCode, row) -> sourceCopy.put(regionCode, new HashMap<>(row)));
+        return new Snapshot(new HashMap<>(globals), sourceCopy, new HashMap<>(stepSignatures), resultsCopy);
+    }
+
+    /**
+     * 增量执行统计
+     */
+    public Map<String, Object> toStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", previous != null ? "INCREMENTAL" : "FULL");
+        stats.put("dirtyRegions", getDirtyRegionCount());
+        stats.put("reusedValues", reusedValues.get());
+        stats.put("computedValues", computedValues.get());
+        return stats;
+    }
+
+    private void markChanged(String regionCode, String variable) {
+        if (changedByRegion.computeIfAbsent(regionCode, k -> ConcurrentHashMap.newKeySet()).add(variable)) {
+            changedCounts.merge(variable, 1, Integer::sum);
+        }
+    }
+
+    private void clearChanged(String regionCode, String variable) {
+        Set<String> changed = changedByRegion.get(regionCode);
+        if (changed != null && changed.remove(variable)) {
+            changedCounts.merge(variable, -1, Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.evaluate.service.algorithm;
+
+import com.ql.util.express.IExpressContext;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式地区数据表
+ *
+ * 每个指标（源数据字段或步骤输出）是一列，按地区序号连续存放：
+ * 全部为数值的列使用 double[] + 存在位图，出现非数值（如等级“强/较强”、是否类字段）时改为 Object[]。
+ * 列名通过唯一的名称索引定位，名称在注册时 intern，源字段与步骤输出共用同一份字符串。
+ *
+ * 表达式执行通过 {@link #rowContext(int)} 按行读取，数值只在被读取时装箱；
+ * 不存在的列回退到全局上下文（权重、modelId 等），与逐地区上下文复制全局数据的语义一致。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public class RegionColumnTable {
+
+    /**
+     * 地区上下文中的当前地区代码变量名
+     */
+    public static final String CURRENT_REGION_CODE = "currentRegionCode";
+
+    private final String[] regionCodes;
+    private final Map<String, Object> globals;
+
+    private final Map<String, Integer> columnIndex = new HashMap<>();
+    private final List<String> columnNames = new ArrayList<>();
+    private final List<double[]> doubleColumns = new ArrayList<>();
+    private final List<Object[]> objectColumns = new ArrayList<>();
+    private final List<BitSet> presence = new ArrayList<>();
+    private final BitSet outputColumns = new BitSet();
+
+    public RegionColumnTable(List<String> regionCodes, Map<String, Object> globals) {
+        this.regionCodes = regionCodes.toArray(new String[0]);
+        this.globals = globals != null ? globals : new HashMap<>();
+    }
+
+    public int getRegionCount() {
+        return regionCodes.length;
+    }
+
+    public String getRegionCode(int row) {
+        return regionCodes[row];
+    }
+
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    public Map<String, Object> getGlobals() {
+        return globals;
+    }
+
+    /**
+     * 查找列序号，不存在返回-1
+     */
+    public int findColumn(String name) {
+        Integer index = columnIndex.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * 获取或创建列（新列默认为数值列）
+     */
+    public int column(String name) {
+        Integer index = columnIndex.get(name);
+        if (index != null) {
+            return index;
+        }
+        String interned = name.intern();
+        int created = columnNames.size();
+        columnNames.add(interned);
+        doubleColumns.add(new double[regionCodes.length]);
+        objectColumns.add(null);
+        presence.add(new BitSet(regionCodes.length));
+        columnIndex.put(interned, created);
+        return created;
+    }
+
+    /**
+     * 标记该列由步骤输出写入（乡镇聚合只读取步骤输出，不读取源数据字段）
+     */
+    public void markOutput(int col) {
+        outputColumns.set(col);
+    }
+
+    public boolean isOutput(int col) {
+        return col >= 0 && outputColumns.get(col);
+    }
+
+    public boolean has(int col, int row) {
+        return presence.get(col).get(row);
+    }
+
+    /**
+     * 读取单元格（数值列在此处装箱），无值返回null
+     */
+    public Object get(int col, int row) {
+        if (!presence.get(col).get(row)) {
+            return null;
+        }
+        Object[] objects = objectColumns.get(col);
+        return objects != null ? objects[row] : Double.valueOf(doubleColumns.get(col)[row]);
+    }
+
+    /**
+     * 写入数值
+     */
+    public void setDouble(int col, int row, double value) {
+        Object[] objects = objectColumns.get(col);
+        if (objects != null) {
+            objects[row] = value;
+        } else {
+            doubleColumns.get(col)[row] = value;
+        }
+        presence.get(col).set(row);
+    }
+
+    /**
+     * 写入任意值：null 清除单元格，数值写入数值存储，其它类型将该列转换为对象列
+     */
+    public void set(int col, int row, Object value) {
+        if (value == null) {
+            presence.get(col).clear(row);
+            Object[] objects = objectColumns.get(col);
+            if (objects != null) {
+                objects[row] = null;
+            }
+            return;
+        }
+        if (objectColumns.get(col) == null) {
+            // Integer / Long / Float / BigDecimal 与表达式上下文一样按 Double 存储
+            Object converted = ExpressionContextView.toDoubleIfNumber(value);
+            if (converted instanceof Double) {
+                setDouble(col, row, (Double) converted);
+                return;
+            }
+        }
+        objectStorage(col)[row] = value;
+        presence.get(col).set(row);
+    }
+
+    /**
+     * 整列写入数值结果
+     */
+    public void setColumn(int col, double[] values) {
+        Object[] objects = objectColumns.get(col);
+        if (objects != null) {
+            for (int row = 0; row < values.length; row++) {
+                objects[row] = values[row];
+            }
+        } else {
+            System.arraycopy(values, 0, doubleColumns.get(col), 0, values.length);
+        }
+        presence.get(col).set(0, values.length);
+    }
+
+    private Object[] objectStorage(int col) {
+        Object[] objects = objectColumns.get(col);
+        if (objects == null) {
+            // 数值列遇到非数值时整体转换为对象列
+            objects = new Object[regionCodes.length];
+            double[] values = doubleColumns.get(col);
+            BitSet present = presence.get(col);
+            for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+                objects[row] = values[row];
+            }
+            objectColumns.set(col, objects);
+            doubleColumns.set(col, null);
+        }
+        return objects;
+    }
+
+    /**
+     * 获取列的数值视图（供特殊标记算法做整列计算）
+     *
+     * 与逐地区上下文一致：列不存在时使用全局上下文中的同名值，所有地区取同一个值；
+     * 字符串按数值解析，无法解析的记为0。
+     */
+    public NumericColumn numeric(String name) {
+        int n = regionCodes.length;
+        int col = findColumn(name);
+        if (col >= 0) {
+            BitSet present = presence.get(col);
+            Object[] objects = objectColumns.get(col);
+            if (objects == null) {
+                return new NumericColumn(doubleColumns.get(col), present);
+            }
+            double[] values = new double[n];
+            for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+                values[row] = ColumnStatistics.toDouble(objects[row]);
+            }
+            return new NumericColumn(values, present);
+        }
+
+        double[] values = new double[n];
+        BitSet present = new BitSet(n);
+        if (CURRENT_REGION_CODE.equals(name)) {
+            for (int row = 0; row < n; row++) {
+                values[row] = ColumnStatistics.toDouble(regionCodes[row]);
+            }
+            present.set(0, n);
+        } else {
+            Object global = globals.get(name);
+            if (global != null) {
+                double value = ColumnStatistics.toDouble(global);
+                for (int row = 0; row < n; row++) {
+                    values[row] = value;
+                }
+                present.set(0, n);
+            }
+        }
+        return new NumericColumn(values, present);
+    }
+
+    /**
+     * 创建可复用的行上下文，用于逐行执行QLExpress表达式
+     */
+    public RowContext rowContext(int row) {
+        RowContext context = new RowContext();
+        context.moveTo(row);
+        return context;
+    }
+
+    /**
+     * 列的数值视图（values 只在 present 对应位为 true 时有效，调用方不得修改）
+     */
+    public static final class NumericColumn {
+
+        private final double[] values;
+        private final BitSet present;
+
+        NumericColumn(double[] values, BitSet present) {
+            this.values = values;
+            this.present = present;
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+
+        public boolean has(int row) {
+            return present.get(row);
+        }
+
+        public int count() {
+            return present.cardinality();
+        }
+
+        /**
+         * 计算列统计量，累加顺序与逐地区计算一致（按地区顺序）
+         */
+        public ColumnStatistics statistics(String column) {
+            double[] compact = new double[values.length];
+            int count = 0;
+            for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+                compact[count++] = values[row];
+            }
+            return ColumnStatistics.of(column, compact, count);
+        }
+    }
+
+    /**
+     * 行上下文：按列名读取当前行，数值按需转换为Double；表达式内赋值写入本地覆盖层
+     */
+    public final class RowContext implements IExpressContext<String, Object> {
+
+        private int row;
+        private Map<String, Object> overlay;
+
+        public void moveTo(int row) {
+            this.row = row;
+            if (overlay != null) {
+                overlay.clear();
+            }
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (overlay != null && overlay.containsKey(key)) {
+                return overlay.get(key);
+            }
+            Integer col = columnIndex.get(key);
+            if (col != null && presence.get(col).get(row)) {
+                Object[] objects = objectColumns.get(col);
+                return objects != null
+                        ? ExpressionContextView.toDoubleIfNumber(objects[row])
+                        : Double.valueOf(doubleColumns.get(col)[row]);
+            }
+            if (CURRENT_REGION_CODE.equals(key)) {
+                return regionCodes[row];
+            }
+            return ExpressionContextView.toDoubleIfNumber(globals.get(key));
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            if (overlay == null) {
+                overlay = new HashMap<>();
+            }
+            return overlay.put(key, value);
+        }
+    }
+}
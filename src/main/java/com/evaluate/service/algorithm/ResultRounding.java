@@ -0,0 +1,32 @@
+package com.evaluate.service.algorithm;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 计算结果的8位小数格式化
+ *
+ * 与 Double.parseDouble(String.format("%.8f", v)) 结果逐位相同（包括 -0.0、NaN、Infinity），
+ * 但不经过 Formatter 解析格式串和字符串往返，也不受默认 Locale 的小数点符号影响。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public final class ResultRounding {
+
+    private ResultRounding() {
+    }
+
+    /**
+     * 四舍五入保留8位小数
+     */
+    public static double round8(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return value;
+        }
+        // BigDecimal.valueOf 与 Formatter 使用同一组最短十进制数字，再按 HALF_UP 舍入
+        double rounded = BigDecimal.valueOf(value).setScale(8, RoundingMode.HALF_UP).doubleValue();
+        // String.format 对负数舍入到0时保留符号（"-0.00000000"）
+        return rounded == 0 ? Math.copySign(0.0, value) : rounded;
+    }
+}
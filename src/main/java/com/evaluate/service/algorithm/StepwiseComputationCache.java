@@ -0,0 +1,184 @@
+package com.evaluate.service.algorithm;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 分步评估计算上下文缓存
+ *
+ * 按（地区列表，权重配置ID，算法ID，调查数据版本，指标权重版本）缓存 {@link StepwiseEvaluationMatrix}，
+ * 同一次分步评估的后续步骤（如步骤5）在多次HTTP请求之间复用步骤4的计算结果；
+ * 不同地区列表或不同权重配置的评估互不影响，调查数据或指标权重写入后版本变化，旧条目不再命中。
+ * 容量按 LRU 淘汰，条目超过保留时间后视为失效。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public class StepwiseComputationCache {
+
+    /**
+     * 计算上下文标识
+     */
+    public static final class Key {
+        private final List<String> regionIds;
+        private final Long weightConfigId;
+        private final Long algorithmId;
+        private final long dataVersion;
+        private final long weightVersion;
+
+        public Key(List<String> regionIds, Long weightConfigId, Long algorithmId, long dataVersion,
+                   long weightVersion) {
+            this.regionIds = regionIds != null ? new ArrayList<>(regionIds) : Collections.emptyList();
+            this.weightConfigId = weightConfigId;
+            this.algorithmId = algorithmId;
+            this.dataVersion = dataVersion;
+            this.weightVersion = weightVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return regionIds.equals(other.regionIds) && Objects.equals(weightConfigId, other.weightConfigId)
+                    && Objects.equals(algorithmId, other.algorithmId) && dataVersion == other.dataVersion
+                    && weightVersion == other.weightVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(regionIds, weightConfigId, algorithmId, dataVersion, weightVersion);
+        }
+
+        @Override
+        public String toString() {
+            return "Key{regions=" + regionIds.size() + ", weightConfigId=" + weightConfigId
+                    + ", algorithmId=" + algorithmId + ", dataVersion=" + dataVersion
+                    + ", weightVersion=" + weightVersion + "}";
+        }
+    }
+
+    private static final class Entry {
+        private final StepwiseEvaluationMatrix matrix;
+        private final long createdAt;
+
+        private Entry(StepwiseEvaluationMatrix matrix, long createdAt) {
+            this.matrix = matrix;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<Key, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxEntries 最大条目数
+     * @param ttlMillis 条目保留时间（毫秒）
+     */
+    public StepwiseComputationCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries > 0 ? maxEntries : 1;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > StepwiseComputationCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取计算上下文，未缓存、已失效或要求刷新时重新计算并缓存
+     *
+     * @param key 计算上下文标识
+     * @param refresh 是否忽略已缓存结果重新计算
+     * @param loader 计算函数（在锁外执行）
+     * @return 计算结果
+     */
+    public StepwiseEvaluationMatrix getOrCompute(Key key, boolean refresh, Supplier<StepwiseEvaluationMatrix> loader) {
+        if (!refresh) {
+            StepwiseEvaluationMatrix cached = get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        StepwiseEvaluationMatrix computed = loader.get();
+        synchronized (entries) {
+            entries.put(key, new Entry(computed, System.currentTimeMillis()));
+        }
+        return computed;
+    }
+
+    /**
+     * 清理已失效的条目
+     *
+     * @return 清理的条目数
+     */
+    public int evictExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (isExpired(iterator.next(), now)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+        evictions.addAndGet(removed);
+        return removed;
+    }
+
+    /**
+     * 缓存统计信息（条目数、容量、命中、未命中、命中率、淘汰次数）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        stats.put("maxSize", maxEntries);
+        stats.put("ttlMillis", ttlMillis);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private StepwiseEvaluationMatrix get(Key key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (isExpired(entry, System.currentTimeMillis())) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                return null;
+            }
+            return entry.matrix;
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAt >= ttlMillis;
+    }
+}
@@ -0,0 +1,313 @@
+package com.evaluate.service.algorithm;
+
+import com.evaluate.entity.SurveyData;
+
+import java.util.*;
+import java.util.stream.DoubleStream;
+
+/**
+ * 分步评估（步骤1-5）的矩阵计算
+ *
+ * 由每个地区的一条调查数据一次性构建8个二级指标的原始值矩阵，按列依次推导：
+ * <ol>
+ *   <li>原始值：指标 / 常住人口 × 10000 等口径</li>
+ *   <li>属性向量归一化：本地区值 / SQRT(SUMSQ(全部地区值))</li>
+ *   <li>定权：归一化值 × 二级权重（表1），归一化值 × 一级权重 × 二级权重（表2）</li>
+ *   <li>优劣解：3个一级指标与综合减灾能力的TOPSIS值及优劣解距离</li>
+ *   <li>分级：按均值与样本标准差对步骤4的结果分级</li>
+ * </ol>
+ * 各步骤的表格都从同一次计算中取值，计算顺序与逐地区计算一致，结果逐位相同。
+ * 没有调查数据的地区在原始值矩阵中按0参与归一化和分级统计，不参与优劣解的最大/最小值。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public class StepwiseEvaluationMatrix {
+
+    /**
+     * 二级指标（矩阵行顺序）
+     */
+    public static final String[] INDICATORS = {
+            "teamManagement", "riskAssessment", "financialInput", "materialReserve",
+            "medicalSupport", "selfRescue", "publicAvoidance", "relocationCapacity"
+    };
+
+    /**
+     * 一级指标
+     */
+    public static final String[] PRIMARY_INDICATORS = {
+            "disasterManagement", "disasterPreparedness", "selfRescueTransfer"
+    };
+
+    /**
+     * 一级指标包含的二级指标下标
+     */
+    private static final int[][] PRIMARY_GROUPS = {{0, 1, 2}, {3, 4}, {5, 6, 7}};
+
+    private static final double[] DEFAULT_PRIMARY_WEIGHTS = {0.33, 0.32, 0.35};
+    private static final double[] DEFAULT_SECONDARY_WEIGHTS = {0.37, 0.31, 0.32, 0.51, 0.49, 0.33, 0.33, 0.34};
+
+    private final List<String> regionNames;
+    private final boolean[] present;
+    private final double[][] raw;
+    private final double[][] normalized;
+    private final double[][] secondaryWeighted;
+    private final double[][] weighted;
+    private final double[][] primaryScores;
+    private final double[] comprehensive;
+    private final double[] positiveDistance;
+    private final double[] negativeDistance;
+    private final String[][] primaryGrades;
+    private final String[] comprehensiveGrades;
+
+    /**
+     * @param regionNames 地区名称（与请求的地区顺序一致）
+     * @param surveyRows 各地区的调查数据，无数据的地区为null
+     * @param primaryWeights 一级指标权重，缺失时使用默认权重
+     * @param secondaryWeights 二级指标权重，缺失时使用默认权重
+     */
+    public StepwiseEvaluationMatrix(List<String> regionNames, List<SurveyData> surveyRows,
+                                    Map<String, Double> primaryWeights, Map<String, Double> secondaryWeights) {
+        int n = regionNames.size();
+        int m = INDICATORS.length;
+        this.regionNames = Collections.unmodifiableList(new ArrayList<>(regionNames));
+        this.present = new boolean[n];
+        this.raw = new double[m][n];
+        for (int i = 0; i < n; i++) {
+            SurveyData surveyData = surveyRows.get(i);
+            if (surveyData != null) {
+                present[i] = true;
+                double[] values = rawIndicators(surveyData);
+                for (int k = 0; k < m; k++) {
+                    raw[k][i] = values[k];
+                }
+            }
+        }
+
+        // 归一化与定权
+        this.normalized = new double[m][n];
+        this.secondaryWeighted = new double[m][n];
+        this.weighted = new double[m][n];
+        for (int k = 0; k < m; k++) {
+            double sqrtSumOfSquares = Math.sqrt(DoubleStream.of(raw[k]).map(value -> value * value).sum());
+            double primaryWeight = primaryWeights.getOrDefault(PRIMARY_INDICATORS[primaryOf(k)],
+                    DEFAULT_PRIMARY_WEIGHTS[primaryOf(k)]);
+            double secondaryWeight = secondaryWeights.getOrDefault(INDICATORS[k], DEFAULT_SECONDARY_WEIGHTS[k]);
+            for (int i = 0; i < n; i++) {
+                double norm = sqrtSumOfSquares == 0.0 ? 0.0 : raw[k][i] / sqrtSumOfSquares;
+                normalized[k][i] = norm;
+                secondaryWeighted[k][i] = norm * secondaryWeight;
+                weighted[k][i] = norm * primaryWeight * secondaryWeight;
+            }
+        }
+
+        // 优劣解：正/负理想解取有调查数据地区的定权值最大/最小值
+        double[] max = new double[m];
+        double[] min = new double[m];
+        for (int k = 0; k < m; k++) {
+            max[k] = DoubleStream.of(presentValues(weighted[k])).max().orElse(0.0);
+            min[k] = DoubleStream.of(presentValues(weighted[k])).min().orElse(0.0);
+        }
+        this.primaryScores = new double[PRIMARY_INDICATORS.length][n];
+        this.comprehensive = new double[n];
+        this.positiveDistance = new double[n];
+        this.negativeDistance = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (!present[i]) {
+                continue;
+            }
+            for (int p = 0; p < PRIMARY_GROUPS.length; p++) {
+                primaryScores[p][i] = topsis(PRIMARY_GROUPS[p], i, max, min, null);
+            }
+            double[] distances = new double[2];
+            comprehensive[i] = topsis(allIndicators(), i, max, min, distances);
+            positiveDistance[i] = distances[0];
+            negativeDistance[i] = distances[1];
+        }
+
+        // 分级：无数据地区按0参与均值与标准差
+        this.primaryGrades = new String[PRIMARY_INDICATORS.length][];
+        for (int p = 0; p < PRIMARY_INDICATORS.length; p++) {
+            primaryGrades[p] = grades(primaryScores[p]);
+        }
+        this.comprehensiveGrades = grades(comprehensive);
+    }
+
+    /**
+     * 计算单条调查数据的8个二级指标原始值（按 {@link #INDICATORS} 顺序）
+     */
+    public static double[] rawIndicators(SurveyData surveyData) {
+        Long population = surveyData.getPopulation();
+        int totalRescuePersonnel = (surveyData.getFirefighters() != null ? surveyData.getFirefighters() : 0) +
+                (surveyData.getVolunteers() != null ? surveyData.getVolunteers() : 0) +
+                (surveyData.getMilitiaReserve() != null ? surveyData.getMilitiaReserve() : 0);
+        return new double[]{
+                // 队伍管理能力=(本级灾害管理工作人员总数/常住人口数量)*10000
+                perTenThousand(surveyData.getManagementStaff(), population),
+                // 风险评估能力=IF(是否开展乡镇灾害风险评估="是",1,0)
+                "是".equals(surveyData.getRiskAssessment()) ? 1.0 : 0.0,
+                // 财政投入能力=(上一年度防灾减灾救灾资金投入总金额/常住人口数量)*10000
+                perTenThousand(surveyData.getFundingAmount(), population),
+                // 物资储备能力=(现有储备物资装备折合金额/常住人口数量)*10000
+                perTenThousand(surveyData.getMaterialValue(), population),
+                // 医疗保障能力=(实有住院床位数/常住人口数量)*10000
+                perTenThousand(surveyData.getHospitalBeds(), population),
+                // 自救互救能力=(消防员数量+志愿者人数+民兵预备役人数)/常住人口数量)*10000
+                perTenThousand(totalRescuePersonnel, population),
+                // 公众避险能力=(上一年度组织的应急管理培训和演练参与人次/常住人口数量)*100
+                perTenThousand(surveyData.getTrainingParticipants(), population) / 100,
+                // 转移安置能力=(本级灾害应急避难场所容量/常住人口数量)
+                perTenThousand(surveyData.getShelterCapacity(), population) / 10000
+        };
+    }
+
+    public int size() {
+        return regionNames.size();
+    }
+
+    public String getRegionName(int region) {
+        return regionNames.get(region);
+    }
+
+    /**
+     * 地区是否有调查数据
+     */
+    public boolean hasData(int region) {
+        return present[region];
+    }
+
+    /**
+     * 步骤1：原始值
+     */
+    public double raw(int indicator, int region) {
+        return raw[indicator][region];
+    }
+
+    /**
+     * 步骤2：属性向量归一化值
+     */
+    public double normalized(int indicator, int region) {
+        return normalized[indicator][region];
+    }
+
+    /**
+     * 步骤3表1：归一化值 × 二级权重
+     */
+    public double secondaryWeighted(int indicator, int region) {
+        return secondaryWeighted[indicator][region];
+    }
+
+    /**
+     * 步骤3表2：归一化值 × 一级权重 × 二级权重
+     */
+    public double weighted(int indicator, int region) {
+        return weighted[indicator][region];
+    }
+
+    /**
+     * 步骤4：一级指标TOPSIS值（按 {@link #PRIMARY_INDICATORS} 顺序）
+     */
+    public double primaryScore(int primary, int region) {
+        return primaryScores[primary][region];
+    }
+
+    public double comprehensive(int region) {
+        return comprehensive[region];
+    }
+
+    public double positiveDistance(int region) {
+        return positiveDistance[region];
+    }
+
+    public double negativeDistance(int region) {
+        return negativeDistance[region];
+    }
+
+    /**
+     * 步骤5：一级指标分级
+     */
+    public String primaryGrade(int primary, int region) {
+        return primaryGrades[primary][region];
+    }
+
+    public String comprehensiveGrade(int region) {
+        return comprehensiveGrades[region];
+    }
+
+    private static int primaryOf(int indicator) {
+        for (int p = 0; p < PRIMARY_GROUPS.length; p++) {
+            for (int k : PRIMARY_GROUPS[p]) {
+                if (k == indicator) {
+                    return p;
+                }
+            }
+        }
+        throw new IllegalArgumentException("未知指标下标: " + indicator);
+    }
+
+    private static int[] allIndicators() {
+        int[] all = new int[INDICATORS.length];
+        for (int k = 0; k < all.length; k++) {
+            all[k] = k;
+        }
+        return all;
+    }
+
+    private double[] presentValues(double[] column) {
+        double[] values = new double[column.length];
+        int count = 0;
+        for (int i = 0; i < column.length; i++) {
+            if (present[i]) {
+                values[count++] = column[i];
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    /**
+     * TOPSIS值 = 劣距离 / (劣距离 + 优距离)
+     *
+     * @param distances 非null时写入 [优距离, 劣距离]
+     */
+    private double topsis(int[] indicators, int region, double[] max, double[] min, double[] distances) {
+        double positive = 0.0;
+        double negative = 0.0;
+        for (int k : indicators) {
+            positive += Math.pow(max[k] - weighted[k][region], 2);
+        }
+        for (int k : indicators) {
+            negative += Math.pow(min[k] - weighted[k][region], 2);
+        }
+        positive = Math.sqrt(positive);
+        negative = Math.sqrt(negative);
+        if (distances != null) {
+            distances[0] = positive;
+            distances[1] = negative;
+        }
+        return negative + positive > 0 ? negative / (negative + positive) : 0.0;
+    }
+
+    /**
+     * 按均值与样本标准差（STDEV.S）分级，样本数不足2时为"中等"
+     */
+    private static String[] grades(double[] values) {
+        String[] grades = new String[values.length];
+        if (values.length <= 1) {
+            Arrays.fill(grades, "中等");
+            return grades;
+        }
+        double mean = DoubleStream.of(values).average().orElse(0.0);
+        double stdDev = Math.sqrt(DoubleStream.of(values).map(v -> Math.pow(v - mean, 2)).sum() / (values.length - 1));
+        for (int i = 0; i < values.length; i++) {
+            grades[i] = GradeRules.determineGrade(values[i], mean, stdDev);
+        }
+        return grades;
+    }
+
+    private static double perTenThousand(Number amount, Long population) {
+        if (amount == null || population == null || population == 0) {
+            return 0.0;
+        }
+        return (amount.doubleValue() / population.doubleValue()) * 10000;
+    }
+}
@@ -0,0 +1,85 @@
+package com.evaluate.service.algorithm;
+
+import java.util.function.Function;
+
+/**
+ * 由社区字段推导乡镇聚合所需的9个输入指标
+ *
+ * 社区-乡镇模型（modelId=8）在乡镇聚合前，用社区的人口、预案、资金等字段
+ * 换算出与乡镇模型一致的指标口径。逐地区聚合与列式聚合共用此推导。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public final class TownshipIndicators {
+
+    /**
+     * 推导指标名称（与 {@link #derive(Function)} 返回数组的顺序一致）
+     */
+    public static final String[] NAMES = {
+            "PLAN_CONSTRUCTION", "HAZARD_INSPECTION", "RISK_ASSESSMENT",
+            "FINANCIAL_INPUT", "MATERIAL_RESERVE", "MEDICAL_SUPPORT",
+            "SELF_MUTUAL_AID", "PUBLIC_EVACUATION", "RELOCATION_SHELTER"
+    };
+
+    private TownshipIndicators() {
+    }
+
+    /**
+     * 推导9个乡镇输入指标（已保留8位小数）
+     *
+     * @param field 社区字段读取函数（字段不存在时返回null）
+     * @return 按 {@link #NAMES} 顺序排列的指标值
+     */
+    public static double[] derive(Function<String, Object> field) {
+        Double pop = getNum(field, "RESIDENT_POPULATION", "resident_population");
+        if (pop == null || pop <= 0) pop = 1.0;
+
+        double hasPlan = getNumOrZero(field, "HAS_EMERGENCY_PLAN", "has_emergency_plan");
+        double hasVul  = getNumOrZero(field, "HAS_VULNERABLE_GROUPS_LIST", "has_vulnerable_groups_list");
+        double hasHaz  = getNumOrZero(field, "HAS_DISASTER_POINTS_LIST", "has_disaster_points_list");
+        double hasMap  = getNumOrZero(field, "HAS_DISASTER_MAP", "has_disaster_map");
+
+        double fund      = getNumOrZero(field, "LAST_YEAR_FUNDING_AMOUNT", "last_year_funding_amount");
+        double material  = getNumOrZero(field, "MATERIALS_EQUIPMENT_VALUE", "materials_equipment_value");
+        double medical   = getNumOrZero(field, "MEDICAL_SERVICE_COUNT", "medical_service_count");
+        double militia   = getNumOrZero(field, "MILITIA_RESERVE_COUNT", "militia_reserve_count");
+        double volunteer = getNumOrZero(field, "REGISTERED_VOLUNTEER_COUNT", "registered_volunteer_count");
+        double train     = getNumOrZero(field, "LAST_YEAR_TRAINING_PARTICIPANTS", "last_year_training_participants");
+        double drill     = getNumOrZero(field, "LAST_YEAR_DRILL_PARTICIPANTS", "last_year_drill_participants");
+        double shelter   = getNumOrZero(field, "EMERGENCY_SHELTER_CAPACITY", "emergency_shelter_capacity");
+
+        return new double[]{
+                ResultRounding.round8(clamp01(hasPlan)),
+                ResultRounding.round8(clamp01((hasVul + hasHaz) / 2.0)),
+                ResultRounding.round8(clamp01(hasMap)),
+                ResultRounding.round8((fund / pop) * 10000.0),
+                ResultRounding.round8((material / pop) * 10000.0),
+                ResultRounding.round8((medical / pop) * 10000.0),
+                ResultRounding.round8(((militia + volunteer) / pop) * 10000.0),
+                ResultRounding.round8(((train + drill) / pop) * 100.0),
+                ResultRounding.round8(shelter / pop)
+        };
+    }
+
+    private static Double getNum(Function<String, Object> field, String k1, String k2) {
+        Double v = parseNum(field.apply(k1));
+        if (v == null && k2 != null) v = parseNum(field.apply(k2));
+        return v;
+    }
+
+    private static double getNumOrZero(Function<String, Object> field, String k1, String k2) {
+        Double v = getNum(field, k1, k2);
+        return v != null ? v : 0.0;
+    }
+
+    private static Double parseNum(Object o) {
+        if (o instanceof Number) return ((Number) o).doubleValue();
+        if (o instanceof String) {
+            try { return Double.parseDouble((String) o); } catch (Exception ignore) {}
+        }
+        return null;
+    }
+
+    private static double clamp01(double v) { return v < 0 ? 0.0 : (v > 1 ? 1.0 : v); }
+}
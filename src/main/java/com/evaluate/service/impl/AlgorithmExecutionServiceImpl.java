@@ -1,6 +1,5 @@
 package com.evaluate.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.evaluate.entity.AlgorithmConfig;
 import com.evaluate.entity.AlgorithmStep;
 import com.evaluate.entity.FormulaConfig;
@@ -11,12 +10,20 @@ import com.evaluate.mapper.FormulaConfigMapper;
 import com.evaluate.service.AlgorithmExecutionService;
 import com.evaluate.service.IIndicatorWeightService;
 import com.evaluate.service.ISurveyDataService;
+import com.evaluate.service.SurveyRegionResolver;
+import com.evaluate.service.algorithm.StepwiseComputationCache;
+import com.evaluate.service.algorithm.StepwiseEvaluationMatrix;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -37,12 +44,32 @@ public class AlgorithmExecutionServiceImpl implements AlgorithmExecutionService
 
     @Autowired
     private IIndicatorWeightService indicatorWeightService;
+
+    @Autowired
+    private SurveyRegionResolver surveyRegionResolver;
     
-    // 存储执行进度的Map
+    // 存储执行进度的Map（结束超过保留时间后由定时任务清理）
     private final Map<String, Map<String, Object>> executionProgressMap = new ConcurrentHashMap<>();
     
-    // 缓存步骤4的计算结果，避免步骤5重新计算
-    private final Map<String, Map<String, Double>> step4ResultsCache = new ConcurrentHashMap<>();
+    @Value("${evaluation.job.ttl-minutes:30}")
+    private long progressTtlMinutes = 30;
+    
+    /**
+     * 分步评估计算上下文缓存容量与保留时间
+     */
+    @Value("${evaluation.step-cache.max-entries:32}")
+    private int stepCacheMaxEntries = 32;
+    
+    @Value("${evaluation.step-cache.ttl-minutes:30}")
+    private long stepCacheTtlMinutes = 30;
+    
+    // 分步评估计算上下文（按地区列表、权重配置、算法缓存），步骤5复用步骤4的计算结果；配置注入后创建
+    private StepwiseComputationCache stepComputationCache;
+    
+    @PostConstruct
+    public void initStepComputationCache() {
+        stepComputationCache = new StepwiseComputationCache(stepCacheMaxEntries, TimeUnit.MINUTES.toMillis(stepCacheTtlMinutes));
+    }
     
     @Override
     public Map<String, Object> executeAlgorithm(
@@ -438,6 +465,19 @@ public class AlgorithmExecutionServiceImpl implements AlgorithmExecutionService
         return executionProgressMap.get(executionId);
     }
     
+    /**
+     * 清理已结束超过保留时间的执行进度（与异步执行任务使用相同的保留时间）
+     */
+    @Scheduled(fixedDelayString = "${evaluation.job.cleanup-interval-ms:60000}")
+    public void evictFinishedProgress() {
+        long expireBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(progressTtlMinutes);
+        executionProgressMap.values().removeIf(progress -> {
+            Object endTime = progress.get("endTime");
+            return endTime instanceof Long && (Long) endTime < expireBefore;
+        });
+        stepComputationCache.evictExpired();
+    }
+    
     @Override
     public boolean stopExecution(String executionId) {
         Map<String, Object> progress = executionProgressMap.get(executionId);
@@ -473,19 +513,25 @@ public class AlgorithmExecutionServiceImpl implements AlgorithmExecutionService
         
         Map<String, Object> result = new HashMap<>();
         
-        // 如果是步骤4，清理缓存以确保重新计算
-        if (stepIndex == 3) {
-            step4ResultsCache.clear();
-        }
-        
         try {
+            // 一次加载调查数据，各步骤表格均从同一次矩阵计算中取值；
+            // 步骤1和步骤4重新计算，其余步骤复用同一地区列表、权重配置、算法的计算结果；
+            // 调查数据或指标权重写入后版本变化，不再复用之前的计算结果
+            Long weightConfigId = getWeightConfigId(parameters);
+            StepwiseComputationCache.Key key = new StepwiseComputationCache.Key(
+                    regionIds, weightConfigId, algorithmConfig != null ? algorithmConfig.getId() : null,
+                    surveyRegionResolver.getDataVersion(), indicatorWeightService.getWeightVersion());
+            boolean refresh = stepIndex == 0 || stepIndex == 3;
+            StepwiseEvaluationMatrix matrix = stepComputationCache.getOrCompute(
+                    key, refresh, () -> buildStepwiseMatrix(regionIds, weightConfigId));
+            
             if (stepIndex == 2) {
                 // 步骤2：二级指标定权 - 返回两个表格的数据结构
-                Map<String, Object> dualTableResult = calculateDualTableStepData(stepIndex, regionIds, formula);
+                Map<String, Object> dualTableResult = buildDualTableStepData(matrix);
                 result.putAll(dualTableResult);
             } else {
                 // 其他步骤：返回单表格数据结构
-                List<Map<String, Object>> tableData = calculateRealStepData(stepIndex, regionIds, formula);
+                List<Map<String, Object>> tableData = buildStepTableData(stepIndex, matrix);
                 List<Map<String, Object>> columns = generateStepColumns(stepIndex);
                 // 统计信息已移除
                 
@@ -523,138 +569,126 @@ public class AlgorithmExecutionServiceImpl implements AlgorithmExecutionService
     }
     
     /**
-     * 计算双表格步骤数据（步骤2专用）
+     * 构建分步评估矩阵：每个地区只解析一次名称、加载一次调查数据，权重配置只读取一次
      */
-    private Map<String, Object> calculateDualTableStepData(Integer stepIndex, List<String> regionIds, String formula) {
-        Map<String, Object> result = new HashMap<>();
+    private StepwiseEvaluationMatrix buildStepwiseMatrix(List<String> regionIds, Long weightConfigId) {
+        List<String> regionNames = new ArrayList<>(regionIds.size());
+        List<SurveyData> surveyRows = new ArrayList<>(regionIds.size());
+        Map<String, SurveyData> surveyByName = new HashMap<>();
+        for (String regionId : regionIds) {
+            String regionName = extractRegionNameFromId(regionId);
+            if (!surveyByName.containsKey(regionName)) {
+                List<SurveyData> surveyDataList = surveyDataService.getBySurveyRegion(regionName);
+                surveyByName.put(regionName, surveyDataList.isEmpty() ? null : surveyDataList.get(0));
+            }
+            regionNames.add(regionName);
+            surveyRows.add(surveyByName.get(regionName));
+        }
         
-        // 表格1：一级指标权重计算（8个指标的定权值）
+        Map<String, Double> primaryWeights = getPrimaryIndicatorWeights(weightConfigId);
+        Map<String, Double> secondaryWeights = getSecondaryIndicatorWeights(weightConfigId);
+        StepwiseEvaluationMatrix matrix = new StepwiseEvaluationMatrix(regionNames, surveyRows, primaryWeights, secondaryWeights);
+        log.info("分步评估矩阵构建完成 - 地区数: {}, 有调查数据: {}", regionIds.size(),
+                surveyRows.stream().filter(Objects::nonNull).count());
+        return matrix;
+    }
+    
+    /**
+     * 分步评估使用的权重配置ID，参数未指定时为1
+     */
+    private Long getWeightConfigId(Map<String, Object> parameters) {
+        Object value = parameters != null ? parameters.get("weightConfigId") : null;
+        if (value == null || value.toString().trim().isEmpty()) {
+            return 1L;
+        }
+        return Long.valueOf(value.toString().trim());
+    }
+    
+    @Override
+    public Map<String, Object> getStepCacheStats() {
+        return stepComputationCache.getStats();
+    }
+    
+    /**
+     * 步骤3（stepIndex=2）：二级指标定权的双表格数据
+     * 表格1：属性向量归一化 × 二级权重；表格2：属性向量归一化 × 一级权重 × 二级权重
+     */
+    private Map<String, Object> buildDualTableStepData(StepwiseEvaluationMatrix matrix) {
         List<Map<String, Object>> table1Data = new ArrayList<>();
-        List<Map<String, Object>> table1Columns = generateTable1Columns();
-        
-        // 表格2：乡镇减灾能力权重计算（8个指标乘以权重后的值）
         List<Map<String, Object>> table2Data = new ArrayList<>();
-        List<Map<String, Object>> table2Columns = generateTable2Columns();
-        
-        // 获取权重配置
-        Map<String, Double> primaryWeights = getPrimaryIndicatorWeights(1L);
-        Map<String, Double> secondaryWeights = getSecondaryIndicatorWeights(1L);
         
-        log.info("calculateDualTableStepData - 开始计算双表格数据");
-        log.info("calculateDualTableStepData - 一级权重配置: {}", primaryWeights);
-        log.info("calculateDualTableStepData - 二级权重配置: {}", secondaryWeights);
-        
-        // 获取所有地区的归一化值
-        Map<String, List<Double>> allIndicatorValues = collectAllIndicatorValues(regionIds);
-        
-        // 为每个地区生成两个表格的数据
-        for (String regionId : regionIds) {
-            String regionName = extractRegionNameFromId(regionId);
-            List<SurveyData> surveyDataList = surveyDataService.getBySurveyRegion(regionName);
-            
+        for (int i = 0; i < matrix.size(); i++) {
             Map<String, Object> row1 = new HashMap<>();
             Map<String, Object> row2 = new HashMap<>();
-            
-            row1.put("regionName", regionName);
-            row2.put("regionName", regionName);
-            
-            if (!surveyDataList.isEmpty()) {
-                SurveyData surveyData = surveyDataList.get(0);
-                
-                // 计算当前地区的8个指标原始值
-                double teamManagement = calculateIndicatorValue(surveyData.getManagementStaff(), surveyData.getPopulation());
-                double riskAssessment = "是".equals(surveyData.getRiskAssessment()) ? 1.0 : 0.0;
-                double financialInput = calculateIndicatorValueFromDouble(surveyData.getFundingAmount(), surveyData.getPopulation());
-                double materialReserve = calculateIndicatorValueFromDouble(surveyData.getMaterialValue(), surveyData.getPopulation());
-                double medicalSupport = calculateIndicatorValue(surveyData.getHospitalBeds(), surveyData.getPopulation());
-                int totalRescuePersonnel = (surveyData.getFirefighters() != null ? surveyData.getFirefighters() : 0) +
-                                          (surveyData.getVolunteers() != null ? surveyData.getVolunteers() : 0) +
-                                          (surveyData.getMilitiaReserve() != null ? surveyData.getMilitiaReserve() : 0);
-                double selfRescue = calculateIndicatorValue(totalRescuePersonnel, surveyData.getPopulation());
-                double publicAvoidance = calculateIndicatorValue(surveyData.getTrainingParticipants(), surveyData.getPopulation())/100;
-                double relocationCapacity = calculateIndicatorValue(surveyData.getShelterCapacity(), surveyData.getPopulation())/10000;
-                
-                // 计算归一化值
-                double teamManagementNorm = normalizeIndicatorValue(teamManagement, allIndicatorValues.get("teamManagement"));
-                double riskAssessmentNorm = normalizeIndicatorValue(riskAssessment, allIndicatorValues.get("riskAssessment"));
-                double financialInputNorm = normalizeIndicatorValue(financialInput, allIndicatorValues.get("financialInput"));
-                double materialReserveNorm = normalizeIndicatorValue(materialReserve, allIndicatorValues.get("materialReserve"));
-                double medicalSupportNorm = normalizeIndicatorValue(medicalSupport, allIndicatorValues.get("medicalSupport"));
-                double selfRescueNorm = normalizeIndicatorValue(selfRescue, allIndicatorValues.get("selfRescue"));
-                double publicAvoidanceNorm = normalizeIndicatorValue(publicAvoidance, allIndicatorValues.get("publicAvoidance"));
-                double relocationCapacityNorm = normalizeIndicatorValue(relocationCapacity, allIndicatorValues.get("relocationCapacity"));
-                
-                // 表格1：一级指标权重计算 - 定权公式：属性向量归一化 × 二级权重
-                double table1TeamManagement = teamManagementNorm * secondaryWeights.getOrDefault("teamManagement", 0.37);
-                double table1RiskAssessment = riskAssessmentNorm * secondaryWeights.getOrDefault("riskAssessment", 0.31);
-                double table1FinancialInput = financialInputNorm * secondaryWeights.getOrDefault("financialInput", 0.32);
-                double table1MaterialReserve = materialReserveNorm * secondaryWeights.getOrDefault("materialReserve", 0.51);
-                double table1MedicalSupport = medicalSupportNorm * secondaryWeights.getOrDefault("medicalSupport", 0.49);
-                double table1SelfRescue = selfRescueNorm * secondaryWeights.getOrDefault("selfRescue", 0.33);
-                double table1PublicAvoidance = publicAvoidanceNorm * secondaryWeights.getOrDefault("publicAvoidance", 0.33);
-                double table1RelocationCapacity = relocationCapacityNorm * secondaryWeights.getOrDefault("relocationCapacity", 0.34);
-                
-                row1.put("teamManagement", String.format("%.8f", table1TeamManagement));
-                row1.put("riskAssessment", String.format("%.8f", table1RiskAssessment));
-                row1.put("financialInput", String.format("%.8f", table1FinancialInput));
-                row1.put("materialReserve", String.format("%.8f", table1MaterialReserve));
-                row1.put("medicalSupport", String.format("%.8f", table1MedicalSupport));
-                row1.put("selfRescue", String.format("%.8f", table1SelfRescue));
-                row1.put("publicAvoidance", String.format("%.8f", table1PublicAvoidance));
-                row1.put("relocationCapacity", String.format("%.8f", table1RelocationCapacity));
-                
-                // 表格2：乡镇减灾能力权重计算 - 定权公式：属性向量归一化 × 一级权重 × 二级权重
-                double table2TeamManagement = teamManagementNorm * primaryWeights.getOrDefault("disasterManagement", 0.33) * secondaryWeights.getOrDefault("teamManagement", 0.37);
-                double table2RiskAssessment = riskAssessmentNorm * primaryWeights.getOrDefault("disasterManagement", 0.33) * secondaryWeights.getOrDefault("riskAssessment", 0.31);
-                double table2FinancialInput = financialInputNorm * primaryWeights.getOrDefault("disasterManagement", 0.33) * secondaryWeights.getOrDefault("financialInput", 0.32);
-                double table2MaterialReserve = materialReserveNorm * primaryWeights.getOrDefault("disasterPreparedness", 0.32) * secondaryWeights.getOrDefault("materialReserve", 0.51);
-                double table2MedicalSupport = medicalSupportNorm * primaryWeights.getOrDefault("disasterPreparedness", 0.32) * secondaryWeights.getOrDefault("medicalSupport", 0.49);
-                double table2SelfRescue = selfRescueNorm * primaryWeights.getOrDefault("selfRescueTransfer", 0.35) * secondaryWeights.getOrDefault("selfRescue", 0.33);
-                double table2PublicAvoidance = publicAvoidanceNorm * primaryWeights.getOrDefault("selfRescueTransfer", 0.35) * secondaryWeights.getOrDefault("publicAvoidance", 0.33);
-                double table2RelocationCapacity = relocationCapacityNorm * primaryWeights.getOrDefault("selfRescueTransfer", 0.35) * secondaryWeights.getOrDefault("relocationCapacity", 0.34);
-                
-                row2.put("teamManagement", String.format("%.8f", table2TeamManagement));
-                row2.put("riskAssessment", String.format("%.8f", table2RiskAssessment));
-                row2.put("financialInput", String.format("%.8f", table2FinancialInput));
-                row2.put("materialReserve", String.format("%.8f", table2MaterialReserve));
-                row2.put("medicalSupport", String.format("%.8f", table2MedicalSupport));
-                row2.put("selfRescue", String.format("%.8f", table2SelfRescue));
-                row2.put("publicAvoidance", String.format("%.8f", table2PublicAvoidance));
-                row2.put("relocationCapacity", String.format("%.8f", table2RelocationCapacity));
-                
-                log.info("地区 {} - 表格1计算完成，队伍管理能力: 归一化值={}, 二级权重={}, 结果={}", 
-                        regionName, teamManagementNorm, secondaryWeights.getOrDefault("teamManagement", 0.37), table1TeamManagement);
-                log.info("地区 {} - 表格2计算完成，队伍管理能力: 归一化值={}, 一级权重={}, 二级权重={}, 结果={}", 
-                        regionName, teamManagementNorm, primaryWeights.getOrDefault("disasterManagement", 0.33), 
-                        secondaryWeights.getOrDefault("teamManagement", 0.37), table2TeamManagement);
-                        
-            } else {
-                // 默认值
-                String[] indicators = {"teamManagement", "riskAssessment", "financialInput", "materialReserve", "medicalSupport", "selfRescue", "publicAvoidance", "relocationCapacity"};
-                for (String indicator : indicators) {
-                    row1.put(indicator, "0.00000000");
-                    row2.put(indicator, "0.00000000");
-                }
+            row1.put("regionName", matrix.getRegionName(i));
+            row2.put("regionName", matrix.getRegionName(i));
+            for (int k = 0; k < StepwiseEvaluationMatrix.INDICATORS.length; k++) {
+                String indicator = StepwiseEvaluationMatrix.INDICATORS[k];
+                row1.put(indicator, matrix.hasData(i) ? String.format("%.8f", matrix.secondaryWeighted(k, i)) : "0.00000000");
+                row2.put(indicator, matrix.hasData(i) ? String.format("%.8f", matrix.weighted(k, i)) : "0.00000000");
             }
-            
             table1Data.add(row1);
             table2Data.add(row2);
         }
         
-        // 统计信息已移除
-        
-        // 构建返回结果
+        Map<String, Object> result = new HashMap<>();
         result.put("table1Data", table1Data);
-        result.put("table1Columns", table1Columns);
-        // table1Summary已移除
+        result.put("table1Columns", generateTable1Columns());
         result.put("table2Data", table2Data);
-        result.put("table2Columns", table2Columns);
-        // table2Summary已移除
+        result.put("table2Columns", generateTable2Columns());
         result.put("isDualTable", true);
-        
         return result;
     }
     
+    /**
+     * 单表格步骤数据：步骤1原始值、步骤2归一化、步骤4优劣解、步骤5能力分级
+     */
+    private List<Map<String, Object>> buildStepTableData(Integer stepIndex, StepwiseEvaluationMatrix matrix) {
+        List<Map<String, Object>> tableData = new ArrayList<>();
+        String[] indicators = StepwiseEvaluationMatrix.INDICATORS;
+        String[] primaryIndicators = StepwiseEvaluationMatrix.PRIMARY_INDICATORS;
+        
+        for (int i = 0; i < matrix.size(); i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("regionName", matrix.getRegionName(i));
+            boolean hasData = matrix.hasData(i);
+            
+            if (stepIndex == 0 || stepIndex == 1) { // 二级指标计算 / 属性向量归一化
+                for (int k = 0; k < indicators.length; k++) {
+                    double value = stepIndex == 0 ? matrix.raw(k, i) : matrix.normalized(k, i);
+                    row.put(indicators[k], hasData ? String.format("%.8f", value) : "0.00000000");
+                }
+            } else if (stepIndex == 3) { // 步骤4：优劣解算法计算（3个一级指标 + 综合减灾能力 + 优劣解距离）
+                for (int p = 0; p < primaryIndicators.length; p++) {
+                    row.put(primaryIndicators[p], hasData ? String.format("%.8f", matrix.primaryScore(p, i)) : "0.00000000");
+                }
+                row.put("comprehensiveCapability", hasData ? String.format("%.8f", matrix.comprehensive(i)) : "0.00000000");
+                if (hasData) {
+                    row.put("comprehensivePositive", String.format("%.8f", matrix.positiveDistance(i)));
+                    row.put("comprehensiveNegative", String.format("%.8f", matrix.negativeDistance(i)));
+                }
+            } else if (stepIndex == 4) { // 能力分级计算：步骤4的原始数值 + 分级信息
+                for (int p = 0; p < primaryIndicators.length; p++) {
+                    row.put(primaryIndicators[p], hasData ? String.format("%.8f", matrix.primaryScore(p, i)) : "0.00000000");
+                    row.put(primaryIndicators[p] + "Grade", hasData ? matrix.primaryGrade(p, i) : "中等");
+                }
+                row.put("comprehensiveCapability", hasData ? String.format("%.8f", matrix.comprehensive(i)) : "0.00000000");
+                row.put("comprehensiveCapabilityGrade", hasData ? matrix.comprehensiveGrade(i) : "中等");
+            } else { // 其他步骤
+                double value = hasData ? matrix.raw(0, i) : 0.0;
+                double weight = hasData ? 0.25 : 0.0; // 固定权重
+                row.put("value", String.format("%.2f", value));
+                row.put("weight", String.format("%.3f", weight));
+                row.put("score", String.format("%.2f", value * weight));
+                row.put("rank", tableData.size() + 1);
+            }
+            
+            tableData.add(row);
+        }
+        
+        return tableData;
+    }
+    
     /**
      * 生成表格1的列配置（一级指标权重计算）
      */
@@ -782,305 +816,6 @@ public class AlgorithmExecutionServiceImpl implements AlgorithmExecutionService
         return summary;
     }
     
-    /**
-     * 计算真实的步骤数据
-     */
-    private List<Map<String, Object>> calculateRealStepData(Integer stepIndex, List<String> regionIds, String formula) {
-        List<Map<String, Object>> tableData = new ArrayList<>();
-        
-        // 直接处理字符串格式的地区ID
-        for (String regionId : regionIds) {
-            Map<String, Object> row = new HashMap<>();
-            
-            // 从字符串ID中提取地区名称
-            String regionName = extractRegionNameFromId(regionId);
-            row.put("regionName", regionName);
-            
-            // 根据地区名称获取调查数据
-            List<SurveyData> surveyDataList = surveyDataService.getBySurveyRegion(regionName);
-            
-            if (!surveyDataList.isEmpty()) {
-                SurveyData surveyData = surveyDataList.get(0); // 取第一条数据
-                
-                if (stepIndex == 0) { // 二级指标计算 - 实现8个指标
-                    // 1. 队伍管理能力=(本级灾害管理工作人员总数/常住人口数量)*10000
-                    double teamManagement = calculateIndicatorValue(surveyData.getManagementStaff(), surveyData.getPopulation());
-                    
-                    // 2. 风险评估能力=IF(是否开展乡镇灾害风险评估="是",1,0)
-                    double riskAssessment = "是".equals(surveyData.getRiskAssessment()) ? 1.0 : 0.0;
-                    
-                    // 3. 财政投入能力=(上一年度防灾减灾救灾资金投入总金额/常住人口数量)*10000
-                    double financialInput = calculateIndicatorValueFromDouble(surveyData.getFundingAmount(), surveyData.getPopulation());
-                    
-                    // 4. 物资储备能力=(现有储备物资装备折合金额/常住人口数量)*10000
-                    double materialReserve = calculateIndicatorValueFromDouble(surveyData.getMaterialValue(), surveyData.getPopulation());
-                    
-                    // 5. 医疗保障能力=(实有住院床位数/常住人口数量)*10000
-                    double medicalSupport = calculateIndicatorValue(surveyData.getHospitalBeds(), surveyData.getPopulation());
-                    
-                    // 6. 自救互救能力=(消防员数量+志愿者人数+民兵预备役人数)/常住人口数量)*10000
-                    int totalRescuePersonnel = (surveyData.getFirefighters() != null ? surveyData.getFirefighters() : 0) +
-                                              (surveyData.getVolunteers() != null ? surveyData.getVolunteers() : 0) +
-                                              (surveyData.getMilitiaReserve() != null ? surveyData.getMilitiaReserve() : 0);
-                    double selfRescue = calculateIndicatorValue(totalRescuePersonnel, surveyData.getPopulation());
-                    
-                    // 7. 公众避险能力=(上一年度组织的应急管理培训和演练参与人次/常住人口数量)*100
-                    double publicAvoidance = calculateIndicatorValue(surveyData.getTrainingParticipants(), surveyData.getPopulation())/100;
-                    
-                    // 8. 转移安置能力=(本级灾害应急避难场所容量/常住人口数量)
-                    double relocationCapacity = calculateIndicatorValue(surveyData.getShelterCapacity(), surveyData.getPopulation())/10000;
-                    
-                    // 设置8个指标值
-                    row.put("teamManagement", String.format("%.8f", teamManagement));
-                    row.put("riskAssessment", String.format("%.8f", riskAssessment));
-                    row.put("financialInput", String.format("%.8f", financialInput));
-                    row.put("materialReserve", String.format("%.8f", materialReserve));
-                    row.put("medicalSupport", String.format("%.8f", medicalSupport));
-                    row.put("selfRescue", String.format("%.8f", selfRescue));
-                    row.put("publicAvoidance", String.format("%.8f", publicAvoidance));
-                    row.put("relocationCapacity", String.format("%.8f", relocationCapacity));
-                    
-                } else if (stepIndex == 1) { // 属性向量归一化
-                    // 先收集所有地区的8个指标原始值
-                    Map<String, List<Double>> allIndicatorValues = collectAllIndicatorValues(regionIds);
-                    
-                    // 计算当前地区的8个指标原始值
-                    double teamManagement = calculateIndicatorValue(surveyData.getManagementStaff(), surveyData.getPopulation());
-                    double riskAssessment = "是".equals(surveyData.getRiskAssessment()) ? 1.0 : 0.0;
-                    double financialInput = calculateIndicatorValueFromDouble(surveyData.getFundingAmount(), surveyData.getPopulation());
-                    double materialReserve = calculateIndicatorValueFromDouble(surveyData.getMaterialValue(), surveyData.getPopulation());
-                    double medicalSupport = calculateIndicatorValue(surveyData.getHospitalBeds(), surveyData.getPopulation());
-                    int totalRescuePersonnel = (surveyData.getFirefighters() != null ? surveyData.getFirefighters() : 0) +
-                                              (surveyData.getVolunteers() != null ? surveyData.getVolunteers() : 0) +
-                                              (surveyData.getMilitiaReserve() != null ? surveyData.getMilitiaReserve() : 0);
-                    double selfRescue = calculateIndicatorValue(totalRescuePersonnel, surveyData.getPopulation());
-                    double publicAvoidance = calculateIndicatorValue(surveyData.getTrainingParticipants(), surveyData.getPopulation())/100;
-                    double relocationCapacity = calculateIndicatorValue(surveyData.getShelterCapacity(), surveyData.getPopulation())/10000;
-                    
-                    // 添加详细日志用于调试风险评估能力归一化
-                    log.info("[归一化调试] 地区={}, riskAssessment原始值={}, 所有地区值={}", 
-                            regionName, riskAssessment, allIndicatorValues.get("riskAssessment"));
-                    
-                    // 计算属性向量归一化值
-                    double teamManagementNorm = normalizeIndicatorValue(teamManagement, allIndicatorValues.get("teamManagement"));
-                    double riskAssessmentNorm = normalizeIndicatorValue(riskAssessment, allIndicatorValues.get("riskAssessment"));
-                    
-                    log.info("[归一化调试] 地区={}, riskAssessment归一化值={}", regionName, riskAssessmentNorm);
-                    double financialInputNorm = normalizeIndicatorValue(financialInput, allIndicatorValues.get("financialInput"));
-                    double materialReserveNorm = normalizeIndicatorValue(materialReserve, allIndicatorValues.get("materialReserve"));
-                    double medicalSupportNorm = normalizeIndicatorValue(medicalSupport, allIndicatorValues.get("medicalSupport"));
-                    
-                    // 添加详细日志用于调试医疗保障归一化
-                    log.info("[医疗保障归一化调试] 地区={}, 原始值={}, 所有地区值={}, 归一化值={}",
-                            regionName, medicalSupport, allIndicatorValues.get("medicalSupport"), medicalSupportNorm);
-                    
-                    double selfRescueNorm = normalizeIndicatorValue(selfRescue, allIndicatorValues.get("selfRescue"));
-                    double publicAvoidanceNorm = normalizeIndicatorValue(publicAvoidance, allIndicatorValues.get("publicAvoidance"));
-                    double relocationCapacityNorm = normalizeIndicatorValue(relocationCapacity, allIndicatorValues.get("relocationCapacity"));
-                    
-                    // 设置8个指标的归一化值
-                    row.put("teamManagement", String.format("%.8f", teamManagementNorm));
-                    row.put("riskAssessment", String.format("%.8f", riskAssessmentNorm));
-                    row.put("financialInput", String.format("%.8f", financialInputNorm));
-                    row.put("materialReserve", String.format("%.8f", materialReserveNorm));
-                    row.put("medicalSupport", String.format("%.8f", medicalSupportNorm));
-                    row.put("selfRescue", String.format("%.8f", selfRescueNorm));
-                    row.put("publicAvoidance", String.format("%.8f", publicAvoidanceNorm));
-                    row.put("relocationCapacity", String.format("%.8f", relocationCapacityNorm));
-                } else if (stepIndex == 2) { // 二级指标定权
-                    // 使用与TOPSIS算法相同的计算逻辑
-                    Map<String, Double> currentWeightedValues = calculateCurrentWeightedValues(surveyData, regionIds);
-
-                    // 设置8个指标的定权值（与TOPSIS算法保持一致）
-                    row.put("teamManagement", String.format("%.8f", currentWeightedValues.get("teamManagement")));
-                    row.put("riskAssessment", String.format("%.8f", currentWeightedValues.get("riskAssessment")));
-                    row.put("financialInput", String.format("%.8f", currentWeightedValues.get("financialInput")));
-                    row.put("materialReserve", String.format("%.8f", currentWeightedValues.get("materialReserve")));
-                    row.put("medicalSupport", String.format("%.8f", currentWeightedValues.get("medicalSupport")));
-                    row.put("selfRescue", String.format("%.8f", currentWeightedValues.get("selfRescue")));
-                    row.put("publicAvoidance", String.format("%.8f", currentWeightedValues.get("publicAvoidance")));
-                    row.put("relocationCapacity", String.format("%.8f", currentWeightedValues.get("relocationCapacity")));
-                } else if (stepIndex == 3) { // 步骤4：优劣解算法计算（显示4列：3个一级指标+1列综合减灾能力）
-                    // 确保数据一致性：统一使用calculateCurrentWeightedValues方法获取所有地区的定权结果
-                    Map<String, Map<String, Double>> allWeightedValues = new HashMap<>();
-
-                    // 为所有地区计算定权值，确保使用相同的方法和数据源
-                    for (String cacheRegionId : regionIds) {
-                        String cacheRegionName = extractRegionNameFromId(cacheRegionId);
-                        List<SurveyData> regionSurveyDataList = surveyDataService.getBySurveyRegion(cacheRegionName);
-                        if (!regionSurveyDataList.isEmpty()) {
-                            SurveyData regionSurveyData = regionSurveyDataList.get(0);
-                            Map<String, Double> regionWeightedValues = calculateCurrentWeightedValues(regionSurveyData, regionIds);
-                            allWeightedValues.put(cacheRegionName, regionWeightedValues);
-                        }
-                    }
-
-                    // 计算当前地区的定权值
-                    Map<String, Double> currentWeightedValues = calculateCurrentWeightedValues(surveyData, regionIds);
-                    
-                    // 使用TOPSIS算法计算3个一级指标
-                    Map<String, Double> topsisResults = calculateTOPSIS(currentWeightedValues, allWeightedValues);
-                    
-                    // 计算综合减灾能力的优劣解距离
-                    // 使用与calculateTOPSIS方法相同的数据源，确保与一级指标计算一致
-                    Map<String, Double> comprehensiveDistances = calculateComprehensiveTOPSISWithDistances(currentWeightedValues, allWeightedValues);
-                    double comprehensiveCapability = comprehensiveDistances.get("score");
-                    double comprehensivePositive = comprehensiveDistances.get("positiveDistance");
-                    double comprehensiveNegative = comprehensiveDistances.get("negativeDistance");
-                    
-                    // 将步骤4的结果缓存起来，供步骤5使用
-                    Map<String, Double> step4Data = new HashMap<>(topsisResults);
-                    step4Data.put("comprehensiveCapability", comprehensiveCapability);
-                    step4Data.put("comprehensivePositive", comprehensivePositive);
-                    step4Data.put("comprehensiveNegative", comprehensiveNegative);
-                    step4ResultsCache.put(regionName, step4Data);
-                    
-                    // 设置列：3个一级指标 + 综合减灾能力 + 优劣解距离
-                    row.put("disasterManagement", String.format("%.8f", topsisResults.get("disasterManagement")));
-                    row.put("disasterPreparedness", String.format("%.8f", topsisResults.get("disasterPreparedness")));
-                    row.put("selfRescueTransfer", String.format("%.8f", topsisResults.get("selfRescueTransfer")));
-                    row.put("comprehensiveCapability", String.format("%.8f", comprehensiveCapability));
-                    row.put("comprehensivePositive", String.format("%.8f", comprehensivePositive));
-                    row.put("comprehensiveNegative", String.format("%.8f", comprehensiveNegative));
-                } else if (stepIndex == 4) { // 能力分级计算 - 直接使用步骤4的缓存数据进行分级
-                    // 从缓存中获取步骤4的原始数据（避免重新计算）
-                    Map<String, Double> step4Data = step4ResultsCache.get(regionName);
-                    
-                    // 如果缓存中没有数据，则先执行步骤4的计算
-                    if (step4Data == null) {
-                        // 获取所有地区的定权结果（步骤3表2的数据）
-                        Map<String, Map<String, Double>> allWeightedValues = collectAllWeightedValues(regionIds);
-                        
-                        // 计算当前地区的定权值
-                        Map<String, Double> currentWeightedValues = calculateCurrentWeightedValues(surveyData, regionIds);
-                        
-                        // 使用TOPSIS算法计算3个一级指标
-                        Map<String, Double> topsisResults = calculateTOPSIS(currentWeightedValues, allWeightedValues);
-                        
-                        // 使用TOPSIS算法计算综合减灾能力值
-                        double comprehensiveCapability = calculateComprehensiveTOPSIS(currentWeightedValues, allWeightedValues);
-                        
-                        // 将步骤4的结果缓存起来，供步骤5使用
-                        step4Data = new HashMap<>(topsisResults);
-                        step4Data.put("comprehensiveCapability", comprehensiveCapability);
-                        step4ResultsCache.put(regionName, step4Data);
-                    }
-                    
-                    // 获取所有地区的步骤4数据用于分级计算（从缓存中获取）
-                    Map<String, List<Double>> allStep4Values = collectAllStep4ValuesFromCache(regionIds);
-                    
-                    // 基于步骤4的数据进行分级（不修改原始数值）
-                    Map<String, String> grades = calculateCapabilityGrades(step4Data, allStep4Values);
-                    
-                    // 计算综合减灾能力分级（基于步骤4的综合减灾能力值）
-                    double comprehensiveCapability = step4Data.get("comprehensiveCapability");
-                    String comprehensiveGrade = calculateComprehensiveGrade(comprehensiveCapability, allStep4Values.get("comprehensiveCapability"));
-                    
-                    // 设置4列数据：保持步骤4的原始数值 + 添加分级信息
-                    row.put("disasterManagement", String.format("%.8f", step4Data.get("disasterManagement")));
-                    row.put("disasterPreparedness", String.format("%.8f", step4Data.get("disasterPreparedness")));
-                    row.put("selfRescueTransfer", String.format("%.8f", step4Data.get("selfRescueTransfer")));
-                    row.put("comprehensiveCapability", String.format("%.8f", comprehensiveCapability));
-                    
-                    // 添加分级列（如果需要在前端显示）
-                    row.put("disasterManagementGrade", grades.get("disasterManagement"));
-                    row.put("disasterPreparednessGrade", grades.get("disasterPreparedness"));
-                    row.put("selfRescueTransferGrade", grades.get("selfRescueTransfer"));
-                    row.put("comprehensiveCapabilityGrade", comprehensiveGrade);
-                } else { // 其他步骤
-                    double value = calculateIndicatorValue(surveyData.getManagementStaff(), surveyData.getPopulation());
-                    double weight = 0.25; // 固定权重
-                    double score = value * weight;
-                    
-                    row.put("value", String.format("%.2f", value));
-                    row.put("weight", String.format("%.3f", weight));
-                    row.put("score", String.format("%.2f", score));
-                    row.put("rank", tableData.size() + 1);
-                }
-            } else {
-                // 如果没有调查数据，使用默认值
-                if (stepIndex == 0) {
-                    row.put("teamManagement", "0.00000000");
-                    row.put("riskAssessment", "0.00000000");
-                    row.put("financialInput", "0.00000000");
-                    row.put("materialReserve", "0.00000000");
-                    row.put("medicalSupport", "0.00000000");
-                    row.put("selfRescue", "0.00000000");
-                    row.put("publicAvoidance", "0.00000000");
-                    row.put("relocationCapacity", "0.00000000");
-                } else {
-                    if (stepIndex == 1) {
-                        // 步骤2：属性向量归一化 - 8个指标默认值
-                        row.put("teamManagement", "0.00000000");
-                        row.put("riskAssessment", "0.00000000");
-                        row.put("financialInput", "0.00000000");
-                        row.put("materialReserve", "0.00000000");
-                        row.put("medicalSupport", "0.00000000");
-                        row.put("selfRescue", "0.00000000");
-                        row.put("publicAvoidance", "0.00000000");
-                        row.put("relocationCapacity", "0.00000000");
-                    } else if (stepIndex == 2) {
-                        // 步骤3：二级指标定权 - 8个指标默认值
-                        row.put("teamManagement", "0.00000000");
-                        row.put("riskAssessment", "0.00000000");
-                        row.put("financialInput", "0.00000000");
-                        row.put("materialReserve", "0.00000000");
-                        row.put("medicalSupport", "0.00000000");
-                        row.put("selfRescue", "0.00000000");
-                        row.put("publicAvoidance", "0.00000000");
-                        row.put("relocationCapacity", "0.00000000");
-                    } else if (stepIndex == 3) {
-                        // 步骤4：优劣解算法 - 4列默认值（3个一级指标 + 1列综合减灾能力）
-                        row.put("disasterManagement", "0.00000000");
-                        row.put("disasterPreparedness", "0.00000000");
-                        row.put("selfRescueTransfer", "0.00000000");
-                        row.put("comprehensiveCapability", "0.00000000");
-                    } else if (stepIndex == 4) {
-                        // 步骤5：能力分级计算 - 4列原始数值默认值（与步骤4相同）+ 分级信息
-                        row.put("disasterManagement", "0.00000000");
-                        row.put("disasterPreparedness", "0.00000000");
-                        row.put("selfRescueTransfer", "0.00000000");
-                        row.put("comprehensiveCapability", "0.00000000");
-                        row.put("disasterManagementGrade", "中等");
-                        row.put("disasterPreparednessGrade", "中等");
-                        row.put("selfRescueTransferGrade", "中等");
-                        row.put("comprehensiveCapabilityGrade", "中等");
-                    } else {
-                        // 其他步骤的默认值
-                        row.put("value", "0.00");
-                        row.put("weight", "0.000");
-                        row.put("score", "0.00");
-                        row.put("rank", tableData.size() + 1);
-                    }
-                }
-            }
-            
-            tableData.add(row);
-        }
-        
-        return tableData;
-    }
-    
-    /**
-     * 计算指标值：(staff/population)*10000
-     */
-    private double calculateIndicatorValue(Integer staff, Long population) {
-        if (staff == null || population == null || population == 0) {
-            return 0.0;
-        }
-        return (staff.doubleValue() / population.doubleValue()) * 10000;
-    }
-    
-    /**
-     * 计算指标值：(amount/population)*10000 (处理Double类型)
-     */
-    private double calculateIndicatorValueFromDouble(Double amount, Long population) {
-        if (amount == null || population == null || population == 0) {
-            return 0.0;
-        }
-        return (amount / population.doubleValue()) * 10000;
-    }
-    
     /**
      * 从字符串ID中提取地区名称
      * 例如：township_四川省_眉山市_青神县_青竹街道 -> 青竹街道
@@ -1102,9 +837,7 @@ public class AlgorithmExecutionServiceImpl implements AlgorithmExecutionService
             }
             
             // 尝试通过regionCode直接查询
-            QueryWrapper<SurveyData> wrapper = new QueryWrapper<>();
-            wrapper.eq("region_code", regionId);
-            SurveyData surveyData = surveyDataService.getOne(wrapper);
+            SurveyData surveyData = surveyRegionResolver.findByRegionCode(regionId);
             if (surveyData != null && surveyData.getTownship() != null) {
                 return surveyData.getTownship();
             }
@@ -1131,372 +864,6 @@ public class AlgorithmExecutionServiceImpl implements AlgorithmExecutionService
         return regionId;
     }
     
-    /**
-     * 收集所有地区的8个指标原始值
-     */
-    private Map<String, List<Double>> collectAllIndicatorValues(List<String> regionIds) {
-        Map<String, List<Double>> allValues = new HashMap<>();
-        allValues.put("teamManagement", new ArrayList<>());
-        allValues.put("riskAssessment", new ArrayList<>());
-        allValues.put("financialInput", new ArrayList<>());
-        allValues.put("materialReserve", new ArrayList<>());
-        allValues.put("medicalSupport", new ArrayList<>());
-        allValues.put("selfRescue", new ArrayList<>());
-        allValues.put("publicAvoidance", new ArrayList<>());
-        allValues.put("relocationCapacity", new ArrayList<>());
-        
-        log.info("[collectAllIndicatorValues] 开始收集数据, 总地区数={}", regionIds.size());
-        
-        for (String regionId : regionIds) {
-            String regionName = extractRegionNameFromId(regionId);
-            List<SurveyData> surveyDataList = surveyDataService.getBySurveyRegion(regionName);
-            
-            if (!surveyDataList.isEmpty()) {
-                SurveyData surveyData = surveyDataList.get(0);
-                
-                // 计算8个指标原始值
-                double teamManagement = calculateIndicatorValue(surveyData.getManagementStaff(), surveyData.getPopulation());
-                double riskAssessment = "是".equals(surveyData.getRiskAssessment()) ? 1.0 : 0.0;
-                
-                log.info("[collectAllIndicatorValues] 地区={}, riskAssessment原始值={}, 是否进行风险评估={}", 
-                        regionName, riskAssessment, surveyData.getRiskAssessment());
-                double financialInput = calculateIndicatorValueFromDouble(surveyData.getFundingAmount(), surveyData.getPopulation());
-                double materialReserve = calculateIndicatorValueFromDouble(surveyData.getMaterialValue(), surveyData.getPopulation());
-                double medicalSupport = calculateIndicatorValue(surveyData.getHospitalBeds(), surveyData.getPopulation());
-                
-                // 添加详细日志用于调试医疗保障能力
-                log.info("[医疗保障调试] 地区={}, 住院床位数={}, 常住人口={}, 医疗保障能力原始值={}",
-                        regionName, surveyData.getHospitalBeds(), surveyData.getPopulation(), medicalSupport);
-                
-                int totalRescuePersonnel = (surveyData.getFirefighters() != null ? surveyData.getFirefighters() : 0) +
-                                          (surveyData.getVolunteers() != null ? surveyData.getVolunteers() : 0) +
-                                          (surveyData.getMilitiaReserve() != null ? surveyData.getMilitiaReserve() : 0);
-                double selfRescue = calculateIndicatorValue(totalRescuePersonnel, surveyData.getPopulation());
-                double publicAvoidance = calculateIndicatorValue(surveyData.getTrainingParticipants(), surveyData.getPopulation())/100;
-                double relocationCapacity = calculateIndicatorValue(surveyData.getShelterCapacity(), surveyData.getPopulation())/10000;
-                
-                // 添加到对应的列表中
-                allValues.get("teamManagement").add(teamManagement);
-                allValues.get("riskAssessment").add(riskAssessment);
-                allValues.get("financialInput").add(financialInput);
-                allValues.get("materialReserve").add(materialReserve);
-                allValues.get("medicalSupport").add(medicalSupport);
-                allValues.get("selfRescue").add(selfRescue);
-                allValues.get("publicAvoidance").add(publicAvoidance);
-                allValues.get("relocationCapacity").add(relocationCapacity);
-            } else {
-                // 如果没有数据，添加0值
-                allValues.get("teamManagement").add(0.0);
-                allValues.get("riskAssessment").add(0.0);
-                allValues.get("financialInput").add(0.0);
-                allValues.get("materialReserve").add(0.0);
-                allValues.get("medicalSupport").add(0.0);
-                allValues.get("selfRescue").add(0.0);
-                allValues.get("publicAvoidance").add(0.0);
-                allValues.get("relocationCapacity").add(0.0);
-            }
-        }
-        
-        log.info("[collectAllIndicatorValues] 收集完成, riskAssessment所有值={}", allValues.get("riskAssessment"));
-        log.info("[医疗保障调试] 收集完成, medicalSupport所有值={}", allValues.get("medicalSupport"));
-        
-        return allValues;
-    }
-    
-    /**
-     * 计算属性向量归一化值
-     * 公式：本乡镇指标值 / SQRT(SUMSQ(全部乡镇指标值))
-     */
-    private double normalizeIndicatorValue(double currentValue, List<Double> allValues) {
-        if (allValues == null || allValues.isEmpty()) {
-            return 0.0;
-        }
-        
-        // 计算平方和
-        double sumOfSquares = allValues.stream()
-            .mapToDouble(value -> value * value)
-            .sum();
-        
-        // 计算平方根
-        double sqrtSumOfSquares = Math.sqrt(sumOfSquares);
-        
-        // 添加详细调试日志
-        log.debug("[normalizeIndicatorValue] currentValue={}, allValues.size()={}, sumOfSquares={}, sqrtSumOfSquares={}",
-                currentValue, allValues.size(), sumOfSquares, sqrtSumOfSquares);
-        
-        // 避免除零
-        if (sqrtSumOfSquares == 0.0) {
-            return 0.0;
-        }
-        
-        // 返回归一化值：当前值 / SQRT(SUMSQ(所有值))
-        double result = currentValue / sqrtSumOfSquares;
-        log.debug("[normalizeIndicatorValue] result={}", result);
-        return result;
-    }
-    
-    /**
-     * 收集所有地区的一级指标值
-     */
-    private Map<String, List<Double>> collectAllPrimaryIndicators(List<String> regionIds) {
-        Map<String, List<Double>> allValues = new HashMap<>();
-        allValues.put("disasterManagement", new ArrayList<>());
-        allValues.put("disasterPreparedness", new ArrayList<>());
-        allValues.put("selfRescueTransfer", new ArrayList<>());
-        
-        for (String regionId : regionIds) {
-            String regionName = extractRegionNameFromId(regionId);
-            List<SurveyData> surveyDataList = surveyDataService.getBySurveyRegion(regionName);
-            
-            if (!surveyDataList.isEmpty()) {
-                SurveyData surveyData = surveyDataList.get(0);
-                
-                // 计算当前地区的一级指标值
-                Map<String, Double> primaryIndicators = calculateCurrentPrimaryIndicators(surveyData, regionIds);
-                
-                allValues.get("disasterManagement").add(primaryIndicators.get("disasterManagement"));
-                allValues.get("disasterPreparedness").add(primaryIndicators.get("disasterPreparedness"));
-                allValues.get("selfRescueTransfer").add(primaryIndicators.get("selfRescueTransfer"));
-            } else {
-                // 如果没有数据，添加0值
-                allValues.get("disasterManagement").add(0.0);
-                allValues.get("disasterPreparedness").add(0.0);
-                allValues.get("selfRescueTransfer").add(0.0);
-            }
-        }
-        
-        return allValues;
-    }
-    
-    /**
-     * 计算当前地区的一级指标值
-     */
-    private Map<String, Double> calculateCurrentPrimaryIndicators(SurveyData surveyData, List<String> regionIds) {
-        // 获取所有地区的定权结果
-        Map<String, Map<String, Double>> allWeightedValues = collectAllWeightedValues(regionIds);
-        
-        // 计算当前地区的定权值
-        Map<String, Double> currentWeightedValues = calculateCurrentWeightedValues(surveyData, regionIds);
-        
-        // 使用TOPSIS算法计算3个一级指标
-        return calculateTOPSIS(currentWeightedValues, allWeightedValues);
-    }
-    
-    /**
-     * 获取步骤4的原始数据（不重新计算）
-     */
-    private Map<String, Double> getStep4DataForRegion(SurveyData surveyData, List<String> regionIds) {
-        // 获取所有地区的定权结果（步骤3表2的数据）
-        Map<String, Map<String, Double>> allWeightedValues = collectAllWeightedValues(regionIds);
-        
-        // 计算当前地区的定权值
-        Map<String, Double> currentWeightedValues = calculateCurrentWeightedValues(surveyData, regionIds);
-        
-        // 使用TOPSIS算法计算3个一级指标
-        Map<String, Double> topsisResults = calculateTOPSIS(currentWeightedValues, allWeightedValues);
-        
-        // 使用TOPSIS算法计算综合减灾能力值
-        double comprehensiveCapability = calculateComprehensiveTOPSIS(currentWeightedValues, allWeightedValues);
-        
-        // 返回步骤4的完整数据
-        Map<String, Double> step4Data = new HashMap<>(topsisResults);
-        step4Data.put("comprehensiveCapability", comprehensiveCapability);
-        
-        return step4Data;
-    }
-    
-    /**
-     * 收集所有地区的步骤4数据
-     */
-    private Map<String, List<Double>> collectAllStep4Values(List<String> regionIds) {
-        Map<String, List<Double>> allValues = new HashMap<>();
-        allValues.put("disasterManagement", new ArrayList<>());
-        allValues.put("disasterPreparedness", new ArrayList<>());
-        allValues.put("selfRescueTransfer", new ArrayList<>());
-        allValues.put("comprehensiveCapability", new ArrayList<>());
-        
-        for (String regionId : regionIds) {
-            String regionName = extractRegionNameFromId(regionId);
-            List<SurveyData> surveyDataList = surveyDataService.getBySurveyRegion(regionName);
-            
-            if (!surveyDataList.isEmpty()) {
-                SurveyData surveyData = surveyDataList.get(0);
-                
-                // 获取当前地区的步骤4数据
-                Map<String, Double> step4Data = getStep4DataForRegion(surveyData, regionIds);
-                
-                // 添加到对应的列表中
-                allValues.get("disasterManagement").add(step4Data.get("disasterManagement"));
-                allValues.get("disasterPreparedness").add(step4Data.get("disasterPreparedness"));
-                allValues.get("selfRescueTransfer").add(step4Data.get("selfRescueTransfer"));
-                allValues.get("comprehensiveCapability").add(step4Data.get("comprehensiveCapability"));
-            } else {
-                // 如果没有数据，添加0值
-                allValues.get("disasterManagement").add(0.0);
-                allValues.get("disasterPreparedness").add(0.0);
-                allValues.get("selfRescueTransfer").add(0.0);
-                allValues.get("comprehensiveCapability").add(0.0);
-            }
-        }
-        
-        return allValues;
-    }
-    
-    /**
-     * 从缓存中收集所有地区的步骤4数据（避免重新计算）
-     */
-    private Map<String, List<Double>> collectAllStep4ValuesFromCache(List<String> regionIds) {
-        Map<String, List<Double>> allValues = new HashMap<>();
-        allValues.put("disasterManagement", new ArrayList<>());
-        allValues.put("disasterPreparedness", new ArrayList<>());
-        allValues.put("selfRescueTransfer", new ArrayList<>());
-        allValues.put("comprehensiveCapability", new ArrayList<>());
-        
-        for (String regionId : regionIds) {
-            String regionName = extractRegionNameFromId(regionId);
-            
-            // 从缓存中获取步骤4数据
-            Map<String, Double> step4Data = step4ResultsCache.get(regionName);
-            
-            if (step4Data != null) {
-                // 添加到对应的列表中
-                allValues.get("disasterManagement").add(step4Data.get("disasterManagement"));
-                allValues.get("disasterPreparedness").add(step4Data.get("disasterPreparedness"));
-                allValues.get("selfRescueTransfer").add(step4Data.get("selfRescueTransfer"));
-                allValues.get("comprehensiveCapability").add(step4Data.get("comprehensiveCapability"));
-            } else {
-                // 如果缓存中没有数据，添加0值
-                allValues.get("disasterManagement").add(0.0);
-                allValues.get("disasterPreparedness").add(0.0);
-                allValues.get("selfRescueTransfer").add(0.0);
-                allValues.get("comprehensiveCapability").add(0.0);
-            }
-        }
-        
-        return allValues;
-    }
-    
-    /**
-     * 计算综合减灾能力分级
-     */
-    private String calculateComprehensiveGrade(double value, List<Double> allValues) {
-        if (allValues == null || allValues.isEmpty()) {
-            return "中等";
-        }
-        
-        // 过滤掉null值
-        List<Double> validValues = allValues.stream()
-            .filter(v -> v != null)
-            .collect(Collectors.toList());
-            
-        if (validValues.isEmpty()) {
-            return "中等";
-        }
-        
-        // 计算均值和样本标准差（STDEV.S）
-        double mean = validValues.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-        if (validValues.size() <= 1) {
-            // 样本数量不足，无法计算样本标准差
-            return "中等";
-        }
-        // 样本标准差：除以(n-1)
-        double variance = validValues.stream().mapToDouble(v -> Math.pow(v - mean, 2)).sum() / (validValues.size() - 1);
-        double stdDev = Math.sqrt(variance);
-        
-        // 根据复杂的IF条件进行分级
-        return calculateGrade(value, mean, stdDev);
-    }
-    
-    /**
-     * 计算能力分级
-     */
-    private Map<String, String> calculateCapabilityGrades(Map<String, Double> currentValues, Map<String, List<Double>> allValues) {
-        Map<String, String> grades = new HashMap<>();
-        
-        // 为每个一级指标计算分级
-        for (String indicator : Arrays.asList("disasterManagement", "disasterPreparedness", "selfRescueTransfer")) {
-            Double currentValueObj = currentValues.get(indicator);
-            double currentValue = currentValueObj != null ? currentValueObj : 0.0;
-            List<Double> values = allValues.get(indicator);
-            
-            if (values == null || values.isEmpty()) {
-                grades.put(indicator, "中等");
-                continue;
-            }
-            
-            // 过滤掉null值
-            List<Double> validValues = values.stream()
-                .filter(v -> v != null)
-                .collect(Collectors.toList());
-                
-            if (validValues.size() <= 1) {
-                // 样本数量不足，无法计算样本标准差
-                grades.put(indicator, "中等");
-                continue;
-            }
-            
-            // 计算均值和样本标准差（STDEV.S）
-            double mean = validValues.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-            // 样本标准差：除以(n-1)
-            double variance = validValues.stream().mapToDouble(v -> Math.pow(v - mean, 2)).sum() / (validValues.size() - 1);
-            double stdDev = Math.sqrt(variance);
-            
-            // 根据复杂的IF条件进行分级
-            String grade = calculateGrade(currentValue, mean, stdDev);
-            grades.put(indicator, grade);
-        }
-        
-        return grades;
-    }
-    
-    /**
-     * 根据均值和标准差计算分级
-     * 严格按照用户提供的Excel公式实现：
-     * IF(均值μ<=0.5*标准差σ,IF(BI3>=均值μ+1.5*标准差σ,"强",IF(BI3>=均值μ+0.5*标准差σ,"较强","中等")),
-     * IF(均值μ<=1.5*标准差σ,IF(BI3>=均值μ+1.5*标准差σ,"强",IF(BI3>=均值μ+0.5*标准差σ,"较强",IF(BI3>=均值μ-0.5*标准差σ,"中等","较弱"))),
-     * IF(BI3>=均值μ+1.5*标准差σ,"强",IF(BI3>=均值μ+0.5*标准差σ,"较强",IF(BI3>=均值μ-0.5*标准差σ,"中等",IF(BI3>=均值μ-1.5*标准差σ,"较弱","弱"))))))
-     */
-    private String calculateGrade(double value, double mean, double stdDev) {
-        // 第一层IF：判断均值μ是否<=0.5*标准差σ
-        if (mean <= 0.5 * stdDev) {
-            // 均值μ<=0.5*标准差σ的情况
-            if (value >= mean + 1.5 * stdDev) {
-                return "强";
-            } else if (value >= mean + 0.5 * stdDev) {
-                return "较强";
-            } else {
-                return "中等";
-            }
-        } else {
-            // 均值μ>0.5*标准差σ的情况，进入第二层IF：判断均值μ是否<=1.5*标准差σ
-            if (mean <= 1.5 * stdDev) {
-                // 均值μ<=1.5*标准差σ的情况
-                if (value >= mean + 1.5 * stdDev) {
-                    return "强";
-                } else if (value >= mean + 0.5 * stdDev) {
-                    return "较强";
-                } else if (value >= mean - 0.5 * stdDev) {
-                    return "中等";
-                } else {
-                    return "较弱";
-                }
-            } else {
-                // 均值μ>1.5*标准差σ的情况
-                if (value >= mean + 1.5 * stdDev) {
-                    return "强";
-                } else if (value >= mean + 0.5 * stdDev) {
-                    return "较强";
-                } else if (value >= mean - 0.5 * stdDev) {
-                    return "中等";
-                } else if (value >= mean - 1.5 * stdDev) {
-                    return "较弱";
-                } else {
-                    return "弱";
-                }
-            }
-        }
-    }
-    
     /**
      * 获取一级指标权重配置
      */
@@ -1717,375 +1084,4 @@ public class AlgorithmExecutionServiceImpl implements AlgorithmExecutionService
         return null;
     }
     
-    /**
-     * 收集所有地区的定权结果
-     */
-    private Map<String, Map<String, Double>> collectAllWeightedValues(List<String> regionIds) {
-        Map<String, Map<String, Double>> allWeightedValues = new HashMap<>();
-        
-        // 获取所有地区的归一化值
-        Map<String, List<Double>> allIndicatorValues = collectAllIndicatorValues(regionIds);
-        
-        // 获取一级权重配置和二级权重配置
-        Map<String, Double> primaryWeights = getPrimaryIndicatorWeights(1L);
-        Map<String, Double> secondaryWeights = getSecondaryIndicatorWeights(1L);
-        
-        // 计算所有地区的定权值
-        
-        for (int i = 0; i < regionIds.size(); i++) {
-            String regionId = regionIds.get(i);
-            String regionName = extractRegionNameFromId(regionId);
-            
-            Map<String, Double> weightedValues = new HashMap<>();
-            
-            // 根据用户提供的正确公式计算定权值：属性向量归一化值 × 对应一级权重 × 对应二级权重
-            
-            // 获取当前地区的8个指标原始值
-            List<Double> teamManagementValues = allIndicatorValues.get("teamManagement");
-            List<Double> riskAssessmentValues = allIndicatorValues.get("riskAssessment");
-            List<Double> financialInputValues = allIndicatorValues.get("financialInput");
-            List<Double> materialReserveValues = allIndicatorValues.get("materialReserve");
-            List<Double> medicalSupportValues = allIndicatorValues.get("medicalSupport");
-            List<Double> selfRescueValues = allIndicatorValues.get("selfRescue");
-            List<Double> publicAvoidanceValues = allIndicatorValues.get("publicAvoidance");
-            List<Double> relocationCapacityValues = allIndicatorValues.get("relocationCapacity");
-            
-            if (i < teamManagementValues.size()) {
-                // 1. 队伍管理能力(定权) = 队伍管理能力(归一化) × 灾害管理能力一级权重 × 队伍管理能力二级权重
-                double teamManagementNorm = normalizeIndicatorValue(teamManagementValues.get(i), teamManagementValues);
-                double teamManagementPrimaryWeight = primaryWeights.getOrDefault("disasterManagement", 0.33);
-                double teamManagementSecondaryWeight = secondaryWeights.getOrDefault("teamManagement", 0.37);
-                double teamManagementWeighted = teamManagementNorm * teamManagementPrimaryWeight * teamManagementSecondaryWeight;
-                weightedValues.put("teamManagement", teamManagementWeighted);
-                
-                // 2. 风险评估能力(定权) = 风险评估能力(归一化) × 灾害管理能力一级权重 × 风险评估能力二级权重
-                double riskAssessmentNorm = normalizeIndicatorValue(riskAssessmentValues.get(i), riskAssessmentValues);
-                double riskAssessmentPrimaryWeight = primaryWeights.getOrDefault("disasterManagement", 0.33);
-                double riskAssessmentSecondaryWeight = secondaryWeights.getOrDefault("riskAssessment", 0.31);
-                double riskAssessmentWeighted = riskAssessmentNorm * riskAssessmentPrimaryWeight * riskAssessmentSecondaryWeight;
-                weightedValues.put("riskAssessment", riskAssessmentWeighted);
-                
-                // 3. 财政投入能力(定权) = 财政投入能力(归一化) × 灾害管理能力一级权重 × 财政投入能力二级权重
-                double financialInputNorm = normalizeIndicatorValue(financialInputValues.get(i), financialInputValues);
-                double financialInputPrimaryWeight = primaryWeights.getOrDefault("disasterManagement", 0.33);
-                double financialInputSecondaryWeight = secondaryWeights.getOrDefault("financialInput", 0.32);
-                double financialInputWeighted = financialInputNorm * financialInputPrimaryWeight * financialInputSecondaryWeight;
-                weightedValues.put("financialInput", financialInputWeighted);
-                
-                // 4. 物资储备能力(定权) = 物资储备能力(归一化) × 灾害备灾能力一级权重 × 物资储备能力二级权重
-                double materialReserveNorm = normalizeIndicatorValue(materialReserveValues.get(i), materialReserveValues);
-                double materialReservePrimaryWeight = primaryWeights.getOrDefault("disasterPreparedness", 0.32);
-                double materialReserveSecondaryWeight = secondaryWeights.getOrDefault("materialReserve", 0.51);
-                double materialReserveWeighted = materialReserveNorm * materialReservePrimaryWeight * materialReserveSecondaryWeight;
-                weightedValues.put("materialReserve", materialReserveWeighted);
-                
-                // 物资储备能力定权计算完成
-                
-                // 5. 医疗保障能力(定权) = 医疗保障能力(归一化) × 灾害备灾能力一级权重 × 医疗保障能力二级权重
-                double medicalSupportNorm = normalizeIndicatorValue(medicalSupportValues.get(i), medicalSupportValues);
-                double medicalSupportPrimaryWeight = primaryWeights.getOrDefault("disasterPreparedness", 0.32);
-                double medicalSupportSecondaryWeight = secondaryWeights.getOrDefault("medicalSupport", 0.49);
-                double medicalSupportWeighted = medicalSupportNorm * medicalSupportPrimaryWeight * medicalSupportSecondaryWeight;
-                weightedValues.put("medicalSupport", medicalSupportWeighted);
-                
-                // 6. 自救互救能力(定权) = 自救互救能力(归一化) × 自救转移能力一级权重 × 自救互救能力二级权重
-                double selfRescueNorm = normalizeIndicatorValue(selfRescueValues.get(i), selfRescueValues);
-                double selfRescuePrimaryWeight = primaryWeights.getOrDefault("selfRescueTransfer", 0.35);
-                double selfRescueSecondaryWeight = secondaryWeights.getOrDefault("selfRescue", 0.33);
-                double selfRescueWeighted = selfRescueNorm * selfRescuePrimaryWeight * selfRescueSecondaryWeight;
-                weightedValues.put("selfRescue", selfRescueWeighted);
-                
-                // 7. 公众避险能力(定权) = 公众避险能力(归一化) × 自救转移能力一级权重 × 公众避险能力二级权重
-                double publicAvoidanceNorm = normalizeIndicatorValue(publicAvoidanceValues.get(i), publicAvoidanceValues);
-                double publicAvoidancePrimaryWeight = primaryWeights.getOrDefault("selfRescueTransfer", 0.35);
-                double publicAvoidanceSecondaryWeight = secondaryWeights.getOrDefault("publicAvoidance", 0.33);
-                double publicAvoidanceWeighted = publicAvoidanceNorm * publicAvoidancePrimaryWeight * publicAvoidanceSecondaryWeight;
-                weightedValues.put("publicAvoidance", publicAvoidanceWeighted);
-                
-                // 8. 转移安置能力(定权) = 转移安置能力(归一化) × 自救转移能力一级权重 × 转移安置能力二级权重
-                double relocationCapacityNorm = normalizeIndicatorValue(relocationCapacityValues.get(i), relocationCapacityValues);
-                double relocationCapacityPrimaryWeight = primaryWeights.getOrDefault("selfRescueTransfer", 0.35);
-                double relocationCapacitySecondaryWeight = secondaryWeights.getOrDefault("relocationCapacity", 0.34);
-                double relocationCapacityWeighted = relocationCapacityNorm * relocationCapacityPrimaryWeight * relocationCapacitySecondaryWeight;
-                weightedValues.put("relocationCapacity", relocationCapacityWeighted);
-            } else {
-                // 如果没有数据，设置默认值
-                weightedValues.put("teamManagement", 0.0);
-                weightedValues.put("riskAssessment", 0.0);
-                weightedValues.put("financialInput", 0.0);
-                weightedValues.put("materialReserve", 0.0);
-                weightedValues.put("medicalSupport", 0.0);
-                weightedValues.put("selfRescue", 0.0);
-                weightedValues.put("publicAvoidance", 0.0);
-                weightedValues.put("relocationCapacity", 0.0);
-            }
-            
-            allWeightedValues.put(regionName, weightedValues);
-        }
-        
-        return allWeightedValues;
-    }
-    
-    /**
-     * 计算当前地区的定权值
-     */
-    private Map<String, Double> calculateCurrentWeightedValues(SurveyData surveyData, List<String> regionIds) {
-        Map<String, Double> currentWeightedValues = new HashMap<>();
-        
-        // 获取所有地区的归一化值
-        Map<String, List<Double>> allIndicatorValues = collectAllIndicatorValues(regionIds);
-        
-        // 获取一级权重配置和二级权重配置
-        Map<String, Double> primaryWeights = getPrimaryIndicatorWeights(1L);
-        Map<String, Double> secondaryWeights = getSecondaryIndicatorWeights(1L);
-        
-        // 计算当前地区定权值
-        
-        // 计算当前地区的8个指标原始值
-        double teamManagement = calculateIndicatorValue(surveyData.getManagementStaff(), surveyData.getPopulation());
-        double riskAssessment = "是".equals(surveyData.getRiskAssessment()) ? 1.0 : 0.0;
-        double financialInput = calculateIndicatorValueFromDouble(surveyData.getFundingAmount(), surveyData.getPopulation());
-        double materialReserve = calculateIndicatorValueFromDouble(surveyData.getMaterialValue(), surveyData.getPopulation());
-        double medicalSupport = calculateIndicatorValue(surveyData.getHospitalBeds(), surveyData.getPopulation());
-        int totalRescuePersonnel = (surveyData.getFirefighters() != null ? surveyData.getFirefighters() : 0) +
-                                  (surveyData.getVolunteers() != null ? surveyData.getVolunteers() : 0) +
-                                  (surveyData.getMilitiaReserve() != null ? surveyData.getMilitiaReserve() : 0);
-        double selfRescue = calculateIndicatorValue(totalRescuePersonnel, surveyData.getPopulation());
-        double publicAvoidance = calculateIndicatorValue(surveyData.getTrainingParticipants(), surveyData.getPopulation())/100;
-        double relocationCapacity = calculateIndicatorValue(surveyData.getShelterCapacity(), surveyData.getPopulation())/10000;
-        
-        // 当前地区原始指标值计算完成
-        
-        // 根据用户提供的正确公式计算定权值：属性向量归一化值 × 对应一级权重 × 对应二级权重
-        
-        // 1. 队伍管理能力(定权) = 队伍管理能力(归一化) × 灾害管理能力一级权重 × 队伍管理能力二级权重
-        double teamManagementNorm = normalizeIndicatorValue(teamManagement, allIndicatorValues.get("teamManagement"));
-        double teamManagementPrimaryWeight = primaryWeights.getOrDefault("disasterManagement", 0.33);
-        double teamManagementSecondaryWeight = secondaryWeights.getOrDefault("teamManagement", 0.37);
-        double teamManagementWeighted = teamManagementNorm * teamManagementPrimaryWeight * teamManagementSecondaryWeight;
-        currentWeightedValues.put("teamManagement", teamManagementWeighted);
-        
-        // 2. 风险评估能力(定权) = 风险评估能力(归一化) × 灾害管理能力一级权重 × 风险评估能力二级权重
-        double riskAssessmentNorm = normalizeIndicatorValue(riskAssessment, allIndicatorValues.get("riskAssessment"));
-        double riskAssessmentPrimaryWeight = primaryWeights.getOrDefault("disasterManagement", 0.33);
-        double riskAssessmentSecondaryWeight = secondaryWeights.getOrDefault("riskAssessment", 0.31);
-        double riskAssessmentWeighted = riskAssessmentNorm * riskAssessmentPrimaryWeight * riskAssessmentSecondaryWeight;
-        currentWeightedValues.put("riskAssessment", riskAssessmentWeighted);
-        
-        // 3. 财政投入能力(定权) = 财政投入能力(归一化) × 灾害管理能力一级权重 × 财政投入能力二级权重
-        double financialInputNorm = normalizeIndicatorValue(financialInput, allIndicatorValues.get("financialInput"));
-        double financialInputPrimaryWeight = primaryWeights.getOrDefault("disasterManagement", 0.33);
-        double financialInputSecondaryWeight = secondaryWeights.getOrDefault("financialInput", 0.32);
-        double financialInputWeighted = financialInputNorm * financialInputPrimaryWeight * financialInputSecondaryWeight;
-        currentWeightedValues.put("financialInput", financialInputWeighted);
-        
-        // 4. 物资储备能力(定权) = 物资储备能力(归一化) × 灾害备灾能力一级权重 × 物资储备能力二级权重
-        double materialReserveNorm = normalizeIndicatorValue(materialReserve, allIndicatorValues.get("materialReserve"));
-        double materialReservePrimaryWeight = primaryWeights.getOrDefault("disasterPreparedness", 0.32);
-        double materialReserveSecondaryWeight = secondaryWeights.getOrDefault("materialReserve", 0.51);
-        double materialReserveWeighted = materialReserveNorm * materialReservePrimaryWeight * materialReserveSecondaryWeight;
-        currentWeightedValues.put("materialReserve", materialReserveWeighted);
-        
-        // 5. 医疗保障能力(定权) = 医疗保障能力(归一化) × 灾害备灾能力一级权重 × 医疗保障能力二级权重
-        double medicalSupportNorm = normalizeIndicatorValue(medicalSupport, allIndicatorValues.get("medicalSupport"));
-        double medicalSupportPrimaryWeight = primaryWeights.getOrDefault("disasterPreparedness", 0.32);
-        double medicalSupportSecondaryWeight = secondaryWeights.getOrDefault("medicalSupport", 0.49);
-        double medicalSupportWeighted = medicalSupportNorm * medicalSupportPrimaryWeight * medicalSupportSecondaryWeight;
-        currentWeightedValues.put("medicalSupport", medicalSupportWeighted);
-        
-        // 6. 自救互救能力(定权) = 自救互救能力(归一化) × 自救转移能力一级权重 × 自救互救能力二级权重
-        double selfRescueNorm = normalizeIndicatorValue(selfRescue, allIndicatorValues.get("selfRescue"));
-        double selfRescuePrimaryWeight = primaryWeights.getOrDefault("selfRescueTransfer", 0.35);
-        double selfRescueSecondaryWeight = secondaryWeights.getOrDefault("selfRescue", 0.33);
-        double selfRescueWeighted = selfRescueNorm * selfRescuePrimaryWeight * selfRescueSecondaryWeight;
-        currentWeightedValues.put("selfRescue", selfRescueWeighted);
-        
-        // 7. 公众避险能力(定权) = 公众避险能力(归一化) × 自救转移能力一级权重 × 公众避险能力二级权重
-        double publicAvoidanceNorm = normalizeIndicatorValue(publicAvoidance, allIndicatorValues.get("publicAvoidance"));
-        double publicAvoidancePrimaryWeight = primaryWeights.getOrDefault("selfRescueTransfer", 0.35);
-        double publicAvoidanceSecondaryWeight = secondaryWeights.getOrDefault("publicAvoidance", 0.33);
-        double publicAvoidanceWeighted = publicAvoidanceNorm * publicAvoidancePrimaryWeight * publicAvoidanceSecondaryWeight;
-        currentWeightedValues.put("publicAvoidance", publicAvoidanceWeighted);
-        
-        // 8. 转移安置能力(定权) = 转移安置能力(归一化) × 自救转移能力一级权重 × 转移安置能力二级权重
-        double relocationCapacityNorm = normalizeIndicatorValue(relocationCapacity, allIndicatorValues.get("relocationCapacity"));
-        double relocationCapacityPrimaryWeight = primaryWeights.getOrDefault("selfRescueTransfer", 0.35);
-        double relocationCapacitySecondaryWeight = secondaryWeights.getOrDefault("relocationCapacity", 0.34);
-        double relocationCapacityWeighted = relocationCapacityNorm * relocationCapacityPrimaryWeight * relocationCapacitySecondaryWeight;
-        currentWeightedValues.put("relocationCapacity", relocationCapacityWeighted);
-        
-        return currentWeightedValues;
-    }
-    
-    /**
-     * 使用TOPSIS算法计算3个一级指标
-     */
-    private Map<String, Double> calculateTOPSIS(Map<String, Double> currentWeightedValues, 
-                                               Map<String, Map<String, Double>> allWeightedValues) {
-        Map<String, Double> primaryIndicators = new HashMap<>();
-        
-        // 计算各指标的最大值和最小值
-        Map<String, Double> maxValues = new HashMap<>();
-        Map<String, Double> minValues = new HashMap<>();
-        
-        for (String indicator : Arrays.asList("teamManagement", "riskAssessment", "financialInput", 
-                "materialReserve", "medicalSupport", "selfRescue", "publicAvoidance", "relocationCapacity")) {
-            
-            double max = allWeightedValues.values().stream()
-                .mapToDouble(values -> values.getOrDefault(indicator, 0.0))
-                .max().orElse(0.0);
-            double min = allWeightedValues.values().stream()
-                .mapToDouble(values -> values.getOrDefault(indicator, 0.0))
-                .min().orElse(0.0);
-            
-            maxValues.put(indicator, max);
-            minValues.put(indicator, min);
-        }
-        
-        // TOPSIS算法计算（移除调试日志）
-        
-        // 计算3个一级指标的TOPSIS值
-        
-        // 1. 灾害管理能力（队伍管理+风险评估+财政投入）
-        double disasterManagementPositive = Math.sqrt(
-            Math.pow(maxValues.get("teamManagement") - currentWeightedValues.get("teamManagement"), 2) +
-            Math.pow(maxValues.get("riskAssessment") - currentWeightedValues.get("riskAssessment"), 2) +
-            Math.pow(maxValues.get("financialInput") - currentWeightedValues.get("financialInput"), 2)
-        );
-        double disasterManagementNegative = Math.sqrt(
-            Math.pow(minValues.get("teamManagement") - currentWeightedValues.get("teamManagement"), 2) +
-            Math.pow(minValues.get("riskAssessment") - currentWeightedValues.get("riskAssessment"), 2) +
-            Math.pow(minValues.get("financialInput") - currentWeightedValues.get("financialInput"), 2)
-        );
-        
-        // 防止除零错误
-        double disasterManagement = 0.0;
-        if (disasterManagementNegative + disasterManagementPositive > 0) {
-            disasterManagement = disasterManagementNegative / (disasterManagementNegative + disasterManagementPositive);
-        }
-        
-        // 2. 灾害备灾能力（物资储备+医疗保障）
-        double materialReserveCurrent = currentWeightedValues.get("materialReserve");
-        double medicalSupportCurrent = currentWeightedValues.get("medicalSupport");
-        double materialReserveMax = maxValues.get("materialReserve");
-        double medicalSupportMax = maxValues.get("medicalSupport");
-        double materialReserveMin = minValues.get("materialReserve");
-        double medicalSupportMin = minValues.get("medicalSupport");
-        
-        double disasterPreparednessPositive = Math.sqrt(
-            Math.pow(materialReserveMax - materialReserveCurrent, 2) +
-            Math.pow(medicalSupportMax - medicalSupportCurrent, 2)
-        );
-        double disasterPreparednessNegative = Math.sqrt(
-            Math.pow(materialReserveMin - materialReserveCurrent, 2) +
-            Math.pow(medicalSupportMin - medicalSupportCurrent, 2)
-        );
-        
-        // 计算灾害备灾能力的TOPSIS值
-        
-        // 防止除零错误
-        double disasterPreparedness = 0.0;
-        if (disasterPreparednessNegative + disasterPreparednessPositive > 0) {
-            disasterPreparedness = disasterPreparednessNegative / (disasterPreparednessNegative + disasterPreparednessPositive);
-        }
-        
-        // 3. 自救转移能力（自救互救+公众避险+转移安置）
-        double selfRescueTransferPositive = Math.sqrt(
-            Math.pow(maxValues.get("selfRescue") - currentWeightedValues.get("selfRescue"), 2) +
-            Math.pow(maxValues.get("publicAvoidance") - currentWeightedValues.get("publicAvoidance"), 2) +
-            Math.pow(maxValues.get("relocationCapacity") - currentWeightedValues.get("relocationCapacity"), 2)
-        );
-        double selfRescueTransferNegative = Math.sqrt(
-            Math.pow(minValues.get("selfRescue") - currentWeightedValues.get("selfRescue"), 2) +
-            Math.pow(minValues.get("publicAvoidance") - currentWeightedValues.get("publicAvoidance"), 2) +
-            Math.pow(minValues.get("relocationCapacity") - currentWeightedValues.get("relocationCapacity"), 2)
-        );
-        
-        // 防止除零错误
-        double selfRescueTransfer = 0.0;
-        if (selfRescueTransferNegative + selfRescueTransferPositive > 0) {
-            selfRescueTransfer = selfRescueTransferNegative / (selfRescueTransferNegative + selfRescueTransferPositive);
-        }
-        
-        primaryIndicators.put("disasterManagement", disasterManagement);
-        primaryIndicators.put("disasterPreparedness", disasterPreparedness);
-        primaryIndicators.put("selfRescueTransfer", selfRescueTransfer);
-        
-        return primaryIndicators;
-    }
-    
-    /**
-     * 使用TOPSIS算法计算综合减灾能力值（单一值）
-     * 根据用户要求的计算逻辑：
-     * 1. 计算乡镇（街道）减灾能力优（与最大值的欧氏距离）
-     * 2. 计算乡镇（街道）减灾能力劣（与最小值的欧氏距离）
-     * 3. 计算综合减灾能力值 = 劣距离 / (劣距离 + 优距离)
-     */
-    private double calculateComprehensiveTOPSIS(Map<String, Double> currentWeightedValues, 
-                                               Map<String, Map<String, Double>> allWeightedValues) {
-        Map<String, Double> result = calculateComprehensiveTOPSISWithDistances(currentWeightedValues, allWeightedValues);
-        return result.get("score");
-    }
-    
-    /**
-     * 使用TOPSIS算法计算综合减灾能力值，同时返回优劣解距离
-     * @return Map包含: score(能力值), positiveDistance(最优距离), negativeDistance(最劣距离)
-     */
-    private Map<String, Double> calculateComprehensiveTOPSISWithDistances(Map<String, Double> currentWeightedValues, 
-                                               Map<String, Map<String, Double>> allWeightedValues) {
-        
-        // 计算各指标的最大值和最小值
-        Map<String, Double> maxValues = new HashMap<>();
-        Map<String, Double> minValues = new HashMap<>();
-        
-        String[] indicators = {"teamManagement", "riskAssessment", "financialInput", 
-                              "materialReserve", "medicalSupport", "selfRescue", 
-                              "publicAvoidance", "relocationCapacity"};
-        
-        for (String indicator : indicators) {
-            double max = allWeightedValues.values().stream()
-                .mapToDouble(values -> values.getOrDefault(indicator, 0.0))
-                .max().orElse(0.0);
-            double min = allWeightedValues.values().stream()
-                .mapToDouble(values -> values.getOrDefault(indicator, 0.0))
-                .min().orElse(0.0);
-            
-            maxValues.put(indicator, max);
-            minValues.put(indicator, min);
-        }
-        
-        // 综合TOPSIS算法计算（移除调试日志）
-        
-        // 1. 计算乡镇（街道）减灾能力优（与最大值的欧氏距离）
-        double positiveDistance = 0.0;
-        for (String indicator : indicators) {
-            double currentValue = currentWeightedValues.getOrDefault(indicator, 0.0);
-            double maxValue = maxValues.get(indicator);
-            positiveDistance += Math.pow(maxValue - currentValue, 2);
-        }
-        positiveDistance = Math.sqrt(positiveDistance);
-        
-        // 2. 计算乡镇（街道）减灾能力劣（与最小值的欧氏距离）
-        double negativeDistance = 0.0;
-        for (String indicator : indicators) {
-            double currentValue = currentWeightedValues.getOrDefault(indicator, 0.0);
-            double minValue = minValues.get(indicator);
-            negativeDistance += Math.pow(minValue - currentValue, 2);
-        }
-        negativeDistance = Math.sqrt(negativeDistance);
-        
-        // 3. 计算综合减灾能力值 = 劣距离 / (劣距离 + 优距离)
-        double comprehensiveCapability = 0.0;
-        if (negativeDistance + positiveDistance > 0) {
-            comprehensiveCapability = negativeDistance / (negativeDistance + positiveDistance);
-        }
-        
-        // 返回综合减灾能力值及优劣解距离
-        Map<String, Double> result = new HashMap<>();
-        result.put("score", comprehensiveCapability);
-        result.put("positiveDistance", positiveDistance);
-        result.put("negativeDistance", negativeDistance);
-        
-        return result;
-    }
 }
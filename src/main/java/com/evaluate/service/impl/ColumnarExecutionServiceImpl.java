@@ -0,0 +1,450 @@
+package com.evaluate.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.evaluate.dto.RegionDataSnapshot;
+import com.evaluate.entity.ModelStep;
+import com.evaluate.entity.StepAlgorithm;
+import com.evaluate.mapper.StepAlgorithmMapper;
+import com.evaluate.service.ColumnarExecutionService;
+import com.evaluate.service.ExecutionMetrics;
+import com.evaluate.service.ExecutionProgressListener;
+import com.evaluate.service.QLExpressService;
+import com.evaluate.service.RegionDataLoader;
+import com.evaluate.service.algorithm.ColumnarMarkers;
+import com.evaluate.service.algorithm.RegionColumnTable;
+import com.evaluate.service.algorithm.ResultRounding;
+import com.evaluate.service.algorithm.TownshipIndicators;
+import com.ql.util.express.InstructionSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 列式模型执行服务实现类
+ *
+ * 与 ModelExecutionServiceImpl 的逐地区执行相比：
+ * 1. 源数据只装入一次列表，各步骤输出直接写回同名列，不再为每个步骤、每个地区复制全局上下文；
+ * 2. 算法按“算法优先”顺序执行：一个算法对所有地区算完后再执行下一个，特殊标记整列计算；
+ * 3. 结果只做一次8位小数舍入（不经过字符串往返），Map 结构只在步骤结束时生成一次。
+ *
+ * 注意：列式执行不使用算法依赖图，同一步骤内的算法按配置顺序在当前线程依次执行，
+ * 不受 evaluation.parallel.enabled 影响，也不记录和复用增量执行快照（evaluation.incremental.enabled 只对逐地区执行生效）。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Slf4j
+@Service
+public class ColumnarExecutionServiceImpl implements ColumnarExecutionService {
+
+    private static final String TOWNSHIP_PREFIX = "TOWNSHIP_";
+
+    @Autowired
+    private StepAlgorithmMapper stepAlgorithmMapper;
+
+    @Autowired
+    private QLExpressService qlExpressService;
+
+    @Autowired
+    private RegionDataLoader regionDataLoader;
+
+    @Autowired(required = false)
+    private ExecutionMetrics executionMetrics = ExecutionMetrics.NONE;
+
+    @Override
+    public Map<String, Object> executeSteps(Long modelId, List<ModelStep> steps, List<String> regionCodes,
+                                            Map<String, Map<String, Object>> sourceRows,
+                                            Map<String, Object> globalContext,
+                                            Map<Integer, List<String>> stepOutputParams) {
+        RegionColumnTable table = loadSourceColumns(regionCodes, sourceRows, globalContext);
+        log.info("列式执行: 地区数={}, 源数据列数={}", table.getRegionCount(), table.getColumnCount());
+
+        Map<String, Object> stepResults = new HashMap<>();
+        ExecutionProgressListener listener = ExecutionProgressListener.of(globalContext);
+        for (int stepIndex = 0; stepIndex < steps.size(); stepIndex++) {
+            ModelStep step = steps.get(stepIndex);
+            log.info("执行步骤: {} - {}, order={}", step.getStepCode(), step.getStepName(), step.getStepOrder());
+            if (listener.isCancelled()) {
+                throw new CancellationException("执行已取消");
+            }
+            listener.onStepStarted(step.getStepCode(), step.getStepName(), stepIndex, steps.size());
+
+            try {
+                Map<String, Object> stepResult = new HashMap<>();
+                long stepStart = System.nanoTime();
+                int regionCount = table.getRegionCount();
+
+                // 特殊处理：如果是AGGREGATION类型且modelId=8，执行乡镇聚合，之后的步骤以乡镇为行
+                if ("AGGREGATION".equals(step.getStepType()) && modelId == 8) {
+                    table = executeTownshipAggregation(step, table, globalContext, stepResult);
+                    executionMetrics.recordPhase(modelId, "township_aggregation", System.nanoTime() - stepStart);
+                } else {
+                    executeStep(step, table, stepResult);
+                }
+                executionMetrics.recordStep(modelId, step.getStepCode(), System.nanoTime() - stepStart,
+                        regionCount, table.getColumnCount());
+
+                stepResults.put(step.getStepCode(), stepResult);
+
+                @SuppressWarnings("unchecked")
+                Map<String, String> outputToAlgorithmName =
+                        (Map<String, String>) stepResult.get("outputToAlgorithmName");
+                if (outputToAlgorithmName != null) {
+                    stepOutputParams.put(step.getStepOrder(), new ArrayList<>(outputToAlgorithmName.values()));
+                }
+
+                globalContext.put("step_" + step.getStepCode(), stepResult);
+                // 列式执行按整列计算，步骤完成即所有地区完成
+                listener.onRegionProgress(step.getStepCode(), table.getRegionCount(), table.getRegionCount());
+                listener.onStepCompleted(step.getStepCode(), stepIndex, steps.size());
+                log.info("步骤 {} 执行完成, 当前列数={}", step.getStepCode(), table.getColumnCount());
+            } catch (Exception e) {
+                log.error("步骤 {} 执行失败: {}", step.getStepCode(), e.getMessage(), e);
+                throw new RuntimeException("步骤 " + step.getStepName() + " 执行失败: " + e.getMessage(), e);
+            }
+        }
+        return stepResults;
+    }
+
+    /**
+     * 将各地区源数据装入列表
+     */
+    private RegionColumnTable loadSourceColumns(List<String> regionCodes,
+                                                Map<String, Map<String, Object>> sourceRows,
+                                                Map<String, Object> globalContext) {
+        RegionColumnTable table = new RegionColumnTable(regionCodes, globalContext);
+        for (int row = 0; row < table.getRegionCount(); row++) {
+            String regionCode = table.getRegionCode(row);
+            Map<String, Object> source = sourceRows != null ? sourceRows.get(regionCode) : null;
+            if (source == null) {
+                log.warn("未找到源数据: regionCode={}", regionCode);
+                continue;
+            }
+            for (Map.Entry<String, Object> entry : source.entrySet()) {
+                table.set(table.column(entry.getKey()), row, entry.getValue());
+            }
+        }
+        return table;
+    }
+
+    /**
+     * 执行单个步骤：先执行非GRADE算法，再执行GRADE算法（此时所有地区的分数已计算完成）
+     */
+    private void executeStep(ModelStep step, RegionColumnTable table, Map<String, Object> stepResult) {
+        List<StepAlgorithm> algorithms = loadAlgorithms(step.getId());
+        if (algorithms.isEmpty()) {
+            log.warn("步骤 {} 没有配置算法", step.getStepCode());
+            return;
+        }
+
+        stepResult.put("stepId", step.getId());
+        stepResult.put("stepName", step.getStepName());
+        stepResult.put("stepCode", step.getStepCode());
+
+        List<StepAlgorithm> nonGradeAlgorithms = new ArrayList<>();
+        List<StepAlgorithm> gradeAlgorithms = new ArrayList<>();
+        List<String> standardExpressions = new ArrayList<>();
+        for (StepAlgorithm algorithm : algorithms) {
+            String qlExpression = algorithm.getQlExpression();
+            if (qlExpression != null && qlExpression.startsWith("@GRADE")) {
+                gradeAlgorithms.add(algorithm);
+            } else {
+                nonGradeAlgorithms.add(algorithm);
+            }
+            if (qlExpression != null && !qlExpression.startsWith("@")) {
+                standardExpressions.add(qlExpression);
+            }
+        }
+        Map<String, InstructionSet> compiled = qlExpressService.precompile(standardExpressions);
+
+        Set<String> outputs = new LinkedHashSet<>();
+        Map<String, String> outputToAlgorithmName = new LinkedHashMap<>();
+        for (StepAlgorithm algorithm : nonGradeAlgorithms) {
+            try {
+                executeAlgorithm(algorithm, compiled, table, outputs, outputToAlgorithmName);
+            } catch (Exception e) {
+                log.error("算法 {} 执行失败: {}", algorithm.getAlgorithmCode(), e.getMessage(), e);
+                throw new RuntimeException("算法 " + algorithm.getAlgorithmName() + " 执行失败: " + e.getMessage(), e);
+            }
+        }
+        for (StepAlgorithm algorithm : gradeAlgorithms) {
+            try {
+                executeAlgorithm(algorithm, compiled, table, outputs, outputToAlgorithmName);
+            } catch (Exception e) {
+                log.error("GRADE算法 {} 执行失败: {}", algorithm.getAlgorithmCode(), e.getMessage(), e);
+                throw new RuntimeException("GRADE算法 " + algorithm.getAlgorithmName() + " 执行失败: " + e.getMessage(), e);
+            }
+        }
+
+        if (!outputToAlgorithmName.isEmpty()) {
+            stepResult.put("outputToAlgorithmName", outputToAlgorithmName);
+        }
+        stepResult.put("regionResults", materialize(table, outputs));
+    }
+
+    /**
+     * 对所有地区执行一个算法并写入输出列
+     */
+    private void executeAlgorithm(StepAlgorithm algorithm, Map<String, InstructionSet> compiled, RegionColumnTable table,
+                                  Set<String> outputs, Map<String, String> outputToAlgorithmName) throws Exception {
+        String qlExpression = algorithm.getQlExpression();
+        String outputParam = algorithm.getOutputParam();
+        boolean hasOutput = outputParam != null && !outputParam.isEmpty();
+        int n = table.getRegionCount();
+
+        if (qlExpression != null && qlExpression.startsWith("@")) {
+            // 解析特殊标记: @MARKER:params，整列计算后一次写入
+            String[] parts = qlExpression.substring(1).split(":", 2);
+            String marker = parts[0];
+            String params = parts.length > 1 ? parts[1] : "";
+            log.debug("执行特殊标记算法: marker={}, params={}", marker, params);
+
+            Object result = ColumnarMarkers.execute(table, marker, params);
+            if (!hasOutput) {
+                return;
+            }
+            int col = table.column(outputParam);
+            if (result instanceof double[]) {
+                double[] values = (double[]) result;
+                for (int row = 0; row < n; row++) {
+                    values[row] = ResultRounding.round8(values[row]);
+                }
+                table.setColumn(col, values);
+            } else {
+                Object[] values = (Object[]) result;
+                for (int row = 0; row < n; row++) {
+                    table.set(col, row, values[row]);
+                }
+            }
+            table.markOutput(col);
+        } else {
+            // 标准QLExpress表达式：逐行执行，行上下文复用
+            int col = hasOutput ? table.column(outputParam) : -1;
+            RegionColumnTable.RowContext rowContext = table.rowContext(0);
+            InstructionSet instructionSet = compiled.get(qlExpression);
+            for (int row = 0; row < n; row++) {
+                rowContext.moveTo(row);
+                Object result = instructionSet != null
+                        ? qlExpressService.execute(instructionSet, rowContext)
+                        : qlExpressService.execute(qlExpression, rowContext);
+                if (col < 0) {
+                    continue;
+                }
+                if (result instanceof Number) {
+                    table.setDouble(col, row, ResultRounding.round8(((Number) result).doubleValue()));
+                } else {
+                    table.set(col, row, result);
+                }
+            }
+            if (col >= 0) {
+                table.markOutput(col);
+            }
+        }
+
+        if (hasOutput) {
+            outputs.add(outputParam);
+            outputToAlgorithmName.put(outputParam, algorithm.getAlgorithmName());
+        }
+    }
+
+    /**
+     * 乡镇聚合：按乡镇分组，对社区的步骤输出（及推导指标）求平均，返回以乡镇为行的新列表
+     */
+    private RegionColumnTable executeTownshipAggregation(ModelStep step, RegionColumnTable table,
+                                                         Map<String, Object> globalContext,
+                                                         Map<String, Object> stepResult) {
+        log.info("检测到乡镇聚合步骤，执行按乡镇分组聚合: regionCodes.size={}", table.getRegionCount());
+
+        List<StepAlgorithm> algorithms = loadAlgorithms(step.getId());
+        if (algorithms.isEmpty()) {
+            log.warn("步骤 {} 没有配置算法", step.getStepCode());
+            return table;
+        }
+
+        // 1. 按乡镇分组（组序号按社区首次出现顺序）
+        int n = table.getRegionCount();
+        List<String> regionCodes = new ArrayList<>(n);
+        for (int row = 0; row < n; row++) {
+            regionCodes.add(table.getRegionCode(row));
+        }
+        RegionDataSnapshot regionData = getRegionDataSnapshot(globalContext);
+        regionDataLoader.ensureCommunityData(regionData, regionCodes);
+
+        int[] groupOf = new int[n];
+        Map<String, Integer> townshipIndex = new LinkedHashMap<>();
+        List<String> firstCommunityCodes = new ArrayList<>();
+        for (int row = 0; row < n; row++) {
+            groupOf[row] = -1;
+            String regionCode = table.getRegionCode(row);
+            Map<String, Object> communityData = regionData.getCommunityRows().get(regionCode);
+            if (communityData == null) {
+                log.warn("未找到社区数据: regionCode={}", regionCode);
+                continue;
+            }
+            Object townshipValue = communityData.get("township_name");
+            String townshipName = townshipValue != null ? townshipValue.toString() : null;
+            if (townshipName == null || townshipName.isEmpty()) {
+                log.warn("社区 {} 没有乡镇信息", regionCode);
+                continue;
+            }
+            Integer group = townshipIndex.get(townshipName);
+            if (group == null) {
+                group = townshipIndex.size();
+                townshipIndex.put(townshipName, group);
+                firstCommunityCodes.add(regionCode);
+            }
+            groupOf[row] = group;
+        }
+        int groups = townshipIndex.size();
+        log.info("按乡镇分组完成，共 {} 个乡镇", groups);
+
+        // 2. 由社区的步骤输出推导乡镇输入指标（按列存放）
+        double[][] derived = new double[TownshipIndicators.NAMES.length][n];
+        for (int row = 0; row < n; row++) {
+            if (groupOf[row] < 0) {
+                continue;
+            }
+            final int current = row;
+            double[] values = TownshipIndicators.derive(field -> outputValue(table, current, field));
+            for (int k = 0; k < values.length; k++) {
+                derived[k][row] = values[k];
+            }
+        }
+
+        // 3. 每个算法一次整列遍历：按组累加求平均
+        List<String> townshipCodes = new ArrayList<>(groups);
+        for (String townshipName : townshipIndex.keySet()) {
+            townshipCodes.add(TOWNSHIP_PREFIX + townshipName);
+        }
+        RegionColumnTable townshipTable = new RegionColumnTable(townshipCodes, table.getGlobals());
+        Set<String> outputs = new LinkedHashSet<>();
+        Map<String, String> outputToAlgorithmName = new LinkedHashMap<>();
+
+        for (StepAlgorithm algorithm : algorithms) {
+            String outputParam = algorithm.getOutputParam();
+            if (outputParam == null || outputParam.isEmpty()) {
+                continue;
+            }
+            String inputField = algorithm.getQlExpression().trim();
+
+            double[] sums = new double[groups];
+            int[] counts = new int[groups];
+            int derivedIndex = indexOf(TownshipIndicators.NAMES, inputField);
+            int inputCol = table.findColumn(inputField);
+            RegionColumnTable.NumericColumn input = table.isOutput(inputCol) ? table.numeric(inputField) : null;
+
+            for (int row = 0; row < n; row++) {
+                int group = groupOf[row];
+                if (group < 0) {
+                    continue;
+                }
+                if (derivedIndex >= 0) {
+                    sums[group] += derived[derivedIndex][row];
+                } else if (input != null && input.has(row)) {
+                    sums[group] += input.getValues()[row];
+                } else {
+                    continue;
+                }
+                counts[group]++;
+            }
+
+            int col = townshipTable.column(outputParam);
+            for (int group = 0; group < groups; group++) {
+                double average = counts[group] > 0 ? sums[group] / counts[group] : 0.0;
+                townshipTable.setDouble(col, group, ResultRounding.round8(average));
+            }
+            townshipTable.markOutput(col);
+            outputs.add(outputParam);
+            outputToAlgorithmName.put(outputParam, algorithm.getAlgorithmName());
+        }
+
+        // 4. 保存乡镇名称与第一个社区代码，供生成结果表使用
+        int nameCol = townshipTable.column("_townshipName");
+        int firstCol = townshipTable.column("_firstCommunityCode");
+        int group = 0;
+        for (String townshipName : townshipIndex.keySet()) {
+            townshipTable.set(nameCol, group, townshipName);
+            townshipTable.set(firstCol, group, firstCommunityCodes.get(group));
+            group++;
+        }
+        townshipTable.markOutput(nameCol);
+        townshipTable.markOutput(firstCol);
+        outputs.add("_townshipName");
+        outputs.add("_firstCommunityCode");
+
+        stepResult.put("stepId", step.getId());
+        stepResult.put("stepName", step.getStepName());
+        stepResult.put("stepCode", step.getStepCode());
+        stepResult.put("regionResults", materialize(townshipTable, outputs));
+        stepResult.put("outputToAlgorithmName", outputToAlgorithmName);
+
+        log.info("乡镇聚合完成，共 {} 个乡镇", groups);
+        return townshipTable;
+    }
+
+    /**
+     * 乡镇聚合只读取社区在前面步骤中的输出，不读取源数据字段
+     */
+    private Object outputValue(RegionColumnTable table, int row, String field) {
+        int col = table.findColumn(field);
+        return table.isOutput(col) ? table.get(col, row) : null;
+    }
+
+    /**
+     * 生成与逐地区执行相同结构的 regionResults（地区代码 -> 输出参数 -> 值）
+     */
+    private Map<String, Map<String, Object>> materialize(RegionColumnTable table, Set<String> outputs) {
+        int[] columns = new int[outputs.size()];
+        String[] names = outputs.toArray(new String[0]);
+        for (int i = 0; i < names.length; i++) {
+            columns[i] = table.findColumn(names[i]);
+        }
+
+        Map<String, Map<String, Object>> regionResults = new LinkedHashMap<>();
+        for (int row = 0; row < table.getRegionCount(); row++) {
+            Map<String, Object> regionOutputs = new LinkedHashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                regionOutputs.put(names[i], table.get(columns[i], row));
+            }
+            regionResults.put(table.getRegionCode(row), regionOutputs);
+        }
+        return regionResults;
+    }
+
+    private List<StepAlgorithm> loadAlgorithms(Long stepId) {
+        QueryWrapper<StepAlgorithm> algorithmQuery = new QueryWrapper<>();
+        algorithmQuery.eq("step_id", stepId)
+                .eq("status", 1)
+                .orderByAsc("algorithm_order");
+        List<StepAlgorithm> algorithms = stepAlgorithmMapper.selectList(algorithmQuery);
+        return algorithms != null ? algorithms : new ArrayList<>();
+    }
+
+    private RegionDataSnapshot getRegionDataSnapshot(Map<String, Object> context) {
+        Object snapshot = context.get(RegionDataLoader.CONTEXT_KEY);
+        if (snapshot instanceof RegionDataSnapshot) {
+            return (RegionDataSnapshot) snapshot;
+        }
+        RegionDataSnapshot created = new RegionDataSnapshot();
+        context.put(RegionDataLoader.CONTEXT_KEY, created);
+        return created;
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
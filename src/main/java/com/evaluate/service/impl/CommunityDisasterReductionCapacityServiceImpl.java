@@ -7,13 +7,15 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.evaluate.entity.CommunityDisasterReductionCapacity;
 import com.evaluate.mapper.CommunityDisasterReductionCapacityMapper;
 import com.evaluate.service.ICommunityDisasterReductionCapacityService;
+import com.evaluate.service.RegionHierarchyIndex;
+import com.evaluate.service.RegionNameCache;
+import com.evaluate.util.ExcelStreamReader;
 import com.evaluate.util.ExcelUtil;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
@@ -35,8 +37,25 @@ public class CommunityDisasterReductionCapacityServiceImpl
     @Autowired
     private CommunityDisasterReductionCapacityMapper communityDisasterReductionCapacityMapper;
 
+    @Autowired
+    private RegionNameCache regionNameCache;
+
+    @Autowired
+    private RegionHierarchyIndex regionHierarchyIndex;
+
+    /**
+     * Excel导入每批写入数据库的行数
+     */
+    @Value("${evaluation.excel-import.batch-size:500}")
+    private int importBatchSize = 500;
+
+    /**
+     * 导入按批提交事务，缩短大文件导入时的锁持有时间
+     */
+    @Autowired(required = false)
+    private TransactionTemplate transactionTemplate;
+
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public Map<String, Object> importCommunityCapacityData(MultipartFile file) {
         log.info("开始导入社区行政村减灾能力数据，文件名: {}", file.getOriginalFilename());
 
@@ -51,37 +70,48 @@ public class CommunityDisasterReductionCapacityServiceImpl
                 throw new RuntimeException("请上传Excel文件(.xlsx或.xls)");
             }
 
-            // 读取Excel文件
-            List<Map<String, Object>> dataList = readExcelData(file, errorMessages);
-            log.info("从Excel中读取到 {} 条数据", dataList.size());
-
-            // 批量保存数据
-            for (Map<String, Object> data : dataList) {
-                try {
-                    CommunityDisasterReductionCapacity entity = convertToEntity(data);
-
-                    // 检查是否已存在相同的数据
-                    CommunityDisasterReductionCapacity existing = getByRegionAndCommunity(
-                            entity.getRegionCode(), entity.getCommunityName());
-
-                    if (existing != null) {
-                        // 更新现有数据
-                        entity.setId(existing.getId());
-                        updateById(entity);
-                        log.debug("更新社区减灾能力数据: {} - {}", entity.getRegionCode(), entity.getCommunityName());
-                    } else {
-                        // 插入新数据
-                        save(entity);
-                        log.debug("新增社区减灾能力数据: {} - {}", entity.getRegionCode(), entity.getCommunityName());
+            // 流式读取Excel文件，每满一批写入数据库，不在内存中保留整个工作簿
+            List<Map<String, Object>> batch = new ArrayList<>(importBatchSize);
+            List<Integer> batchRowNumbers = new ArrayList<>(importBatchSize);
+            // 读取行数、成功数、失败数
+            int[] counts = new int[3];
+            boolean[] headerFound = new boolean[1];
+            try (InputStream inputStream = file.getInputStream()) {
+                ExcelStreamReader.read(inputStream, row -> {
+                    if (row.getRowNum() == 0) {
+                        headerFound[0] = true;
+                        return;
                     }
-                    successCount++;
-                } catch (Exception e) {
-                    errorCount++;
-                    String errorMsg = String.format("处理第%d行数据失败: %s", successCount + errorCount + 1, e.getMessage());
-                    errorMessages.add(errorMsg);
-                    log.error(errorMsg, e);
-                }
+                    if (!headerFound[0]) {
+                        throw new RuntimeException("Excel文件没有标题行");
+                    }
+                    Map<String, Object> data = readRowData(row, errorMessages);
+                    if (data == null) {
+                        return;
+                    }
+                    counts[0]++;
+                    batch.add(data);
+                    batchRowNumbers.add(row.getRowNum() + 1);
+                    if (batch.size() >= importBatchSize) {
+                        int saved = saveImportBatch(batch, batchRowNumbers, errorMessages);
+                        counts[1] += saved;
+                        counts[2] += batch.size() - saved;
+                        batch.clear();
+                        batchRowNumbers.clear();
+                    }
+                });
+            }
+            if (!headerFound[0]) {
+                throw new RuntimeException("Excel文件没有标题行");
+            }
+            if (!batch.isEmpty()) {
+                int saved = saveImportBatch(batch, batchRowNumbers, errorMessages);
+                counts[1] += saved;
+                counts[2] += batch.size() - saved;
             }
+            log.info("从Excel中读取到 {} 条数据", counts[0]);
+            successCount = counts[1];
+            errorCount = counts[2];
 
             result.put("success", true);
             result.put("successCount", successCount);
@@ -96,6 +126,9 @@ public class CommunityDisasterReductionCapacityServiceImpl
             result.put("success", false);
             result.put("message", "导入失败: " + e.getMessage());
             result.put("errorMessages", Arrays.asList(e.getMessage()));
+        } finally {
+            // 各批已分别提交，导入结束（包括中途失败）后统一清空名称缓存
+            regionNameCache.invalidateCommunity();
         }
 
         return result;
@@ -143,6 +176,9 @@ public class CommunityDisasterReductionCapacityServiceImpl
         } catch (Exception e) {
             log.error("删除社区行政村减灾能力数据失败，ID: {}", id, e);
             throw new RuntimeException("删除失败: " + e.getMessage());
+        } finally {
+            regionNameCache.invalidateCommunity();
+            regionHierarchyIndex.onRowsRemoved(RegionHierarchyIndex.DATA_TYPE_COMMUNITY, Collections.singletonList(id));
         }
     }
 
@@ -153,9 +189,20 @@ public class CommunityDisasterReductionCapacityServiceImpl
         } catch (Exception e) {
             log.error("批量删除社区行政村减灾能力数据失败，IDs: {}", ids, e);
             throw new RuntimeException("批量删除失败: " + e.getMessage());
+        } finally {
+            regionNameCache.invalidateCommunity();
+            regionHierarchyIndex.onRowsRemoved(RegionHierarchyIndex.DATA_TYPE_COMMUNITY, ids);
         }
     }
 
+    @Override
+    public boolean updateById(CommunityDisasterReductionCapacity entity) {
+        boolean updated = super.updateById(entity);
+        regionNameCache.invalidateCommunity();
+        regionHierarchyIndex.onRowsChanged(RegionHierarchyIndex.DATA_TYPE_COMMUNITY, Collections.singletonList(entity));
+        return updated;
+    }
+
     @Override
     public CommunityDisasterReductionCapacity getByRegionAndCommunity(String regionCode, String communityName) {
         try {
@@ -209,67 +256,176 @@ public class CommunityDisasterReductionCapacityServiceImpl
     }
 
     /**
-     * 读取Excel数据
+     * 保存一批导入数据：已存在相同行政区代码和社区名称的数据则更新，否则新增。
+     * 一次查询本批已存在的数据，新增和更新分别按 JDBC 批量执行，每批单独提交事务；
+     * 批量写入失败时回滚本批并逐行重试，以定位失败的行
+     *
+     * @return 成功保存的行数
      */
-    private List<Map<String, Object>> readExcelData(MultipartFile file, List<String> errorMessages) throws Exception {
-        List<Map<String, Object>> dataList = new ArrayList<>();
-
-        try (InputStream inputStream = file.getInputStream();
-             Workbook workbook = WorkbookFactory.create(inputStream)) {
-
-            Sheet sheet = workbook.getSheetAt(0);
-
-            // 获取标题行
-            Row headerRow = sheet.getRow(0);
-            if (headerRow == null) {
-                throw new RuntimeException("Excel文件没有标题行");
+    private int saveImportBatch(List<Map<String, Object>> batch, List<Integer> rowNumbers, List<String> errorMessages) {
+        // 转换实体，同一批中重复的（行政区代码，社区名称）以最后一行为准
+        Map<String, CommunityDisasterReductionCapacity> entities = new LinkedHashMap<>();
+        Map<String, List<Integer>> entityRows = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                CommunityDisasterReductionCapacity entity = convertToEntity(batch.get(i));
+                String key = importKey(entity.getRegionCode(), entity.getCommunityName());
+                entities.put(key, entity);
+                entityRows.computeIfAbsent(key, k -> new ArrayList<>()).add(rowNumbers.get(i));
+            } catch (Exception e) {
+                String errorMsg = String.format("处理第%d行数据失败: %s", rowNumbers.get(i), e.getMessage());
+                errorMessages.add(errorMsg);
+                log.error(errorMsg, e);
             }
+        }
+        if (entities.isEmpty()) {
+            return 0;
+        }
 
-            // 读取数据行
-            for (int rowIndex = 1; rowIndex <= sheet.getLastRowNum(); rowIndex++) {
-                Row row = sheet.getRow(rowIndex);
-                if (row == null) {
-                    continue;
-                }
+        Map<String, Long> existingIds = findExistingIds(entities.values());
+        List<CommunityDisasterReductionCapacity> inserts = new ArrayList<>();
+        List<CommunityDisasterReductionCapacity> updates = new ArrayList<>();
+        for (Map.Entry<String, CommunityDisasterReductionCapacity> entry : entities.entrySet()) {
+            Long id = existingIds.get(entry.getKey());
+            if (id != null) {
+                entry.getValue().setId(id);
+                updates.add(entry.getValue());
+            } else {
+                inserts.add(entry.getValue());
+            }
+        }
 
-                Map<String, Object> data = new HashMap<>();
-
-                // 根据列索引读取数据
-                data.put("regionCode", getCellStringValue(row.getCell(0)));
-                data.put("provinceName", getCellStringValue(row.getCell(1)));
-                data.put("cityName", getCellStringValue(row.getCell(2)));
-                data.put("countyName", getCellStringValue(row.getCell(3)));
-                data.put("townshipName", getCellStringValue(row.getCell(4)));
-                data.put("communityName", getCellStringValue(row.getCell(5)));
-                data.put("hasEmergencyPlan", getCellStringValue(row.getCell(6)));
-                data.put("hasVulnerableGroupsList", getCellStringValue(row.getCell(7)));
-                data.put("hasDisasterPointsList", getCellStringValue(row.getCell(8)));
-                data.put("hasDisasterMap", getCellStringValue(row.getCell(9)));
-                data.put("residentPopulation", getCellNumericValue(row.getCell(10)));
-                data.put("lastYearFundingAmount", getCellDecimalValue(row.getCell(11)));
-                data.put("materialsEquipmentValue", getCellDecimalValue(row.getCell(12)));
-                data.put("medicalServiceCount", getCellNumericValue(row.getCell(13)));
-                data.put("militiaReserveCount", getCellNumericValue(row.getCell(14)));
-                data.put("registeredVolunteerCount", getCellNumericValue(row.getCell(15)));
-                data.put("lastYearTrainingParticipants", getCellNumericValue(row.getCell(16)));
-                data.put("lastYearDrillParticipants", getCellNumericValue(row.getCell(17)));
-                data.put("emergencyShelterCapacity", getCellNumericValue(row.getCell(18)));
-
-                // 验证必填字段
-                if (data.get("regionCode") == null || data.get("regionCode").toString().trim().isEmpty()) {
-                    errorMessages.add(String.format("第%d行：行政区代码不能为空", rowIndex + 1));
-                    continue;
+        try {
+            inTransaction(() -> {
+                if (!inserts.isEmpty()) {
+                    saveBatch(inserts, importBatchSize);
                 }
-                if (data.get("communityName") == null || data.get("communityName").toString().trim().isEmpty()) {
-                    errorMessages.add(String.format("第%d行：社区（行政村）名称不能为空", rowIndex + 1));
-                    continue;
+                if (!updates.isEmpty()) {
+                    updateBatchById(updates, importBatchSize);
                 }
+            });
+            // 本批已提交，只重建本批涉及的区县
+            regionHierarchyIndex.onRowsChanged(RegionHierarchyIndex.DATA_TYPE_COMMUNITY, entities.values());
+            log.debug("批量写入社区减灾能力数据 - 新增: {}, 更新: {}", inserts.size(), updates.size());
+            return entityRows.values().stream().mapToInt(List::size).sum();
+        } catch (Exception e) {
+            log.warn("批量写入社区减灾能力数据失败，逐行重试: {}", e.getMessage());
+        }
 
-                dataList.add(data);
+        int saved = 0;
+        List<CommunityDisasterReductionCapacity> savedEntities = new ArrayList<>();
+        for (Map.Entry<String, CommunityDisasterReductionCapacity> entry : entities.entrySet()) {
+            CommunityDisasterReductionCapacity entity = entry.getValue();
+            List<Integer> rows = entityRows.get(entry.getKey());
+            try {
+                inTransaction(() -> {
+                    // 检查是否已存在相同的数据
+                    entity.setId(null);
+                    CommunityDisasterReductionCapacity existing = getByRegionAndCommunity(
+                            entity.getRegionCode(), entity.getCommunityName());
+                    if (existing != null) {
+                        // 更新现有数据（缓存与层级索引在全部重试结束后统一通知）
+                        entity.setId(existing.getId());
+                        super.updateById(entity);
+                    } else {
+                        // 插入新数据
+                        save(entity);
+                    }
+                });
+                savedEntities.add(entity);
+                saved += rows.size();
+            } catch (Exception e) {
+                for (Integer rowNumber : rows) {
+                    String errorMsg = String.format("处理第%d行数据失败: %s", rowNumber, e.getMessage());
+                    errorMessages.add(errorMsg);
+                    log.error(errorMsg, e);
+                }
             }
         }
+        if (!savedEntities.isEmpty()) {
+            // 逐行重试的事务均已提交，只重建成功写入的行涉及的区县
+            regionHierarchyIndex.onRowsChanged(RegionHierarchyIndex.DATA_TYPE_COMMUNITY, savedEntities);
+        }
+        return saved;
+    }
+
+    /**
+     * 一次查询本批数据中已存在记录的ID
+     *
+     * @return （行政区代码，社区名称）-> ID
+     */
+    private Map<String, Long> findExistingIds(Collection<CommunityDisasterReductionCapacity> entities) {
+        Set<String> regionCodes = new HashSet<>();
+        Set<String> communityNames = new HashSet<>();
+        for (CommunityDisasterReductionCapacity entity : entities) {
+            regionCodes.add(entity.getRegionCode());
+            communityNames.add(entity.getCommunityName());
+        }
+        QueryWrapper<CommunityDisasterReductionCapacity> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "region_code", "community_name")
+                   .in("region_code", regionCodes)
+                   .in("community_name", communityNames);
+        Map<String, Long> existingIds = new HashMap<>();
+        for (CommunityDisasterReductionCapacity existing : list(queryWrapper)) {
+            existingIds.putIfAbsent(importKey(existing.getRegionCode(), existing.getCommunityName()), existing.getId());
+        }
+        return existingIds;
+    }
 
-        return dataList;
+    private static String importKey(String regionCode, String communityName) {
+        return regionCode + "\u0000" + communityName;
+    }
+
+    /**
+     * 在独立事务中执行（未配置事务管理器时直接执行）
+     */
+    private void inTransaction(Runnable action) {
+        if (transactionTemplate == null) {
+            action.run();
+        } else {
+            transactionTemplate.executeWithoutResult(status -> action.run());
+        }
+    }
+
+    /**
+     * 读取Excel数据行，必填字段为空时记录错误并返回null
+     */
+    private Map<String, Object> readRowData(ExcelStreamReader.ExcelRow row, List<String> errorMessages) {
+        int rowIndex = row.getRowNum();
+        Map<String, Object> data = new HashMap<>();
+
+        // 根据列索引读取数据
+        data.put("regionCode", getCellStringValue(row, 0));
+        data.put("provinceName", getCellStringValue(row, 1));
+        data.put("cityName", getCellStringValue(row, 2));
+        data.put("countyName", getCellStringValue(row, 3));
+        data.put("townshipName", getCellStringValue(row, 4));
+        data.put("communityName", getCellStringValue(row, 5));
+        data.put("hasEmergencyPlan", getCellStringValue(row, 6));
+        data.put("hasVulnerableGroupsList", getCellStringValue(row, 7));
+        data.put("hasDisasterPointsList", getCellStringValue(row, 8));
+        data.put("hasDisasterMap", getCellStringValue(row, 9));
+        data.put("residentPopulation", getCellNumericValue(row, 10));
+        data.put("lastYearFundingAmount", getCellDecimalValue(row, 11));
+        data.put("materialsEquipmentValue", getCellDecimalValue(row, 12));
+        data.put("medicalServiceCount", getCellNumericValue(row, 13));
+        data.put("militiaReserveCount", getCellNumericValue(row, 14));
+        data.put("registeredVolunteerCount", getCellNumericValue(row, 15));
+        data.put("lastYearTrainingParticipants", getCellNumericValue(row, 16));
+        data.put("lastYearDrillParticipants", getCellNumericValue(row, 17));
+        data.put("emergencyShelterCapacity", getCellNumericValue(row, 18));
+
+        // 验证必填字段
+        if (data.get("regionCode") == null || data.get("regionCode").toString().trim().isEmpty()) {
+            errorMessages.add(String.format("第%d行：行政区代码不能为空", rowIndex + 1));
+            return null;
+        }
+        if (data.get("communityName") == null || data.get("communityName").toString().trim().isEmpty()) {
+            errorMessages.add(String.format("第%d行：社区（行政村）名称不能为空", rowIndex + 1));
+            return null;
+        }
+
+        return data;
     }
 
     /**
@@ -302,43 +458,37 @@ public class CommunityDisasterReductionCapacityServiceImpl
     }
 
     // 辅助方法
-    private String getCellStringValue(Cell cell) {
-        if (cell == null) return "";
-        switch (cell.getCellType()) {
-            case STRING: return cell.getStringCellValue().trim();
-            case NUMERIC: return String.valueOf((long) cell.getNumericCellValue());
-            case BOOLEAN: return cell.getBooleanCellValue() ? "是" : "否";
-            default: return "";
-        }
+    private String getCellStringValue(ExcelStreamReader.ExcelRow row, int column) {
+        Object value = row.getValue(column);
+        if (value instanceof String) return ((String) value).trim();
+        if (value instanceof Double) return String.valueOf(((Double) value).longValue());
+        if (value instanceof Boolean) return (Boolean) value ? "是" : "否";
+        return "";
     }
 
-    private Integer getCellNumericValue(Cell cell) {
-        if (cell == null) return 0;
+    private Integer getCellNumericValue(ExcelStreamReader.ExcelRow row, int column) {
+        Object value = row.getValue(column);
+        if (value == null) return 0;
+        if (value instanceof Double) return ((Double) value).intValue();
+        String text = getCellStringValue(row, column);
+        if (text.isEmpty()) return 0;
         try {
-            return (int) cell.getNumericCellValue();
-        } catch (Exception e) {
-            String value = getCellStringValue(cell);
-            if (value.isEmpty()) return 0;
-            try {
-                return Integer.parseInt(value);
-            } catch (NumberFormatException ex) {
-                return 0;
-            }
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return 0;
         }
     }
 
-    private BigDecimal getCellDecimalValue(Cell cell) {
-        if (cell == null) return BigDecimal.ZERO;
+    private BigDecimal getCellDecimalValue(ExcelStreamReader.ExcelRow row, int column) {
+        Object value = row.getValue(column);
+        if (value == null) return BigDecimal.ZERO;
+        if (value instanceof Double) return BigDecimal.valueOf((Double) value);
+        String text = getCellStringValue(row, column);
+        if (text.isEmpty()) return BigDecimal.ZERO;
         try {
-            return BigDecimal.valueOf(cell.getNumericCellValue());
-        } catch (Exception e) {
-            String value = getCellStringValue(cell);
-            if (value.isEmpty()) return BigDecimal.ZERO;
-            try {
-                return new BigDecimal(value);
-            } catch (NumberFormatException ex) {
-                return BigDecimal.ZERO;
-            }
+            return new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
         }
     }
 
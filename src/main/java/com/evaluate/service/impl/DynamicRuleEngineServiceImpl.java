@@ -1,29 +1,40 @@
 package com.evaluate.service.impl;
 
-// 暂时注释掉QLExpress相关导入，等待依赖问题解决
-// import com.alibaba.qlexpress.DefaultContext;
-// import com.alibaba.qlexpress.ExpressRunner;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.evaluate.entity.DynamicRule;
 import com.evaluate.entity.AlgorithmRuleMapping;
 import com.evaluate.mapper.DynamicRuleMapper;
 import com.evaluate.mapper.AlgorithmRuleMappingMapper;
 import com.evaluate.service.DynamicRuleEngineService;
+import com.evaluate.service.algorithm.ExpressionContextView;
+import com.evaluate.util.EventRingBuffer;
+import com.evaluate.util.LatencyHistogram;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ql.util.express.ExpressRunner;
+import com.ql.util.express.InstructionSet;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 /**
  * 动态规则引擎服务实现类
  * <p>
  * 基于QLExpress规则引擎实现动态算法执行 <mcreference link="https://github.com/alibaba/QLExpress" index="1">1</mcreference>
- * 
+ * <p>
+ * 规则表达式预编译为 InstructionSet 按规则ID缓存，缓存项记录编译时规则的表达式、输入参数和更新时间，
+ * 规则被修改后（任一项变化）下次执行时自动重新编译。执行时直接包装调用方上下文，不逐条复制变量。
+ * 按ID执行的规则缓存每隔 revalidate-ms 才查询一次 update_time 校验版本，写入规则后可调用
+ * {@link #invalidateRule(Long)} 立即失效。
+ *
  * @author System
  * @since 2024-01-01
  */
@@ -31,27 +42,79 @@ import java.util.stream.Collectors;
 @Service
 public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
 
-    // 暂时注释掉QLExpress相关字段
-    // private ExpressRunner expressRunner;
+    private ExpressRunner expressRunner;
     private ObjectMapper objectMapper;
-    
+
     @Autowired
     private DynamicRuleMapper dynamicRuleMapper;
-    
+
     @Autowired
     private AlgorithmRuleMappingMapper algorithmRuleMappingMapper;
-    
-    // 规则缓存
-    private final Map<Long, DynamicRule> ruleCache = new ConcurrentHashMap<>();
-    
-    // 编译后的表达式缓存
-    private final Map<String, Object> compiledExpressionCache = new ConcurrentHashMap<>();
-    
+
+    // 规则缓存（带最近一次版本校验时间）
+    private final Map<Long, CachedRuleEntry> ruleCache = new ConcurrentHashMap<>();
+
+    // 编译后的表达式缓存（按规则ID，带规则版本）
+    private final Map<Long, CompiledRule> compiledExpressionCache = new ConcurrentHashMap<>();
+
     // 执行统计
-    private final Map<Long, Map<String, Object>> performanceStats = new ConcurrentHashMap<>();
-    
-    // 执行日志
-    private final List<Map<String, Object>> executionLogs = new ArrayList<>();
+    private final Map<Long, LatencyHistogram> performanceStats = new ConcurrentHashMap<>();
+
+    // 执行日志（环形缓冲区）
+    private volatile EventRingBuffer<Long> executionLogs = new EventRingBuffer<>(1000, 100);
+
+    @Value("${evaluation.rule-engine.execution-log-capacity:1000}")
+    private int executionLogCapacity = 1000;
+
+    @Value("${evaluation.rule-engine.execution-log-per-rule-capacity:100}")
+    private int executionLogPerRuleCapacity = 100;
+
+    /**
+     * 缓存规则的版本校验间隔（毫秒），间隔内命中缓存不查询数据库，0 表示每次执行都校验
+     */
+    @Value("${evaluation.rule-engine.revalidate-ms:5000}")
+    private long revalidateMs = 5000;
+
+    /**
+     * 缓存的规则及最近一次校验 update_time 的时间
+     */
+    private static final class CachedRuleEntry {
+        private final DynamicRule rule;
+        private volatile long checkedAt;
+
+        private CachedRuleEntry(DynamicRule rule, long checkedAt) {
+            this.rule = rule;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    /**
+     * 编译后的规则及其版本信息
+     */
+    private static final class CompiledRule {
+        private final String expression;
+        private final String inputParams;
+        private final LocalDateTime updateTime;
+        private final InstructionSet instructionSet;
+        private final Map<String, Object> params;
+
+        private CompiledRule(DynamicRule rule, InstructionSet instructionSet, Map<String, Object> params) {
+            this.expression = rule.getRuleExpression();
+            this.inputParams = rule.getInputParams();
+            this.updateTime = rule.getUpdateTime();
+            this.instructionSet = instructionSet;
+            this.params = params;
+        }
+
+        /**
+         * 是否与规则当前版本一致
+         */
+        private boolean matches(DynamicRule rule) {
+            return expression.equals(rule.getRuleExpression())
+                    && Objects.equals(inputParams, rule.getInputParams())
+                    && Objects.equals(updateTime, rule.getUpdateTime());
+        }
+    }
 
     @Autowired
     public DynamicRuleEngineServiceImpl(ObjectMapper objectMapper) {
@@ -60,46 +123,51 @@ public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
 
     @PostConstruct
     public void init() {
-        // 暂时注释掉QLExpress相关初始化代码
-        /*
+        executionLogs = new EventRingBuffer<>(executionLogCapacity, executionLogPerRuleCapacity);
+
         // 初始化QLExpress引擎 <mcreference link="https://blog.csdn.net/wen811651208/article/details/149568736" index="2">2</mcreference>
-        expressRunner = new ExpressRunner();
-        
-        // 配置引擎参数
-        expressRunner.setTrace(false); // 关闭调试模式
-        expressRunner.setPrecise(true); // 启用精确计算
-        
+        // 配置引擎参数：不启用高精度计算，关闭调试模式
+        expressRunner = new ExpressRunner(false, false);
+
         // 注册内置函数
         registerBuiltinFunctions();
-        */
-        
-        System.out.println("动态规则引擎初始化完成（QLExpress暂时禁用）");
+
+        log.info("动态规则引擎初始化完成");
     }
 
     /**
      * 注册内置函数
      */
     private void registerBuiltinFunctions() {
-        // 暂时注释掉QLExpress相关代码
-        /*
+        // 数学函数（max/min/abs 为QLExpress自带操作符，不再重复注册）
+        addBuiltinFunction("sqrt", Math.class, "sqrt", double.class);
+        addBuiltinFunction("pow", Math.class, "pow", double.class, double.class);
+
+        // 字符串函数
+        addBuiltinFunction("length", RuleFunctions.class, "length", Object.class);
+        addBuiltinFunction("substring", RuleFunctions.class, "substring", Object.class, int.class, int.class);
+
+        // 统计函数
+        addBuiltinFunction("sum", QLExpressServiceImpl.MathFunctions.class, "SUM", Object[].class);
+        addBuiltinFunction("avg", QLExpressServiceImpl.MathFunctions.class, "AVERAGE", Object[].class);
+        addBuiltinFunction("count", RuleFunctions.class, "count", Object[].class);
+
+        log.info("内置函数注册完成");
+    }
+
+    /**
+     * 注册单个内置函数，单个函数失败不影响其余函数
+     */
+    private void addBuiltinFunction(String name, Class<?> functionClass, String methodName, Class<?>... parameterTypes) {
+        if (expressRunner.getOperatorFactory().isExistOperator(name)) {
+            log.debug("内置函数 {} 已由QLExpress提供，跳过注册", name);
+            return;
+        }
         try {
-            // 数学函数
-            expressRunner.addFunction("max", Math.class.getDeclaredMethod("max", double.class, double.class));
-            expressRunner.addFunction("min", Math.class.getDeclaredMethod("min", double.class, double.class));
-            expressRunner.addFunction("abs", Math.class.getDeclaredMethod("abs", double.class));
-            expressRunner.addFunction("sqrt", Math.class.getDeclaredMethod("sqrt", double.class));
-            expressRunner.addFunction("pow", Math.class.getDeclaredMethod("pow", double.class, double.class));
-            
-            // 字符串函数
-            expressRunner.addFunction("length", String.class.getDeclaredMethod("length"));
-            expressRunner.addFunction("substring", String.class.getDeclaredMethod("substring", int.class, int.class));
-            
-            System.out.println("内置函数注册完成");
+            expressRunner.addFunctionOfClassMethod(name, functionClass, methodName, parameterTypes, null);
         } catch (Exception e) {
-            System.out.println("注册内置函数失败" + ": " + e);
+            log.error("注册内置函数失败: {}", name, e);
         }
-        */
-        System.out.println("内置函数注册完成（QLExpress暂时禁用）");
     }
 
     @Override
@@ -108,48 +176,71 @@ public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
             throw new IllegalArgumentException("规则或规则表达式不能为空");
         }
 
-        long startTime = System.currentTimeMillis();
-        
+        long startTime = System.nanoTime();
+
         try {
-            // 暂时返回模拟结果，等待QLExpress依赖问题解决
-            System.out.println("执行规则（QLExpress暂时禁用）: " + rule.getRuleName() + ", 输入参数: " + context);
-            return "模拟执行结果";
-            
-            /*
-            // 创建执行上下文 <mcreference link="https://github.com/alibaba/QLExpress/wiki/QLExpress%E4%BD%BF%E7%94%A8%E6%8C%87%E5%8D%97" index="4">4</mcreference>
-            DefaultContext<String, Object> expressContext = new DefaultContext<>();
-            
-            // 添加上下文变量
-            if (context != null) {
-                context.forEach(expressContext::put);
-            }
-            
-            // 解析输入参数
-            if (rule.getInputParams() != null) {
-                Map<String, Object> inputParams = parseJsonToMap(rule.getInputParams());
-                inputParams.forEach(expressContext::put);
-            }
-            
-            // 执行规则表达式
-            Object result = expressRunner.execute(rule.getRuleExpression(), expressContext, null, true, false);
-            
+            Object result = execute(getCompiledRule(rule), context);
+
             // 记录执行统计
-            long executionTime = System.currentTimeMillis() - startTime;
-            recordExecutionLog(rule.getId(), context, result, executionTime, null);
-            updatePerformanceStats(rule.getId(), executionTime, true);
-            
+            recordExecution(rule.getId(), context, result, System.nanoTime() - startTime, null);
+
             return result;
-            */
         } catch (Exception e) {
-            long executionTime = System.currentTimeMillis() - startTime;
-            recordExecutionLog(rule.getId(), context, null, executionTime, e.getMessage());
-            // updatePerformanceStats(rule.getId(), executionTime, false);
-            
-            System.out.println("执行规则失败: ruleId=" + rule.getId() + ", expression=" + rule.getRuleExpression() + ", error=" + e.getMessage());
+            recordExecution(rule.getId(), context, null, System.nanoTime() - startTime, e.getMessage());
+
+            log.warn("执行规则失败: ruleId={}, expression={}, error={}", rule.getId(), rule.getRuleExpression(), e.getMessage());
             throw new RuntimeException("执行规则失败: " + e.getMessage(), e);
         }
     }
 
+    @Override
+    public Map<String, Object> executeRuleBatch(DynamicRule rule, List<Map<String, Object>> contexts) {
+        if (rule == null || rule.getRuleExpression() == null) {
+            throw new IllegalArgumentException("规则或规则表达式不能为空");
+        }
+
+        CompiledRule compiled;
+        try {
+            compiled = getCompiledRule(rule);
+        } catch (Exception e) {
+            throw new RuntimeException("规则编译失败: " + e.getMessage(), e);
+        }
+
+        int size = contexts != null ? contexts.size() : 0;
+        List<Object> results = new ArrayList<>(size);
+        Map<Integer, String> errors = new LinkedHashMap<>();
+        long batchStart = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> context = contexts.get(i);
+            long startTime = System.nanoTime();
+            try {
+                Object result = execute(compiled, context);
+                recordExecution(rule.getId(), context, result, System.nanoTime() - startTime, null);
+                results.add(result);
+            } catch (Exception e) {
+                recordExecution(rule.getId(), context, null, System.nanoTime() - startTime, e.getMessage());
+                results.add(null);
+                errors.put(i, e.getMessage());
+            }
+        }
+        double totalTime = (System.nanoTime() - batchStart) / 1e6;
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("ruleId", rule.getId());
+        response.put("ruleName", rule.getRuleName());
+        response.put("results", results);
+        response.put("successCount", size - errors.size());
+        response.put("failedCount", errors.size());
+        response.put("errors", errors);
+        response.put("totalTime", totalTime);
+        response.put("throughput", totalTime > 0 ? size * 1000.0 / totalTime : 0.0);
+        response.put("performance", getRulePerformanceStats(rule.getId()));
+        if (!errors.isEmpty()) {
+            log.warn("批量执行规则部分失败: ruleId={}, 失败 {}/{}", rule.getId(), errors.size(), size);
+        }
+        return response;
+    }
+
     @Override
     public Map<String, Object> executeRuleWithResult(Long ruleId, Map<String, Object> inputData) {
         DynamicRule rule = getRuleFromCache(ruleId);
@@ -158,13 +249,13 @@ public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
         }
 
         Object result = executeRule(rule, inputData);
-        
+
         Map<String, Object> response = new HashMap<>();
         response.put("ruleId", ruleId);
         response.put("ruleName", rule.getRuleName());
         response.put("result", result);
         response.put("timestamp", System.currentTimeMillis());
-        
+
         return response;
     }
 
@@ -173,22 +264,15 @@ public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
         if (expression == null || expression.trim().isEmpty()) {
             return false;
         }
-        
-        // 暂时返回true，等待QLExpress依赖问题解决
-        System.out.println("验证规则表达式（QLExpress暂时禁用）: " + expression);
-        return true;
-        
-        /*
+
         try {
-            // 使用空上下文验证表达式语法
-            DefaultContext<String, Object> context = new DefaultContext<>();
-            expressRunner.execute(expression, context, null, true, false);
+            // 只做语法检查，不执行表达式
+            expressRunner.parseInstructionSet(expression);
             return true;
         } catch (Exception e) {
-            System.out.println("规则表达式验证失败: " + expression + ", error=" + e.getMessage());
+            log.debug("规则表达式验证失败: {}, error={}", expression, e.getMessage());
             return false;
         }
-        */
     }
 
     @Override
@@ -198,14 +282,15 @@ public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
         stats.put("cacheSize", ruleCache.size());
         stats.put("compiledExpressionCacheSize", compiledExpressionCache.size());
         stats.put("executionLogSize", executionLogs.size());
-        
-        // 计算平均执行时间
+
+        // 计算平均执行时间（各规则平均耗时的平均值，毫秒）
         double avgExecutionTime = performanceStats.values().stream()
-                .mapToLong(stat -> (Long) stat.getOrDefault("avgExecutionTime", 0L))
+                .filter(stat -> stat.getCount() > 0)
+                .mapToDouble(LatencyHistogram::getAverageMillis)
                 .average()
                 .orElse(0.0);
         stats.put("avgExecutionTime", avgExecutionTime);
-        
+
         return stats;
     }
 
@@ -215,7 +300,7 @@ public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
         compiledExpressionCache.clear();
         executionLogs.clear();
         performanceStats.clear();
-        System.out.println("规则引擎缓存已清理");
+        log.info("规则引擎缓存已清理");
     }
 
     @Override
@@ -226,29 +311,29 @@ public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
 
         Map<String, Object> chainContext = new HashMap<>(context);
         Map<String, Object> results = new HashMap<>();
-        
+
         // 按执行顺序排序
         rules.sort(Comparator.comparing(DynamicRule::getExecutionOrder, Comparator.nullsLast(Integer::compareTo)));
-        
+
         for (DynamicRule rule : rules) {
             try {
                 Object result = executeRule(rule, chainContext);
-                
+
                 // 将结果添加到上下文中，供后续规则使用
                 String outputKey = rule.getRuleCode() + "_result";
                 chainContext.put(outputKey, result);
                 results.put(rule.getRuleCode(), result);
-                
-                System.out.println("规则链执行步骤完成: " + rule.getRuleName() + " -> " + result);
-                
+
+                log.debug("规则链执行步骤完成: {} -> {}", rule.getRuleName(), result);
+
             } catch (Exception e) {
-                System.out.println("规则链执行失败，停止在规则: " + rule.getRuleName() + ", error=" + e.getMessage());
+                log.warn("规则链执行失败，停止在规则: {}, error={}", rule.getRuleName(), e.getMessage());
                 results.put("error", "规则链执行失败: " + e.getMessage());
                 results.put("failedRule", rule.getRuleCode());
                 break;
             }
         }
-        
+
         return results;
     }
 
@@ -257,17 +342,17 @@ public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
         try {
             // 查询算法步骤对应的规则列表
             List<DynamicRule> rules = dynamicRuleMapper.selectByAlgorithmStepId(algorithmStepId);
-            
+
             if (rules.isEmpty()) {
-                System.out.println("算法步骤 " + algorithmStepId + " 没有配置动态规则");
+                log.debug("算法步骤 {} 没有配置动态规则", algorithmStepId);
                 return new HashMap<>(context);
             }
-            
+
             // 执行规则链
             return executeRuleChain(rules, context);
-            
+
         } catch (Exception e) {
-            System.out.println("根据算法步骤执行规则失败，stepId: " + algorithmStepId + ", error=" + e.getMessage());
+            log.warn("根据算法步骤执行规则失败，stepId: {}, error={}", algorithmStepId, e.getMessage());
             Map<String, Object> errorResult = new HashMap<>();
             errorResult.put("error", "规则执行失败: " + e.getMessage());
             errorResult.put("algorithmStepId", algorithmStepId);
@@ -280,42 +365,28 @@ public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
         if (rule == null || rule.getRuleExpression() == null) {
             return false;
         }
-        
-        // 暂时返回true，等待QLExpress依赖问题解决
-        // 缓存规则
-        ruleCache.put(rule.getId(), rule);
-        System.out.println("规则编译成功（QLExpress暂时禁用）: " + rule.getRuleName());
-        return true;
-        
-        /*
+
         try {
-            String cacheKey = "rule_" + rule.getId();
-            
             // 编译并缓存表达式
-            DefaultContext<String, Object> context = new DefaultContext<>();
-            Object compiled = expressRunner.execute(rule.getRuleExpression(), context, null, true, true);
-            compiledExpressionCache.put(cacheKey, compiled);
-            
+            getCompiledRule(rule);
+
             // 缓存规则
-            ruleCache.put(rule.getId(), rule);
-            
-            System.out.println("规则编译成功: " + rule.getRuleName());
+            if (rule.getId() != null) {
+                ruleCache.put(rule.getId(), new CachedRuleEntry(rule, System.currentTimeMillis()));
+            }
+
+            log.debug("规则编译成功: {}", rule.getRuleName());
             return true;
         } catch (Exception e) {
-            System.out.println("规则编译失败: " + rule.getRuleName() + ", error=" + e.getMessage());
+            log.warn("规则编译失败: {}, error={}", rule.getRuleName(), e.getMessage());
             return false;
         }
-        */
     }
 
     @Override
     public List<Map<String, Object>> getRuleExecutionLogs(Long ruleId, Integer limit) {
-        // 从执行日志中获取最近的日志记录
-        return executionLogs.stream()
-                .filter(log -> ruleId == null || ruleId.equals(log.get("ruleId")))
-                .sorted((a, b) -> ((Long)b.get("timestamp")).compareTo((Long)a.get("timestamp"))) // 按时间倒序
-                .limit(limit != null ? limit : 100) // 最多返回指定条数或100条
-                .collect(Collectors.toList());
+        // 环形缓冲区从最新记录向前读取，已按时间倒序，最多返回指定条数或100条
+        return executionLogs.recent(ruleId, limit != null ? limit : 100);
     }
 
     @Override
@@ -323,38 +394,48 @@ public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
         if (ruleId == null) {
             ruleCache.clear();
             compiledExpressionCache.clear();
-            System.out.println("清理所有规则缓存");
+            log.info("清理所有规则缓存");
         } else {
-            ruleCache.remove(ruleId);
-            compiledExpressionCache.remove("rule_" + ruleId);
-            System.out.println("清理规则缓存: " + ruleId + "");
+            invalidateRule(ruleId);
+            log.info("清理规则缓存: {}", ruleId);
         }
     }
 
+    @Override
+    public void invalidateRule(Long ruleId) {
+        if (ruleId == null) {
+            return;
+        }
+        ruleCache.remove(ruleId);
+        compiledExpressionCache.remove(ruleId);
+    }
+
     @Override
     public Map<String, Object> getRulePerformanceStats(Long ruleId) {
-        return performanceStats.getOrDefault(ruleId, new HashMap<>());
+        LatencyHistogram stats = performanceStats.get(ruleId);
+        return stats != null ? stats.snapshot() : new HashMap<>();
     }
 
     @Override
     public boolean registerCustomFunction(String functionName, Class<?> functionClass) {
-        // 暂时返回true，等待QLExpress依赖问题解决
-        System.out.println("自定义函数注册成功（QLExpress暂时禁用）: " + functionName);
-        return true;
-        
-        /*
         try {
-            // 注册自定义函数到QLExpress
-            expressRunner.addFunctionOfClassMethod(functionName, functionClass, functionName, 
-                functionClass.getDeclaredMethods()[0].getParameterTypes(), null);
-            
-            System.out.println("自定义函数注册成功: " + functionName + "");
+            // 注册自定义函数到QLExpress（使用实现类中同名的公共静态方法）
+            Method method = findStaticMethod(functionClass, functionName);
+            if (method == null) {
+                log.warn("自定义函数注册失败: {} 中没有名为 {} 的公共静态方法", functionClass.getName(), functionName);
+                return false;
+            }
+            expressRunner.addFunctionOfClassMethod(functionName, functionClass, method.getName(),
+                    method.getParameterTypes(), null);
+            // 函数在编译时绑定，已编译的规则需要重新编译
+            compiledExpressionCache.clear();
+
+            log.info("自定义函数注册成功: {}", functionName);
             return true;
         } catch (Exception e) {
-            System.out.println("自定义函数注册失败: " + functionName + ": " + e.getMessage());
+            log.warn("自定义函数注册失败: {}: {}", functionName, e.getMessage());
             return false;
         }
-        */
     }
 
     @Override
@@ -367,69 +448,90 @@ public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
     }
 
     /**
-     * 记录执行日志
+     * 获取规则的编译结果，未编译或规则已修改时重新编译
+     */
+    private CompiledRule getCompiledRule(DynamicRule rule) throws Exception {
+        CompiledRule compiled = rule.getId() != null ? compiledExpressionCache.get(rule.getId()) : null;
+        if (compiled != null && compiled.matches(rule)) {
+            return compiled;
+        }
+        InstructionSet instructionSet = expressRunner.parseInstructionSet(rule.getRuleExpression());
+        Map<String, Object> params = rule.getInputParams() != null && !rule.getInputParams().trim().isEmpty()
+                ? parseJsonToMap(rule.getInputParams()) : Collections.emptyMap();
+        compiled = new CompiledRule(rule, instructionSet, params);
+        if (rule.getId() != null) {
+            compiledExpressionCache.put(rule.getId(), compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * 执行编译后的规则，规则输入参数覆盖同名的上下文变量
      */
-    private void recordExecutionLog(Long ruleId, Map<String, Object> context, Object result, long executionTime, String error) {
+    private Object execute(CompiledRule compiled, Map<String, Object> context) throws Exception {
+        ExpressionContextView expressContext = new ExpressionContextView(context);
+        compiled.params.forEach(expressContext::put);
+        return expressRunner.execute(compiled.instructionSet, expressContext, null, false, false);
+    }
+
+    /**
+     * 记录执行日志与性能统计
+     *
+     * @param executionNanos 执行耗时（纳秒），日志中按毫秒记录
+     */
+    private void recordExecution(Long ruleId, Map<String, Object> context, Object result, long executionNanos, String error) {
         Map<String, Object> log = new HashMap<>();
         log.put("ruleId", ruleId);
         log.put("context", context);
         log.put("result", result);
-        log.put("executionTime", executionTime);
+        log.put("executionTime", executionNanos / 1_000_000L);
         log.put("error", error);
         log.put("timestamp", System.currentTimeMillis());
-        
-        executionLogs.add(log);
-        
-        // 保持日志数量在合理范围内
-        if (executionLogs.size() > 1000) {
-            executionLogs.remove(0);
+        executionLogs.append(ruleId, log);
+
+        if (ruleId != null) {
+            performanceStats.computeIfAbsent(ruleId, id -> new LatencyHistogram()).record(executionNanos, error == null);
         }
     }
 
     /**
-     * 从缓存获取规则
+     * 从缓存获取规则：命中且距上次校验不足 revalidate-ms 时直接返回；
+     * 否则只查询 update_time 校验缓存的规则是否仍为最新版本，规则已修改时重新加载，已删除时移出缓存
      */
     private DynamicRule getRuleFromCache(Long ruleId) {
-        DynamicRule rule = ruleCache.get(ruleId);
-        if (rule == null) {
-            // 从数据库加载规则
-            rule = dynamicRuleMapper.selectById(ruleId);
-            if (rule != null) {
-                ruleCache.put(ruleId, rule);
+        CachedRuleEntry cached = ruleCache.get(ruleId);
+        long now = System.currentTimeMillis();
+        if (cached != null) {
+            if (now - cached.checkedAt < revalidateMs) {
+                return cached.rule;
+            }
+            DynamicRule current = dynamicRuleMapper.selectOne(new QueryWrapper<DynamicRule>()
+                    .select("id", "update_time").eq("id", ruleId));
+            if (current != null && Objects.equals(current.getUpdateTime(), cached.rule.getUpdateTime())) {
+                cached.checkedAt = now;
+                return cached.rule;
+            }
+            ruleCache.remove(ruleId, cached);
+            if (current == null) {
+                return null;
             }
+            log.debug("规则已修改, 重新加载: ruleId={}", ruleId);
+        }
+        // 从数据库加载规则
+        DynamicRule rule = dynamicRuleMapper.selectById(ruleId);
+        if (rule != null) {
+            ruleCache.put(ruleId, new CachedRuleEntry(rule, now));
         }
         return rule;
     }
 
-    /**
-     * 记录性能统计
-     */
-    private void recordPerformanceStats(Long ruleId, long executionTime, boolean success) {
-        performanceStats.compute(ruleId, (id, stats) -> {
-            if (stats == null) {
-                stats = new HashMap<>();
-                stats.put("totalExecutions", 0L);
-                stats.put("successExecutions", 0L);
-                stats.put("failedExecutions", 0L);
-                stats.put("totalExecutionTime", 0L);
-                stats.put("avgExecutionTime", 0.0);
+    private static Method findStaticMethod(Class<?> functionClass, String name) {
+        for (Method method : functionClass.getMethods()) {
+            if (method.getName().equals(name) && Modifier.isStatic(method.getModifiers())) {
+                return method;
             }
-            
-            long totalExecutions = (Long) stats.get("totalExecutions") + 1;
-            long successExecutions = (Long) stats.get("successExecutions") + (success ? 1 : 0);
-            long failedExecutions = (Long) stats.get("failedExecutions") + (success ? 0 : 1);
-            long totalExecutionTime = (Long) stats.get("totalExecutionTime") + executionTime;
-            double avgExecutionTime = (double) totalExecutionTime / totalExecutions;
-            
-            stats.put("totalExecutions", totalExecutions);
-            stats.put("successExecutions", successExecutions);
-            stats.put("failedExecutions", failedExecutions);
-            stats.put("totalExecutionTime", totalExecutionTime);
-            stats.put("avgExecutionTime", avgExecutionTime);
-            stats.put("lastExecutionTime", System.currentTimeMillis());
-            
-            return stats;
-        });
+        }
+        return null;
     }
 
     /**
@@ -439,8 +541,26 @@ public class DynamicRuleEngineServiceImpl implements DynamicRuleEngineService {
         try {
             return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
         } catch (Exception e) {
-            System.out.println("JSON解析失败: " + json + ": " + e.getMessage());
+            log.warn("JSON解析失败: {}: {}", json, e.getMessage());
             return new HashMap<>();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 规则内置的字符串与计数函数
+     */
+    public static class RuleFunctions {
+
+        public static int length(Object value) {
+            return value != null ? value.toString().length() : 0;
+        }
+
+        public static String substring(Object value, int beginIndex, int endIndex) {
+            return value != null ? value.toString().substring(beginIndex, endIndex) : null;
+        }
+
+        public static int count(Object... values) {
+            return values != null ? values.length : 0;
+        }
+    }
+}
@@ -14,13 +14,20 @@ import javax.annotation.Resource;
 import com.evaluate.service.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
 /**
@@ -65,6 +72,59 @@ public class EvaluationServiceImpl implements IEvaluationService {
     @Autowired
     private AlgorithmExecutionService algorithmExecutionService;
 
+    /**
+     * 批量评估并行执行线程池（独立的有界线程池，见 ExecutionPoolConfig），未配置时顺序执行
+     */
+    @Autowired(required = false)
+    @Qualifier("batchEvaluationExecutor")
+    private ThreadPoolExecutor batchEvaluationExecutor;
+
+    /**
+     * 批量评估结果写入事务，未配置事务管理器时直接执行
+     */
+    @Autowired(required = false)
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 批量评估结果每批写入数据库的行数
+     */
+    @Value("${evaluation.batch-evaluation.batch-size:500}")
+    private int saveBatchSize = 500;
+
+    /**
+     * 批量评估共享的参考数据：算法配置与权重配置只加载一次
+     */
+    private static final class EvaluationReference {
+        private final AlgorithmConfig algorithmConfig;
+        private final Map<String, Double> weightConfig;
+        private final List<IndicatorWeight> primaryWeights;
+        private final Map<Long, List<IndicatorWeight>> childWeights;
+
+        private EvaluationReference(AlgorithmConfig algorithmConfig, Map<String, Double> weightConfig,
+                                    List<IndicatorWeight> primaryWeights, Map<Long, List<IndicatorWeight>> childWeights) {
+            this.algorithmConfig = algorithmConfig;
+            this.weightConfig = weightConfig;
+            this.primaryWeights = primaryWeights;
+            this.childWeights = childWeights;
+        }
+    }
+
+    /**
+     * 批量评估中单个调查数据的计算结果（保存前）
+     */
+    private static final class BatchItem {
+        private final Long surveyId;
+        private Map<String, Object> algorithmResult;
+        private SecondaryIndicatorResult secondaryResult;
+        private PrimaryIndicatorResult primaryResult;
+        private Report report;
+        private String error;
+
+        private BatchItem(Long surveyId) {
+            this.surveyId = surveyId;
+        }
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Map<String, Object> performEvaluation(Long surveyId, Long algorithmId, Long weightConfigId) {
@@ -130,6 +190,19 @@ public class EvaluationServiceImpl implements IEvaluationService {
     public List<SecondaryIndicatorResult> calculateSecondaryIndicators(Long surveyId, Long algorithmId, Long weightConfigId, Map<String, Object> algorithmResult) {
         log.info("开始计算二级指标，调查ID: {}, 算法ID: {}, 权重配置ID: {}", surveyId, algorithmId, weightConfigId);
         
+        // 保存结果
+        List<SecondaryIndicatorResult> results = new ArrayList<>();
+        results.add(buildSecondaryIndicatorResult(surveyId, weightConfigId, algorithmResult));
+        secondaryIndicatorResultService.saveBatch(results);
+        
+        log.info("二级指标计算完成，保存了1条记录");
+        return results;
+    }
+
+    /**
+     * 从算法结果中提取二级指标结果（不保存）
+     */
+    private SecondaryIndicatorResult buildSecondaryIndicatorResult(Long surveyId, Long weightConfigId, Map<String, Object> algorithmResult) {
         // 创建二级指标结果对象
         SecondaryIndicatorResult result = new SecondaryIndicatorResult();
         result.setSurveyDataId(surveyId);
@@ -176,14 +249,7 @@ public class EvaluationServiceImpl implements IEvaluationService {
         }
         
         result.setCalculateTime(LocalDateTime.now());
-        
-        // 保存结果
-        List<SecondaryIndicatorResult> results = new ArrayList<>();
-        results.add(result);
-        secondaryIndicatorResultService.saveBatch(results);
-        
-        log.info("二级指标计算完成，保存了1条记录");
-        return results;
+        return result;
     }
     
     /**
@@ -224,7 +290,27 @@ public class EvaluationServiceImpl implements IEvaluationService {
         
         // 获取权重配置
         List<IndicatorWeight> primaryWeights = indicatorWeightService.getPrimaryWeights(weightConfigId);
+        Map<Long, List<IndicatorWeight>> childWeights = new HashMap<>();
+        for (IndicatorWeight primaryWeight : primaryWeights) {
+            childWeights.put(primaryWeight.getId(), indicatorWeightService.getChildWeights(weightConfigId, primaryWeight.getId()));
+        }
+        
+        results.add(buildPrimaryIndicatorResult(surveyId, algorithmId, weightConfigId, secondaryResult, primaryWeights, childWeights));
         
+        // 保存一级指标结果
+        primaryIndicatorResultService.saveBatch(results);
+        
+        log.info("一级指标计算完成");
+        return results;
+    }
+
+    /**
+     * 按一级指标及其下属二级指标的权重计算一级指标结果（不保存）
+     */
+    private PrimaryIndicatorResult buildPrimaryIndicatorResult(Long surveyId, Long algorithmId, Long weightConfigId,
+                                                               SecondaryIndicatorResult secondaryResult,
+                                                               List<IndicatorWeight> primaryWeights,
+                                                               Map<Long, List<IndicatorWeight>> childWeightsByParent) {
         // 计算三个一级指标的能力值
         double managementCapability = 0.0;
         double preparationCapability = 0.0;
@@ -233,7 +319,7 @@ public class EvaluationServiceImpl implements IEvaluationService {
         // 根据权重配置计算各一级指标
         for (IndicatorWeight primaryWeight : primaryWeights) {
             String indicatorCode = primaryWeight.getIndicatorCode();
-            List<IndicatorWeight> childWeights = indicatorWeightService.getChildWeights(weightConfigId, primaryWeight.getId());
+            List<IndicatorWeight> childWeights = childWeightsByParent.getOrDefault(primaryWeight.getId(), Collections.emptyList());
             
             double totalWeightedValue = 0.0;
             double totalWeight = 0.0;
@@ -289,14 +375,7 @@ public class EvaluationServiceImpl implements IEvaluationService {
         
         result.setCreateTime(LocalDateTime.now());
         result.setUpdateTime(LocalDateTime.now());
-        
-        results.add(result);
-        
-        // 保存一级指标结果
-        primaryIndicatorResultService.saveBatch(results);
-        
-        log.info("一级指标计算完成");
-        return results;
+        return result;
     }
     
     /**
@@ -511,24 +590,206 @@ public class EvaluationServiceImpl implements IEvaluationService {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public List<Map<String, Object>> batchEvaluation(List<Long> surveyIds, Long algorithmId, Long weightConfigId) {
-        List<Map<String, Object>> results = new ArrayList<>();
-        
-        for (Long surveyId : surveyIds) {
+        return (List<Map<String, Object>>) batchEvaluationWithSummary(surveyIds, algorithmId, weightConfigId).get("results");
+    }
+
+    @Override
+    public Map<String, Object> batchEvaluationWithSummary(List<Long> surveyIds, Long algorithmId, Long weightConfigId) {
+        long startTime = System.currentTimeMillis();
+        List<BatchItem> items = new ArrayList<>();
+        if (surveyIds != null) {
+            surveyIds.forEach(surveyId -> items.add(new BatchItem(surveyId)));
+        }
+        log.info("开始批量评估: 调查数据 {} 条, algorithmId={}, weightConfigId={}", items.size(), algorithmId, weightConfigId);
+
+        if (!items.isEmpty()) {
+            EvaluationReference reference = null;
             try {
-                Map<String, Object> result = performEvaluation(surveyId, algorithmId, weightConfigId);
-                results.add(result);
+                reference = loadEvaluationReference(algorithmId, weightConfigId);
             } catch (Exception e) {
-                log.error("批量评估失败: surveyId={}", surveyId, e);
-                Map<String, Object> errorResult = new HashMap<>();
-                errorResult.put("surveyId", surveyId);
-                errorResult.put("success", false);
-                errorResult.put("message", e.getMessage());
-                results.add(errorResult);
+                log.error("批量评估加载算法或权重配置失败", e);
+                for (BatchItem item : items) {
+                    item.error = e.getMessage();
+                }
+            }
+            if (reference != null) {
+                Map<Long, SurveyData> surveys = new HashMap<>();
+                for (SurveyData surveyData : surveyDataService.listByIds(new LinkedHashSet<>(surveyIds))) {
+                    surveys.put(surveyData.getId(), surveyData);
+                }
+                evaluateBatchItems(items, reference, surveys, algorithmId, weightConfigId);
+                saveBatchItems(items);
             }
         }
-        
-        return results;
+
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
+        int successCount = 0;
+        for (BatchItem item : items) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("surveyId", item.surveyId);
+            if (item.error == null) {
+                result.put("success", true);
+                result.put("message", "评估计算完成");
+                result.put("algorithmResult", item.algorithmResult);
+                result.put("executionId", item.algorithmResult.get("executionId"));
+                successCount++;
+            } else {
+                result.put("success", false);
+                result.put("message", item.error);
+            }
+            results.add(result);
+        }
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", items.size());
+        summary.put("successCount", successCount);
+        summary.put("failedCount", items.size() - successCount);
+        summary.put("elapsedMs", elapsed);
+        summary.put("throughput", elapsed > 0 ? items.size() * 1000.0 / elapsed : 0.0);
+        summary.put("parallelism", batchEvaluationExecutor != null && items.size() > 1
+                ? batchEvaluationExecutor.getMaximumPoolSize() : 1);
+        log.info("批量评估完成: {}", summary);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("results", results);
+        response.put("summary", summary);
+        return response;
+    }
+
+    /**
+     * 加载批量评估共享的算法配置与权重配置（一次查询全部权重，按父指标分组）
+     */
+    private EvaluationReference loadEvaluationReference(Long algorithmId, Long weightConfigId) {
+        AlgorithmConfig algorithmConfig = algorithmConfigService.getById(algorithmId);
+        if (algorithmConfig == null) {
+            throw new RuntimeException("算法配置不存在: " + algorithmId);
+        }
+
+        List<IndicatorWeight> weights = indicatorWeightService.getByConfigId(weightConfigId);
+        Map<String, Double> weightConfig = new HashMap<>();
+        List<IndicatorWeight> primaryWeights = new ArrayList<>();
+        Map<Long, List<IndicatorWeight>> childWeights = new HashMap<>();
+        for (IndicatorWeight weight : weights) {
+            weightConfig.put(weight.getIndicatorCode(), weight.getWeight());
+            if (Integer.valueOf(1).equals(weight.getIndicatorLevel())) {
+                primaryWeights.add(weight);
+            }
+            if (weight.getParentId() != null) {
+                childWeights.computeIfAbsent(weight.getParentId(), id -> new ArrayList<>()).add(weight);
+            }
+        }
+        // 与逐条查询时的排序一致（按 sort_order）
+        Comparator<IndicatorWeight> bySortOrder = Comparator.comparing(IndicatorWeight::getSortOrder,
+                Comparator.nullsLast(Integer::compareTo));
+        primaryWeights.sort(bySortOrder);
+        childWeights.values().forEach(children -> children.sort(bySortOrder));
+        return new EvaluationReference(algorithmConfig, weightConfig, primaryWeights, childWeights);
+    }
+
+    /**
+     * 在批量评估线程池中并行计算各调查数据，单个调查数据失败只记录在该项上
+     */
+    private void evaluateBatchItems(List<BatchItem> items, EvaluationReference reference, Map<Long, SurveyData> surveys,
+                                    Long algorithmId, Long weightConfigId) {
+        if (batchEvaluationExecutor == null || items.size() < 2) {
+            for (BatchItem item : items) {
+                evaluateBatchItem(item, reference, surveys.get(item.surveyId), algorithmId, weightConfigId);
+            }
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(items.size());
+        for (BatchItem item : items) {
+            tasks.add(() -> {
+                evaluateBatchItem(item, reference, surveys.get(item.surveyId), algorithmId, weightConfigId);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : batchEvaluationExecutor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("批量评估被中断", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("批量评估失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void evaluateBatchItem(BatchItem item, EvaluationReference reference, SurveyData surveyData,
+                                   Long algorithmId, Long weightConfigId) {
+        try {
+            if (surveyData == null) {
+                throw new RuntimeException("调查数据不存在: " + item.surveyId);
+            }
+            Map<String, Object> algorithmResult = algorithmExecutionService.executeAlgorithm(
+                    reference.algorithmConfig, Collections.singletonList(surveyData), reference.weightConfig,
+                    Collections.singletonList(item.surveyId));
+
+            SecondaryIndicatorResult secondaryResult = buildSecondaryIndicatorResult(item.surveyId, weightConfigId, algorithmResult);
+            PrimaryIndicatorResult primaryResult = buildPrimaryIndicatorResult(item.surveyId, algorithmId, weightConfigId,
+                    secondaryResult, reference.primaryWeights, reference.childWeights);
+            generateThematicMap(item.surveyId, Collections.singletonList(secondaryResult), Collections.singletonList(primaryResult));
+
+            item.algorithmResult = algorithmResult;
+            item.secondaryResult = secondaryResult;
+            item.primaryResult = primaryResult;
+            item.report = buildEvaluationHistoryReport(item.surveyId);
+        } catch (Exception e) {
+            log.error("批量评估失败: surveyId={}", item.surveyId, e);
+            item.error = e.getMessage();
+        }
+    }
+
+    /**
+     * 将计算成功的结果合并为少量批量写入；整批失败时按调查数据逐个重试，失败的调查数据标记为失败
+     */
+    private void saveBatchItems(List<BatchItem> items) {
+        List<BatchItem> evaluated = items.stream().filter(item -> item.error == null).collect(Collectors.toList());
+        if (evaluated.isEmpty()) {
+            return;
+        }
+        try {
+            inTransaction(() -> saveBatchResults(evaluated));
+            return;
+        } catch (Exception e) {
+            log.warn("批量保存评估结果失败，逐个调查数据重试: {}", e.getMessage());
+        }
+        for (BatchItem item : evaluated) {
+            try {
+                // 回滚后清除批量写入时回填的主键
+                item.secondaryResult.setId(null);
+                item.primaryResult.setId(null);
+                item.report.setId(null);
+                inTransaction(() -> saveBatchResults(Collections.singletonList(item)));
+            } catch (Exception e) {
+                log.error("保存评估结果失败: surveyId={}", item.surveyId, e);
+                item.error = "保存评估结果失败: " + e.getMessage();
+            }
+        }
+    }
+
+    private void saveBatchResults(List<BatchItem> items) {
+        secondaryIndicatorResultService.saveBatch(
+                items.stream().map(item -> item.secondaryResult).collect(Collectors.toList()), saveBatchSize);
+        primaryIndicatorResultService.saveBatch(
+                items.stream().map(item -> item.primaryResult).collect(Collectors.toList()), saveBatchSize);
+        reportService.saveBatch(
+                items.stream().map(item -> item.report).collect(Collectors.toList()), saveBatchSize);
+    }
+
+    /**
+     * 在独立事务中执行（未配置事务管理器时直接执行）
+     */
+    private void inTransaction(Runnable action) {
+        if (transactionTemplate == null) {
+            action.run();
+        } else {
+            transactionTemplate.executeWithoutResult(status -> action.run());
+        }
     }
 
     @Override
@@ -750,21 +1011,10 @@ public class EvaluationServiceImpl implements IEvaluationService {
             // 2. 计算一级指标结果
             List<PrimaryIndicatorResult> primaryResults = calculatePrimaryIndicators(surveyId, algorithmId, weightConfigId, secondaryResults);
             
-            // 3. 计算一级指标能力值和分级
-            Map<String, Double> level1Capabilities = calculateLevel1Capabilities(secondaryResults);
-            Map<String, String> grades = calculateGrades(level1Capabilities);
-            
-            // 4. 计算综合减灾能力
-            double overallCapability = calculateOverallCapability(level1Capabilities);
-            String overallGrade = calculateOverallGrade(overallCapability);
-            
-            // 5. 更新一级指标结果中的能力值和分级信息
-            // 由于PrimaryIndicatorResult结构已更改，这部分代码不再需要
+            // 3. 计算一级指标能力值、分级和综合减灾能力，传递给专题图生成
+            generateThematicMap(surveyId, secondaryResults, primaryResults);
             
-            // 6. 传递给专题图生成
-            generateThematicMap(surveyId, primaryResults, overallCapability, overallGrade);
-            
-            log.info("评估结果保存完成，综合能力: {}, 综合分级: {}", overallCapability, overallGrade);
+            log.info("评估结果保存完成");
             
         } catch (Exception e) {
             log.error("保存评估结果失败", e);
@@ -905,6 +1155,26 @@ public class EvaluationServiceImpl implements IEvaluationService {
         }
     }
 
+    /**
+     * 计算一级指标能力值、分级和综合减灾能力并生成专题图
+     */
+    private void generateThematicMap(Long surveyId, List<SecondaryIndicatorResult> secondaryResults,
+                                     List<PrimaryIndicatorResult> primaryResults) {
+        // 1. 计算一级指标能力值和分级
+        Map<String, Double> level1Capabilities = calculateLevel1Capabilities(secondaryResults);
+        Map<String, String> grades = calculateGrades(level1Capabilities);
+        
+        // 2. 计算综合减灾能力
+        double overallCapability = calculateOverallCapability(level1Capabilities);
+        String overallGrade = calculateOverallGrade(overallCapability);
+        
+        // 3. 更新一级指标结果中的能力值和分级信息
+        // 由于PrimaryIndicatorResult结构已更改，这部分代码不再需要
+        
+        // 4. 传递给专题图生成
+        generateThematicMap(surveyId, primaryResults, overallCapability, overallGrade);
+    }
+
     /**
      * 生成专题图和报告
      */
@@ -1122,10 +1392,7 @@ public class EvaluationServiceImpl implements IEvaluationService {
         
         try {
             // 创建评估报告记录
-            Report report = new Report();
-            report.setReportName("减灾能力评估报告_" + surveyId + "_" + System.currentTimeMillis());
-            report.setReportType("EVALUATION");
-            report.setGenerateTime(LocalDateTime.now());
+            Report report = buildEvaluationHistoryReport(surveyId);
             
             // 保存报告到数据库
             reportService.save(report);
@@ -1138,4 +1405,15 @@ public class EvaluationServiceImpl implements IEvaluationService {
             throw new RuntimeException("记录评估历史失败: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 创建评估历史报告记录（不保存）
+     */
+    private Report buildEvaluationHistoryReport(Long surveyId) {
+        Report report = new Report();
+        report.setReportName("减灾能力评估报告_" + surveyId + "_" + System.currentTimeMillis());
+        report.setReportType("EVALUATION");
+        report.setGenerateTime(LocalDateTime.now());
+        return report;
+    }
+}
@@ -0,0 +1,157 @@
+package com.evaluate.service.impl;
+
+import com.evaluate.service.ExecutionMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模型执行指标实现类（Micrometer）
+ *
+ * 导出的指标：
+ * evaluation.model.step（步骤耗时，标签 model/step）、
+ * evaluation.model.algorithm（单个地区上的算法耗时，标签 model/step/algorithm/type/outcome）、
+ * evaluation.model.load 与 evaluation.model.load.rows（数据库加载耗时与行数，标签 source）、
+ * evaluation.model.phase（执行阶段耗时，标签 model/phase）、
+ * evaluation.model.step.regions 与 evaluation.model.step.context.size（最近一次执行的地区数和上下文变量数）。
+ * 分位数由 management.metrics.distribution 配置。每个标签最多保留 max-tag-values 个取值，
+ * 之后出现的新取值统一记为 OTHER，避免按用户配置的步骤、算法无限增长时间序列。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Slf4j
+@Service
+public class ExecutionMetricsImpl implements ExecutionMetrics {
+
+    static final String OVERFLOW_TAG_VALUE = "OTHER";
+
+    private static final String UNKNOWN_TAG_VALUE = "unknown";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${evaluation.metrics.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 每个标签允许的取值数量上限
+     */
+    @Value("${evaluation.metrics.max-tag-values:200}")
+    private int maxTagValues = 200;
+
+    private final Map<String, Set<String>> tagValues = new ConcurrentHashMap<>();
+    private final Map<Tags, AtomicLong> regionGauges = new ConcurrentHashMap<>();
+    private final Map<Tags, AtomicLong> contextGauges = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ExecutionMetricsImpl(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public AlgorithmTimer algorithmTimer(Long modelId, String stepCode, String algorithmName, boolean marker) {
+        if (!enabled) {
+            return AlgorithmTimer.NONE;
+        }
+        Tags tags = stepTags(modelId, stepCode)
+                .and("algorithm", bounded("algorithm", algorithmName))
+                .and("type", marker ? "marker" : "qlexpress");
+        Timer success = Timer.builder("evaluation.model.algorithm")
+                .description("单个地区上的算法执行耗时")
+                .tags(tags.and("outcome", "success"))
+                .register(meterRegistry);
+        Timer error = Timer.builder("evaluation.model.algorithm")
+                .description("单个地区上的算法执行耗时")
+                .tags(tags.and("outcome", "error"))
+                .register(meterRegistry);
+        return (nanos, ok) -> (ok ? success : error).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordStep(Long modelId, String stepCode, long nanos, int regionCount, int contextSize) {
+        if (!enabled) {
+            return;
+        }
+        Tags tags = stepTags(modelId, stepCode);
+        Timer.builder("evaluation.model.step")
+                .description("模型步骤执行耗时")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        gauge(regionGauges, "evaluation.model.step.regions", tags).set(regionCount);
+        gauge(contextGauges, "evaluation.model.step.context.size", tags).set(contextSize);
+    }
+
+    @Override
+    public void recordLoad(String source, long nanos, int rows) {
+        if (!enabled) {
+            return;
+        }
+        Tags tags = Tags.of("source", bounded("source", source));
+        Timer.builder("evaluation.model.load")
+                .description("执行期数据库加载耗时")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("evaluation.model.load.rows")
+                .description("执行期数据库加载行数")
+                .tags(tags)
+                .register(meterRegistry)
+                .increment(rows);
+    }
+
+    @Override
+    public void recordPhase(Long modelId, String phase, long nanos) {
+        if (!enabled) {
+            return;
+        }
+        Timer.builder("evaluation.model.phase")
+                .description("模型执行阶段耗时")
+                .tags(Tags.of("model", modelTag(modelId), "phase", bounded("phase", phase)))
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Tags stepTags(Long modelId, String stepCode) {
+        return Tags.of("model", modelTag(modelId), "step", bounded("step", stepCode));
+    }
+
+    private String modelTag(Long modelId) {
+        return bounded("model", modelId != null ? modelId.toString() : null);
+    }
+
+    private AtomicLong gauge(Map<Tags, AtomicLong> gauges, String name, Tags tags) {
+        // 仪表只弱引用取值对象，由映射表持有
+        return gauges.computeIfAbsent(tags, key -> meterRegistry.gauge(name, key, new AtomicLong()));
+    }
+
+    /**
+     * 限制标签取值数量：已出现过的取值原样返回，达到上限后新取值记为 OTHER
+     */
+    String bounded(String tagKey, String value) {
+        String tagValue = value == null || value.isEmpty() ? UNKNOWN_TAG_VALUE : value;
+        Set<String> seen = tagValues.computeIfAbsent(tagKey, key -> ConcurrentHashMap.newKeySet());
+        if (seen.contains(tagValue)) {
+            return tagValue;
+        }
+        synchronized (seen) {
+            if (seen.size() < maxTagValues) {
+                seen.add(tagValue);
+                return tagValue;
+            }
+        }
+        log.debug("指标标签 {} 的取值数量已达上限 {}, {} 记为 {}", tagKey, maxTagValues, tagValue, OVERFLOW_TAG_VALUE);
+        return OVERFLOW_TAG_VALUE;
+    }
+}
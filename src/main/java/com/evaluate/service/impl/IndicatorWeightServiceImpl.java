@@ -1,5 +1,6 @@
 package com.evaluate.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.evaluate.entity.IndicatorWeight;
@@ -8,10 +9,14 @@ import com.evaluate.service.IIndicatorWeightService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -24,6 +29,11 @@ import java.util.stream.Collectors;
 @Service
 public class IndicatorWeightServiceImpl extends ServiceImpl<IndicatorWeightMapper, IndicatorWeight> implements IIndicatorWeightService {
 
+    /**
+     * 权重数据版本，写入后递增
+     */
+    private final AtomicLong weightVersion = new AtomicLong();
+
     @Override
     public List<IndicatorWeight> getByConfigId(Long configId) {
         QueryWrapper<IndicatorWeight> wrapper = new QueryWrapper<>();
@@ -32,6 +42,53 @@ public class IndicatorWeightServiceImpl extends ServiceImpl<IndicatorWeightMappe
         return list(wrapper);
     }
 
+    @Override
+    public long getWeightVersion() {
+        return weightVersion.get();
+    }
+
+    @Override
+    public boolean save(IndicatorWeight entity) {
+        boolean saved = super.save(entity);
+        refreshWeightVersion();
+        return saved;
+    }
+
+    @Override
+    public boolean saveBatch(Collection<IndicatorWeight> entityList, int batchSize) {
+        boolean saved = super.saveBatch(entityList, batchSize);
+        refreshWeightVersion();
+        return saved;
+    }
+
+    @Override
+    public boolean updateById(IndicatorWeight entity) {
+        boolean updated = super.updateById(entity);
+        refreshWeightVersion();
+        return updated;
+    }
+
+    @Override
+    public boolean updateBatchById(Collection<IndicatorWeight> entityList, int batchSize) {
+        boolean updated = super.updateBatchById(entityList, batchSize);
+        refreshWeightVersion();
+        return updated;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        refreshWeightVersion();
+        return removed;
+    }
+
+    @Override
+    public boolean remove(Wrapper<IndicatorWeight> queryWrapper) {
+        boolean removed = super.remove(queryWrapper);
+        refreshWeightVersion();
+        return removed;
+    }
+
     @Override
     public List<IndicatorWeight> getByConfigIdAndLevel(Long configId, Integer indicatorLevel) {
         QueryWrapper<IndicatorWeight> wrapper = new QueryWrapper<>();
@@ -278,6 +335,21 @@ public class IndicatorWeightServiceImpl extends ServiceImpl<IndicatorWeightMappe
         return list(wrapper);
     }
 
+    /**
+     * 权重写入后递增数据版本；在事务中时于提交后再递增一次，避免并发计算按未提交前的权重缓存到新版本下
+     */
+    private void refreshWeightVersion() {
+        weightVersion.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    weightVersion.incrementAndGet();
+                }
+            });
+        }
+    }
+
     /**
      * 创建默认权重配置
      */
@@ -0,0 +1,422 @@
+package com.evaluate.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.evaluate.entity.ModelExecutionRecord;
+import com.evaluate.service.EvaluationResultService;
+import com.evaluate.service.ExecutionProgressListener;
+import com.evaluate.service.ModelExecutionJobService;
+import com.evaluate.service.ModelExecutionService;
+import com.evaluate.service.UnifiedEvaluationEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 异步模型执行任务服务实现类
+ *
+ * 任务状态保存在内存中，结束超过保留时间（evaluation.job.ttl-minutes）后由定时任务清理；
+ * 评估模型任务同时写入 model_execution_record（状态、开始/结束时间、错误信息与结果摘要）。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Slf4j
+@Service
+public class ModelExecutionJobServiceImpl implements ModelExecutionJobService {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    @Autowired
+    private ModelExecutionService modelExecutionService;
+
+    @Autowired
+    private UnifiedEvaluationEngine unifiedEvaluationEngine;
+
+    @Autowired
+    private EvaluationResultService evaluationResultService;
+
+    @Autowired
+    @Qualifier("modelJobExecutor")
+    private ThreadPoolExecutor jobExecutor;
+
+    /**
+     * 已结束任务的保留时间（分钟）
+     */
+    @Value("${evaluation.job.ttl-minutes:30}")
+    private long ttlMinutes = 30;
+
+    /**
+     * SSE 连接超时时间（毫秒）
+     */
+    @Value("${evaluation.job.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs = 1800000L;
+
+    private final Map<String, ExecutionJob> jobs = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<String, Object> submitModelExecution(Long modelId, List<String> regionCodes, Long weightConfigId,
+                                                    Boolean parallel, String createBy) {
+        ExecutionJob job = new ExecutionJob("MODEL", modelId, regionCodes, weightConfigId, createBy);
+        return submit(job, listener -> modelExecutionService.executeModel(
+                modelId, regionCodes, weightConfigId, parallel, listener));
+    }
+
+    @Override
+    public Map<String, Object> submitAlgorithmExecution(Long algorithmId, Integer upToStepOrder, List<String> regionCodes,
+                                                        Long weightConfigId) {
+        ExecutionJob job = new ExecutionJob("ALGORITHM", null, regionCodes, weightConfigId, null);
+        return submit(job, listener -> modelExecutionService.executeAlgorithmStepsUpTo(
+                algorithmId, upToStepOrder, regionCodes, weightConfigId, listener));
+    }
+
+    @Override
+    public Map<String, Object> submitUnifiedEvaluation(UnifiedEvaluationEngine.EvaluationRequest request) {
+        ExecutionJob job = new ExecutionJob("UNIFIED", null, request.getRegionCodes(), request.getWeightConfigId(), null);
+        return submit(job, listener -> unifiedEvaluationEngine.executeEvaluation(request, listener));
+    }
+
+    @Override
+    public Map<String, Object> getJobStatus(String jobId) {
+        ExecutionJob job = jobs.get(jobId);
+        return job != null ? job.toStatus() : null;
+    }
+
+    @Override
+    public Map<String, Object> getJobResult(String jobId) {
+        ExecutionJob job = jobs.get(jobId);
+        return job != null ? job.result : null;
+    }
+
+    @Override
+    public SseEmitter subscribe(String jobId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        ExecutionJob job = jobs.get(jobId);
+        if (job == null) {
+            try {
+                emitter.send(SseEmitter.event().name("error").data("任务不存在或已清理: " + jobId));
+            } catch (IOException e) {
+                log.debug("SSE 推送失败: {}", e.getMessage());
+            }
+            emitter.complete();
+            return emitter;
+        }
+
+        job.emitters.add(emitter);
+        emitter.onCompletion(() -> job.emitters.remove(emitter));
+        emitter.onTimeout(() -> job.emitters.remove(emitter));
+        emitter.onError(e -> job.emitters.remove(emitter));
+
+        job.send(emitter, "status", job.toStatus());
+        if (job.isFinished()) {
+            job.emitters.remove(emitter);
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    @Override
+    public boolean cancelJob(String jobId) {
+        ExecutionJob job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        boolean pending;
+        synchronized (job) {
+            if (job.finishing) {
+                return false;
+            }
+            job.cancelled = true;
+            pending = STATUS_PENDING.equals(job.status);
+        }
+        log.info("取消执行任务: jobId={}, pending={}", jobId, pending);
+        if (pending) {
+            // 排队中的任务直接从队列移除；执行中的任务在下一个步骤或地区边界检查取消标记后终止
+            if (job.future != null) {
+                job.future.cancel(false);
+                jobExecutor.purge();
+            }
+            finish(job, STATUS_CANCELLED, null, "任务已取消");
+        }
+        return true;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${evaluation.job.cleanup-interval-ms:60000}")
+    public int cleanupFinishedJobs() {
+        long expireBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(ttlMinutes);
+        int removed = 0;
+        Iterator<ExecutionJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            ExecutionJob job = iterator.next();
+            if (job.isFinished() && job.endTime < expireBefore) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.info("清理已结束的执行任务 {} 个, 剩余 {} 个", removed, jobs.size());
+        }
+        return removed;
+    }
+
+    /**
+     * 提交任务到执行线程池，队列已满时拒绝
+     */
+    private Map<String, Object> submit(ExecutionJob job, Function<ExecutionProgressListener, Map<String, Object>> task) {
+        jobs.put(job.jobId, job);
+        try {
+            job.future = jobExecutor.submit(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.jobId);
+            log.warn("执行任务队列已满, 拒绝提交: type={}, queued={}", job.jobType, jobExecutor.getQueue().size());
+            throw new RuntimeException("执行任务队列已满，请稍后重试");
+        }
+        log.info("提交执行任务: jobId={}, type={}, modelId={}, regions={}",
+                job.jobId, job.jobType, job.modelId, job.regionCodes.size());
+        return job.toStatus();
+    }
+
+    private void run(ExecutionJob job, Function<ExecutionProgressListener, Map<String, Object>> task) {
+        synchronized (job) {
+            if (job.cancelled) {
+                return;
+            }
+            job.status = STATUS_RUNNING;
+            job.startTime = System.currentTimeMillis();
+            job.message = "执行中";
+        }
+        createRecord(job);
+        job.broadcast("status", job.toStatus());
+
+        try {
+            Map<String, Object> result = task.apply(job);
+            if (job.cancelled) {
+                finish(job, STATUS_CANCELLED, null, "任务已取消");
+            } else {
+                finish(job, STATUS_SUCCESS, result, null);
+            }
+        } catch (Exception e) {
+            if (job.cancelled || e instanceof CancellationException) {
+                finish(job, STATUS_CANCELLED, null, "任务已取消");
+            } else {
+                log.error("执行任务失败: jobId={}", job.jobId, e);
+                finish(job, STATUS_FAILED, null, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 结束任务：记录状态与耗时、更新执行记录、推送最终状态并关闭所有 SSE 连接
+     */
+    private void finish(ExecutionJob job, String status, Map<String, Object> result, String error) {
+        synchronized (job) {
+            if (job.finishing) {
+                return;
+            }
+            job.finishing = true;
+        }
+        long endTime = System.currentTimeMillis();
+        // 先更新执行记录，再对外标记任务结束，查询到结束状态时记录已经写入
+        updateRecord(job, status, error, endTime);
+        synchronized (job) {
+            job.result = result;
+            job.error = error;
+            job.message = STATUS_SUCCESS.equals(status) ? "执行完成" : error;
+            if (STATUS_SUCCESS.equals(status)) {
+                job.percentage = 100;
+            }
+            job.status = status;
+            job.endTime = endTime;
+        }
+        log.info("执行任务结束: jobId={}, status={}, 耗时={}ms", job.jobId, status, job.durationMs());
+
+        Map<String, Object> finalStatus = job.toStatus();
+        for (SseEmitter emitter : job.emitters) {
+            job.send(emitter, "status", finalStatus);
+            emitter.complete();
+        }
+        job.emitters.clear();
+    }
+
+    /**
+     * 评估模型任务开始执行时写入执行记录（算法配置任务没有对应的评估模型，不写入）
+     */
+    private void createRecord(ExecutionJob job) {
+        if (job.modelId == null) {
+            return;
+        }
+        try {
+            ModelExecutionRecord record = evaluationResultService.createExecutionRecord(
+                    job.modelId, job.regionCodes, job.weightConfigId, job.createBy);
+            job.recordId = record.getId();
+            job.executionCode = record.getExecutionCode();
+        } catch (Exception e) {
+            log.warn("写入模型执行记录失败: jobId={}, error={}", job.jobId, e.getMessage());
+        }
+    }
+
+    private void updateRecord(ExecutionJob job, String status, String error, long endTime) {
+        if (job.recordId == null) {
+            return;
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("jobId", job.jobId);
+        summary.put("durationMs", job.startTime > 0 ? endTime - job.startTime : 0);
+        summary.put("stepCount", job.stepCount);
+        summary.put("regionCount", job.regionCodes.size());
+        try {
+            evaluationResultService.updateExecutionRecord(job.recordId, status, JSON.toJSONString(summary),
+                    null, error);
+        } catch (Exception e) {
+            log.warn("更新模型执行记录失败: jobId={}, recordId={}, error={}", job.jobId, job.recordId, e.getMessage());
+        }
+    }
+
+    /**
+     * 执行任务：保存状态与进度，同时作为执行引擎的进度监听器
+     */
+    private static class ExecutionJob implements ExecutionProgressListener {
+
+        private final String jobId = UUID.randomUUID().toString();
+        private final String jobType;
+        private final Long modelId;
+        private final List<String> regionCodes;
+        private final Long weightConfigId;
+        private final String createBy;
+        private final long submitTime = System.currentTimeMillis();
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+        private volatile Future<?> future;
+        private volatile boolean cancelled;
+        private volatile boolean finishing;
+        private volatile String status = STATUS_PENDING;
+        private volatile String message = "排队中";
+        private volatile long startTime;
+        private volatile long endTime;
+        private volatile Long recordId;
+        private volatile String executionCode;
+        private volatile String stepCode;
+        private volatile String stepName;
+        private volatile int stepIndex;
+        private volatile int stepCount;
+        private volatile int regionCompleted;
+        private volatile int regionTotal;
+        private volatile int percentage;
+        private volatile Map<String, Object> result;
+        private volatile String error;
+
+        ExecutionJob(String jobType, Long modelId, List<String> regionCodes, Long weightConfigId, String createBy) {
+            this.jobType = jobType;
+            this.modelId = modelId;
+            this.regionCodes = regionCodes != null ? regionCodes : Collections.<String>emptyList();
+            this.weightConfigId = weightConfigId;
+            this.createBy = createBy;
+        }
+
+        @Override
+        public void onStepStarted(String stepCode, String stepName, int stepIndex, int stepCount) {
+            this.stepCode = stepCode;
+            this.stepName = stepName;
+            this.stepIndex = stepIndex;
+            this.stepCount = stepCount;
+            this.regionCompleted = 0;
+            this.regionTotal = 0;
+            this.percentage = stepCount > 0 ? stepIndex * 100 / stepCount : 0;
+            this.message = "执行步骤: " + stepName;
+            broadcast("step", toStatus());
+        }
+
+        @Override
+        public void onRegionProgress(String stepCode, int completed, int total) {
+            int stepPercent = total > 0 ? completed * 100 / total : 100;
+            int overall = stepCount > 0 ? (stepIndex * 100 + stepPercent) / stepCount : stepPercent;
+            synchronized (this) {
+                if (completed < regionCompleted) {
+                    return;
+                }
+                regionCompleted = completed;
+                regionTotal = total;
+                // 只在总进度百分比变化或步骤完成时推送，避免大量地区时逐条推送
+                if (overall == percentage && completed != total) {
+                    return;
+                }
+                percentage = overall;
+            }
+            broadcast("progress", toStatus());
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        boolean isFinished() {
+            return endTime > 0;
+        }
+
+        long durationMs() {
+            if (startTime == 0) {
+                return 0;
+            }
+            return (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime;
+        }
+
+        Map<String, Object> toStatus() {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("jobId", jobId);
+            info.put("jobType", jobType);
+            info.put("status", status);
+            info.put("message", message);
+            info.put("modelId", modelId);
+            info.put("executionRecordId", recordId);
+            info.put("executionCode", executionCode);
+            info.put("stepCode", stepCode);
+            info.put("stepName", stepName);
+            info.put("stepIndex", stepIndex);
+            info.put("stepCount", stepCount);
+            info.put("regionCompleted", regionCompleted);
+            info.put("regionTotal", regionTotal);
+            info.put("percentage", percentage);
+            info.put("submitTime", new Date(submitTime));
+            info.put("startTime", startTime > 0 ? new Date(startTime) : null);
+            info.put("endTime", endTime > 0 ? new Date(endTime) : null);
+            info.put("durationMs", durationMs());
+            info.put("error", error);
+            return info;
+        }
+
+        void broadcast(String eventName, Map<String, Object> data) {
+            for (SseEmitter emitter : emitters) {
+                send(emitter, eventName, data);
+            }
+        }
+
+        void send(SseEmitter emitter, String eventName, Map<String, Object> data) {
+            try {
+                emitter.send(SseEmitter.event().name(eventName).data(data));
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开
+                emitters.remove(emitter);
+            }
+        }
+    }
+}
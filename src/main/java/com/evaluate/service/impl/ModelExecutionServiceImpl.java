@@ -1,27 +1,50 @@
-﻿package com.evaluate.service.impl;
+package com.evaluate.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.evaluate.dto.RegionDataSnapshot;
+import com.evaluate.dto.RegionName;
 import com.evaluate.entity.*;
 import com.evaluate.mapper.*;
+import com.evaluate.service.ColumnarExecutionService;
+import com.evaluate.service.ExecutionMetrics;
+import com.evaluate.service.ExecutionProgressListener;
 import com.evaluate.service.ModelExecutionService;
 import com.evaluate.service.QLExpressService;
+import com.evaluate.service.RegionDataLoader;
+import com.evaluate.service.RegionNameCache;
 import com.evaluate.service.SpecialAlgorithmService;
+import com.evaluate.service.algorithm.AlgorithmDependencyGraph;
+import com.evaluate.service.algorithm.ColumnStatisticsCache;
+import com.evaluate.service.algorithm.IncrementalExecution;
+import com.evaluate.service.algorithm.ResultRounding;
+import com.evaluate.service.algorithm.TownshipIndicators;
 import com.evaluate.service.ISurveyDataService;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ql.util.express.InstructionSet;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 import java.util.Arrays;
 import java.util.Collections;
 
 /**
- * 妯″瀷鎵ц鏈嶅姟瀹炵幇绫?
- * 璐熻矗鎸夋楠ゆ墽琛孮LExpress琛ㄨ揪寮忓苟鐢熸垚璇勪及缁撴灉
+ * 模型执行服务实现类
+ * 负责按步骤执行QLExpress表达式并生成评估结果
  * 
  * @author System
  * @since 2025-01-01
@@ -57,29 +80,106 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
     @Autowired
     private ISurveyDataService surveyDataService;
 
+    @Autowired
+    private RegionDataLoader regionDataLoader;
+
+    @Autowired
+    private RegionNameCache regionNameCache;
+
+    @Autowired
+    private ColumnarExecutionService columnarExecutionService;
+
+    /**
+     * 执行指标（步骤、算法、数据加载、结果整理耗时）
+     */
+    @Autowired(required = false)
+    private ExecutionMetrics executionMetrics = ExecutionMetrics.NONE;
+
+    /**
+     * 地区并行执行线程池（见 ExecutionPoolConfig）
+     */
+    @Autowired(required = false)
+    @Qualifier("regionExecutionPool")
+    private ForkJoinPool regionExecutionPool;
+
+    /**
+     * 请求未指定时是否默认并行执行地区计算（evaluation.parallel.enabled）
+     */
+    @Value("${evaluation.parallel.enabled:false}")
+    private boolean parallelEnabled;
+
+    /**
+     * 是否使用列式执行模式（evaluation.engine.columnar）
+     */
+    @Value("${evaluation.engine.columnar:false}")
+    private boolean columnarEngine;
+
+    /**
+     * 是否启用增量执行（evaluation.incremental.enabled）：保存上次执行快照，
+     * 相同模型、地区列表与权重配置再次执行时只重新计算输入发生变化的部分
+     */
+    @Value("${evaluation.incremental.enabled:false}")
+    private boolean incrementalEnabled;
+
+    /**
+     * 内存中保留的执行快照数量上限（evaluation.incremental.max-snapshots），按最近使用淘汰
+     */
+    @Value("${evaluation.incremental.max-snapshots:8}")
+    private int maxSnapshots;
+
+    /**
+     * 增量执行跟踪器在上下文中的key
+     */
+    private static final String INCREMENTAL_CONTEXT_KEY = "_incrementalExecution";
+
+    /**
+     * 上次执行快照（key 见 {@link #snapshotKey}）
+     */
+    private final Map<String, IncrementalExecution.Snapshot> executionSnapshots = Collections.synchronizedMap(
+            new LinkedHashMap<String, IncrementalExecution.Snapshot>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, IncrementalExecution.Snapshot> eldest) {
+                    return size() > maxSnapshots;
+                }
+            });
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
-     * 鎵ц璇勪及妯″瀷
+     * 执行评估模型
      * 
-     * @param modelId 妯″瀷ID
-     * @param regionCodes 鍦板尯浠ｇ爜鍒楄〃
-     * @param weightConfigId 鏉冮噸閰嶇疆ID
-     * @return 鎵ц缁撴灉锛堝寘鍚瘡涓楠ょ殑杈撳嚭锛?
+     * @param modelId 模型ID
+     * @param regionCodes 地区代码列表
+     * @param weightConfigId 权重配置ID
+     * @return 执行结果（包含每个步骤的输出）
      */
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Map<String, Object> executeModel(Long modelId, List<String> regionCodes, Long weightConfigId) {
-        log.info("寮€濮嬫墽琛岃瘎浼版ā鍨? modelId={}, regionCodes={}, weightConfigId={}", 
-                modelId, regionCodes, weightConfigId);
+        return executeModel(modelId, regionCodes, weightConfigId, null);
+    }
 
-        // 1. 楠岃瘉妯″瀷鏄惁瀛樺湪涓斿惎鐢?
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Map<String, Object> executeModel(Long modelId, List<String> regionCodes, Long weightConfigId, Boolean parallel) {
+        return executeModel(modelId, regionCodes, weightConfigId, parallel, null);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Map<String, Object> executeModel(Long modelId, List<String> regionCodes, Long weightConfigId, Boolean parallel,
+                                            ExecutionProgressListener listener) {
+        log.info("开始执行评估模型: modelId={}, regionCodes={}, weightConfigId={}, parallel={}", 
+                modelId, regionCodes, weightConfigId, parallel);
+        long modelStart = System.nanoTime();
+
+        // 1. 验证模型是否存在且启用
         EvaluationModel model = evaluationModelMapper.selectById(modelId);
         if (model == null || model.getStatus() == 0) {
-            throw new RuntimeException("璇勪及妯″瀷涓嶅瓨鍦ㄦ垨宸茬鐢?);
+            throw new RuntimeException("评估模型不存在或已禁用");
         }
 
-        // 2. 鑾峰彇妯″瀷鐨勬墍鏈夋楠ゅ苟鎸夐『搴忔帓搴?
+        // 2. 获取模型的所有步骤并按顺序排序
         QueryWrapper<ModelStep> stepQuery = new QueryWrapper<>();
         stepQuery.eq("model_id", modelId)
                 .eq("status", 1)
@@ -87,109 +187,207 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
         List<ModelStep> steps = modelStepMapper.selectList(stepQuery);
         
         if (steps == null || steps.isEmpty()) {
-            throw new RuntimeException("璇ユā鍨嬫病鏈夐厤缃楠?);
+            throw new RuntimeException("该模型没有配置步骤");
         }
 
-        // 3. 鍒濆鍖栧叏灞€涓婁笅鏂囷紙瀛樺偍鎵€鏈夋楠ょ殑鎵ц缁撴灉锛?
+        // 3. 初始化全局上下文（存储所有步骤的执行结果）
         Map<String, Object> globalContext = new HashMap<>();
         globalContext.put("modelId", modelId);
         globalContext.put("modelName", model.getModelName());
         globalContext.put("regionCodes", regionCodes);
         globalContext.put("weightConfigId", weightConfigId);
+        if (parallel != null) {
+            globalContext.put(PARALLEL_CONTEXT_KEY, parallel);
+        }
+        if (listener != null) {
+            globalContext.put(PROGRESS_CONTEXT_KEY, listener);
+        }
 
-        // 4. 鍔犺浇鍩虹鏁版嵁鍒颁笂涓嬫枃
+        // 4. 加载基础数据到上下文
         loadBaseDataToContext(globalContext, regionCodes, weightConfigId);
 
-        // 5. 鎸夐『搴忔墽琛屾瘡涓楠?
+        // 增量执行：全局参数与上次快照一致时复用未受变化影响的结果（列式执行不支持）
+        IncrementalExecution incremental = null;
+        Map<String, Object> snapshotGlobals = null;
+        String snapshotKey = null;
+        if (incrementalEnabled && !columnarEngine) {
+            snapshotGlobals = snapshotGlobals(globalContext);
+            snapshotKey = snapshotKey(modelId, regionCodes, weightConfigId);
+            IncrementalExecution.Snapshot previous = executionSnapshots.get(snapshotKey);
+            if (previous != null && !previous.getGlobals().equals(snapshotGlobals)) {
+                log.info("全局参数与上次执行不同, 全量执行: modelId={}", modelId);
+                previous = null;
+            }
+            incremental = new IncrementalExecution(previous);
+            globalContext.put(INCREMENTAL_CONTEXT_KEY, incremental);
+        }
+
+        // 批量预加载所有地区的源数据，供各步骤共享（避免每步骤、每地区单独查询）
+        RegionDataSnapshot regionData = getRegionDataSnapshot(globalContext);
+        preloadRegionData(regionData, modelId, regionCodes);
+
+        // 5. 按顺序执行每个步骤
+        Map<Integer, List<String>> stepOutputParams = new LinkedHashMap<>();  // 记录每个步骤的输出参数名称
+        Map<String, Object> stepResults;
+        if (columnarEngine) {
+            // 列式执行：源数据与步骤输出按列存放，只在返回时生成 Map 结构
+            stepResults = columnarExecutionService.executeSteps(modelId, steps, regionCodes,
+                    buildSourceRows(regionData, modelId, regionCodes), globalContext, stepOutputParams);
+        } else {
+            stepResults = executeStepsByRegion(modelId, steps, regionCodes, globalContext, stepOutputParams);
+        }
+
+        // 生成二维表数据
+        long phaseStart = System.nanoTime();
+        List<Map<String, Object>> tableData = generateResultTable(
+                Collections.singletonMap("stepResults", stepResults));
+        executionMetrics.recordPhase(modelId, "result_table", System.nanoTime() - phaseStart);
+        
+        // 生成 columns 数组（包含所有步骤的 stepOrder 信息）
+        phaseStart = System.nanoTime();
+        List<Map<String, Object>> columns = generateColumnsWithAllStepsV2(tableData, stepOutputParams);
+        executionMetrics.recordPhase(modelId, "columns", System.nanoTime() - phaseStart);
+
+        // 6. 构建最终结果
+        Map<String, Object> result = new HashMap<>();
+        result.put("modelId", modelId);
+        result.put("modelName", model.getModelName());
+        result.put("executionTime", new Date());
+        result.put("stepResults", stepResults);
+        result.put("tableData", tableData);
+        result.put("columns", columns);
+        result.put("regionDataLoadStats", regionData.toStats());
+        if (incremental != null) {
+            executionSnapshots.put(snapshotKey, incremental.toSnapshot(snapshotGlobals, stepResults));
+            result.put("incrementalStats", incremental.toStats());
+            log.info("增量执行统计: {}", incremental.toStats());
+        }
+        result.put("success", true);
+        executionMetrics.recordPhase(modelId, "model", System.nanoTime() - modelStart);
+
+        log.info("评估模型执行完成, 地区数据加载统计: {}", regionData.toStats());
+        return result;
+    }
+
+    /**
+     * 逐地区执行模型的全部步骤（默认执行方式）
+     */
+    private Map<String, Object> executeStepsByRegion(Long modelId, List<ModelStep> steps, List<String> regionCodes,
+                                                     Map<String, Object> globalContext,
+                                                     Map<Integer, List<String>> stepOutputParams) {
         Map<String, Object> stepResults = new HashMap<>();
-        Map<Integer, List<String>> stepOutputParams = new LinkedHashMap<>();  // 璁板綍姣忎釜姝ラ鐨勮緭鍑哄弬鏁板悕绉?
-        List<String> currentRegionCodes = new ArrayList<>(regionCodes);  // 褰撳墠浣跨敤鐨勫湴鍖轰唬鐮佸垪琛?
+        List<String> currentRegionCodes = new ArrayList<>(regionCodes);  // 当前使用的地区代码列表
+        ExecutionProgressListener listener = ExecutionProgressListener.of(globalContext);
         
-        for (ModelStep step : steps) {
-            log.info("鎵ц姝ラ: {} - {}, order={}", step.getStepCode(), step.getStepName(), step.getStepOrder());
+        for (int stepIndex = 0; stepIndex < steps.size(); stepIndex++) {
+            ModelStep step = steps.get(stepIndex);
+            log.info("执行步骤: {} - {}, order={}", step.getStepCode(), step.getStepName(), step.getStepOrder());
+            checkCancelled(listener);
+            listener.onStepStarted(step.getStepCode(), step.getStepName(), stepIndex, steps.size());
             
             try {
                 Map<String, Object> stepResult;
                 
-                // 鐗规畩澶勭悊锛氬鏋滄槸AGGREGATION绫诲瀷涓攎odelId=8锛屾墽琛屼埂闀囪仛鍚?
+                // 特殊处理：如果是AGGREGATION类型且modelId=8，执行乡镇聚合
                 if ("AGGREGATION".equals(step.getStepType()) && modelId == 8) {
-                    log.info("妫€娴嬪埌涔￠晣鑱氬悎姝ラ锛屾墽琛屾寜涔￠晣鍒嗙粍鑱氬悎");
+                    log.info("检测到乡镇聚合步骤，执行按乡镇分组聚合");
+                    long aggregationStart = System.nanoTime();
                     stepResult = executeTownshipAggregation(step.getId(), currentRegionCodes, globalContext);
+                    long aggregationNanos = System.nanoTime() - aggregationStart;
+                    executionMetrics.recordPhase(modelId, "township_aggregation", aggregationNanos);
+                    executionMetrics.recordStep(modelId, step.getStepCode(), aggregationNanos,
+                            currentRegionCodes.size(), 0);
                     
-                    // 鏇存柊regionCodes涓轰埂闀囦唬鐮佸垪琛紙鐢ㄤ簬鍚庣画姝ラ锛?
+                    // 更新regionCodes为乡镇代码列表（用于后续步骤）
                     @SuppressWarnings("unchecked")
                     Map<String, Map<String, Object>> regionResults = 
                             (Map<String, Map<String, Object>>) stepResult.get("regionResults");
                     if (regionResults != null) {
                         currentRegionCodes = new ArrayList<>(regionResults.keySet());
-                        log.info("涔￠晣鑱氬悎鍚庯紝鏇存柊regionCodes涓轰埂闀囦唬鐮佸垪琛? {}", currentRegionCodes);
+                        log.info("乡镇聚合后，更新regionCodes为乡镇代码列表: {}", currentRegionCodes);
+                        // 聚合步骤全部重新计算，只与上次输出比较
+                        IncrementalExecution incremental = getIncrementalExecution(globalContext);
+                        if (incremental != null) {
+                            incremental.recordStepResults(step.getStepCode(), regionResults);
+                        }
                     }
                 } else {
-                    // 鎵ц鍗曚釜姝ラ
+                    // 执行单个步骤
                     stepResult = executeStep(step.getId(), currentRegionCodes, globalContext);
                 }
                 
                 stepResults.put(step.getStepCode(), stepResult);
                 
-                // 璁板綍璇ユ楠ょ殑杈撳嚭鍙傛暟锛堢敤浜庡悗闈㈢敓鎴?columns锛?
+                // 记录该步骤的输出参数（用于后面生成 columns）
                 @SuppressWarnings("unchecked")
                 Map<String, String> outputToAlgorithmName = 
                         (Map<String, String>) stepResult.get("outputToAlgorithmName");
                 if (outputToAlgorithmName != null) {
                     stepOutputParams.put(step.getStepOrder(), new ArrayList<>(outputToAlgorithmName.values()));
-                    log.debug("姝ラ{} 鐨勮緭鍑哄弬鏁? {}", step.getStepOrder(), outputToAlgorithmName.values());
+                    log.debug("步骤{} 的输出参数: {}", step.getStepOrder(), outputToAlgorithmName.values());
                 }
                 
-                // 灏嗘楠ょ粨鏋滃悎骞跺埌鍏ㄥ眬涓婁笅鏂囷紙渚涘悗缁楠や娇鐢級
+                // 将步骤结果合并到全局上下文（供后续步骤使用）
                 globalContext.put("step_" + step.getStepCode(), stepResult);
+                listener.onStepCompleted(step.getStepCode(), stepIndex, steps.size());
                 
-                log.info("姝ラ {} 鎵ц瀹屾垚", step.getStepCode());
+                log.info("步骤 {} 执行完成", step.getStepCode());
+            } catch (CancellationException e) {
+                throw e;
             } catch (Exception e) {
-                log.error("姝ラ {} 鎵ц澶辫触: {}", step.getStepCode(), e.getMessage(), e);
-                throw new RuntimeException("姝ラ " + step.getStepName() + " 鎵ц澶辫触: " + e.getMessage(), e);
+                log.error("步骤 {} 执行失败: {}", step.getStepCode(), e.getMessage(), e);
+                throw new RuntimeException("步骤 " + step.getStepName() + " 执行失败: " + e.getMessage(), e);
             }
         }
+        return stepResults;
+    }
 
-        // 鐢熸垚浜岀淮琛ㄦ暟鎹?
-        List<Map<String, Object>> tableData = generateResultTable(
-                Collections.singletonMap("stepResults", stepResults));
-        
-        // 鐢熸垚 columns 鏁扮粍锛堝寘鍚墍鏈夋楠ょ殑 stepOrder 淇℃伅锛?
-        List<Map<String, Object>> columns = generateColumnsWithAllStepsV2(tableData, stepOutputParams);
-
-        // 6. 鏋勫缓鏈€缁堢粨鏋?
-        Map<String, Object> result = new HashMap<>();
-        result.put("modelId", modelId);
-        result.put("modelName", model.getModelName());
-        result.put("executionTime", new Date());
-        result.put("stepResults", stepResults);
-        result.put("tableData", tableData);
-        result.put("columns", columns);
-        result.put("success", true);
-
-        log.info("璇勪及妯″瀷鎵ц瀹屾垚");
-        return result;
+    /**
+     * 按模型对应的数据源为每个地区构建一次源数据（列式执行时装入列表）
+     */
+    private Map<String, Map<String, Object>> buildSourceRows(RegionDataSnapshot regionData, Long modelId, List<String> regionCodes) {
+        boolean useCommunityData = modelId != null && (modelId == 4 || modelId == 8);
+        Map<String, Map<String, Object>> sourceRows = new HashMap<>();
+        for (String regionCode : regionCodes) {
+            Map<String, Object> row = new HashMap<>();
+            if (useCommunityData) {
+                Map<String, Object> communityDataMap = regionData.getCommunityRows().get(regionCode);
+                if (communityDataMap == null) {
+                    continue;
+                }
+                addMapDataToContext(row, communityDataMap);
+            } else {
+                SurveyData surveyData = regionData.getSurveyRows().get(regionCode);
+                if (surveyData == null) {
+                    continue;
+                }
+                addSurveyDataToContext(row, surveyData);
+            }
+            sourceRows.put(regionCode, row);
+        }
+        return sourceRows;
     }
 
     /**
-     * 鎵ц鍗曚釜姝ラ
+     * 执行单个步骤
      * 
-     * @param stepId 姝ラID
-     * @param regionCodes 鍦板尯浠ｇ爜鍒楄〃
-     * @param inputData 杈撳叆鏁版嵁锛堝叏灞€涓婁笅鏂囷級
-     * @return 姝ラ鎵ц缁撴灉
+     * @param stepId 步骤ID
+     * @param regionCodes 地区代码列表
+     * @param inputData 输入数据（全局上下文）
+     * @return 步骤执行结果
      */
     @Override
     public Map<String, Object> executeStep(Long stepId, List<String> regionCodes, Map<String, Object> inputData) {
-        log.info("鎵ц姝ラ, stepId={}", stepId);
+        log.info("执行步骤, stepId={}", stepId);
+        long stepStart = System.nanoTime();
 
-        // 1. 鑾峰彇姝ラ淇℃伅
+        // 1. 获取步骤信息
         ModelStep step = modelStepMapper.selectById(stepId);
         if (step == null || step.getStatus() == 0) {
-            throw new RuntimeException("姝ラ涓嶅瓨鍦ㄦ垨宸茬鐢?);
+            throw new RuntimeException("步骤不存在或已禁用");
         }
 
-        // 2. 鑾峰彇璇ユ楠ょ殑鎵€鏈夌畻娉曞苟鎸夐『搴忔帓搴?
+        // 2. 获取该步骤的所有算法并按顺序排序
         QueryWrapper<StepAlgorithm> algorithmQuery = new QueryWrapper<>();
         algorithmQuery.eq("step_id", stepId)
                 .eq("status", 1)
@@ -197,61 +395,68 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
         List<StepAlgorithm> algorithms = stepAlgorithmMapper.selectList(algorithmQuery);
 
         if (algorithms == null || algorithms.isEmpty()) {
-            log.warn("姝ラ {} 娌℃湁閰嶇疆绠楁硶", step.getStepCode());
+            log.warn("步骤 {} 没有配置算法", step.getStepCode());
             return new HashMap<>();
         }
 
-        // 3. 鍒濆鍖栨楠ょ粨鏋?
+        // 3. 初始化步骤结果
         Map<String, Object> stepResult = new HashMap<>();
         stepResult.put("stepId", stepId);
         stepResult.put("stepName", step.getStepName());
         stepResult.put("stepCode", step.getStepCode());
 
-        // 4. 绗竴閬嶏細涓烘墍鏈夊湴鍖哄噯澶囦笂涓嬫枃鏁版嵁
+        // 4. 第一遍：为所有地区准备上下文数据
         Map<String, Map<String, Object>> allRegionContexts = new LinkedHashMap<>();
 
-        // 鑾峰彇modelId浠ュ喅瀹氫娇鐢ㄥ摢涓暟鎹簮
+        // 获取modelId以决定使用哪个数据源
         Long modelId = (Long) inputData.get("modelId");
+        boolean useCommunityData = modelId != null && (modelId == 4 || modelId == 8);
+
+        // 从执行期快照读取源数据；executeModel 已预加载，单独调用时在此批量补齐
+        RegionDataSnapshot regionData = getRegionDataSnapshot(inputData);
+        preloadRegionData(regionData, modelId, regionCodes);
+        IncrementalExecution incremental = getIncrementalExecution(inputData);
 
         for (String regionCode : regionCodes) {
             Map<String, Object> regionContext = new HashMap<>(inputData);
             regionContext.put("currentRegionCode", regionCode);
-
-            // 鏍规嵁modelId閫夋嫨涓嶅悓鐨勬暟鎹簮
-            if (modelId != null && (modelId == 4 || modelId == 8)) {
-                // 绀惧尯妯″瀷(modelId=4)鍜岀ぞ鍖?涔￠晣妯″瀷(modelId=8)锛氫粠community_disaster_reduction_capacity琛ㄥ姞杞芥暟鎹?
-                // 浣跨敤selectMaps鐩存帴杩斿洖Map锛宬ey涓烘暟鎹簱瀛楁鍚嶏紝鍙洿鎺ュ尮閰嶇畻娉曡〃杈惧紡涓殑鍙橀噺鍚?
-                QueryWrapper<CommunityDisasterReductionCapacity> communityQuery = new QueryWrapper<>();
-                communityQuery.eq("region_code", regionCode);
-                List<Map<String, Object>> communityDataList = communityDataMapper.selectMaps(communityQuery);
-
-                if (communityDataList != null && !communityDataList.isEmpty()) {
-                    Map<String, Object> communityDataMap = communityDataList.get(0);
-                    // 鐩存帴灏嗘暟鎹簱瀛楁娣诲姞鍒颁笂涓嬫枃锛屽悓鏃跺鐞嗘暟鍊肩被鍨嬭浆鎹?
-                    addMapDataToContext(regionContext, communityDataMap);
+            // 增量执行时源数据先单独转换，用于与上次执行的源数据比较
+            Map<String, Object> sourceRow = incremental != null ? new HashMap<>() : regionContext;
+
+            // 根据modelId选择不同的数据源
+            if (useCommunityData) {
+                // 社区模型(modelId=4)和社区-乡镇模型(modelId=8)：从community_disaster_reduction_capacity表加载数据
+                // 使用selectMaps直接返回Map，key为数据库字段名，可直接匹配算法表达式中的变量名
+                Map<String, Object> communityDataMap = regionData.getCommunityRows().get(regionCode);
+
+                if (communityDataMap != null) {
+                    // 直接将数据库字段添加到上下文，同时处理数值类型转换
+                    addMapDataToContext(sourceRow, communityDataMap);
                 } else {
-                    log.warn("鏈壘鍒扮ぞ鍖烘暟鎹? regionCode={}", regionCode);
+                    log.warn("未找到社区数据: regionCode={}", regionCode);
                 }
             } else {
-                // 涔￠晣妯″瀷(modelId=3)锛氫粠survey_data琛ㄥ姞杞芥暟鎹?
-                QueryWrapper<SurveyData> dataQuery = new QueryWrapper<>();
-                dataQuery.eq("region_code", regionCode);
-                SurveyData surveyData = surveyDataMapper.selectOne(dataQuery);
+                // 乡镇模型(modelId=3)：从survey_data表加载数据
+                SurveyData surveyData = regionData.getSurveyRows().get(regionCode);
 
                 if (surveyData != null) {
-                    addSurveyDataToContext(regionContext, surveyData);
+                    addSurveyDataToContext(sourceRow, surveyData);
                 } else {
-                    log.warn("鏈壘鍒拌皟鏌ユ暟鎹? regionCode={}", regionCode);
+                    log.warn("未找到调查数据: regionCode={}", regionCode);
                 }
             }
+            if (incremental != null) {
+                regionContext.putAll(sourceRow);
+                incremental.observeSource(regionCode, sourceRow);
+            }
 
-            // 鍐嶅姞杞藉墠闈㈡楠ょ殑杈撳嚭缁撴灉锛堣绠楃粨鏋滐級锛岃繖鏍蜂細瑕嗙洊鍘熷鏁版嵁涓殑鍚屽悕瀛楁
+            // 再加载前面步骤的输出结果（计算结果），这样会覆盖原始数据中的同名字段
             loadPreviousStepOutputs(regionContext, regionCode, inputData);
 
             allRegionContexts.put(regionCode, regionContext);
         }
         
-        // 5. 鍒嗙GRADE绠楁硶鍜岄潪GRADE绠楁硶
+        // 5. 分离GRADE算法和非GRADE算法
         List<StepAlgorithm> nonGradeAlgorithms = new ArrayList<>();
         List<StepAlgorithm> gradeAlgorithms = new ArrayList<>();
         
@@ -264,139 +469,73 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             }
         }
         
-        log.info("绠楁硶鍒嗙粍: 闈濭RADE绠楁硶={}, GRADE绠楁硶={}", nonGradeAlgorithms.size(), gradeAlgorithms.size());
+        log.info("算法分组: 非GRADE算法={}, GRADE算法={}", nonGradeAlgorithms.size(), gradeAlgorithms.size());
+
+        // 编译结果在步骤内直接使用，逐地区执行时不再查找全局编译缓存
+        Map<String, InstructionSet> compiled = precompileExpressions(step.getStepCode(), algorithms.stream()
+                .map(StepAlgorithm::getQlExpression)
+                .collect(Collectors.toList()));
+
+        // 增量执行：步骤算法配置与上次一致时，输入未变化的算法直接复用上次结果
+        IncrementalExecution.StepTracker tracker = incremental != null
+                ? incremental.beginStep(step.getStepCode(), stepSignature(algorithms)) : null;
+        // 算法计时器在步骤开始时获取，逐地区执行时直接记录
+        Map<StepAlgorithm, ExecutionMetrics.AlgorithmTimer> algorithmTimers = new IdentityHashMap<>();
+        for (StepAlgorithm algorithm : algorithms) {
+            String qlExpression = algorithm.getQlExpression();
+            algorithmTimers.put(algorithm, executionMetrics.algorithmTimer(modelId, step.getStepCode(),
+                    algorithm.getAlgorithmName(), qlExpression != null && qlExpression.startsWith("@")));
+        }
         
-        // 6. 绗簩閬嶏細涓烘瘡涓湴鍖烘墽琛岄潪GRADE绠楁硶锛堟敮鎸佺壒娈婃爣璁帮級
+        // 6. 按依赖图执行算法（GRADE算法排在最后加入），串行与并行模式使用同一调度：
+        // 每层先计算全部地区的结果再统一写回，特殊标记算法总能看到完整的输入列
         Map<String, Map<String, Object>> regionResults = new LinkedHashMap<>();
         Map<String, String> outputToAlgorithmName = new LinkedHashMap<>();
+        // 步骤级列统计缓存：特殊标记对同一列的统计量只计算一次，列被写入时失效
+        ColumnStatisticsCache statsCache = new ColumnStatisticsCache();
         
-        for (String regionCode : regionCodes) {
-            log.info("涓哄湴鍖?{} 鎵ц闈濭RADE绠楁硶", regionCode);
-            Map<String, Object> regionContext = allRegionContexts.get(regionCode);
-            Map<String, Object> algorithmOutputs = new LinkedHashMap<>();
-            
-            // 鎵ц闈濭RADE绠楁硶
-            for (StepAlgorithm algorithm : nonGradeAlgorithms) {
-                try {
-                    log.debug("鎵ц绠楁硶: {} - {}", algorithm.getAlgorithmCode(), algorithm.getAlgorithmName());
-                    
-                    Object result;
-                    String qlExpression = algorithm.getQlExpression();
-                    
-                    // 妫€鏌ユ槸鍚︽槸鐗规畩鏍囪
-                    if (qlExpression != null && qlExpression.startsWith("@")) {
-                        // 瑙ｆ瀽鐗规畩鏍囪: @MARKER:params
-                        String[] parts = qlExpression.substring(1).split(":", 2);
-                        String marker = parts[0];
-                        String params = parts.length > 1 ? parts[1] : "";
-                        
-                        log.info("鎵ц鐗规畩鏍囪绠楁硶: marker={}, params={}", marker, params);
-                        
-                        // 璋冪敤鐗规畩绠楁硶鏈嶅姟
-                        result = specialAlgorithmService.executeSpecialAlgorithm(
-                                marker, params, regionCode, regionContext, allRegionContexts);
-                        
-                        // 纭繚鏁板€肩被鍨嬭浆鎹㈠苟鏍煎紡鍖栦负8浣嶅皬鏁?
-                        if (result != null && result instanceof Number) {
-                            double doubleValue = ((Number) result).doubleValue();
-                            result = Double.parseDouble(String.format("%.8f", doubleValue));
-                        }
-                    } else {
-                        // 鎵ц鏍囧噯QLExpress琛ㄨ揪寮?
-                        result = qlExpressService.execute(qlExpression, regionContext);
-                        
-                        // 纭繚鏁板€肩被鍨嬬殑缁撴灉杞崲涓篋ouble骞舵牸寮忓寲涓?浣嶅皬鏁?
-                        if (result != null && result instanceof Number) {
-                            double doubleValue = ((Number) result).doubleValue();
-                            result = Double.parseDouble(String.format("%.8f", doubleValue));
-                        }
-                    }
-                    
-                    // 淇濆瓨绠楁硶杈撳嚭鍒颁笂涓嬫枃锛堜緵鍚庣画绠楁硶浣跨敤锛?
-                    String outputParam = algorithm.getOutputParam();
-                    if (outputParam != null && !outputParam.isEmpty()) {
-                        regionContext.put(outputParam, result);
-                        allRegionContexts.put(regionCode, regionContext);  // 鏇存柊鍏ㄥ眬涓婁笅鏂?
-                        algorithmOutputs.put(outputParam, result);
-                        outputToAlgorithmName.put(outputParam, algorithm.getAlgorithmName());
-                    }
-                    
-                    log.debug("绠楁硶 {} 鎵ц缁撴灉: {}", algorithm.getAlgorithmCode(), result);
-                } catch (Exception e) {
-                    log.error("绠楁硶 {} 鎵ц澶辫触: {}", algorithm.getAlgorithmCode(), e.getMessage(), e);
-                    throw new RuntimeException("绠楁硶 " + algorithm.getAlgorithmName() + " 鎵ц澶辫触: " + e.getMessage(), e);
-                }
-            }
-            
-            regionResults.put(regionCode, algorithmOutputs);
+        ExecutionProgressListener listener = ExecutionProgressListener.of(inputData);
+        boolean parallel = isParallelExecution(inputData) && regionCodes.size() > 1;
+        AlgorithmDependencyGraph graph = newAlgorithmGraph();
+        List<ExecutionMetrics.AlgorithmTimer> nodeTimers = new ArrayList<>();
+        for (StepAlgorithm algorithm : nonGradeAlgorithms) {
+            graph.add(algorithm.getAlgorithmName(), algorithm.getQlExpression(), algorithm.getOutputParam());
+            nodeTimers.add(algorithmTimers.get(algorithm));
         }
-        
-        // 7. 绗笁閬嶏細涓烘瘡涓湴鍖烘墽琛孏RADE绠楁硶锛堟鏃舵墍鏈夊湴鍖虹殑鍒嗘暟宸茶绠楀畬鎴愶級
-        if (!gradeAlgorithms.isEmpty()) {
-            log.info("寮€濮嬫墽琛孏RADE绠楁硶锛屾鏃舵墍鏈夊湴鍖虹殑鍒嗘暟宸茶绠楀畬鎴?);
-            
-            for (String regionCode : regionCodes) {
-                log.info("涓哄湴鍖?{} 鎵цGRADE绠楁硶", regionCode);
-                Map<String, Object> regionContext = allRegionContexts.get(regionCode);
-                Map<String, Object> algorithmOutputs = regionResults.get(regionCode);
-                
-                for (StepAlgorithm algorithm : gradeAlgorithms) {
-                    try {
-                        log.debug("鎵цGRADE绠楁硶: {} - {}", algorithm.getAlgorithmCode(), algorithm.getAlgorithmName());
-                        
-                        String qlExpression = algorithm.getQlExpression();
-                        String[] parts = qlExpression.substring(1).split(":", 2);
-                        String marker = parts[0];
-                        String params = parts.length > 1 ? parts[1] : "";
-                        
-                        log.info("鎵ц鐗规畩鏍囪绠楁硶: marker={}, params={}", marker, params);
-                        
-                        // 璋冪敤鐗规畩绠楁硶鏈嶅姟
-                        Object result = specialAlgorithmService.executeSpecialAlgorithm(
-                                marker, params, regionCode, regionContext, allRegionContexts);
-                        
-                        // 鏍煎紡鍖朑RADE绠楁硶缁撴灉涓?浣嶅皬鏁?
-                        if (result != null && result instanceof Number) {
-                            double doubleValue = ((Number) result).doubleValue();
-                            result = Double.parseDouble(String.format("%.8f", doubleValue));
-                        }
-
-                        // 淇濆瓨绠楁硶杈撳嚭鍒颁笂涓嬫枃锛堜緵鍚庣画绠楁硶浣跨敤锛?
-                        String outputParam = algorithm.getOutputParam();
-                        if (outputParam != null && !outputParam.isEmpty()) {
-                            regionContext.put(outputParam, result);
-                            allRegionContexts.put(regionCode, regionContext);  // 鏇存柊鍏ㄥ眬涓婁笅鏂?
-                            algorithmOutputs.put(outputParam, result);
-                            outputToAlgorithmName.put(outputParam, algorithm.getAlgorithmName());
-                        }
-                        
-                        log.debug("GRADE绠楁硶 {} 鎵ц缁撴灉: {}", algorithm.getAlgorithmCode(), result);
-                    } catch (Exception e) {
-                        log.error("GRADE绠楁硶 {} 鎵ц澶辫触: {}", algorithm.getAlgorithmCode(), e.getMessage(), e);
-                        throw new RuntimeException("GRADE绠楁硶 " + algorithm.getAlgorithmName() + " 鎵ц澶辫触: " + e.getMessage(), e);
-                    }
-                }
-            }
+        for (StepAlgorithm algorithm : gradeAlgorithms) {
+            graph.add(algorithm.getAlgorithmName(), algorithm.getQlExpression(), algorithm.getOutputParam());
+            nodeTimers.add(algorithmTimers.get(algorithm));
         }
+        executeAlgorithmGraph(step.getStepCode(), graph, compiled, regionCodes, parallel, allRegionContexts,
+                regionResults, outputToAlgorithmName, statsCache, listener, tracker, nodeTimers);
         
-        // 淇濆瓨杈撳嚭鍙傛暟鍒扮畻娉曞悕绉扮殑鏄犲皠
+        // 步骤结束，列统计缓存失效
+        log.debug("步骤 {} 列统计缓存: {}", step.getStepCode(), statsCache);
+        statsCache.clear();
+        if (incremental != null) {
+            incremental.addStepOutputs(outputToAlgorithmName.keySet());
+        }
+
+        // 保存输出参数到算法名称的映射
         if (!outputToAlgorithmName.isEmpty()) {
             stepResult.put("outputToAlgorithmName", outputToAlgorithmName);
         }
 
         stepResult.put("regionResults", regionResults);
+        executionMetrics.recordStep(modelId, step.getStepCode(), System.nanoTime() - stepStart, regionCodes.size(),
+                allRegionContexts.isEmpty() ? 0 : allRegionContexts.values().iterator().next().size());
         return stepResult;
     }
 
     /**
-     * 鐢熸垚缁撴灉浜岀淮琛?
+     * 生成结果二维表
      * 
-     * @param executionResults 鎵ц缁撴灉
-     * @return 浜岀淮琛ㄦ暟鎹?
+     * @param executionResults 执行结果
+     * @return 二维表数据
      */
     @Override
     public List<Map<String, Object>> generateResultTable(Map<String, Object> executionResults) {
-        log.info("鐢熸垚缁撴灉浜岀淮琛?);
+        log.info("生成结果二维表");
 
         List<Map<String, Object>> tableData = new ArrayList<>();
         
@@ -408,17 +547,17 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             return tableData;
         }
 
-        // 鏀堕泦鎵€鏈夊湴鍖轰唬鐮佸拰杈撳嚭鍙橀噺锛屼互鍙婅緭鍑哄弬鏁板埌绠楁硶鍚嶇О鐨勬槧灏?
+        // 收集所有地区代码和输出变量，以及输出参数到算法名称的映射
         Set<String> allRegions = new LinkedHashSet<>();
         Set<String> allOutputs = new LinkedHashSet<>();
-        Map<String, String> globalOutputToAlgorithmName = new LinkedHashMap<>();  // 鍏ㄥ眬鐨勮緭鍑哄弬鏁板埌绠楁硶鍚嶇О鏄犲皠
+        Map<String, String> globalOutputToAlgorithmName = new LinkedHashMap<>();  // 全局的输出参数到算法名称映射
 
         for (Map.Entry<String, Map<String, Object>> stepEntry : stepResults.entrySet()) {
             @SuppressWarnings("unchecked")
             Map<String, Map<String, Object>> regionResults = 
                     (Map<String, Map<String, Object>>) stepEntry.getValue().get("regionResults");
             
-            // 鑾峰彇杈撳嚭鍙傛暟鍒扮畻娉曞悕绉扮殑鏄犲皠
+            // 获取输出参数到算法名称的映射
             @SuppressWarnings("unchecked")
             Map<String, String> outputToAlgorithmName = 
                     (Map<String, String>) stepEntry.getValue().get("outputToAlgorithmName");
@@ -435,69 +574,80 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             }
         }
 
-        // 涓烘瘡涓湴鍖虹敓鎴愪竴琛屾暟鎹?
+        // 步骤结果只转换一次，逐地区按步骤顺序取输出
+        List<Map.Entry<String, Map<String, Map<String, Object>>>> stepRegionResults = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> stepEntry : stepResults.entrySet()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Map<String, Object>> regionResults =
+                    (Map<String, Map<String, Object>>) stepEntry.getValue().get("regionResults");
+            if (regionResults != null) {
+                stepRegionResults.add(new AbstractMap.SimpleImmutableEntry<>(stepEntry.getKey(), regionResults));
+            }
+        }
+
+        // 地区名称批量查询（经地区名称缓存）：优先社区数据，未找到的再查调查数据
+        List<String> communityCodes = new ArrayList<>();
+        for (String regionCode : allRegions) {
+            if (!regionCode.startsWith("TOWNSHIP_")) {
+                communityCodes.add(regionCode);
+            }
+        }
+        Map<String, RegionName> communityNames = regionNameCache.getCommunityNames(communityCodes);
+        Map<String, RegionName> surveyNames = regionNameCache.getSurveyNames(missingRegionCodes(communityCodes, communityNames));
+
+        // 为每个地区生成一行数据
         for (String regionCode : allRegions) {
             Map<String, Object> row = new LinkedHashMap<>();
             row.put("regionCode", regionCode);
             
-            // 鑾峰彇鍦板尯鍚嶇О鍜屼埂闀囧悕绉?
+            // 获取地区名称和乡镇名称
             String regionName = regionCode;
             String townshipName = null;
             String communityName = null;
             
-            // 妫€鏌ユ槸鍚︽槸涔￠晣铏氭嫙浠ｇ爜锛堜互"TOWNSHIP_"寮€澶达級
+            // 检查是否是乡镇虚拟代码（以"TOWNSHIP_"开头）
             if (regionCode.startsWith("TOWNSHIP_")) {
-                // 杩欐槸涔￠晣鑱氬悎鍚庣殑铏氭嫙浠ｇ爜
+                // 这是乡镇聚合后的虚拟代码
                 townshipName = regionCode.substring("TOWNSHIP_".length());
                 regionName = townshipName;
-                // 涔￠晣琛岀殑 regionCode 鐩存帴灞曠ず涓枃鍚嶇О锛岄伩鍏嶆樉绀?TOWNSHIP_ 鍓嶇紑
+                // 乡镇行的 regionCode 直接展示中文名称，避免显示 TOWNSHIP_ 前缀
                 row.put("regionCode", regionName);
                 
-                // 浠庢楠ょ粨鏋滀腑鑾峰彇淇濆瓨鐨勪埂闀囦俊鎭?
-                for (Map.Entry<String, Map<String, Object>> stepEntry : stepResults.entrySet()) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Map<String, Object>> regionResults = 
-                            (Map<String, Map<String, Object>>) stepEntry.getValue().get("regionResults");
-                    if (regionResults != null && regionResults.containsKey(regionCode)) {
-                        Map<String, Object> outputs = regionResults.get(regionCode);
+                // 从步骤结果中获取保存的乡镇信息
+                for (Map.Entry<String, Map<String, Map<String, Object>>> stepEntry : stepRegionResults) {
+                    Map<String, Object> outputs = stepEntry.getValue().get(regionCode);
+                    if (outputs != null) {
                         if (outputs.containsKey("_townshipName")) {
                             townshipName = (String) outputs.get("_townshipName");
                             regionName = townshipName;
                         }
                         if (outputs.containsKey("_firstCommunityCode")) {
                             String firstCommunityCode = (String) outputs.get("_firstCommunityCode");
-                            // 鍙互鐢ㄧ涓€涓ぞ鍖轰唬鐮佹潵鑾峰彇鏇村淇℃伅
+                            // 可以用第一个社区代码来获取更多信息
                             row.put("_firstCommunityCode", firstCommunityCode);
                         }
                         break;
                     }
                 }
                 
-                log.debug("涔￠晣铏氭嫙浠ｇ爜 {} 鏄犲皠涓? townshipName={}", regionCode, townshipName);
+                log.debug("乡镇虚拟代码 {} 映射为: townshipName={}", regionCode, townshipName);
             } else {
-                // 杩欐槸鏅€氱殑绀惧尯浠ｇ爜
-                // 棣栧厛灏濊瘯浠巆ommunity_disaster_reduction_capacity琛ㄨ幏鍙栫ぞ鍖哄拰涔￠晣淇℃伅
-                QueryWrapper<CommunityDisasterReductionCapacity> communityQuery = new QueryWrapper<>();
-                communityQuery.eq("region_code", regionCode);
-                CommunityDisasterReductionCapacity communityData = communityDataMapper.selectOne(communityQuery);
+                // 这是普通的社区代码
+                // 首先从community_disaster_reduction_capacity表获取社区和乡镇信息
+                RegionName communityData = communityNames.get(regionCode);
                 if (communityData != null) {
                     townshipName = communityData.getTownshipName();
                     communityName = communityData.getCommunityName();
                     regionName = communityName != null ? communityName : regionCode;
                 } else {
-                    // 濡傛灉community琛ㄤ腑娌℃湁鎵惧埌锛屽皾璇曚粠survey_data琛ㄨ幏鍙栧湴鍖哄悕绉?
-                    QueryWrapper<SurveyData> surveyQuery = new QueryWrapper<>();
-                    surveyQuery.eq("region_code", regionCode);
-                    SurveyData surveyData = surveyDataMapper.selectOne(surveyQuery);
-                    if (surveyData != null && surveyData.getTownship() != null) {
-                        regionName = surveyData.getTownship();
-                    } else {
-                        // 濡傛灉閮芥病鏈夋壘鍒帮紝浣跨敤regionCode浣滀负regionName
-                        regionName = regionCode;
+                    // 如果community表中没有找到，从survey_data表获取地区名称，都没有找到时使用regionCode
+                    RegionName surveyData = surveyNames.get(regionCode);
+                    if (surveyData != null && surveyData.getTownshipName() != null) {
+                        regionName = surveyData.getTownshipName();
                     }
                 }
                 
-                log.debug("鍦板尯 {} 鏄犲皠涓? regionName={}, townshipName={}, communityName={}", 
+                log.debug("地区 {} 映射为: regionName={}, townshipName={}, communityName={}", 
                         regionCode, regionName, townshipName, communityName);
             }
             
@@ -509,40 +659,34 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
                 row.put("communityName", communityName);
             }
 
-            // 鏀堕泦璇ュ湴鍖哄湪鎵€鏈夋楠や腑鐨勮緭鍑?
-            for (Map.Entry<String, Map<String, Object>> stepEntry : stepResults.entrySet()) {
+            // 收集该地区在所有步骤中的输出
+            for (Map.Entry<String, Map<String, Map<String, Object>>> stepEntry : stepRegionResults) {
                 String stepCode = stepEntry.getKey();
+                Map<String, Object> outputs = stepEntry.getValue().get(regionCode);
                 
-                @SuppressWarnings("unchecked")
-                Map<String, Map<String, Object>> regionResults = 
-                        (Map<String, Map<String, Object>>) stepEntry.getValue().get("regionResults");
-                
-                if (regionResults != null && regionResults.containsKey(regionCode)) {
-                    Map<String, Object> outputs = regionResults.get(regionCode);
-                    
-                    // 灏嗚緭鍑哄彉閲忔坊鍔犲埌琛屾暟鎹紝浣跨敤绠楁硶涓枃鍚嶇О浣滀负鍒楀悕
+                if (outputs != null) {
+                    // 将输出变量添加到行数据，使用算法中文名称作为列名
                     for (Map.Entry<String, Object> output : outputs.entrySet()) {
                         String outputParam = output.getKey();
                         
-                        // 璺宠繃鍐呴儴浣跨敤鐨勫瓧娈碉紙浠?_"寮€澶达級
+                        // 跳过内部使用的字段（以"_"开头）
                         if (outputParam.startsWith("_")) {
                             continue;
                         }
                         
                         String columnName;
                         
-                        // 浼樺厛浣跨敤绠楁硶鍚嶇О浣滀负鍒楀悕锛屽鏋滄病鏈夊垯浣跨敤鍘熷鐨?stepCode_outputParam 鏍煎紡
+                        // 优先使用算法名称作为列名，如果没有则使用原始的 stepCode_outputParam 格式
                         if (globalOutputToAlgorithmName.containsKey(outputParam)) {
                             columnName = globalOutputToAlgorithmName.get(outputParam);
                         } else {
                             columnName = stepCode + "_" + outputParam;
                         }
                         
-                        // 鏍煎紡鍖栨暟鍊间负8浣嶅皬鏁?
+                        // 格式化数值为8位小数
                         Object value = output.getValue();
-                        if (value != null && value instanceof Number) {
-                            double doubleValue = ((Number) value).doubleValue();
-                            value = Double.parseDouble(String.format("%.8f", doubleValue));
+                        if (value instanceof Number) {
+                            value = ResultRounding.round8(((Number) value).doubleValue());
                         }
                         row.put(columnName, value);
                     }
@@ -552,23 +696,38 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             tableData.add(row);
         }
 
-        log.info("鐢熸垚缁撴灉浜岀淮琛ㄥ畬鎴愶紝鍏?{} 琛屾暟鎹?, tableData.size());
+        log.info("生成结果二维表完成，共 {} 行数据", tableData.size());
         return tableData;
     }
 
     /**
-     * 鍔犺浇鍩虹鏁版嵁鍒颁笂涓嬫枃
+     * 名称映射中不存在的地区代码
+     */
+    private static List<String> missingRegionCodes(Collection<String> regionCodes, Map<String, RegionName> found) {
+        List<String> missing = new ArrayList<>();
+        for (String regionCode : regionCodes) {
+            if (!found.containsKey(regionCode)) {
+                missing.add(regionCode);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * 加载基础数据到上下文
      */
     private void loadBaseDataToContext(Map<String, Object> context, List<String> regionCodes, Long weightConfigId) {
-        log.debug("鍔犺浇鍩虹鏁版嵁鍒颁笂涓嬫枃");
+        log.debug("加载基础数据到上下文");
 
-        // 鍔犺浇鏉冮噸閰嶇疆
+        // 加载权重配置
         if (weightConfigId != null) {
             QueryWrapper<IndicatorWeight> weightQuery = new QueryWrapper<>();
             weightQuery.eq("config_id", weightConfigId);
+            long loadStart = System.nanoTime();
             List<IndicatorWeight> weights = indicatorWeightMapper.selectList(weightQuery);
+            executionMetrics.recordLoad("indicator_weight", System.nanoTime() - loadStart, weights.size());
             
-            // 灏嗘潈閲嶈浆鎹负Map渚夸簬鏌ユ壘
+            // 将权重转换为Map便于查找
             Map<String, Double> weightMap = weights.stream()
                     .collect(Collectors.toMap(
                             IndicatorWeight::getIndicatorCode,
@@ -577,43 +736,376 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
                     ));
             context.put("weights", weightMap);
             
-            // 鍚屾椂灏嗘瘡涓潈閲嶄綔涓虹嫭绔嬪彉閲忓瓨鍌紙渚夸簬琛ㄨ揪寮忕洿鎺ュ紩鐢級
+            // 同时将每个权重作为独立变量存储（便于表达式直接引用）
             for (IndicatorWeight weight : weights) {
-                // 纭繚鏉冮噸鍊间负Double绫诲瀷
+                // 确保权重值为Double类型
                 Double weightValue = weight.getWeight();
                 if (weightValue == null) {
                     weightValue = 0.0;
                 }
                 context.put("weight_" + weight.getIndicatorCode(), weightValue);
-                log.debug("鍔犺浇鏉冮噸: weight_{} = {}", weight.getIndicatorCode(), weightValue);
+                log.debug("加载权重: weight_{} = {}", weight.getIndicatorCode(), weightValue);
+            }
+        }
+    }
+
+    /**
+     * 执行已被取消时终止（在步骤与地区边界调用）
+     */
+    private void checkCancelled(ExecutionProgressListener listener) {
+        if (listener.isCancelled()) {
+            throw new CancellationException("执行已取消");
+        }
+    }
+
+    /**
+     * 是否并行执行地区计算：上下文中的请求级开关优先，否则使用配置默认值
+     */
+    private boolean isParallelExecution(Map<String, Object> context) {
+        if (regionExecutionPool == null) {
+            return false;
+        }
+        Object flag = context.get(PARALLEL_CONTEXT_KEY);
+        return flag instanceof Boolean ? (Boolean) flag : parallelEnabled;
+    }
+
+    /**
+     * 获取上下文中的增量执行跟踪器，未启用增量执行时返回null
+     */
+    private IncrementalExecution getIncrementalExecution(Map<String, Object> context) {
+        Object incremental = context.get(INCREMENTAL_CONTEXT_KEY);
+        return incremental instanceof IncrementalExecution ? (IncrementalExecution) incremental : null;
+    }
+
+    /**
+     * 执行快照的key：模型、权重配置及地区列表（串行与并行执行结果一致，共用快照）
+     */
+    private String snapshotKey(Long modelId, List<String> regionCodes, Long weightConfigId) {
+        return modelId + "|" + weightConfigId + "|" + String.join(",", regionCodes);
+    }
+
+    /**
+     * 全局上下文中参与计算的参数（权重等），不含 "_" 开头的执行期对象
+     */
+    private Map<String, Object> snapshotGlobals(Map<String, Object> globalContext) {
+        Map<String, Object> globals = new HashMap<>();
+        for (Map.Entry<String, Object> entry : globalContext.entrySet()) {
+            if (!entry.getKey().startsWith("_")) {
+                globals.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return globals;
+    }
+
+    /**
+     * 步骤算法配置签名；同一步骤内多个算法写同一输出时返回null（中间值无法逐个对应上次执行）
+     */
+    private List<String> stepSignature(List<StepAlgorithm> algorithms) {
+        List<String> signature = new ArrayList<>();
+        Set<String> outputs = new HashSet<>();
+        for (StepAlgorithm algorithm : algorithms) {
+            String outputParam = algorithm.getOutputParam();
+            if (outputParam != null && !outputParam.isEmpty() && !outputs.add(outputParam)) {
+                return null;
+            }
+            signature.add(algorithm.getId() + "|" + algorithm.getQlExpression() + "|" + outputParam);
+        }
+        return signature;
+    }
+
+    /**
+     * 算法读取的变量：特殊标记读取参数中的各列，普通表达式由QLExpress编译结果解析（失败时为null）
+     */
+    private Set<String> algorithmReads(String expression) {
+        if (expression == null || expression.isEmpty()) {
+            return Collections.emptySet();
+        }
+        if (expression.startsWith("@")) {
+            return AlgorithmDependencyGraph.markerColumns(expression);
+        }
+        return referencedVariables(expression);
+    }
+
+    /**
+     * 创建步骤内算法依赖图，普通表达式的读取变量由QLExpress编译结果解析
+     */
+    private AlgorithmDependencyGraph newAlgorithmGraph() {
+        return new AlgorithmDependencyGraph(this::referencedVariables);
+    }
+
+    /**
+     * 解析表达式读取的变量，编译失败时返回null（该算法在依赖图中作为屏障）
+     */
+    private Set<String> referencedVariables(String expression) {
+        try {
+            return qlExpressService.getReferencedVariables(expression);
+        } catch (Exception e) {
+            log.warn("解析表达式变量失败, 按顺序执行: expression={}, error={}", expression, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 按依赖图执行算法
+     *
+     * 图的每一层内算法互不依赖：先计算本层所有算法在所有地区的结果（只读上下文），
+     * 全部完成后再写回上下文，然后进入下一层。特殊标记算法因此总能看到完整的输入列，
+     * 并在输入列完成后的下一层立即执行；串行与并行模式的结果因此一致。
+     * 并行模式下计算与写回都按地区分片提交到线程池（每个地区只由一个线程写入）；
+     * 非并行模式下同一层的多个算法各作为一个任务提交到线程池（每个任务按顺序计算全部地区），
+     * 写回在当前线程完成。输出参数按算法顺序预先占位。
+     */
+    private void executeAlgorithmGraph(String stepCode, AlgorithmDependencyGraph graph,
+                                       Map<String, InstructionSet> compiled, List<String> regionCodes, boolean parallel,
+                                       Map<String, Map<String, Object>> allRegionContexts,
+                                       Map<String, Map<String, Object>> regionResults,
+                                       Map<String, String> outputToAlgorithmName,
+                                       ColumnStatisticsCache statsCache, ExecutionProgressListener listener,
+                                       IncrementalExecution.StepTracker tracker,
+                                       List<ExecutionMetrics.AlgorithmTimer> nodeTimers) {
+        List<AlgorithmDependencyGraph.Node> nodes = graph.getNodes();
+        List<Set<String>> nodeReads = new ArrayList<>();
+        InstructionSet[] nodeInstructions = new InstructionSet[nodes.size()];
+        for (AlgorithmDependencyGraph.Node node : nodes) {
+            nodeReads.add(tracker != null ? algorithmReads(node.getExpression()) : null);
+            nodeInstructions[node.getIndex()] = compiled.get(node.getExpression());
+        }
+        for (String regionCode : regionCodes) {
+            Map<String, Object> outputs = new LinkedHashMap<>();
+            for (AlgorithmDependencyGraph.Node node : nodes) {
+                if (node.getOutputParam() != null) {
+                    outputs.put(node.getOutputParam(), null);
+                }
+            }
+            regionResults.put(regionCode, outputs);
+        }
+        for (AlgorithmDependencyGraph.Node node : nodes) {
+            if (node.getOutputParam() != null) {
+                outputToAlgorithmName.put(node.getOutputParam(), node.getName());
+            }
+        }
+        log.info("步骤 {} 按依赖图执行: 并行={}, 算法={}, 层数={}, 地区={}", stepCode, parallel, nodes.size(),
+                graph.getLevels().size(), regionCodes.size());
+
+        List<List<AlgorithmDependencyGraph.Node>> levels = graph.getLevels();
+        for (int levelIndex = 0; levelIndex < levels.size(); levelIndex++) {
+            List<AlgorithmDependencyGraph.Node> level = levels.get(levelIndex);
+            // 地区进度按最后一层的完成情况报告
+            AtomicInteger completed = levelIndex == levels.size() - 1 ? new AtomicInteger() : null;
+            Object[][] results = new Object[level.size()][regionCodes.size()];
+            boolean[][] reused = new boolean[level.size()][regionCodes.size()];
+            BiConsumer<Integer, Integer> compute = (k, i) -> {
+                AlgorithmDependencyGraph.Node node = level.get(k);
+                String regionCode = regionCodes.get(i);
+                if (tracker != null && tracker.canReuse(regionCode, node.getOutputParam(),
+                        nodeReads.get(node.getIndex()), node.isMarker())) {
+                    results[k][i] = tracker.previousValue(regionCode, node.getOutputParam());
+                    reused[k][i] = true;
+                } else {
+                    results[k][i] = executeNode(node, nodeInstructions[node.getIndex()], regionCode,
+                            allRegionContexts.get(regionCode), allRegionContexts, statsCache,
+                            nodeTimers.get(node.getIndex()));
+                }
+            };
+            if (!parallel && level.size() > 1 && regionExecutionPool != null) {
+                // 同层算法互不依赖，各算法并发计算全部地区
+                runPartitions(level.size(), level.size(), k -> {
+                    for (int i = 0; i < regionCodes.size(); i++) {
+                        checkCancelled(listener);
+                        compute.accept(k, i);
+                    }
+                });
+                if (completed != null) {
+                    listener.onRegionProgress(stepCode, regionCodes.size(), regionCodes.size());
+                }
+            } else {
+                forEachRegion(parallel, regionCodes.size(), i -> {
+                    checkCancelled(listener);
+                    for (int k = 0; k < level.size(); k++) {
+                        compute.accept(k, i);
+                    }
+                    if (completed != null) {
+                        listener.onRegionProgress(stepCode, completed.incrementAndGet(), regionCodes.size());
+                    }
+                });
             }
+            forEachRegion(parallel, regionCodes.size(), i -> {
+                String regionCode = regionCodes.get(i);
+                Map<String, Object> regionContext = allRegionContexts.get(regionCode);
+                Map<String, Object> algorithmOutputs = regionResults.get(regionCode);
+                for (int k = 0; k < level.size(); k++) {
+                    String outputParam = level.get(k).getOutputParam();
+                    if (outputParam != null) {
+                        regionContext.put(outputParam, results[k][i]);
+                        algorithmOutputs.put(outputParam, results[k][i]);
+                        if (tracker != null) {
+                            tracker.record(regionCode, outputParam, results[k][i], !reused[k][i]);
+                        }
+                    }
+                }
+            });
+            for (AlgorithmDependencyGraph.Node node : level) {
+                statsCache.invalidate(node.getOutputParam());
+            }
+        }
+    }
+
+    /**
+     * 在一个地区上执行依赖图中的一个算法（标准表达式或特殊标记），数值结果保留8位小数
+     */
+    private Object executeNode(AlgorithmDependencyGraph.Node node, InstructionSet instructionSet, String regionCode,
+                               Map<String, Object> regionContext, Map<String, Map<String, Object>> allRegionContexts,
+                               ColumnStatisticsCache statsCache, ExecutionMetrics.AlgorithmTimer timer) {
+        long start = System.nanoTime();
+        try {
+            Object result;
+            String expression = node.getExpression();
+            if (node.isMarker()) {
+                String[] parts = expression.substring(1).split(":", 2);
+                result = specialAlgorithmService.executeSpecialAlgorithm(parts[0], parts.length > 1 ? parts[1] : "",
+                        regionCode, regionContext, allRegionContexts, statsCache);
+            } else {
+                result = executeExpression(expression, instructionSet, regionContext);
+            }
+            timer.record(System.nanoTime() - start, true);
+            return result instanceof Number ? ResultRounding.round8(((Number) result).doubleValue()) : result;
+        } catch (Exception e) {
+            timer.record(System.nanoTime() - start, false);
+            log.error("算法 {} 执行失败: {}", node.getName(), e.getMessage(), e);
+            throw new RuntimeException("算法 " + node.getName() + " 执行失败: " + e.getMessage(), e);
         }
     }
 
     /**
-     * 鍔犺浇鍓嶉潰姝ラ鐨勮緭鍑虹粨鏋滃埌褰撳墠鍖哄煙涓婁笅鏂?
-     * 浠?globalContext 涓彁鍙栧墠闈㈡楠ょ殑 regionResults锛屽苟灏嗗綋鍓嶅尯鍩熺殑杈撳嚭鍊兼坊鍔犲埌涓婁笅鏂?
+     * 对每个地区序号执行 body：并行模式分片提交到线程池，否则在当前线程按顺序执行
+     */
+    private void forEachRegion(boolean parallel, int regionCount, IntConsumer body) {
+        if (parallel) {
+            runPartitions(regionCount, regionExecutionPool.getParallelism() * 4, body);
+            return;
+        }
+        for (int i = 0; i < regionCount; i++) {
+            body.accept(i);
+        }
+    }
+
+    /**
+     * 将序号（地区或同层算法）按连续区间分成最多 maxChunks 片提交到线程池，等待全部完成后返回（屏障）。
+     * 多个分片失败时抛出序号最小的分片中的异常，保证报错结果确定。
+     */
+    private void runPartitions(int count, int maxChunks, IntConsumer body) {
+        int chunks = Math.min(count, maxChunks);
+        int chunkSize = (count + chunks - 1) / chunks;
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int start = 0; start < count; start += chunkSize) {
+            final int from = start;
+            final int to = Math.min(start + chunkSize, count);
+            tasks.add(() -> {
+                for (int i = from; i < to; i++) {
+                    body.accept(i);
+                }
+                return null;
+            });
+        }
+
+        List<Future<Void>> futures = regionExecutionPool.invokeAll(tasks);
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("并行执行被中断", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause.getMessage(), cause);
+            }
+        }
+    }
+
+    /**
+     * 步骤开始时预编译标准QLExpress表达式（特殊标记 @MARKER 不经过QLExpress），
+     * 返回的编译结果在整个步骤内直接使用
+     *
+     * @return 表达式 -> 编译结果，编译失败的表达式不在其中
+     */
+    private Map<String, InstructionSet> precompileExpressions(String stepCode, Collection<String> expressions) {
+        List<String> standardExpressions = new ArrayList<>();
+        for (String expression : expressions) {
+            if (expression != null && !expression.startsWith("@")) {
+                standardExpressions.add(expression);
+            }
+        }
+        if (standardExpressions.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, InstructionSet> compiled = qlExpressService.precompile(standardExpressions);
+        log.debug("步骤 {} 预编译表达式 {}/{} 个, 缓存统计: {}", stepCode, compiled.size(),
+                standardExpressions.size(), qlExpressService.getCacheStats());
+        return compiled;
+    }
+
+    /**
+     * 执行标准表达式：有预编译结果时直接执行，否则（预编译失败）按表达式文本执行以报告原始错误
+     */
+    private Object executeExpression(String expression, InstructionSet instructionSet,
+                                     Map<String, Object> regionContext) throws Exception {
+        return instructionSet != null
+                ? qlExpressService.execute(instructionSet, regionContext)
+                : qlExpressService.execute(expression, regionContext);
+    }
+
+    /**
+     * 获取执行期共享的地区数据快照，不存在时创建并放入上下文
+     */
+    private RegionDataSnapshot getRegionDataSnapshot(Map<String, Object> context) {
+        Object snapshot = context.get(RegionDataLoader.CONTEXT_KEY);
+        if (snapshot instanceof RegionDataSnapshot) {
+            return (RegionDataSnapshot) snapshot;
+        }
+        RegionDataSnapshot created = new RegionDataSnapshot();
+        context.put(RegionDataLoader.CONTEXT_KEY, created);
+        return created;
+    }
+
+    /**
+     * 按模型对应的数据源批量预加载地区数据
+     * 社区模型(modelId=4)和社区-乡镇模型(modelId=8)使用社区表，其余使用survey_data
+     */
+    private void preloadRegionData(RegionDataSnapshot regionData, Long modelId, List<String> regionCodes) {
+        if (modelId != null && (modelId == 4 || modelId == 8)) {
+            regionDataLoader.ensureCommunityData(regionData, regionCodes);
+        } else {
+            regionDataLoader.ensureSurveyData(regionData, regionCodes);
+        }
+    }
+
+    /**
+     * 加载前面步骤的输出结果到当前区域上下文
+     * 从 globalContext 中提取前面步骤的 regionResults，并将当前区域的输出值添加到上下文
      */
     private void loadPreviousStepOutputs(Map<String, Object> regionContext, String regionCode, Map<String, Object> globalContext) {
-        // 閬嶅巻 globalContext 涓墍鏈変互 "step_" 寮€澶寸殑鏉＄洰
+        // 遍历 globalContext 中所有以 "step_" 开头的条目
         for (Map.Entry<String, Object> entry : globalContext.entrySet()) {
             if (entry.getKey().startsWith("step_") && entry.getValue() instanceof Map) {
                 @SuppressWarnings("unchecked")
                 Map<String, Object> stepResult = (Map<String, Object>) entry.getValue();
                 
-                // 鑾峰彇璇ユ楠ょ殑 regionResults
+                // 获取该步骤的 regionResults
                 Object regionResultsObj = stepResult.get("regionResults");
                 if (regionResultsObj instanceof Map) {
                     @SuppressWarnings("unchecked")
                     Map<String, Map<String, Object>> regionResults = (Map<String, Map<String, Object>>) regionResultsObj;
                     
-                    // 鑾峰彇褰撳墠鍖哄煙鐨勮緭鍑?
+                    // 获取当前区域的输出
                     Map<String, Object> currentRegionOutputs = regionResults.get(regionCode);
                     if (currentRegionOutputs != null) {
-                        // 灏嗗綋鍓嶅尯鍩熺殑鎵€鏈夎緭鍑哄彉閲忔坊鍔犲埌涓婁笅鏂?
+                        // 将当前区域的所有输出变量添加到上下文
                         for (Map.Entry<String, Object> output : currentRegionOutputs.entrySet()) {
                             regionContext.put(output.getKey(), output.getValue());
-                            log.debug("浠庡墠闈㈡楠ゅ姞杞藉彉閲? {}={}", output.getKey(), output.getValue());
+                            log.debug("从前面步骤加载变量: {}={}", output.getKey(), output.getValue());
                         }
                     }
                 }
@@ -622,11 +1114,11 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
     }
     
     /**
-     * 灏嗚皟鏌ユ暟鎹坊鍔犲埌涓婁笅鏂?
-     * 鍚屾椂娣诲姞椹煎嘲鍛藉悕鍜屼笅鍒掔嚎鍛藉悕锛屼互鏀寔涓嶅悓鐨勮〃杈惧紡椋庢牸
+     * 将调查数据添加到上下文
+     * 同时添加驼峰命名和下划线命名，以支持不同的表达式风格
      */
     private void addSurveyDataToContext(Map<String, Object> context, SurveyData surveyData) {
-        // 鍦板尯淇℃伅
+        // 地区信息
         context.put("regionCode", surveyData.getRegionCode());
         context.put("region_code", surveyData.getRegionCode());
         context.put("province", surveyData.getProvince());
@@ -634,63 +1126,63 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
         context.put("county", surveyData.getCounty());
         context.put("township", surveyData.getTownship());
         
-        // 浜哄彛鏁版嵁锛堥┘宄板拰涓嬪垝绾夸袱绉嶅懡鍚嶏級
+        // 人口数据（驼峰和下划线两种命名）
         context.put("population", surveyData.getPopulation());
         
-        // 绠＄悊浜哄憳锛堥┘宄板拰涓嬪垝绾夸袱绉嶅懡鍚嶏級
+        // 管理人员（驼峰和下划线两种命名）
         context.put("managementStaff", surveyData.getManagementStaff());
         context.put("management_staff", surveyData.getManagementStaff());
         
-        // 椋庨櫓璇勪及锛堥┘宄板拰涓嬪垝绾夸袱绉嶅懡鍚嶏級
+        // 风险评估（驼峰和下划线两种命名）
         String riskAssessmentValue = surveyData.getRiskAssessment();
-        // 鏍囧噯鍖栭闄╄瘎浼板€硷細濡傛灉鍊兼槸"浣?銆?涓?銆?楂?锛岃浆鎹负"鏄?锛屼互鍖归厤绠楁硶琛ㄨ揪寮?
+        // 标准化风险评估值：如果值是"低"、"中"、"高"，转换为"是"，以匹配算法表达式
         String normalizedRiskAssessment = riskAssessmentValue;
         if (riskAssessmentValue != null &&
-            (riskAssessmentValue.equals("浣?) ||
-             riskAssessmentValue.equals("涓?) ||
-             riskAssessmentValue.equals("楂?))) {
-            normalizedRiskAssessment = "鏄?;
+            (riskAssessmentValue.equals("低") ||
+             riskAssessmentValue.equals("中") ||
+             riskAssessmentValue.equals("高"))) {
+            normalizedRiskAssessment = "是";
         }
 
         context.put("riskAssessment", normalizedRiskAssessment);
         context.put("risk_assessment", normalizedRiskAssessment);
-        context.put("鏄惁寮€灞曢闄╄瘎浼?, normalizedRiskAssessment);  // 涓枃鍙橀噺鍚?
+        context.put("是否开展风险评估", normalizedRiskAssessment);  // 中文变量名
         
-        // 璧勯噾鎶曞叆锛堥┘宄板拰涓嬪垝绾夸袱绉嶅懡鍚嶏級
+        // 资金投入（驼峰和下划线两种命名）
         context.put("fundingAmount", surveyData.getFundingAmount());
         context.put("funding_amount", surveyData.getFundingAmount());
         
-        // 鐗╄祫鍌ㄥ锛堥┘宄板拰涓嬪垝绾夸袱绉嶅懡鍚嶏級
+        // 物资储备（驼峰和下划线两种命名）
         context.put("materialValue", surveyData.getMaterialValue());
         context.put("material_value", surveyData.getMaterialValue());
         
-        // 鍖婚櫌搴婁綅锛堥┘宄板拰涓嬪垝绾夸袱绉嶅懡鍚嶏級
+        // 医院床位（驼峰和下划线两种命名）
         context.put("hospitalBeds", surveyData.getHospitalBeds());
         context.put("hospital_beds", surveyData.getHospitalBeds());
         
-        // 娑堥槻鍛橈紙椹煎嘲鍜屼笅鍒掔嚎涓ょ鍛藉悕锛?
+        // 消防员（驼峰和下划线两种命名）
         context.put("firefighters", surveyData.getFirefighters());
         
-        // 蹇楁効鑰咃紙椹煎嘲鍜屼笅鍒掔嚎涓ょ鍛藉悕锛?
+        // 志愿者（驼峰和下划线两种命名）
         context.put("volunteers", surveyData.getVolunteers());
         
-        // 姘戝叺棰勫褰癸紙椹煎嘲鍜屼笅鍒掔嚎涓ょ鍛藉悕锛?
+        // 民兵预备役（驼峰和下划线两种命名）
         context.put("militiaReserve", surveyData.getMilitiaReserve());
         context.put("militia_reserve", surveyData.getMilitiaReserve());
         
-        // 鍩硅鍙備笌鑰咃紙椹煎嘲鍜屼笅鍒掔嚎涓ょ鍛藉悕锛?
+        // 培训参与者（驼峰和下划线两种命名）
         context.put("trainingParticipants", surveyData.getTrainingParticipants());
         context.put("training_participants", surveyData.getTrainingParticipants());
         
-        // 閬块毦鎵€瀹归噺锛堥┘宄板拰涓嬪垝绾夸袱绉嶅懡鍚嶏級
+        // 避难所容量（驼峰和下划线两种命名）
         context.put("shelterCapacity", surveyData.getShelterCapacity());
         context.put("shelter_capacity", surveyData.getShelterCapacity());
     }
 
     /**
-     * 閫氱敤鏂规硶锛氬皢Map鏁版嵁娣诲姞鍒颁笂涓嬫枃
-     * 鏁版嵁搴撳瓧娈靛悕鐩存帴浣滀负鍙橀噺鍚嶏紝鏃犻渶鎵嬪姩鏄犲皠
-     * 鎵€鏈夋暟鍊肩被鍨嬭浆鎹负Double锛岄伩鍏嶆暣鏁伴櫎娉曠簿搴︿涪澶?
+     * 通用方法：将Map数据添加到上下文
+     * 数据库字段名直接作为变量名，无需手动映射
+     * 所有数值类型转换为Double，避免整数除法精度丢失
      */
     private void addMapDataToContext(Map<String, Object> context, Map<String, Object> dataMap) {
         if (dataMap == null || dataMap.isEmpty()) {
@@ -701,12 +1193,12 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             String key = entry.getKey();
             Object value = entry.getValue();
 
-            // 璺宠繃鏃堕棿瀛楁鍜孖D瀛楁
+            // 跳过时间字段和ID字段
             if ("create_time".equals(key) || "update_time".equals(key) || "id".equals(key)) {
                 continue;
             }
 
-            // 杞崲鏁板€肩被鍨嬩负Double锛岄伩鍏嶆暣鏁伴櫎娉曠簿搴︿涪澶?
+            // 转换数值类型为Double，避免整数除法精度丢失
             Object contextValue = value;
             if (value != null) {
                 if (value instanceof Integer) {
@@ -720,21 +1212,21 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
                 }
             }
 
-            // 鐩存帴浣跨敤鏁版嵁搴撳瓧娈靛悕浣滀负涓婁笅鏂囧彉閲忓悕
+            // 直接使用数据库字段名作为上下文变量名
             context.put(key, contextValue);
         }
 
-        log.debug("鎴愬姛灏?{} 涓暟鎹簱瀛楁娣诲姞鍒颁笂涓嬫枃", dataMap.size());
+        log.debug("成功将 {} 个数据库字段添加到上下文", dataMap.size());
     }
 
     /**
-     * 灏嗙ぞ鍖烘暟鎹坊鍔犲埌涓婁笅鏂囷紙宸插簾寮冿紝浣跨敤addMapDataToContext鏇夸唬锛?
-     * 鎵€鏈夋暟鍊肩被鍨嬭浆鎹负Double锛岄伩鍏嶆暣鏁伴櫎娉曠簿搴︿涪澶?
-     * @deprecated 浣跨敤selectMaps鏌ヨ鍜宎ddMapDataToContext鏂规硶鏇夸唬
+     * 将社区数据添加到上下文（已废弃，使用addMapDataToContext替代）
+     * 所有数值类型转换为Double，避免整数除法精度丢失
+     * @deprecated 使用selectMaps查询和addMapDataToContext方法替代
      */
     @Deprecated
     private void addCommunityDataToContext(Map<String, Object> context, CommunityDisasterReductionCapacity communityData) {
-        // 鍦板尯淇℃伅
+        // 地区信息
         context.put("regionCode", communityData.getRegionCode());
         context.put("region_code", communityData.getRegionCode());
         context.put("province", communityData.getProvinceName());
@@ -743,56 +1235,56 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
         context.put("township", communityData.getTownshipName());
         context.put("community", communityData.getCommunityName());
 
-        // 浜哄彛鏁版嵁锛堣浆鎹负Double锛?
+        // 人口数据（转换为Double）
         context.put("population", communityData.getResidentPopulation() != null ? communityData.getResidentPopulation().doubleValue() : 0.0);
         context.put("residentPopulation", communityData.getResidentPopulation() != null ? communityData.getResidentPopulation().doubleValue() : 0.0);
 
-        // 椋庨櫓璇勪及鐩稿叧锛?涓槸/鍚﹂棶棰橈級
+        // 风险评估相关（4个是/否问题）
         context.put("hasEmergencyPlan", communityData.getHasEmergencyPlan());
         context.put("hasVulnerableGroupsList", communityData.getHasVulnerableGroupsList());
         context.put("hasDisasterPointsList", communityData.getHasDisasterPointsList());
         context.put("hasDisasterMap", communityData.getHasDisasterMap());
 
-        // 璧勯噾鎶曞叆锛堣浆鎹负Double锛?
+        // 资金投入（转换为Double）
         Double fundingAmount = communityData.getLastYearFundingAmount() != null ? communityData.getLastYearFundingAmount().doubleValue() : 0.0;
         context.put("fundingAmount", fundingAmount);
         context.put("funding_amount", fundingAmount);
         context.put("lastYearFundingAmount", fundingAmount);
 
-        // 鐗╄祫鍌ㄥ锛堣浆鎹负Double锛?
+        // 物资储备（转换为Double）
         Double materialValue = communityData.getMaterialsEquipmentValue() != null ? communityData.getMaterialsEquipmentValue().doubleValue() : 0.0;
         context.put("materialValue", materialValue);
         context.put("material_value", materialValue);
         context.put("materialsEquipmentValue", materialValue);
 
-        // 鍖荤枟鏈嶅姟锛堣浆鎹负Double锛?
+        // 医疗服务（转换为Double）
         Double medicalServiceCount = communityData.getMedicalServiceCount() != null ? communityData.getMedicalServiceCount().doubleValue() : 0.0;
         context.put("medicalServiceCount", medicalServiceCount);
         context.put("medical_service_count", medicalServiceCount);
 
-        // 姘戝叺棰勫褰癸紙杞崲涓篋ouble锛?
+        // 民兵预备役（转换为Double）
         Double militiaReserve = communityData.getMilitiaReserveCount() != null ? communityData.getMilitiaReserveCount().doubleValue() : 0.0;
         context.put("militiaReserve", militiaReserve);
         context.put("militia_reserve", militiaReserve);
         context.put("militiaReserveCount", militiaReserve);
 
-        // 蹇楁効鑰咃紙杞崲涓篋ouble锛?
+        // 志愿者（转换为Double）
         Double volunteers = communityData.getRegisteredVolunteerCount() != null ? communityData.getRegisteredVolunteerCount().doubleValue() : 0.0;
         context.put("volunteers", volunteers);
         context.put("registeredVolunteerCount", volunteers);
 
-        // 鍩硅鍙備笌鑰咃紙杞崲涓篋ouble锛?
+        // 培训参与者（转换为Double）
         Double trainingParticipants = communityData.getLastYearTrainingParticipants() != null ? communityData.getLastYearTrainingParticipants().doubleValue() : 0.0;
         context.put("trainingParticipants", trainingParticipants);
         context.put("training_participants", trainingParticipants);
         context.put("lastYearTrainingParticipants", trainingParticipants);
 
-        // 婕旂粌鍙備笌鑰咃紙杞崲涓篋ouble锛?
+        // 演练参与者（转换为Double）
         Double drillParticipants = communityData.getLastYearDrillParticipants() != null ? communityData.getLastYearDrillParticipants().doubleValue() : 0.0;
         context.put("drillParticipants", drillParticipants);
         context.put("lastYearDrillParticipants", drillParticipants);
 
-        // 閬块毦鎵€瀹归噺锛堣浆鎹负Double锛?
+        // 避难所容量（转换为Double）
         Double shelterCapacity = communityData.getEmergencyShelterCapacity() != null ? communityData.getEmergencyShelterCapacity().doubleValue() : 0.0;
         context.put("shelterCapacity", shelterCapacity);
         context.put("shelter_capacity", shelterCapacity);
@@ -800,20 +1292,20 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
     }
 
     /**
-     * 鎵ц绠楁硶鐨勫崟涓楠ゅ苟杩斿洖2D琛ㄦ牸缁撴灉
+     * 执行算法的单个步骤并返回2D表格结果
      *
-     * @param algorithmId 绠楁硶ID锛堝搴攁lgorithm_config琛級
-     * @param stepOrder 姝ラ椤哄簭锛堜粠1寮€濮嬶級
-     * @param regionCodes 鍦板尯浠ｇ爜鍒楄〃
-     * @param weightConfigId 鏉冮噸閰嶇疆ID
-     * @return 姝ラ鎵ц缁撴灉锛屽寘鍚?D琛ㄦ牸鏁版嵁
+     * @param algorithmId 算法ID（对应algorithm_config表）
+     * @param stepOrder 步骤顺序（从1开始）
+     * @param regionCodes 地区代码列表
+     * @param weightConfigId 权重配置ID
+     * @return 步骤执行结果，包含2D表格数据
      */
     @Override
     public Map<String, Object> executeAlgorithmStep(Long algorithmId, Integer stepOrder, List<String> regionCodes, Long weightConfigId) {
-        log.info("鎵ц绠楁硶姝ラ, algorithmId={}, stepOrder={}, regionCodes.size={}", algorithmId, stepOrder, regionCodes.size());
+        log.info("执行算法步骤, algorithmId={}, stepOrder={}, regionCodes.size={}", algorithmId, stepOrder, regionCodes.size());
 
         try {
-            // 1. 鑾峰彇绠楁硶閰嶇疆鐨勬墍鏈夋楠?
+            // 1. 获取算法配置的所有步骤
             QueryWrapper<AlgorithmStep> stepQuery = new QueryWrapper<>();
             stepQuery.eq("algorithm_config_id", algorithmId)
                     .eq("status", 1)
@@ -821,39 +1313,39 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             List<AlgorithmStep> algorithmSteps = algorithmStepMapper.selectList(stepQuery);
 
             if (algorithmSteps.isEmpty()) {
-                throw new RuntimeException("绠楁硶閰嶇疆娌℃湁鎵惧埌浠讳綍姝ラ");
+                throw new RuntimeException("算法配置没有找到任何步骤");
             }
 
-            // 2. 鎵惧埌鎸囧畾椤哄簭鐨勬楠?
+            // 2. 找到指定顺序的步骤
             AlgorithmStep targetStep = algorithmSteps.stream()
                     .filter(step -> stepOrder.equals(step.getStepOrder()))
                     .findFirst()
-                    .orElseThrow(() -> new RuntimeException("鏈壘鍒版楠ら『搴忎负 " + stepOrder + " 鐨勭畻娉曟楠?));
+                    .orElseThrow(() -> new RuntimeException("未找到步骤顺序为 " + stepOrder + " 的算法步骤"));
 
-            // 3. 濡傛灉涓嶆槸绗竴姝ワ紝闇€瑕佸厛鎵ц鍓嶉潰鐨勬墍鏈夋楠ゆ潵鑾峰彇渚濊禆鏁版嵁
+            // 3. 如果不是第一步，需要先执行前面的所有步骤来获取依赖数据
             Map<String, Object> globalContext = new HashMap<>();
             globalContext.put("algorithmId", algorithmId);
             globalContext.put("regionCodes", regionCodes);
             globalContext.put("weightConfigId", weightConfigId);
 
-            // 鍔犺浇鍩虹鏁版嵁
+            // 加载基础数据
             loadBaseDataToContext(globalContext, regionCodes, weightConfigId);
 
-            // 濡傛灉涓嶆槸绗竴姝ワ紝鎵ц鍓嶉潰鐨勬墍鏈夋楠?
+            // 如果不是第一步，执行前面的所有步骤
             if (stepOrder > 1) {
                 executeAlgorithmStepsInternalUpTo(algorithmSteps, stepOrder - 1, regionCodes, globalContext);
             }
 
-            // 4. 鎵ц鐩爣姝ラ
+            // 4. 执行目标步骤
             Map<String, Object> stepExecutionResult = executeAlgorithmStepInternal(targetStep, regionCodes, globalContext);
 
-        // 5. 鐢熸垚璇ユ楠ょ殑2D琛ㄦ牸鏁版嵁
+        // 5. 生成该步骤的2D表格数据
         List<Map<String, Object>> tableData = generateStepResultTable(stepExecutionResult, regionCodes);
 
-        // 鐢熸垚 columns 鏁扮粍锛堝寘鍚?stepOrder 淇℃伅锛?
+        // 生成 columns 数组（包含 stepOrder 信息）
         List<Map<String, Object>> columns = generateColumnsWithStepOrder(tableData, stepOrder);
 
-        // 6. 鏋勫缓杩斿洖缁撴灉
+        // 6. 构建返回结果
         Map<String, Object> result = new HashMap<>();
         result.put("stepId", targetStep.getId());
         result.put("stepName", targetStep.getStepName());
@@ -866,40 +1358,54 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
         result.put("success", true);
         result.put("executionTime", new Date());
 
-            log.info("绠楁硶姝ラ {} 鎵ц瀹屾垚锛岀敓鎴?{} 琛岃〃鏍兼暟鎹?, stepOrder, tableData.size());
+            log.info("算法步骤 {} 执行完成，生成 {} 行表格数据", stepOrder, tableData.size());
             return result;
 
         } catch (Exception e) {
-            log.error("鎵ц绠楁硶姝ラ澶辫触", e);
-            throw new RuntimeException("鎵ц绠楁硶姝ラ澶辫触: " + e.getMessage(), e);
+            log.error("执行算法步骤失败", e);
+            throw new RuntimeException("执行算法步骤失败: " + e.getMessage(), e);
         }
     }
 
     /**
-     * 鑾峰彇绠楁硶鎵€鏈夋楠ょ殑鍩烘湰淇℃伅
+     * 获取算法所有步骤的基本信息
      *
-     * @param algorithmId 绠楁硶ID
-     * @return 绠楁硶姝ラ鍒楄〃淇℃伅
+     * @param algorithmId 算法ID
+     * @return 算法步骤列表信息
      */
     @Override
     public Map<String, Object> getAlgorithmStepsInfo(Long algorithmId) {
-        log.info("鑾峰彇绠楁硶姝ラ淇℃伅, algorithmId={}", algorithmId);
+        log.info("获取算法步骤信息, algorithmId={}", algorithmId);
 
         try {
-            // 鑾峰彇绠楁硶閰嶇疆
+            // 获取算法配置
             AlgorithmConfig algorithmConfig = algorithmConfigMapper.selectById(algorithmId);
             if (algorithmConfig == null) {
-                throw new RuntimeException("绠楁硶閰嶇疆涓嶅瓨鍦?);
+                throw new RuntimeException("算法配置不存在");
             }
 
-            // 鑾峰彇鎵€鏈夋楠?
+            // 获取所有步骤
             QueryWrapper<AlgorithmStep> stepQuery = new QueryWrapper<>();
             stepQuery.eq("algorithm_config_id", algorithmId)
                     .eq("status", 1)
                     .orderByAsc("step_order");
             List<AlgorithmStep> algorithmSteps = algorithmStepMapper.selectList(stepQuery);
 
-            // 杞崲涓虹畝鍖栦俊鎭?
+            // 一次查询所有步骤的公式，用于构建各步骤的依赖图
+            Map<String, List<FormulaConfig>> formulasByStep = new HashMap<>();
+            if (!algorithmSteps.isEmpty()) {
+                QueryWrapper<FormulaConfig> formulaQuery = new QueryWrapper<>();
+                formulaQuery.in("algorithm_step_id", algorithmSteps.stream()
+                                .map(step -> step.getId().toString())
+                                .collect(Collectors.toList()))
+                        .eq("status", 1)
+                        .orderByAsc("id");
+                for (FormulaConfig formula : formulaConfigMapper.selectList(formulaQuery)) {
+                    formulasByStep.computeIfAbsent(formula.getAlgorithmStepId(), k -> new ArrayList<>()).add(formula);
+                }
+            }
+
+            // 转换为简化信息
             List<Map<String, Object>> stepsInfo = algorithmSteps.stream().map(step -> {
                 Map<String, Object> stepInfo = new HashMap<>();
                 stepInfo.put("stepId", step.getId());
@@ -908,6 +1414,13 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
                 stepInfo.put("stepCode", step.getStepCode());
                 stepInfo.put("description", step.getStepDescription());
                 stepInfo.put("status", step.getStatus());
+
+                // 公式依赖图（DAG）与关键路径，用于调优并行执行
+                AlgorithmDependencyGraph graph = newAlgorithmGraph();
+                for (FormulaConfig formula : formulasByStep.getOrDefault(step.getId().toString(), Collections.emptyList())) {
+                    graph.add(formula.getFormulaName(), formula.getFormulaExpression(), formula.getOutputVariable());
+                }
+                stepInfo.put("dependencyGraph", graph.describe());
                 return stepInfo;
             }).collect(Collectors.toList());
 
@@ -919,30 +1432,36 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             result.put("steps", stepsInfo);
             result.put("success", true);
 
-            log.info("鑾峰彇绠楁硶姝ラ淇℃伅瀹屾垚锛屽叡 {} 涓楠?, stepsInfo.size());
+            log.info("获取算法步骤信息完成，共 {} 个步骤", stepsInfo.size());
             return result;
 
         } catch (Exception e) {
-            log.error("鑾峰彇绠楁硶姝ラ淇℃伅澶辫触", e);
-            throw new RuntimeException("鑾峰彇绠楁硶姝ラ淇℃伅澶辫触: " + e.getMessage(), e);
+            log.error("获取算法步骤信息失败", e);
+            throw new RuntimeException("获取算法步骤信息失败: " + e.getMessage(), e);
         }
     }
 
     /**
-     * 鎵归噺鎵ц绠楁硶姝ラ锛堢洿鍒版寚瀹氭楠わ級
+     * 批量执行算法步骤（直到指定步骤）
      *
-     * @param algorithmId 绠楁硶ID
-     * @param upToStepOrder 鎵ц鍒扮鍑犳锛堝寘鍚姝ラ锛?
-     * @param regionCodes 鍦板尯浠ｇ爜鍒楄〃
-     * @param weightConfigId 鏉冮噸閰嶇疆ID
-     * @return 鎵€鏈夊凡鎵ц姝ラ鐨勭粨鏋?
+     * @param algorithmId 算法ID
+     * @param upToStepOrder 执行到第几步（包含该步骤）
+     * @param regionCodes 地区代码列表
+     * @param weightConfigId 权重配置ID
+     * @return 所有已执行步骤的结果
      */
     @Override
     public Map<String, Object> executeAlgorithmStepsUpTo(Long algorithmId, Integer upToStepOrder, List<String> regionCodes, Long weightConfigId) {
-        log.info("鎵归噺鎵ц绠楁硶姝ラ鍒扮{}姝? algorithmId={}", upToStepOrder, algorithmId);
+        return executeAlgorithmStepsUpTo(algorithmId, upToStepOrder, regionCodes, weightConfigId, null);
+    }
+
+    @Override
+    public Map<String, Object> executeAlgorithmStepsUpTo(Long algorithmId, Integer upToStepOrder, List<String> regionCodes,
+                                                         Long weightConfigId, ExecutionProgressListener listener) {
+        log.info("批量执行算法步骤到第{}步: algorithmId={}", upToStepOrder, algorithmId);
 
         try {
-            // 1. 鑾峰彇绠楁硶閰嶇疆鐨勬墍鏈夋楠?
+            // 1. 获取算法配置的所有步骤
             QueryWrapper<AlgorithmStep> stepQuery = new QueryWrapper<>();
             stepQuery.eq("algorithm_config_id", algorithmId)
                     .eq("status", 1)
@@ -950,29 +1469,32 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             List<AlgorithmStep> algorithmSteps = algorithmStepMapper.selectList(stepQuery);
 
             if (algorithmSteps.isEmpty()) {
-                throw new RuntimeException("绠楁硶閰嶇疆娌℃湁鎵惧埌浠讳綍姝ラ");
+                throw new RuntimeException("算法配置没有找到任何步骤");
             }
 
-            // 2. 楠岃瘉姝ラ椤哄簭
+            // 2. 验证步骤顺序
             boolean hasTargetStep = algorithmSteps.stream()
                     .anyMatch(step -> upToStepOrder.equals(step.getStepOrder()));
             if (!hasTargetStep) {
-                throw new RuntimeException("鏈壘鍒版楠ら『搴忎负 " + upToStepOrder + " 鐨勭畻娉曟楠?);
+                throw new RuntimeException("未找到步骤顺序为 " + upToStepOrder + " 的算法步骤");
             }
 
-            // 3. 鍒濆鍖栦笂涓嬫枃
+            // 3. 初始化上下文
             Map<String, Object> globalContext = new HashMap<>();
             globalContext.put("algorithmId", algorithmId);
             globalContext.put("regionCodes", regionCodes);
             globalContext.put("weightConfigId", weightConfigId);
+            if (listener != null) {
+                globalContext.put(PROGRESS_CONTEXT_KEY, listener);
+            }
 
-            // 鍔犺浇鍩虹鏁版嵁
+            // 加载基础数据
             loadBaseDataToContext(globalContext, regionCodes, weightConfigId);
 
-            // 4. 鎵ц鎵€鏈夋楠ょ洿鍒版寚瀹氭楠?
+            // 4. 执行所有步骤直到指定步骤
             Map<String, Object> allStepResults = executeAlgorithmStepsInternalUpTo(algorithmSteps, upToStepOrder, regionCodes, globalContext);
 
-            // 5. 涓烘瘡涓楠ょ敓鎴?D琛ㄦ牸
+            // 5. 为每个步骤生成2D表格
             Map<String, List<Map<String, Object>>> allTableData = new LinkedHashMap<>();
             for (Map.Entry<String, Object> entry : allStepResults.entrySet()) {
                 String stepKey = entry.getKey();
@@ -984,7 +1506,7 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
                 }
             }
 
-            // 6. 鏋勫缓杩斿洖缁撴灉
+            // 6. 构建返回结果
             Map<String, Object> result = new HashMap<>();
             result.put("algorithmId", algorithmId);
             result.put("executedUpToStep", upToStepOrder);
@@ -993,37 +1515,45 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             result.put("success", true);
             result.put("executionTime", new Date());
 
-            log.info("鎵归噺鎵ц绠楁硶姝ラ瀹屾垚锛屾墽琛屽埌绗瑊}姝?, upToStepOrder);
+            log.info("批量执行算法步骤完成，执行到第{}步", upToStepOrder);
             return result;
 
         } catch (Exception e) {
-            log.error("鎵归噺鎵ц绠楁硶姝ラ澶辫触", e);
-            throw new RuntimeException("鎵归噺鎵ц绠楁硶姝ラ澶辫触: " + e.getMessage(), e);
+            log.error("批量执行算法步骤失败", e);
+            throw new RuntimeException("批量执行算法步骤失败: " + e.getMessage(), e);
         }
     }
 
     /**
-     * 鍐呴儴鏂规硶锛氭墽琛岀畻娉曟楠ょ洿鍒版寚瀹氶『搴?
+     * 内部方法：执行算法步骤直到指定顺序
      */
     private Map<String, Object> executeAlgorithmStepsInternalUpTo(List<AlgorithmStep> algorithmSteps, Integer upToStepOrder, 
                                                                   List<String> regionCodes, Map<String, Object> globalContext) {
         Map<String, Object> stepResults = new HashMap<>();
+        ExecutionProgressListener listener = ExecutionProgressListener.of(globalContext);
+        int stepCount = (int) algorithmSteps.stream().filter(step -> step.getStepOrder() <= upToStepOrder).count();
+        int stepIndex = 0;
         
         for (AlgorithmStep algorithmStep : algorithmSteps) {
             if (algorithmStep.getStepOrder() <= upToStepOrder) {
-                log.info("鎵ц绠楁硶姝ラ: {} - {}, order={}", algorithmStep.getStepCode(), algorithmStep.getStepName(), algorithmStep.getStepOrder());
+                log.info("执行算法步骤: {} - {}, order={}", algorithmStep.getStepCode(), algorithmStep.getStepName(), algorithmStep.getStepOrder());
+                checkCancelled(listener);
+                listener.onStepStarted(algorithmStep.getStepCode(), algorithmStep.getStepName(), stepIndex, stepCount);
                 
                 try {
                     Map<String, Object> stepResult = executeAlgorithmStepInternal(algorithmStep, regionCodes, globalContext);
                     stepResults.put("step_" + algorithmStep.getStepCode(), stepResult);
                     
-                    // 灏嗘楠ょ粨鏋滃悎骞跺埌鍏ㄥ眬涓婁笅鏂囷紙渚涘悗缁楠や娇鐢級
+                    // 将步骤结果合并到全局上下文（供后续步骤使用）
                     globalContext.put("step_" + algorithmStep.getStepCode(), stepResult);
+                    listener.onStepCompleted(algorithmStep.getStepCode(), stepIndex++, stepCount);
                     
-                    log.info("绠楁硶姝ラ {} 鎵ц瀹屾垚", algorithmStep.getStepCode());
+                    log.info("算法步骤 {} 执行完成", algorithmStep.getStepCode());
+                } catch (CancellationException e) {
+                    throw e;
                 } catch (Exception e) {
-                    log.error("绠楁硶姝ラ {} 鎵ц澶辫触: {}", algorithmStep.getStepCode(), e.getMessage(), e);
-                    throw new RuntimeException("绠楁硶姝ラ " + algorithmStep.getStepName() + " 鎵ц澶辫触: " + e.getMessage(), e);
+                    log.error("算法步骤 {} 执行失败: {}", algorithmStep.getStepCode(), e.getMessage(), e);
+                    throw new RuntimeException("算法步骤 " + algorithmStep.getStepName() + " 执行失败: " + e.getMessage(), e);
                 }
             }
         }
@@ -1032,10 +1562,10 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
     }
 
     /**
-     * 鍐呴儴鏂规硶锛氭墽琛屽崟涓畻娉曟楠?
+     * 内部方法：执行单个算法步骤
      */
     private Map<String, Object> executeAlgorithmStepInternal(AlgorithmStep algorithmStep, List<String> regionCodes, Map<String, Object> globalContext) {
-        // 鑾峰彇璇ユ楠ょ殑鎵€鏈夊叕寮忓苟鎸夐『搴忔帓搴?
+        // 获取该步骤的所有公式并按顺序排序
         QueryWrapper<FormulaConfig> formulaQuery = new QueryWrapper<>();
         formulaQuery.eq("algorithm_step_id", algorithmStep.getId().toString())
                 .eq("status", 1)
@@ -1043,121 +1573,81 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
         List<FormulaConfig> formulas = formulaConfigMapper.selectList(formulaQuery);
 
         if (formulas.isEmpty()) {
-            log.warn("绠楁硶姝ラ {} 娌℃湁閰嶇疆鍏紡", algorithmStep.getStepCode());
+            log.warn("算法步骤 {} 没有配置公式", algorithmStep.getStepCode());
             return new HashMap<>();
         }
 
-        // 鍒濆鍖栨楠ょ粨鏋?
+        // 初始化步骤结果
         Map<String, Object> stepResult = new HashMap<>();
         stepResult.put("stepId", algorithmStep.getId());
         stepResult.put("stepName", algorithmStep.getStepName());
         stepResult.put("stepCode", algorithmStep.getStepCode());
 
-        // 绗竴閬嶏細涓烘墍鏈夊湴鍖哄噯澶囦笂涓嬫枃鏁版嵁
+        // 第一遍：为所有地区准备上下文数据
         Map<String, Map<String, Object>> allRegionContexts = new LinkedHashMap<>();
 
-        // 鑾峰彇modelId浠ュ喅瀹氫娇鐢ㄥ摢涓暟鎹簮
+        // 获取modelId以决定使用哪个数据源
         Long modelId = (Long) globalContext.get("modelId");
+        boolean useCommunityData = modelId != null && modelId == 4;
+
+        // 同一次执行内的各算法步骤共享批量加载的源数据
+        RegionDataSnapshot regionData = getRegionDataSnapshot(globalContext);
+        if (useCommunityData) {
+            regionDataLoader.ensureCommunityData(regionData, regionCodes);
+        } else {
+            regionDataLoader.ensureSurveyData(regionData, regionCodes);
+        }
 
         for (String regionCode : regionCodes) {
             Map<String, Object> regionContext = new HashMap<>(globalContext);
             regionContext.put("currentRegionCode", regionCode);
 
-            // 鏍规嵁modelId閫夋嫨涓嶅悓鐨勬暟鎹簮
-            if (modelId != null && modelId == 4) {
-                // 绀惧尯妯″瀷(modelId=4)锛氫粠community_disaster_reduction_capacity琛ㄥ姞杞芥暟鎹?
-                // 浣跨敤selectMaps鐩存帴杩斿洖Map锛宬ey涓烘暟鎹簱瀛楁鍚嶏紝鍙洿鎺ュ尮閰嶇畻娉曡〃杈惧紡涓殑鍙橀噺鍚?
-                QueryWrapper<CommunityDisasterReductionCapacity> communityQuery = new QueryWrapper<>();
-                communityQuery.eq("region_code", regionCode);
-                List<Map<String, Object>> communityDataList = communityDataMapper.selectMaps(communityQuery);
+            // 根据modelId选择不同的数据源
+            if (useCommunityData) {
+                // 社区模型(modelId=4)：从community_disaster_reduction_capacity表加载数据
+                // 使用selectMaps直接返回Map，key为数据库字段名，可直接匹配算法表达式中的变量名
+                Map<String, Object> communityDataMap = regionData.getCommunityRows().get(regionCode);
 
-                if (communityDataList != null && !communityDataList.isEmpty()) {
-                    Map<String, Object> communityDataMap = communityDataList.get(0);
+                if (communityDataMap != null) {
                     addMapDataToContext(regionContext, communityDataMap);
                 }
             } else {
-                // 涔￠晣妯″瀷(modelId=3)锛氫粠survey_data琛ㄥ姞杞芥暟鎹?
-                QueryWrapper<SurveyData> dataQuery = new QueryWrapper<>();
-                dataQuery.eq("region_code", regionCode);
-                SurveyData surveyData = surveyDataMapper.selectOne(dataQuery);
+                // 乡镇模型(modelId=3)：从survey_data表加载数据
+                SurveyData surveyData = regionData.getSurveyRows().get(regionCode);
 
                 if (surveyData != null) {
                     addSurveyDataToContext(regionContext, surveyData);
                 }
             }
 
-            // 鍐嶅姞杞藉墠闈㈡楠ょ殑杈撳嚭缁撴灉锛堣绠楃粨鏋滐級锛岃繖鏍蜂細瑕嗙洊鍘熷鏁版嵁涓殑鍚屽悕瀛楁
+            // 再加载前面步骤的输出结果（计算结果），这样会覆盖原始数据中的同名字段
             loadPreviousStepOutputs(regionContext, regionCode, globalContext);
 
             allRegionContexts.put(regionCode, regionContext);
         }
         
-        // 绗簩閬嶏細涓烘瘡涓湴鍖烘墽琛屽叕寮忥紙鏀寔鐗规畩鏍囪锛?
+        Map<String, InstructionSet> compiled = precompileExpressions(algorithmStep.getStepCode(), formulas.stream()
+                .map(FormulaConfig::getFormulaExpression)
+                .collect(Collectors.toList()));
+
+        // 第二遍：按依赖图执行公式（支持特殊标记）
         Map<String, Map<String, Object>> regionResults = new LinkedHashMap<>();
         Map<String, String> outputToFormulaName = new LinkedHashMap<>();
+        ColumnStatisticsCache statsCache = new ColumnStatisticsCache();
         
-        for (String regionCode : regionCodes) {
-            log.debug("涓哄湴鍖?{} 鎵ц鍏紡", regionCode);
-            Map<String, Object> regionContext = allRegionContexts.get(regionCode);
-            Map<String, Object> formulaOutputs = new LinkedHashMap<>();
-            
-            // 鎸夐『搴忔墽琛屾瘡涓叕寮?
-            for (FormulaConfig formula : formulas) {
-                try {
-                    log.debug("鎵ц鍏紡: {} - {}", formula.getFormulaName(), formula.getFormulaExpression());
-                    
-                    Object result;
-                    String expression = formula.getFormulaExpression();
-                    
-                    // 妫€鏌ユ槸鍚︽槸鐗规畩鏍囪
-                    if (expression != null && expression.startsWith("@")) {
-                        // 瑙ｆ瀽鐗规畩鏍囪: @MARKER:params
-                        String[] parts = expression.substring(1).split(":", 2);
-                        String marker = parts[0];
-                        String params = parts.length > 1 ? parts[1] : "";
-                        
-                        log.info("鎵ц鐗规畩鏍囪鍏紡: marker={}, params={}", marker, params);
-                        
-                        // 璋冪敤鐗规畩绠楁硶鏈嶅姟
-                        result = specialAlgorithmService.executeSpecialAlgorithm(
-                                marker, params, regionCode, regionContext, allRegionContexts);
-                        
-                        // 纭繚鏁板€肩被鍨嬭浆鎹㈠苟鏍煎紡鍖栦负8浣嶅皬鏁?
-                        if (result != null && result instanceof Number) {
-                            double doubleValue = ((Number) result).doubleValue();
-                            result = Double.parseDouble(String.format("%.8f", doubleValue));
-                        }
-                    } else {
-                        // 鎵ц鏍囧噯QLExpress琛ㄨ揪寮?
-                        result = qlExpressService.execute(expression, regionContext);
-                        
-                        // 纭繚鏁板€肩被鍨嬬殑缁撴灉杞崲涓篋ouble骞舵牸寮忓寲涓?浣嶅皬鏁?
-                        if (result != null && result instanceof Number) {
-                            double doubleValue = ((Number) result).doubleValue();
-                            result = Double.parseDouble(String.format("%.8f", doubleValue));
-                        }
-                    }
-                    
-                    // 淇濆瓨鍏紡杈撳嚭鍒颁笂涓嬫枃锛堜緵鍚庣画鍏紡浣跨敤锛?
-                    String outputParam = formula.getOutputVariable();
-                    if (outputParam != null && !outputParam.isEmpty()) {
-                        regionContext.put(outputParam, result);
-                        allRegionContexts.put(regionCode, regionContext);  // 鏇存柊鍏ㄥ眬涓婁笅鏂?
-                        formulaOutputs.put(outputParam, result);
-                        outputToFormulaName.put(outputParam, formula.getFormulaName());
-                    }
-                    
-                    log.debug("鍏紡 {} 鎵ц缁撴灉: {}", formula.getFormulaName(), result);
-                } catch (Exception e) {
-                    log.error("鍏紡 {} 鎵ц澶辫触: {}", formula.getFormulaName(), e.getMessage(), e);
-                    throw new RuntimeException("鍏紡 " + formula.getFormulaName() + " 鎵ц澶辫触: " + e.getMessage(), e);
-                }
-            }
-            
-            regionResults.put(regionCode, formulaOutputs);
+        ExecutionProgressListener listener = ExecutionProgressListener.of(globalContext);
+        AlgorithmDependencyGraph graph = newAlgorithmGraph();
+        for (FormulaConfig formula : formulas) {
+            graph.add(formula.getFormulaName(), formula.getFormulaExpression(), formula.getOutputVariable());
         }
+        executeAlgorithmGraph(algorithmStep.getStepCode(), graph, compiled, regionCodes,
+                isParallelExecution(globalContext) && regionCodes.size() > 1, allRegionContexts,
+                regionResults, outputToFormulaName, statsCache, listener, null,
+                Collections.nCopies(formulas.size(), ExecutionMetrics.AlgorithmTimer.NONE));
         
-        // 淇濆瓨杈撳嚭鍙傛暟鍒板叕寮忓悕绉扮殑鏄犲皠
+        statsCache.clear();
+
+        // 保存输出参数到公式名称的映射
         if (!outputToFormulaName.isEmpty()) {
             stepResult.put("outputToFormulaName", outputToFormulaName);
         }
@@ -1167,7 +1657,7 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
     }
 
     /**
-     * 涓哄崟涓楠ょ敓鎴?D琛ㄦ牸鏁版嵁
+     * 为单个步骤生成2D表格数据
      */
     private List<Map<String, Object>> generateStepResultTable(Map<String, Object> stepResult, List<String> regionCodes) {
         List<Map<String, Object>> tableData = new ArrayList<>();
@@ -1184,16 +1674,18 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             return tableData;
         }
         
-        // 涓烘瘡涓湴鍖虹敓鎴愪竴琛屾暟鎹?
+        // 地区名称批量查询（经地区名称缓存）
+        Map<String, RegionName> communityNames = regionNameCache.getCommunityNames(regionCodes);
+        Map<String, RegionName> surveyNames = regionNameCache.getSurveyNames(missingRegionCodes(regionCodes, communityNames));
+        
+        // 为每个地区生成一行数据
         for (String regionCode : regionCodes) {
             Map<String, Object> row = new LinkedHashMap<>();
             row.put("regionCode", regionCode);
             
-            // 鑾峰彇鍦板尯鍚嶇О - 浼樺厛浠巆ommunity琛紝鐒跺悗survey_data琛?
+            // 获取地区名称 - 优先从community表，然后survey_data表
             String regionName = regionCode;
-            QueryWrapper<CommunityDisasterReductionCapacity> communityQuery = new QueryWrapper<>();
-            communityQuery.eq("region_code", regionCode);
-            CommunityDisasterReductionCapacity communityData = communityDataMapper.selectOne(communityQuery);
+            RegionName communityData = communityNames.get(regionCode);
             if (communityData != null) {
                 if (communityData.getCommunityName() != null) {
                     regionName = communityData.getCommunityName();
@@ -1201,34 +1693,31 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
                     regionName = communityData.getTownshipName();
                 }
             } else {
-                QueryWrapper<SurveyData> surveyQuery = new QueryWrapper<>();
-                surveyQuery.eq("region_code", regionCode);
-                SurveyData surveyData = surveyDataMapper.selectOne(surveyQuery);
-                if (surveyData != null && surveyData.getTownship() != null) {
-                    regionName = surveyData.getTownship();
+                RegionName surveyData = surveyNames.get(regionCode);
+                if (surveyData != null && surveyData.getTownshipName() != null) {
+                    regionName = surveyData.getTownshipName();
                 }
             }
             row.put("regionName", regionName);
             
-            // 娣诲姞璇ュ湴鍖虹殑鎵€鏈夎緭鍑虹粨鏋?
+            // 添加该地区的所有输出结果
             Map<String, Object> outputs = regionResults.get(regionCode);
             if (outputs != null) {
                 for (Map.Entry<String, Object> output : outputs.entrySet()) {
                     String outputParam = output.getKey();
                     String columnName;
                     
-                    // 浼樺厛浣跨敤鍏紡鍚嶇О浣滀负鍒楀悕
+                    // 优先使用公式名称作为列名
                     if (outputToFormulaName != null && outputToFormulaName.containsKey(outputParam)) {
                         columnName = outputToFormulaName.get(outputParam);
                     } else {
                         columnName = outputParam;
                     }
                     
-                    // 鏍煎紡鍖栨暟鍊间负8浣嶅皬鏁?
+                    // 格式化数值为8位小数
                     Object value = output.getValue();
-                    if (value != null && value instanceof Number) {
-                        double doubleValue = ((Number) value).doubleValue();
-                        value = Double.parseDouble(String.format("%.8f", doubleValue));
+                    if (value instanceof Number) {
+                        value = ResultRounding.round8(((Number) value).doubleValue());
                     }
                     row.put(columnName, value);
                 }
@@ -1241,11 +1730,11 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
     }
 
     /**
-     * 浠庤〃鏍兼暟鎹拰姝ラ杈撳嚭鍙傛暟鐢熸垚 columns 鏁扮粍锛屾瘡鍒楁爣璁版墍灞炴楠?
+     * 从表格数据和步骤输出参数生成 columns 数组，每列标记所属步骤
      * 
-     * @param tableData 琛ㄦ牸鏁版嵁
-     * @param stepOutputParams 姝ラ搴忓彿 -> 杈撳嚭鍙傛暟鍚嶇О鍒楄〃鐨勬槧灏?
-     * @return columns 鏁扮粍
+     * @param tableData 表格数据
+     * @param stepOutputParams 步骤序号 -> 输出参数名称列表的映射
+     * @return columns 数组
      */
     private List<Map<String, Object>> generateColumnsWithAllSteps(
             List<Map<String, Object>> tableData, 
@@ -1254,15 +1743,15 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
         List<Map<String, Object>> columns = new ArrayList<>();
         
         if (tableData == null || tableData.isEmpty()) {
-            log.debug("琛ㄦ牸鏁版嵁涓虹┖锛岃繑鍥炵┖鐨?columns 鏁扮粍");
+            log.debug("表格数据为空，返回空的 columns 数组");
             return columns;
         }
         
-        // 浠庣涓€琛屾暟鎹彁鍙栨墍鏈夊垪鍚?
+        // 从第一行数据提取所有列名
         Map<String, Object> firstRow = tableData.get(0);
         Set<String> baseColumns = new HashSet<>(Arrays.asList("regionCode", "regionName", "region"));
         
-        // 鍒涘缓鍙嶅悜鏄犲皠锛氬垪鍚?-> 姝ラ搴忓彿
+        // 创建反向映射：列名 -> 步骤序号
         Map<String, Integer> columnToStepOrder = new HashMap<>();
         for (Map.Entry<Integer, List<String>> entry : stepOutputParams.entrySet()) {
             Integer stepOrder = entry.getKey();
@@ -1272,41 +1761,41 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             }
         }
         
-        log.info("寮€濮嬬敓鎴?columns 鏁扮粍锛堝叏妯″瀷锛夛紝鎬诲垪鏁? {}", firstRow.size());
-        log.debug("鍒楀悕鍒版楠ゅ簭鍙风殑鏄犲皠: {}", columnToStepOrder);
+        log.info("开始生成 columns 数组（全模型），总列数: {}", firstRow.size());
+        log.debug("列名到步骤序号的映射: {}", columnToStepOrder);
         
         for (String columnName : firstRow.keySet()) {
             Map<String, Object> column = new LinkedHashMap<>();
             column.put("prop", columnName);
             column.put("label", columnName);
             
-            // 璁剧疆鍒楀
+            // 设置列宽
             if ("regionCode".equals(columnName)) {
                 column.put("width", 150);
             } else if ("regionName".equals(columnName) || "region".equals(columnName)) {
                 column.put("width", 120);
             } else {
                 column.put("width", 120);
-                // 闈炲熀纭€鍒楁坊鍔?stepOrder
+                // 非基础列添加 stepOrder
                 Integer stepOrder = columnToStepOrder.get(columnName);
                 if (stepOrder != null) {
                     column.put("stepOrder", stepOrder);
-                    log.debug("鍒?{} 鏍囪涓烘楠?{}", columnName, stepOrder);
+                    log.debug("列 {} 标记为步骤 {}", columnName, stepOrder);
                 } else {
-                    log.warn("鍒?{} 鏈壘鍒板搴旂殑姝ラ搴忓彿", columnName);
+                    log.warn("列 {} 未找到对应的步骤序号", columnName);
                 }
             }
             
             columns.add(column);
         }
         
-        log.info("瀹屾垚 columns 鏁扮粍鐢熸垚锛堝叏妯″瀷锛夛紝鍏?{} 鍒楋紝鍏朵腑 {} 鍒楀寘鍚?stepOrder", 
+        log.info("完成 columns 数组生成（全模型），共 {} 列，其中 {} 列包含 stepOrder", 
                 columns.size(), columns.stream().filter(c -> c.containsKey("stepOrder")).count());
         
         return columns;
     }
 
-    // 鏂扮増锛氭壂鎻忔墍鏈夎锛屽悎骞跺垪锛屽啀鏍规嵁 stepOutputParams 鍙嶆爣璁?stepOrder锛岄伩鍏嶉琛屼笉鍖呭惈鍏ㄩ儴姝ラ鍒楀鑷寸己澶?
+    // 新版：扫描所有行，合并列，再根据 stepOutputParams 反标记 stepOrder，避免首行不包含全部步骤列导致缺失
     private List<Map<String, Object>> generateColumnsWithAllStepsV2(
             List<Map<String, Object>> tableData,
             Map<Integer, List<String>> stepOutputParams) {
@@ -1315,10 +1804,10 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             return columns;
         }
 
-        // 鍩虹鍒?
+        // 基础列
         Set<String> baseColumns = new LinkedHashSet<>(Arrays.asList("regionCode", "regionName", "region"));
 
-        // 鍒楀埌姝ラ搴忓彿
+        // 列到步骤序号
         Map<String, Integer> columnToStepOrder = new HashMap<>();
         for (Map.Entry<Integer, List<String>> e : stepOutputParams.entrySet()) {
             Integer stepOrder = e.getKey();
@@ -1327,7 +1816,7 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             }
         }
 
-        // 鏀堕泦鎵€鏈夊垪锛堜繚鐣欓娆″嚭鐜伴『搴忥級
+        // 收集所有列（保留首次出现顺序）
         LinkedHashSet<String> allColumnsOrdered = new LinkedHashSet<>();
         for (Map<String, Object> row : tableData) {
             allColumnsOrdered.addAll(row.keySet());
@@ -1357,11 +1846,11 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
     }
 
     /**
-     * 浠庤〃鏍兼暟鎹敓鎴?columns 鏁扮粍锛屽苟涓洪潪鍩虹鍒楁坊鍔?stepOrder
+     * 从表格数据生成 columns 数组，并为非基础列添加 stepOrder
      * 
-     * @param tableData 琛ㄦ牸鏁版嵁
-     * @param stepOrder 褰撳墠姝ラ搴忓彿
-     * @return columns 鏁扮粍
+     * @param tableData 表格数据
+     * @param stepOrder 当前步骤序号
+     * @return columns 数组
      */
     private List<Map<String, Object>> generateColumnsWithStepOrder(
             List<Map<String, Object>> tableData, Integer stepOrder) {
@@ -1369,37 +1858,37 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
         List<Map<String, Object>> columns = new ArrayList<>();
         
         if (tableData == null || tableData.isEmpty()) {
-            log.debug("琛ㄦ牸鏁版嵁涓虹┖锛岃繑鍥炵┖鐨?columns 鏁扮粍");
+            log.debug("表格数据为空，返回空的 columns 数组");
             return columns;
         }
         
-        // 浠庣涓€琛屾暟鎹彁鍙栨墍鏈夊垪鍚?
+        // 从第一行数据提取所有列名
         Map<String, Object> firstRow = tableData.get(0);
         Set<String> baseColumns = new HashSet<>(Arrays.asList("regionCode", "regionName", "region"));
         
-        log.info("寮€濮嬬敓鎴?columns 鏁扮粍锛屾楠ゅ簭鍙? {}, 鍒楁暟: {}", stepOrder, firstRow.size());
+        log.info("开始生成 columns 数组，步骤序号: {}, 列数: {}", stepOrder, firstRow.size());
         
         for (String columnName : firstRow.keySet()) {
             Map<String, Object> column = new LinkedHashMap<>();
             column.put("prop", columnName);
-            column.put("label", columnName);  // 浣跨敤涓枃鍚嶇О浣滀负 label
+            column.put("label", columnName);  // 使用中文名称作为 label
             
-            // 璁剧疆鍒楀
+            // 设置列宽
             if ("regionCode".equals(columnName)) {
                 column.put("width", 150);
             } else if ("regionName".equals(columnName) || "region".equals(columnName)) {
                 column.put("width", 120);
             } else {
                 column.put("width", 120);
-                // 闈炲熀纭€鍒楁坊鍔?stepOrder
+                // 非基础列添加 stepOrder
                 column.put("stepOrder", stepOrder);
-                log.debug("鍒?{} 鏍囪涓烘楠?{}", columnName, stepOrder);
+                log.debug("列 {} 标记为步骤 {}", columnName, stepOrder);
             }
             
             columns.add(column);
         }
         
-        log.info("瀹屾垚 columns 鏁扮粍鐢熸垚锛屽叡 {} 鍒楋紝鍏朵腑 {} 鍒楀寘鍚?stepOrder", 
+        log.info("完成 columns 数组生成，共 {} 列，其中 {} 列包含 stepOrder", 
                 columns.size(), columns.stream().filter(c -> c.containsKey("stepOrder")).count());
         
         return columns;
@@ -1415,24 +1904,24 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
     private FormulaConfigMapper formulaConfigMapper;
 
     /**
-     * 鎵ц涔￠晣鑱氬悎
-     * 鎸変埂闀囧垎缁勶紝瀵圭ぞ鍖烘暟鎹繘琛岃仛鍚堣绠楋紙姹傚拰鍚庨櫎浠ョぞ鍖烘暟閲忥級
+     * 执行乡镇聚合
+     * 按乡镇分组，对社区数据进行聚合计算（求和后除以社区数量）
      * 
-     * @param stepId 姝ラID
-     * @param regionCodes 绀惧尯浠ｇ爜鍒楄〃
-     * @param inputData 杈撳叆鏁版嵁锛堝寘鍚楠?鐨勭ぞ鍖虹骇鍒绠楃粨鏋滐級
-     * @return 涔￠晣绾у埆鐨勮仛鍚堢粨鏋?
+     * @param stepId 步骤ID
+     * @param regionCodes 社区代码列表
+     * @param inputData 输入数据（包含步骤1的社区级别计算结果）
+     * @return 乡镇级别的聚合结果
      */
     private Map<String, Object> executeTownshipAggregation(Long stepId, List<String> regionCodes, Map<String, Object> inputData) {
-        log.info("寮€濮嬫墽琛屼埂闀囪仛鍚? stepId={}, regionCodes.size={}", stepId, regionCodes.size());
+        log.info("开始执行乡镇聚合: stepId={}, regionCodes.size={}", stepId, regionCodes.size());
         
-        // 1. 鑾峰彇姝ラ淇℃伅
+        // 1. 获取步骤信息
         ModelStep step = modelStepMapper.selectById(stepId);
         if (step == null || step.getStatus() == 0) {
-            throw new RuntimeException("姝ラ涓嶅瓨鍦ㄦ垨宸茬鐢?);
+            throw new RuntimeException("步骤不存在或已禁用");
         }
         
-        // 2. 鑾峰彇璇ユ楠ょ殑鎵€鏈夌畻娉?
+        // 2. 获取该步骤的所有算法
         QueryWrapper<StepAlgorithm> algorithmQuery = new QueryWrapper<>();
         algorithmQuery.eq("step_id", stepId)
                 .eq("status", 1)
@@ -1440,37 +1929,40 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
         List<StepAlgorithm> algorithms = stepAlgorithmMapper.selectList(algorithmQuery);
         
         if (algorithms == null || algorithms.isEmpty()) {
-            log.warn("姝ラ {} 娌℃湁閰嶇疆绠楁硶", step.getStepCode());
+            log.warn("步骤 {} 没有配置算法", step.getStepCode());
             return new HashMap<>();
         }
         
-        // 3. 鎸変埂闀囧垎缁勬敹闆嗙ぞ鍖烘暟鎹?
+        // 3. 按乡镇分组收集社区数据
         Map<String, List<Map<String, Object>>> townshipGroups = new LinkedHashMap<>();
-        Map<String, String> townshipToFirstRegionCode = new HashMap<>();  // 璁板綍姣忎釜涔￠晣鐨勭涓€涓ぞ鍖轰唬鐮侊紙鐢ㄤ簬鍚庣画姝ラ锛?
+        Map<String, String> townshipToFirstRegionCode = new HashMap<>();  // 记录每个乡镇的第一个社区代码（用于后续步骤）
+
+        // 乡镇归属直接取自执行期快照中的社区数据
+        RegionDataSnapshot regionData = getRegionDataSnapshot(inputData);
+        regionDataLoader.ensureCommunityData(regionData, regionCodes);
         
         for (String regionCode : regionCodes) {
-            // 鑾峰彇绀惧尯鐨勪埂闀囦俊鎭?
-            QueryWrapper<CommunityDisasterReductionCapacity> communityQuery = new QueryWrapper<>();
-            communityQuery.eq("region_code", regionCode);
-            CommunityDisasterReductionCapacity communityData = communityDataMapper.selectOne(communityQuery);
+            // 获取社区的乡镇信息
+            Map<String, Object> communityData = regionData.getCommunityRows().get(regionCode);
             
             if (communityData == null) {
-                log.warn("鏈壘鍒扮ぞ鍖烘暟鎹? regionCode={}", regionCode);
+                log.warn("未找到社区数据: regionCode={}", regionCode);
                 continue;
             }
             
-            String townshipName = communityData.getTownshipName();
+            Object townshipValue = communityData.get("township_name");
+            String townshipName = townshipValue != null ? townshipValue.toString() : null;
             if (townshipName == null || townshipName.isEmpty()) {
-                log.warn("绀惧尯 {} 娌℃湁涔￠晣淇℃伅", regionCode);
+                log.warn("社区 {} 没有乡镇信息", regionCode);
                 continue;
             }
             
-            // 鑾峰彇姝ラ1鐨勮緭鍑虹粨鏋滐紙绀惧尯绾у埆鐨勮兘鍔涘€硷級
+            // 获取步骤1的输出结果（社区级别的能力值）
             Map<String, Object> communityContext = new HashMap<>();
             communityContext.put("currentRegionCode", regionCode);
             
-            // 浠巌nputData涓幏鍙栨楠?鐨勭粨鏋?
-            // inputData涓寘鍚?"step_XXX" 鐨勯敭锛屽叾鍊兼槸姝ラ鐨勬墽琛岀粨鏋?
+            // 从inputData中获取步骤1的结果
+            // inputData中包含 "step_XXX" 的键，其值是步骤的执行结果
             for (Map.Entry<String, Object> entry : inputData.entrySet()) {
                 String key = entry.getKey();
                 if (key.startsWith("step_")) {
@@ -1481,10 +1973,10 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
                             (Map<String, Map<String, Object>>) stepResult.get("regionResults");
                     
                     if (regionResults != null && regionResults.containsKey(regionCode)) {
-                        // 灏嗚绀惧尯鍦ㄨ繖涓楠ょ殑杈撳嚭娣诲姞鍒颁笂涓嬫枃
+                        // 将该社区在这个步骤的输出添加到上下文
                         Map<String, Object> outputs = regionResults.get(regionCode);
                         communityContext.putAll(outputs);
-                        log.debug("绀惧尯 {} 浠?{} 鍔犺浇浜?{} 涓緭鍑?, regionCode, key, outputs.size());
+                        log.debug("社区 {} 从 {} 加载了 {} 个输出", regionCode, key, outputs.size());
                     }
                 }
             }
@@ -1496,18 +1988,18 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
                     communityContext.put(_e.getKey(), _e.getValue());
                 }
             }
-            // 鎸変埂闀囧垎缁?
+            // 按乡镇分组
             townshipGroups.computeIfAbsent(townshipName, k -> new ArrayList<>()).add(communityContext);
             
-            // 璁板綍姣忎釜涔￠晣鐨勭涓€涓ぞ鍖轰唬鐮?
+            // 记录每个乡镇的第一个社区代码
             townshipToFirstRegionCode.putIfAbsent(townshipName, regionCode);
             
-            log.debug("绀惧尯 {} 褰掑睘涔￠晣 {}", regionCode, townshipName);
+            log.debug("社区 {} 归属乡镇 {}", regionCode, townshipName);
         }
         
-        log.info("鎸変埂闀囧垎缁勫畬鎴愶紝鍏?{} 涓埂闀?, townshipGroups.size());
+        log.info("按乡镇分组完成，共 {} 个乡镇", townshipGroups.size());
         
-        // 4. 瀵规瘡涓埂闀囨墽琛岃仛鍚堣绠?
+        // 4. 对每个乡镇执行聚合计算
         Map<String, Map<String, Object>> townshipResults = new LinkedHashMap<>();
         Map<String, String> outputToAlgorithmName = new LinkedHashMap<>();
         
@@ -1516,11 +2008,11 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             List<Map<String, Object>> communities = entry.getValue();
             int communityCount = communities.size();
             
-            log.info("澶勭悊涔￠晣: {}, 绀惧尯鏁伴噺: {}", townshipName, communityCount);
+            log.info("处理乡镇: {}, 社区数量: {}", townshipName, communityCount);
             
             Map<String, Object> townshipOutput = new LinkedHashMap<>();
             
-            // 瀵规瘡涓畻娉曟墽琛岃仛鍚?
+            // 对每个算法执行聚合
             for (StepAlgorithm algorithm : algorithms) {
                 String qlExpression = algorithm.getQlExpression();
                 String outputParam = algorithm.getOutputParam();
@@ -1529,10 +2021,10 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
                     continue;
                 }
                 
-                // 浠庤〃杈惧紡涓彁鍙栬緭鍏ュ瓧娈靛悕锛堜緥濡傦細PLAN_CONSTRUCTION锛?
+                // 从表达式中提取输入字段名（例如：PLAN_CONSTRUCTION）
                 String inputField = qlExpression.trim();
                 
-                // 璁＄畻鑱氬悎鍊硷細姹傚拰鍚庨櫎浠ョぞ鍖烘暟閲?
+                // 计算聚合值：求和后除以社区数量
                 double sum = 0.0;
                 int validCount = 0;
                 
@@ -1544,30 +2036,30 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
                     }
                 }
                 
-                // 璁＄畻骞冲潎鍊?
+                // 计算平均值
                 double average = validCount > 0 ? sum / validCount : 0.0;
                 
-                // 鏍煎紡鍖栦负8浣嶅皬鏁?
-                average = Double.parseDouble(String.format("%.8f", average));
+                // 格式化为8位小数
+                average = ResultRounding.round8(average);
                 
                 townshipOutput.put(outputParam, average);
                 outputToAlgorithmName.put(outputParam, algorithm.getAlgorithmName());
                 
-                log.debug("涔￠晣 {} 鐨?{} 鑱氬悎缁撴灉: sum={}, count={}, avg={}", 
+                log.debug("乡镇 {} 的 {} 聚合结果: sum={}, count={}, avg={}", 
                         townshipName, outputParam, sum, communityCount, average);
             }
             
-            // 浣跨敤"TOWNSHIP_"鍓嶇紑 + 涔￠晣鍚嶇О浣滀负铏氭嫙鐨剅egionCode
-            // 杩欐牱鍙互纭繚姣忎釜涔￠晣鏈夊敮涓€鐨勬爣璇嗭紝涓斾笉浼氫笌绀惧尯浠ｇ爜鍐茬獊
+            // 使用"TOWNSHIP_"前缀 + 乡镇名称作为虚拟的regionCode
+            // 这样可以确保每个乡镇有唯一的标识，且不会与社区代码冲突
             String townshipRegionCode = "TOWNSHIP_" + townshipName;
             townshipResults.put(townshipRegionCode, townshipOutput);
             
-            // 鍚屾椂鍦ㄤ笂涓嬫枃涓繚瀛樹埂闀囧悕绉帮紝渚沢enerateResultTable浣跨敤
+            // 同时在上下文中保存乡镇名称，供generateResultTable使用
             townshipOutput.put("_townshipName", townshipName);
             townshipOutput.put("_firstCommunityCode", townshipToFirstRegionCode.get(townshipName));
         }
         
-        // 5. 鏋勫缓姝ラ缁撴灉
+        // 5. 构建步骤结果
         Map<String, Object> stepResult = new HashMap<>();
         stepResult.put("stepId", stepId);
         stepResult.put("stepName", step.getStepName());
@@ -1575,13 +2067,13 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
         stepResult.put("regionResults", townshipResults);
         stepResult.put("outputToAlgorithmName", outputToAlgorithmName);
         
-        log.info("涔￠晣鑱氬悎瀹屾垚锛屽叡 {} 涓埂闀?, townshipResults.size());
+        log.info("乡镇聚合完成，共 {} 个乡镇", townshipResults.size());
         
         return stepResult;
     }
     
     /**
-     * 灏嗗璞¤浆鎹负Double
+     * 将对象转换为Double
      */
     private Double toDouble(Object value) {
         if (value == null) {
@@ -1594,71 +2086,21 @@ public class ModelExecutionServiceImpl implements ModelExecutionService {
             try {
                 return Double.parseDouble((String) value);
             } catch (NumberFormatException e) {
-                log.warn("鏃犳硶灏嗗瓧绗︿覆杞崲涓烘暟瀛? {}", value);
+                log.warn("无法将字符串转换为数字: {}", value);
                 return 0.0;
             }
         }
-        log.warn("鏃犳硶杞崲涓篋ouble鐨勭被鍨? {}", value.getClass());
+        log.warn("无法转换为Double的类型: {}", value.getClass());
         return 0.0;
     }
-}
+
     // derive 9 township inputs from community context when missing (ASCII only)
     private Map<String, Double> deriveTownshipInputsFromCommunity(Map<String, Object> c) {
+        double[] derived = TownshipIndicators.derive(c::get);
         Map<String, Double> r = new HashMap<>();
-        Double pop = getNum(c, "RESIDENT_POPULATION", "resident_population");
-        if (pop == null || pop <= 0) pop = 1.0;
-
-        double hasPlan = getNumOrZero(c, "HAS_EMERGENCY_PLAN", "has_emergency_plan");
-        double hasVul  = getNumOrZero(c, "HAS_VULNERABLE_GROUPS_LIST", "has_vulnerable_groups_list");
-        double hasHaz  = getNumOrZero(c, "HAS_DISASTER_POINTS_LIST", "has_disaster_points_list");
-        double hasMap  = getNumOrZero(c, "HAS_DISASTER_MAP", "has_disaster_map");
-
-        double fund     = getNumOrZero(c, "LAST_YEAR_FUNDING_AMOUNT", "last_year_funding_amount");
-        double material  = getNumOrZero(c, "MATERIALS_EQUIPMENT_VALUE", "materials_equipment_value");
-        double medical   = getNumOrZero(c, "MEDICAL_SERVICE_COUNT", "medical_service_count");
-        double militia   = getNumOrZero(c, "MILITIA_RESERVE_COUNT", "militia_reserve_count");
-        double volunteer = getNumOrZero(c, "REGISTERED_VOLUNTEER_COUNT", "registered_volunteer_count");
-        double train     = getNumOrZero(c, "LAST_YEAR_TRAINING_PARTICIPANTS", "last_year_training_participants");
-        double drill     = getNumOrZero(c, "LAST_YEAR_DRILL_PARTICIPANTS", "last_year_drill_participants");
-        double shelter   = getNumOrZero(c, "EMERGENCY_SHELTER_CAPACITY", "emergency_shelter_capacity");
-
-        double PLAN_CONSTRUCTION   = clamp01(hasPlan);
-        double HAZARD_INSPECTION   = clamp01((hasVul + hasHaz) / 2.0);
-        double RISK_ASSESSMENT     = clamp01(hasMap);
-        double FINANCIAL_INPUT     = (fund / pop) * 10000.0;
-        double MATERIAL_RESERVE    = (material / pop) * 10000.0;
-        double MEDICAL_SUPPORT     = (medical / pop) * 10000.0;
-        double SELF_MUTUAL_AID     = ((militia + volunteer) / pop) * 10000.0;
-        double PUBLIC_EVACUATION   = ((train + drill) / pop) * 100.0;
-        double RELOCATION_SHELTER  = (shelter / pop);
-
-        r.put("PLAN_CONSTRUCTION", round8(PLAN_CONSTRUCTION));
-        r.put("HAZARD_INSPECTION", round8(HAZARD_INSPECTION));
-        r.put("RISK_ASSESSMENT", round8(RISK_ASSESSMENT));
-        r.put("FINANCIAL_INPUT", round8(FINANCIAL_INPUT));
-        r.put("MATERIAL_RESERVE", round8(MATERIAL_RESERVE));
-        r.put("MEDICAL_SUPPORT", round8(MEDICAL_SUPPORT));
-        r.put("SELF_MUTUAL_AID", round8(SELF_MUTUAL_AID));
-        r.put("PUBLIC_EVACUATION", round8(PUBLIC_EVACUATION));
-        r.put("RELOCATION_SHELTER", round8(RELOCATION_SHELTER));
-        return r;
-    }
-
-    private Double getNum(Map<String, Object> m, String k1, String k2) {
-        Double v = parseNum(m.get(k1));
-        if (v == null && k2 != null) v = parseNum(m.get(k2));
-        return v;
-    }
-    private double getNumOrZero(Map<String, Object> m, String k1, String k2) {
-        Double v = getNum(m, k1, k2);
-        return v != null ? v : 0.0;
-    }
-    private Double parseNum(Object o) {
-        if (o instanceof Number) return ((Number)o).doubleValue();
-        if (o instanceof String) {
-            try { return Double.parseDouble((String)o); } catch (Exception ignore) {}
+        for (int i = 0; i < TownshipIndicators.NAMES.length; i++) {
+            r.put(TownshipIndicators.NAMES[i], derived[i]);
         }
-        return null;
+        return r;
     }
-    private double clamp01(double v) { return v < 0 ? 0.0 : (v > 1 ? 1.0 : v); }
-    private double round8(double v) { return Double.parseDouble(String.format("%.8f", v)); }
+}
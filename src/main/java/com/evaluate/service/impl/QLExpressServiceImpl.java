@@ -3,16 +3,28 @@ package com.evaluate.service.impl;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.evaluate.service.QLExpressService;
+import com.evaluate.service.algorithm.ExpressionContextView;
 import com.ql.util.express.DefaultContext;
 import com.ql.util.express.ExpressRunner;
+import com.ql.util.express.IExpressContext;
+import com.ql.util.express.InstructionSet;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
-import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * QLExpress规则引擎服务实现类
@@ -26,41 +38,122 @@ public class QLExpressServiceImpl implements QLExpressService {
 
     private ExpressRunner runner;
 
+    /**
+     * 编译结果缓存容量（按表达式文本缓存 InstructionSet，超出时按加入顺序淘汰）
+     */
+    @Value("${evaluation.qlexpress.cache-size:1024}")
+    private int cacheSize = 1024;
+
+    /**
+     * 命中时只读 ConcurrentHashMap，不加锁；加入顺序队列只在编译新表达式时使用
+     */
+    private final Map<String, InstructionSet> instructionCache = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private int maxCacheSize = 1024;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong cacheEvictions = new AtomicLong();
+
     @PostConstruct
     public void init() {
         runner = new ExpressRunner();
+        maxCacheSize = cacheSize > 0 ? cacheSize : 1024;
         // 添加自定义函数
         addCustomFunctions();
     }
 
     @Override
     public Object execute(String expression, Map<String, Object> context) throws Exception {
-        log.debug("执行QLExpress表达式: {}, 上下文: {}", expression, context);
+        log.debug("执行QLExpress表达式: {}, 上下文变量数: {}", expression, context != null ? context.size() : 0);
 
-        DefaultContext<String, Object> expressContext = new DefaultContext<>();
-        if (context != null) {
-            // 将上下文中的所有整数类型转换为Double，避免整数除法精度丢失
-            context.forEach((key, value) -> {
-                if (value instanceof Integer) {
-                    expressContext.put(key, ((Integer) value).doubleValue());
-                } else if (value instanceof Long) {
-                    expressContext.put(key, ((Long) value).doubleValue());
-                } else if (value instanceof Float) {
-                    expressContext.put(key, ((Float) value).doubleValue());
-                } else if (value instanceof BigDecimal) {
-                    expressContext.put(key, ((BigDecimal) value).doubleValue());
-                } else {
-                    expressContext.put(key, value);
-                }
-            });
-        }
+        // 上下文视图按需转换数值类型，避免每次执行复制整个地区上下文
+        return execute(expression, new ExpressionContextView(context));
+    }
 
-        Object result = runner.execute(expression, expressContext, null, true, false);
+    @Override
+    public Object execute(String expression, IExpressContext<String, Object> context) throws Exception {
+        InstructionSet instructionSet = getInstructionSet(expression);
+        Object result = runner.execute(instructionSet, context, null, false, false);
         log.debug("表达式执行结果: {}", result);
 
         return result;
     }
 
+    @Override
+    public Object execute(InstructionSet instructionSet, Map<String, Object> context) throws Exception {
+        return execute(instructionSet, new ExpressionContextView(context));
+    }
+
+    @Override
+    public Object execute(InstructionSet instructionSet, IExpressContext<String, Object> context) throws Exception {
+        return runner.execute(instructionSet, context, null, false, false);
+    }
+
+    @Override
+    public Map<String, InstructionSet> precompile(Collection<String> expressions) {
+        Map<String, InstructionSet> compiled = new HashMap<>();
+        if (expressions == null) {
+            return compiled;
+        }
+        for (String expression : expressions) {
+            if (expression == null || expression.trim().isEmpty() || compiled.containsKey(expression)) {
+                continue;
+            }
+            try {
+                compiled.put(expression, getInstructionSet(expression));
+            } catch (Exception e) {
+                // 编译失败留到实际执行时按原有方式报错
+                log.warn("表达式预编译失败: {}, 错误: {}", expression, e.getMessage());
+            }
+        }
+        return compiled;
+    }
+
+    @Override
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", instructionCache.size());
+        stats.put("maxSize", maxCacheSize);
+        stats.put("hits", cacheHits.get());
+        stats.put("misses", cacheMisses.get());
+        stats.put("evictions", cacheEvictions.get());
+        return stats;
+    }
+
+    @Override
+    public Set<String> getReferencedVariables(String expression) throws Exception {
+        return new LinkedHashSet<>(Arrays.asList(getInstructionSet(expression).getOutAttrNames()));
+    }
+
+    /**
+     * 获取表达式的编译结果，优先从缓存读取
+     */
+    private InstructionSet getInstructionSet(String expression) throws Exception {
+        InstructionSet instructionSet = instructionCache.get(expression);
+        if (instructionSet != null) {
+            cacheHits.incrementAndGet();
+            return instructionSet;
+        }
+        cacheMisses.incrementAndGet();
+        // 并发时同一表达式可能重复编译，只保留先放入的结果
+        instructionSet = runner.parseInstructionSet(expression);
+        InstructionSet existing = instructionCache.putIfAbsent(expression, instructionSet);
+        if (existing != null) {
+            return existing;
+        }
+        insertionOrder.add(expression);
+        while (instructionCache.size() > maxCacheSize) {
+            String eldest = insertionOrder.poll();
+            if (eldest == null) {
+                break;
+            }
+            if (instructionCache.remove(eldest) != null) {
+                cacheEvictions.incrementAndGet();
+            }
+        }
+        return instructionSet;
+    }
+
     @Override
     public boolean validate(String expression) {
         try {
@@ -0,0 +1,147 @@
+package com.evaluate.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.evaluate.dto.RegionDataSnapshot;
+import com.evaluate.entity.CommunityDisasterReductionCapacity;
+import com.evaluate.entity.SurveyData;
+import com.evaluate.mapper.CommunityDisasterReductionCapacityMapper;
+import com.evaluate.mapper.SurveyDataMapper;
+import com.evaluate.service.ExecutionMetrics;
+import com.evaluate.service.RegionDataLoader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 地区基础数据批量加载服务实现类
+ *
+ * @author System
+ * @since 2025-01-01
+ */
+@Slf4j
+@Service
+public class RegionDataLoaderImpl implements RegionDataLoader {
+
+    @Autowired
+    private CommunityDisasterReductionCapacityMapper communityDataMapper;
+
+    @Autowired
+    private SurveyDataMapper surveyDataMapper;
+
+    @Autowired(required = false)
+    private ExecutionMetrics executionMetrics = ExecutionMetrics.NONE;
+
+    /**
+     * 每批 IN 查询的地区代码数量
+     */
+    @Value("${evaluation.region-loader.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void ensureCommunityData(RegionDataSnapshot snapshot, Collection<String> regionCodes) {
+        List<String> pending = collectPending(snapshot.getCommunityRequested(), regionCodes);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int rows = 0;
+        int batches = 0;
+        for (List<String> batch : partition(pending)) {
+            QueryWrapper<CommunityDisasterReductionCapacity> query = new QueryWrapper<>();
+            query.in("region_code", batch).orderByAsc("id");
+            List<Map<String, Object>> dataList = communityDataMapper.selectMaps(query);
+            batches++;
+            if (dataList == null) {
+                continue;
+            }
+            rows += dataList.size();
+            for (Map<String, Object> row : dataList) {
+                Object regionCode = row.get("region_code");
+                if (regionCode != null) {
+                    // 与原逐条查询保持一致：同一地区取第一行
+                    snapshot.getCommunityRows().putIfAbsent(regionCode.toString(), row);
+                }
+            }
+        }
+        snapshot.getCommunityRequested().addAll(pending);
+        record(snapshot, "community_disaster_reduction_capacity", pending.size(), batches, rows, start);
+    }
+
+    @Override
+    public void ensureSurveyData(RegionDataSnapshot snapshot, Collection<String> regionCodes) {
+        List<String> pending = collectPending(snapshot.getSurveyRequested(), regionCodes);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int rows = 0;
+        int batches = 0;
+        for (List<String> batch : partition(pending)) {
+            QueryWrapper<SurveyData> query = new QueryWrapper<>();
+            query.in("region_code", batch).orderByAsc("id");
+            List<SurveyData> dataList = surveyDataMapper.selectList(query);
+            batches++;
+            if (dataList == null) {
+                continue;
+            }
+            rows += dataList.size();
+            for (SurveyData surveyData : dataList) {
+                if (surveyData.getRegionCode() != null) {
+                    snapshot.getSurveyRows().putIfAbsent(surveyData.getRegionCode(), surveyData);
+                }
+            }
+        }
+        snapshot.getSurveyRequested().addAll(pending);
+        record(snapshot, "survey_data", pending.size(), batches, rows, start);
+    }
+
+    /**
+     * 过滤出尚未请求过的地区代码（去重、保序）
+     */
+    private List<String> collectPending(Set<String> requested, Collection<String> regionCodes) {
+        List<String> pending = new ArrayList<>();
+        if (regionCodes == null) {
+            return pending;
+        }
+        for (String regionCode : new LinkedHashSet<>(regionCodes)) {
+            if (regionCode != null && !requested.contains(regionCode)) {
+                pending.add(regionCode);
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * 按配置的批量大小切分地区代码
+     */
+    private List<List<String>> partition(List<String> regionCodes) {
+        int size = batchSize > 0 ? batchSize : 500;
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < regionCodes.size(); i += size) {
+            batches.add(regionCodes.subList(i, Math.min(i + size, regionCodes.size())));
+        }
+        return batches;
+    }
+
+    private void record(RegionDataSnapshot snapshot, String table, int requested, int batches, int rows, long start) {
+        long elapsedNanos = System.nanoTime() - start;
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        snapshot.setBatchCount(snapshot.getBatchCount() + batches);
+        snapshot.setRowsFetched(snapshot.getRowsFetched() + rows);
+        snapshot.setElapsedMillis(snapshot.getElapsedMillis() + elapsed);
+        executionMetrics.recordLoad(table, elapsedNanos, rows);
+        log.info("批量加载地区数据: table={}, regions={}, batches={}, rows={}, elapsed={}ms",
+                table, requested, batches, rows, elapsed);
+    }
+}
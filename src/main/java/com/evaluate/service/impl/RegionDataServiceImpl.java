@@ -1,163 +1,73 @@
 package com.evaluate.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.evaluate.mapper.SurveyDataMapper;
-import com.evaluate.mapper.CommunityDisasterReductionCapacityMapper;
 import com.evaluate.service.IRegionDataService;
-import com.evaluate.entity.SurveyData;
-import com.evaluate.entity.CommunityDisasterReductionCapacity;
+import com.evaluate.service.RegionHierarchyIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
+/**
+ * 行政区划级联查询服务，省、市、县、乡镇、社区列表及按节点取数据均从内存层级索引返回
+ */
 @Service
 public class RegionDataServiceImpl implements IRegionDataService {
 
     @Autowired
-    private SurveyDataMapper surveyDataMapper;
-
-    @Autowired
-    private CommunityDisasterReductionCapacityMapper communityCapacityMapper;
+    private RegionHierarchyIndex regionHierarchyIndex;
 
     @Override
     public List<Map<String, Object>> getProvincesByDataType(String dataType) {
-        if ("community".equals(dataType)) {
-            // 从社区数据表获取省份
-            QueryWrapper<CommunityDisasterReductionCapacity> wrapper = new QueryWrapper<>();
-            wrapper.select("DISTINCT province_name as name, province_name as code");
-            wrapper.isNotNull("province_name");
-            wrapper.ne("province_name", "");
-
-            List<Map<String, Object>> result = communityCapacityMapper.selectMaps(wrapper);
-            return result.stream()
-                .map(map -> {
-                    Map<String, Object> province = new LinkedHashMap<>();
-                    province.put("name", map.get("name"));
-                    province.put("code", map.get("code"));
-                    return province;
-                })
-                .collect(Collectors.toList());
-        } else {
-            // 从调查数据表获取省份
-            QueryWrapper<SurveyData> wrapper = new QueryWrapper<>();
-            wrapper.select("DISTINCT province as name, province as code");
-            wrapper.isNotNull("province");
-            wrapper.ne("province", "");
-
-            List<Map<String, Object>> result = surveyDataMapper.selectMaps(wrapper);
-            return result.stream()
-                .map(map -> {
-                    Map<String, Object> province = new LinkedHashMap<>();
-                    province.put("name", map.get("name"));
-                    province.put("code", map.get("code"));
-                    return province;
-                })
-                .collect(Collectors.toList());
-        }
+        return regionHierarchyIndex.getChildren(dataType);
     }
 
     @Override
     public List<Map<String, Object>> getCitiesByProvince(String dataType, String provinceName) {
-        if ("community".equals(dataType)) {
-            // 从社区数据表获取城市
-            QueryWrapper<CommunityDisasterReductionCapacity> wrapper = new QueryWrapper<>();
-            wrapper.select("DISTINCT city_name as name, city_name as code");
-            wrapper.eq("province_name", provinceName);
-            wrapper.isNotNull("city_name");
-            wrapper.ne("city_name", "");
-
-            List<Map<String, Object>> result = communityCapacityMapper.selectMaps(wrapper);
-            return result.stream()
-                .map(map -> {
-                    Map<String, Object> city = new LinkedHashMap<>();
-                    city.put("name", map.get("name"));
-                    city.put("code", map.get("code"));
-                    return city;
-                })
-                .collect(Collectors.toList());
-        } else {
-            // 从调查数据表获取城市
-            QueryWrapper<SurveyData> wrapper = new QueryWrapper<>();
-            wrapper.select("DISTINCT city as name, city as code");
-            wrapper.eq("province", provinceName);
-            wrapper.isNotNull("city");
-            wrapper.ne("city", "");
-
-            List<Map<String, Object>> result = surveyDataMapper.selectMaps(wrapper);
-            return result.stream()
-                .map(map -> {
-                    Map<String, Object> city = new LinkedHashMap<>();
-                    city.put("name", map.get("name"));
-                    city.put("code", map.get("code"));
-                    return city;
-                })
-                .collect(Collectors.toList());
-        }
+        return regionHierarchyIndex.getChildren(dataType, provinceName);
     }
 
     @Override
     public List<Map<String, Object>> getCountiesByCity(String dataType, String provinceName, String cityName) {
-        if ("community".equals(dataType)) {
-            // 从社区数据表获取区县
-            QueryWrapper<CommunityDisasterReductionCapacity> wrapper = new QueryWrapper<>();
-            wrapper.select("DISTINCT county_name as name, county_name as code");
-            wrapper.eq("province_name", provinceName);
-            wrapper.eq("city_name", cityName);
-            wrapper.isNotNull("county_name");
-            wrapper.ne("county_name", "");
+        return regionHierarchyIndex.getChildren(dataType, provinceName, cityName);
+    }
 
-            List<Map<String, Object>> result = communityCapacityMapper.selectMaps(wrapper);
-            return result.stream()
-                .map(map -> {
-                    Map<String, Object> county = new LinkedHashMap<>();
-                    county.put("name", map.get("name"));
-                    county.put("code", map.get("code"));
-                    return county;
-                })
-                .collect(Collectors.toList());
-        } else {
-            // 从调查数据表获取区县
-            QueryWrapper<SurveyData> wrapper = new QueryWrapper<>();
-            wrapper.select("DISTINCT county as name, county as code");
-            wrapper.eq("province", provinceName);
-            wrapper.eq("city", cityName);
-            wrapper.isNotNull("county");
-            wrapper.ne("county", "");
+    @Override
+    public List<Map<String, Object>> getTownshipsByCounty(String dataType, String provinceName, String cityName,
+                                                          String countyName) {
+        return regionHierarchyIndex.getChildren(dataType, provinceName, cityName, countyName);
+    }
 
-            List<Map<String, Object>> result = surveyDataMapper.selectMaps(wrapper);
-            return result.stream()
-                .map(map -> {
-                    Map<String, Object> county = new LinkedHashMap<>();
-                    county.put("name", map.get("name"));
-                    county.put("code", map.get("code"));
-                    return county;
-                })
-                .collect(Collectors.toList());
-        }
+    @Override
+    public List<Map<String, Object>> getCommunitiesByTownship(String dataType, String provinceName, String cityName,
+                                                              String countyName, String townshipName) {
+        return regionHierarchyIndex.getChildren(dataType, provinceName, cityName, countyName, townshipName);
     }
 
     @Override
     public List<?> getDataByCounty(String dataType, String provinceName, String cityName, String countyName) {
-        if ("community".equals(dataType)) {
-            // 从社区数据表获取数据
-            QueryWrapper<CommunityDisasterReductionCapacity> wrapper = new QueryWrapper<>();
-            wrapper.eq("province_name", provinceName);
-            wrapper.eq("city_name", cityName);
-            wrapper.eq("county_name", countyName);
-            wrapper.orderByAsc("id");
+        return regionHierarchyIndex.getRows(dataType, provinceName, cityName, countyName);
+    }
 
-            return communityCapacityMapper.selectList(wrapper);
-        } else {
-            // 从调查数据表获取数据
-            QueryWrapper<SurveyData> wrapper = new QueryWrapper<>();
-            wrapper.eq("province", provinceName);
-            wrapper.eq("city", cityName);
-            wrapper.eq("county", countyName);
-            wrapper.orderByAsc("id");
+    @Override
+    public List<String> getRegionCodes(String dataType, String provinceName, String cityName, String countyName,
+                                       String townshipName, String communityName) {
+        return regionHierarchyIndex.getRegionCodes(dataType,
+                toPath(provinceName, cityName, countyName, townshipName, communityName));
+    }
+
+    @Override
+    public Map<String, Object> getHierarchyStats() {
+        return regionHierarchyIndex.getStats();
+    }
 
-            return surveyDataMapper.selectList(wrapper);
+    /**
+     * 去掉末尾未选择的层级
+     */
+    private static String[] toPath(String... names) {
+        int length = names.length;
+        while (length > 0 && (names[length - 1] == null || names[length - 1].isEmpty())) {
+            length--;
         }
+        return Arrays.copyOf(names, length);
     }
-}
\ No newline at end of file
+}
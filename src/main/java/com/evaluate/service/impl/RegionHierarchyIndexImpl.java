@@ -0,0 +1,555 @@
+package com.evaluate.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.evaluate.entity.CommunityDisasterReductionCapacity;
+import com.evaluate.entity.SurveyData;
+import com.evaluate.mapper.CommunityDisasterReductionCapacityMapper;
+import com.evaluate.mapper.SurveyDataMapper;
+import com.evaluate.service.RegionHierarchyIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 行政区划层级索引服务实现类
+ *
+ * 每种数据类型一个不可变的树快照。区县节点是重建单位：写入或删除只记录受影响的区县，
+ * 下次访问时按 (省, 市, 县) 条件重新查询这些区县的数据，生成新的区县节点，其余区县节点在新旧快照间共享，
+ * 省、市两级按区县重新组装。构建索引只查询ID、地区代码和层级名称列，区县及以下节点保存这些列和地区代码，
+ * 省、市节点由下级汇总；节点下的完整数据行按节点路径实时查询。
+ * 省、市、县名称为空的数据不进入树（级联选择中无法选到）；乡镇、社区名称为空的数据只计入所属区县。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Slf4j
+@Service
+public class RegionHierarchyIndexImpl implements RegionHierarchyIndex {
+
+    private static final int PROVINCE = 0;
+    private static final int CITY = 1;
+    private static final int COUNTY = 2;
+    private static final int TOWNSHIP = 3;
+    private static final int COMMUNITY = 4;
+
+    private static final char KEY_SEPARATOR = '\u0001';
+
+    /**
+     * 增量重建时每次查询的区县数量
+     */
+    private static final int COUNTY_BATCH_SIZE = 100;
+
+    @Autowired
+    private SurveyDataMapper surveyDataMapper;
+
+    @Autowired
+    private CommunityDisasterReductionCapacityMapper communityDataMapper;
+
+    /**
+     * 索引最长保留时间（分钟），用于发现不经过业务服务写入的数据，0 表示只在写入时更新
+     */
+    @Value("${evaluation.region-hierarchy.max-age-minutes:10}")
+    private long maxAgeMinutes = 10;
+
+    private final Holder<SurveyData> survey = new Holder<>(SurveyData.class, "survey_data",
+            new String[]{"province", "city", "county", "township"},
+            SurveyData::getId, SurveyData::getRegionCode,
+            data -> new String[]{data.getProvince(), data.getCity(), data.getCounty(), data.getTownship(), null},
+            query -> surveyDataMapper.selectList(query));
+
+    private final Holder<CommunityDisasterReductionCapacity> community = new Holder<>(
+            CommunityDisasterReductionCapacity.class, "community_disaster_reduction_capacity",
+            new String[]{"province_name", "city_name", "county_name", "township_name", "community_name"},
+            CommunityDisasterReductionCapacity::getId, CommunityDisasterReductionCapacity::getRegionCode,
+            data -> new String[]{data.getProvinceName(), data.getCityName(), data.getCountyName(),
+                    data.getTownshipName(), data.getCommunityName()},
+            query -> communityDataMapper.selectList(query));
+
+    @Override
+    public List<Map<String, Object>> getChildren(String dataType, String... path) {
+        Node<?> node = holder(dataType).getSnapshot().find(path);
+        List<Map<String, Object>> children = new ArrayList<>();
+        if (node == null) {
+            return children;
+        }
+        for (Node<?> child : node.children.values()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", child.name);
+            item.put("code", child.name);
+            item.put("count", child.rowCount);
+            if (child.children.isEmpty() && child.level >= TOWNSHIP && !child.regionCodes.isEmpty()) {
+                item.put("regionCode", child.regionCodes.get(0));
+            }
+            children.add(item);
+        }
+        return children;
+    }
+
+    @Override
+    public List<?> getRows(String dataType, String... path) {
+        return holder(dataType).rows(path);
+    }
+
+    @Override
+    public List<String> getRegionCodes(String dataType, String... path) {
+        Node<?> node = holder(dataType).getSnapshot().find(path);
+        return node != null ? node.collectRegionCodes() : new ArrayList<>();
+    }
+
+    @Override
+    public void onRowsChanged(String dataType, Collection<?> rows) {
+        if (rows != null && !rows.isEmpty()) {
+            holder(dataType).markRows(rows);
+        }
+    }
+
+    @Override
+    public void onRowsRemoved(String dataType, Collection<? extends Serializable> ids) {
+        if (ids != null && !ids.isEmpty()) {
+            holder(dataType).markIds(ids);
+        }
+    }
+
+    @Override
+    public void onTownshipChanged(String dataType, String townshipName) {
+        holder(dataType).markTownship(townshipName);
+    }
+
+    @Override
+    public void invalidate(String dataType) {
+        holder(dataType).markAll();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put(DATA_TYPE_TOWNSHIP, survey.stats());
+        stats.put(DATA_TYPE_COMMUNITY, community.stats());
+        return stats;
+    }
+
+    private Holder<?> holder(String dataType) {
+        return DATA_TYPE_COMMUNITY.equals(dataType) ? community : survey;
+    }
+
+    private static boolean isBlank(String name) {
+        return name == null || name.isEmpty();
+    }
+
+    /**
+     * 区县键（省、市、县名称），任一为空时返回null
+     */
+    private static String countyKey(String[] path) {
+        if (isBlank(path[PROVINCE]) || isBlank(path[CITY]) || isBlank(path[COUNTY])) {
+            return null;
+        }
+        return path[PROVINCE] + KEY_SEPARATOR + path[CITY] + KEY_SEPARATOR + path[COUNTY];
+    }
+
+    private static Long toLong(Object id) {
+        if (id instanceof Number) {
+            return ((Number) id).longValue();
+        }
+        try {
+            return id != null ? Long.valueOf(id.toString()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 单个数据类型的索引：当前快照与待重建的区县
+     */
+    private final class Holder<T> {
+        private final Class<T> type;
+        private final String table;
+        private final String[] pathColumns;
+        private final Function<T, Long> idOf;
+        private final Function<T, String> regionCodeOf;
+        private final Function<T, String[]> pathOf;
+        private final Function<QueryWrapper<T>, List<T>> select;
+
+        private volatile Snapshot<T> snapshot;
+        private volatile boolean pending;
+        private final Set<String> dirtyCounties = new LinkedHashSet<>();
+        private boolean fullRebuild;
+        private final AtomicLong builds = new AtomicLong();
+        private final AtomicLong incrementalUpdates = new AtomicLong();
+
+        private Holder(Class<T> type, String table, String[] pathColumns, Function<T, Long> idOf,
+                       Function<T, String> regionCodeOf, Function<T, String[]> pathOf,
+                       Function<QueryWrapper<T>, List<T>> select) {
+            this.type = type;
+            this.table = table;
+            this.pathColumns = pathColumns;
+            this.idOf = idOf;
+            this.regionCodeOf = regionCodeOf;
+            this.pathOf = pathOf;
+            this.select = select;
+        }
+
+        private Snapshot<T> getSnapshot() {
+            Snapshot<T> current = snapshot;
+            if (current != null && !pending && !isExpired(current)) {
+                return current;
+            }
+            synchronized (this) {
+                current = snapshot;
+                Set<String> counties;
+                boolean full;
+                synchronized (dirtyCounties) {
+                    if (current != null && !pending && !isExpired(current)) {
+                        return current;
+                    }
+                    full = current == null || fullRebuild || isExpired(current);
+                    counties = new LinkedHashSet<>(dirtyCounties);
+                    dirtyCounties.clear();
+                    fullRebuild = false;
+                    pending = false;
+                }
+                long start = System.currentTimeMillis();
+                if (full) {
+                    QueryWrapper<T> query = indexQuery();
+                    query.orderByAsc("id");
+                    List<T> rows = select.apply(query);
+                    current = build(rows != null ? rows : Collections.<T>emptyList());
+                    builds.incrementAndGet();
+                    log.info("行政区划层级索引构建完成 - 表: {}, 数据行数: {}, 区县数: {}, 耗时: {}ms",
+                            table, current.countyKeyById.size(), current.counties.size(), System.currentTimeMillis() - start);
+                } else {
+                    current = update(current, counties, loadCounties(counties));
+                    incrementalUpdates.incrementAndGet();
+                    log.info("行政区划层级索引增量更新 - 表: {}, 区县数: {}, 耗时: {}ms",
+                            table, counties.size(), System.currentTimeMillis() - start);
+                }
+                snapshot = current;
+                return current;
+            }
+        }
+
+        /**
+         * 节点下的完整数据行：按节点路径查询，路径未到区县时排除省、市、县名称为空的数据
+         */
+        private List<T> rows(String... path) {
+            Node<T> node = getSnapshot().find(path);
+            if (node == null || node.rowCount == 0) {
+                return new ArrayList<>();
+            }
+            int depth = path != null ? path.length : 0;
+            QueryWrapper<T> query = new QueryWrapper<>();
+            for (int i = 0; i < pathColumns.length; i++) {
+                if (i < depth) {
+                    query.eq(pathColumns[i], path[i]);
+                } else if (i <= COUNTY) {
+                    query.isNotNull(pathColumns[i]).ne(pathColumns[i], "");
+                }
+            }
+            query.orderByAsc("id");
+            List<T> rows = select.apply(query);
+            return rows != null ? rows : new ArrayList<>();
+        }
+
+        /**
+         * 构建索引的查询：只取ID、地区代码和层级名称列
+         */
+        private QueryWrapper<T> indexQuery() {
+            String[] columns = new String[pathColumns.length + 2];
+            columns[0] = "id";
+            columns[1] = "region_code";
+            System.arraycopy(pathColumns, 0, columns, 2, pathColumns.length);
+            QueryWrapper<T> query = new QueryWrapper<>();
+            query.select(columns);
+            return query;
+        }
+
+        private boolean isExpired(Snapshot<T> current) {
+            return maxAgeMinutes > 0
+                    && System.currentTimeMillis() - current.builtAt >= TimeUnit.MINUTES.toMillis(maxAgeMinutes);
+        }
+
+        /**
+         * 按 (省, 市, 县) 条件分批查询指定区县的数据
+         */
+        private List<T> loadCounties(Set<String> counties) {
+            List<String> keys = new ArrayList<>(counties);
+            List<T> rows = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i += COUNTY_BATCH_SIZE) {
+                List<String> batch = keys.subList(i, Math.min(i + COUNTY_BATCH_SIZE, keys.size()));
+                QueryWrapper<T> query = indexQuery();
+                query.and(w -> {
+                    for (int j = 0; j < batch.size(); j++) {
+                        String[] names = batch.get(j).split(String.valueOf(KEY_SEPARATOR), -1);
+                        if (j == 0) {
+                            w.nested(c -> c.eq(pathColumns[0], names[0]).eq(pathColumns[1], names[1])
+                                    .eq(pathColumns[2], names[2]));
+                        } else {
+                            w.or(c -> c.eq(pathColumns[0], names[0]).eq(pathColumns[1], names[1])
+                                    .eq(pathColumns[2], names[2]));
+                        }
+                    }
+                }).orderByAsc("id");
+                List<T> loaded = select.apply(query);
+                if (loaded != null) {
+                    rows.addAll(loaded);
+                }
+            }
+            return rows;
+        }
+
+        private Snapshot<T> build(List<T> rows) {
+            Map<String, List<T>> rowsByCounty = new LinkedHashMap<>();
+            Map<Long, String> countyKeyById = new HashMap<>();
+            for (T row : rows) {
+                String key = countyKey(pathOf.apply(row));
+                if (key == null) {
+                    continue;
+                }
+                rowsByCounty.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+                Long id = idOf.apply(row);
+                if (id != null) {
+                    countyKeyById.put(id, key);
+                }
+            }
+            Map<String, Node<T>> counties = new LinkedHashMap<>();
+            rowsByCounty.forEach((key, countyRows) -> counties.put(key, countyNode(key, countyRows)));
+            return new Snapshot<>(counties, countyKeyById, System.currentTimeMillis());
+        }
+
+        /**
+         * 替换指定区县的节点，其余区县节点沿用原快照
+         */
+        private Snapshot<T> update(Snapshot<T> current, Set<String> counties, List<T> rows) {
+            Map<String, List<T>> rowsByCounty = new HashMap<>();
+            for (T row : rows) {
+                String key = countyKey(pathOf.apply(row));
+                if (key != null && counties.contains(key)) {
+                    rowsByCounty.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+                }
+            }
+            Map<String, Node<T>> countyNodes = new LinkedHashMap<>(current.counties);
+            Map<Long, String> countyKeyById = new HashMap<>(current.countyKeyById);
+            for (String key : counties) {
+                Node<T> previous = countyNodes.get(key);
+                if (previous != null) {
+                    for (T row : previous.rows) {
+                        countyKeyById.remove(idOf.apply(row), key);
+                    }
+                }
+                List<T> countyRows = rowsByCounty.get(key);
+                if (countyRows == null) {
+                    countyNodes.remove(key);
+                    continue;
+                }
+                countyNodes.put(key, countyNode(key, countyRows));
+                for (T row : countyRows) {
+                    Long id = idOf.apply(row);
+                    if (id != null) {
+                        countyKeyById.put(id, key);
+                    }
+                }
+            }
+            return new Snapshot<>(countyNodes, countyKeyById, current.builtAt);
+        }
+
+        /**
+         * 生成区县节点及其乡镇、社区子节点（数据行已按ID排序）
+         */
+        private Node<T> countyNode(String key, List<T> rows) {
+            String name = key.substring(key.lastIndexOf(KEY_SEPARATOR) + 1);
+            Node<T> county = new Node<>(name, COUNTY, rows);
+            for (T row : rows) {
+                String[] path = pathOf.apply(row);
+                if (isBlank(path[TOWNSHIP])) {
+                    continue;
+                }
+                Node<T> township = county.children.computeIfAbsent(path[TOWNSHIP],
+                        k -> new Node<>(k, TOWNSHIP, new ArrayList<>()));
+                township.rows.add(row);
+                if (!isBlank(path[COMMUNITY])) {
+                    township.children.computeIfAbsent(path[COMMUNITY], k -> new Node<>(k, COMMUNITY, new ArrayList<>()))
+                            .rows.add(row);
+                }
+            }
+            county.seal(regionCodeOf);
+            return county;
+        }
+
+        private void markRows(Collection<?> rows) {
+            Snapshot<T> current = snapshot;
+            synchronized (dirtyCounties) {
+                for (Object row : rows) {
+                    if (!type.isInstance(row)) {
+                        continue;
+                    }
+                    T entity = type.cast(row);
+                    String key = countyKey(pathOf.apply(entity));
+                    if (key == null) {
+                        // 部分字段更新时无法确定新的区县
+                        fullRebuild = true;
+                    } else {
+                        dirtyCounties.add(key);
+                    }
+                    Long id = idOf.apply(entity);
+                    String previousKey = current != null && id != null ? current.countyKeyById.get(id) : null;
+                    if (previousKey != null) {
+                        dirtyCounties.add(previousKey);
+                    }
+                }
+                pending = true;
+            }
+        }
+
+        private void markIds(Collection<? extends Serializable> ids) {
+            Snapshot<T> current = snapshot;
+            if (current == null) {
+                return;
+            }
+            synchronized (dirtyCounties) {
+                for (Serializable id : ids) {
+                    String key = current.countyKeyById.get(toLong(id));
+                    if (key != null) {
+                        dirtyCounties.add(key);
+                    }
+                }
+                pending = true;
+            }
+        }
+
+        private void markTownship(String townshipName) {
+            Snapshot<T> current = snapshot;
+            if (current == null || isBlank(townshipName)) {
+                return;
+            }
+            synchronized (dirtyCounties) {
+                current.counties.forEach((key, county) -> {
+                    if (county.children.containsKey(townshipName)) {
+                        dirtyCounties.add(key);
+                    }
+                });
+                pending = true;
+            }
+        }
+
+        private void markAll() {
+            synchronized (dirtyCounties) {
+                fullRebuild = true;
+                pending = true;
+            }
+        }
+
+        private Map<String, Object> stats() {
+            Snapshot<T> current = snapshot;
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("loaded", current != null);
+            stats.put("rows", current != null ? current.countyKeyById.size() : 0);
+            stats.put("provinces", current != null ? current.root.children.size() : 0);
+            stats.put("counties", current != null ? current.counties.size() : 0);
+            stats.put("builds", builds.get());
+            stats.put("incrementalUpdates", incrementalUpdates.get());
+            stats.put("pending", pending);
+            stats.put("builtAt", current != null ? current.builtAt : null);
+            return stats;
+        }
+    }
+
+    /**
+     * 不可变的树快照
+     */
+    private static final class Snapshot<T> {
+        private final Node<T> root = new Node<>(null, -1, null);
+        private final Map<String, Node<T>> counties;
+        private final Map<Long, String> countyKeyById;
+        private final long builtAt;
+
+        private Snapshot(Map<String, Node<T>> counties, Map<Long, String> countyKeyById, long builtAt) {
+            this.counties = counties;
+            this.countyKeyById = countyKeyById;
+            this.builtAt = builtAt;
+            for (Map.Entry<String, Node<T>> entry : counties.entrySet()) {
+                String[] names = entry.getKey().split(String.valueOf(KEY_SEPARATOR), -1);
+                Node<T> province = root.children.computeIfAbsent(names[PROVINCE], k -> new Node<>(k, PROVINCE, null));
+                Node<T> city = province.children.computeIfAbsent(names[CITY], k -> new Node<>(k, CITY, null));
+                city.children.put(names[COUNTY], entry.getValue());
+                province.rowCount += entry.getValue().rowCount;
+                city.rowCount += entry.getValue().rowCount;
+                root.rowCount += entry.getValue().rowCount;
+            }
+        }
+
+        private Node<T> find(String... path) {
+            Node<T> node = root;
+            if (path == null) {
+                return node;
+            }
+            for (String name : path) {
+                node = name != null ? node.children.get(name) : null;
+                if (node == null) {
+                    return null;
+                }
+            }
+            return node;
+        }
+    }
+
+    /**
+     * 树节点：区县及以下节点保存索引数据行（ID、地区代码、层级名称）和地区代码，省、市节点由下级汇总
+     */
+    private static final class Node<T> {
+        private final String name;
+        private final int level;
+        private final Map<String, Node<T>> children = new LinkedHashMap<>();
+        private final List<T> rows;
+        private List<String> regionCodes = Collections.emptyList();
+        private int rowCount;
+
+        private Node(String name, int level, List<T> rows) {
+            this.name = name;
+            this.level = level;
+            this.rows = rows;
+        }
+
+        /**
+         * 区县节点生成完毕后计算本节点及下级的行数和地区代码
+         */
+        private void seal(Function<T, String> regionCodeOf) {
+            rowCount = rows.size();
+            Set<String> codes = new LinkedHashSet<>();
+            for (T row : rows) {
+                String regionCode = regionCodeOf.apply(row);
+                if (regionCode != null) {
+                    codes.add(regionCode);
+                }
+            }
+            regionCodes = new ArrayList<>(codes);
+            for (Node<T> child : children.values()) {
+                child.seal(regionCodeOf);
+            }
+        }
+
+        private List<String> collectRegionCodes() {
+            if (rows != null) {
+                return new ArrayList<>(regionCodes);
+            }
+            Set<String> collected = new LinkedHashSet<>();
+            for (Node<T> child : children.values()) {
+                collected.addAll(child.collectRegionCodes());
+            }
+            return new ArrayList<>(collected);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.evaluate.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.evaluate.dto.RegionName;
+import com.evaluate.entity.CommunityDisasterReductionCapacity;
+import com.evaluate.entity.SurveyData;
+import com.evaluate.mapper.CommunityDisasterReductionCapacityMapper;
+import com.evaluate.mapper.SurveyDataMapper;
+import com.evaluate.service.RegionNameCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 地区名称缓存服务实现类
+ *
+ * 每个数据来源一个按最近使用淘汰的映射表，未命中的代码按配置的批量大小分批 IN 查询，只取名称字段；
+ * 库中不存在的代码也缓存（空占位），避免结果表中的乡镇虚拟代码等反复查询。
+ * 查询期间发生 invalidate 时本次结果只返回给调用方，不写入缓存。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Slf4j
+@Service
+public class RegionNameCacheImpl implements RegionNameCache {
+
+    /**
+     * 库中不存在的地区代码占位
+     */
+    private static final RegionName MISSING = new RegionName();
+
+    @Autowired
+    private CommunityDisasterReductionCapacityMapper communityDataMapper;
+
+    @Autowired
+    private SurveyDataMapper surveyDataMapper;
+
+    /**
+     * 每批 IN 查询的地区代码数量（与地区数据批量加载共用配置）
+     */
+    @Value("${evaluation.region-loader.batch-size:500}")
+    private int batchSize = 500;
+
+    /**
+     * 每个数据来源缓存的地区代码数量上限
+     */
+    @Value("${evaluation.region-names.max-entries:20000}")
+    private int maxEntries = 20000;
+
+    private final Source community = new Source("community_disaster_reduction_capacity", this::loadCommunityNames);
+    private final Source survey = new Source("survey_data", this::loadSurveyNames);
+
+    @Override
+    public Map<String, RegionName> getCommunityNames(Collection<String> regionCodes) {
+        return community.get(regionCodes);
+    }
+
+    @Override
+    public Map<String, RegionName> getSurveyNames(Collection<String> regionCodes) {
+        return survey.get(regionCodes);
+    }
+
+    @Override
+    public void invalidateCommunity() {
+        community.invalidate();
+    }
+
+    @Override
+    public void invalidateSurvey() {
+        survey.invalidate();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxEntries", maxEntries);
+        stats.put("community", community.stats());
+        stats.put("survey", survey.stats());
+        return stats;
+    }
+
+    private List<RegionName> loadCommunityNames(List<String> batch) {
+        QueryWrapper<CommunityDisasterReductionCapacity> query = new QueryWrapper<>();
+        query.select("id", "region_code", "province_name", "city_name", "county_name", "township_name", "community_name")
+                .in("region_code", batch)
+                .orderByAsc("id");
+        List<CommunityDisasterReductionCapacity> rows = communityDataMapper.selectList(query);
+        List<RegionName> names = new ArrayList<>(rows != null ? rows.size() : 0);
+        if (rows != null) {
+            for (CommunityDisasterReductionCapacity row : rows) {
+                RegionName name = new RegionName();
+                name.setRegionCode(row.getRegionCode());
+                name.setProvinceName(row.getProvinceName());
+                name.setCityName(row.getCityName());
+                name.setCountyName(row.getCountyName());
+                name.setTownshipName(row.getTownshipName());
+                name.setCommunityName(row.getCommunityName());
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    private List<RegionName> loadSurveyNames(List<String> batch) {
+        QueryWrapper<SurveyData> query = new QueryWrapper<>();
+        query.select("id", "region_code", "province", "city", "county", "township")
+                .in("region_code", batch)
+                .orderByAsc("id");
+        List<SurveyData> rows = surveyDataMapper.selectList(query);
+        List<RegionName> names = new ArrayList<>(rows != null ? rows.size() : 0);
+        if (rows != null) {
+            for (SurveyData row : rows) {
+                RegionName name = new RegionName();
+                name.setRegionCode(row.getRegionCode());
+                name.setProvinceName(row.getProvince());
+                name.setCityName(row.getCity());
+                name.setCountyName(row.getCounty());
+                name.setTownshipName(row.getTownship());
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 单个数据来源的名称缓存
+     */
+    private final class Source {
+        private final String table;
+        private final Function<List<String>, List<RegionName>> loader;
+        private final Map<String, RegionName> entries = new LinkedHashMap<String, RegionName>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RegionName> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        private final AtomicLong generation = new AtomicLong();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+
+        private Source(String table, Function<List<String>, List<RegionName>> loader) {
+            this.table = table;
+            this.loader = loader;
+        }
+
+        private Map<String, RegionName> get(Collection<String> regionCodes) {
+            Map<String, RegionName> result = new HashMap<>();
+            if (regionCodes == null || regionCodes.isEmpty()) {
+                return result;
+            }
+            Set<String> requested = new LinkedHashSet<>(regionCodes);
+            requested.remove(null);
+            List<String> pending = new ArrayList<>();
+            synchronized (entries) {
+                for (String regionCode : requested) {
+                    RegionName cached = entries.get(regionCode);
+                    if (cached == null) {
+                        pending.add(regionCode);
+                    } else if (cached != MISSING) {
+                        result.put(regionCode, cached);
+                    }
+                }
+            }
+            hits.addAndGet(requested.size() - pending.size());
+            if (pending.isEmpty()) {
+                return result;
+            }
+
+            misses.addAndGet(pending.size());
+            long loadGeneration = generation.get();
+            long start = System.currentTimeMillis();
+            Map<String, RegionName> loaded = new HashMap<>();
+            int size = batchSize > 0 ? batchSize : 500;
+            for (int i = 0; i < pending.size(); i += size) {
+                for (RegionName name : loader.apply(pending.subList(i, Math.min(i + size, pending.size())))) {
+                    // 同一地区取第一行（按ID排序）
+                    loaded.putIfAbsent(name.getRegionCode(), name);
+                }
+                batches.incrementAndGet();
+            }
+            result.putAll(loaded);
+
+            synchronized (entries) {
+                if (generation.get() == loadGeneration) {
+                    for (String regionCode : pending) {
+                        entries.put(regionCode, loaded.getOrDefault(regionCode, MISSING));
+                    }
+                }
+            }
+            log.debug("加载地区名称: table={}, regions={}, found={}, elapsed={}ms",
+                    table, pending.size(), loaded.size(), System.currentTimeMillis() - start);
+            return result;
+        }
+
+        private void invalidate() {
+            synchronized (entries) {
+                generation.incrementAndGet();
+                entries.clear();
+            }
+        }
+
+        private Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            synchronized (entries) {
+                stats.put("entries", entries.size());
+            }
+            stats.put("hits", hits.get());
+            stats.put("misses", misses.get());
+            stats.put("batches", batches.get());
+            return stats;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.evaluate.service.impl;
 
 import com.evaluate.service.SpecialAlgorithmService;
+import com.evaluate.service.algorithm.ColumnStatistics;
+import com.evaluate.service.algorithm.ColumnStatisticsCache;
+import com.evaluate.service.algorithm.GradeRules;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -24,24 +27,36 @@ public class SpecialAlgorithmServiceImpl implements SpecialAlgorithmService {
             String currentRegionCode,
             Map<String, Object> regionContext,
             Map<String, Map<String, Object>> allRegionData) {
+        return executeSpecialAlgorithm(marker, params, currentRegionCode, regionContext, allRegionData,
+                new ColumnStatisticsCache());
+    }
+
+    @Override
+    public Object executeSpecialAlgorithm(
+            String marker,
+            String params,
+            String currentRegionCode,
+            Map<String, Object> regionContext,
+            Map<String, Map<String, Object>> allRegionData,
+            ColumnStatisticsCache statsCache) {
         
-        log.info("执行特殊算法: marker={}, params={}, region={}", marker, params, currentRegionCode);
+        log.debug("执行特殊算法: marker={}, params={}, region={}", marker, params, currentRegionCode);
         
         switch (marker) {
             case "NORMALIZE":
-                return normalize(params, currentRegionCode, allRegionData);
+                return normalize(params, currentRegionCode, allRegionData, statsCache);
                 
             case "TOPSIS_POSITIVE":
-                return calculateTopsisPositive(params, currentRegionCode, allRegionData);
+                return calculateTopsisPositive(params, currentRegionCode, allRegionData, statsCache);
                 
             case "TOPSIS_NEGATIVE":
-                return calculateTopsisNegative(params, currentRegionCode, allRegionData);
+                return calculateTopsisNegative(params, currentRegionCode, allRegionData, statsCache);
                 
             case "TOPSIS_SCORE":
                 return calculateTopsisScore(params, currentRegionCode, allRegionData);
                 
             case "GRADE":
-                return calculateGrade(params, currentRegionCode, allRegionData);
+                return calculateGrade(params, currentRegionCode, allRegionData, statsCache);
                 
             default:
                 log.warn("未知的特殊标记: {}", marker);
@@ -54,39 +69,25 @@ public class SpecialAlgorithmServiceImpl implements SpecialAlgorithmService {
             String indicatorName,
             String currentRegionCode,
             Map<String, Map<String, Object>> allRegionData) {
+        return normalize(indicatorName, currentRegionCode, allRegionData, new ColumnStatisticsCache());
+    }
+
+    private Double normalize(
+            String indicatorName,
+            String currentRegionCode,
+            Map<String, Map<String, Object>> allRegionData,
+            ColumnStatisticsCache statsCache) {
         
-        log.info("[归一化调试] 开始归一化: indicator={}, region={}, allRegionData.size={}", 
-                indicatorName, currentRegionCode, allRegionData.size());
-        
-        // 1. 收集所有区域的指标值
-        List<Double> allValues = new ArrayList<>();
-        for (Map.Entry<String, Map<String, Object>> entry : allRegionData.entrySet()) {
-            Object value = entry.getValue().get(indicatorName);
-            log.info("[归一化调试] 地区={}, {}={}", entry.getKey(), indicatorName, value);
-            
-            // 特别为 riskAssessment 添加详细调试
-            if ("riskAssessment".equals(indicatorName)) {
-                log.error("[DEBUG-RISK] 地区={}的完整数据keys: {}", entry.getKey(), entry.getValue().keySet());
-                log.error("[DEBUG-RISK] 是否包含riskAssessment: {}", entry.getValue().containsKey("riskAssessment"));
-                log.error("[DEBUG-RISK] riskAssessment值: {}", value);
-            }
-            
-            if (value != null) {
-                allValues.add(toDouble(value));
-            }
-        }
-        
-        log.info("[归一化调试] 收集到的所有值: {}", allValues);
+        // 1. 获取该指标在所有区域上的统计量（同一步骤内只扫描一次）
+        ColumnStatistics stats = statsCache.get(indicatorName, allRegionData);
         
-        if (allValues.isEmpty()) {
+        if (stats.isEmpty()) {
             log.warn("未找到任何指标值: {}", indicatorName);
             return 0.0;
         }
         
         // 2. 计算平方和的平方根：SQRT(SUMSQ(all_values))
-        double sumSquares = allValues.stream()
-                .mapToDouble(v -> v * v)
-                .sum();
+        double sumSquares = stats.getSumSquares();
         double denominator = Math.sqrt(sumSquares);
 
         if (denominator == 0) {
@@ -119,8 +120,8 @@ public class SpecialAlgorithmServiceImpl implements SpecialAlgorithmService {
         // 4. 计算归一化值
         double normalized = toDouble(currentValue) / denominator;
         
-        log.info("[归一化调试] 归一化结果: indicator={}, region={}, currentValue={}, sumSquares={}, denominator={}, normalized={}", 
-                indicatorName, currentRegionCode, currentValue, allValues.stream().mapToDouble(v -> v * v).sum(), denominator, normalized);
+        log.debug("[归一化] indicator={}, region={}, currentValue={}, sumSquares={}, denominator={}, normalized={}", 
+                indicatorName, currentRegionCode, currentValue, sumSquares, denominator, normalized);
         
         return normalized;
     }
@@ -130,8 +131,15 @@ public class SpecialAlgorithmServiceImpl implements SpecialAlgorithmService {
             String indicators,
             String currentRegionCode,
             Map<String, Map<String, Object>> allRegionData) {
+        return calculateTopsisPositive(indicators, currentRegionCode, allRegionData, new ColumnStatisticsCache());
+    }
+
+    private Double calculateTopsisPositive(
+            String indicators,
+            String currentRegionCode,
+            Map<String, Map<String, Object>> allRegionData,
+            ColumnStatisticsCache statsCache) {
         
-        log.info("[TOPSIS-DEBUG] 优解计算: indicators={}, region={}", indicators, currentRegionCode);
         log.debug("TOPSIS优解计算: indicators={}, region={}", indicators, currentRegionCode);
         
         // 检查是否为单区域情况
@@ -157,25 +165,16 @@ public class SpecialAlgorithmServiceImpl implements SpecialAlgorithmService {
         for (String indicator : indicatorArray) {
             String trimmedIndicator = indicator.trim();
             
-            // 收集所有区域该指标的值
-            List<Double> allValues = new ArrayList<>();
-            for (Map.Entry<String, Map<String, Object>> entry : allRegionData.entrySet()) {
-                Object value = entry.getValue().get(trimmedIndicator);
-                if (value != null) {
-                    allValues.add(toDouble(value));
-                }
-            }
+            // 所有区域该指标的统计量
+            ColumnStatistics stats = statsCache.get(trimmedIndicator, allRegionData);
             
-            if (allValues.isEmpty()) {
+            if (stats.isEmpty()) {
                 log.warn("未找到指标值: {}", trimmedIndicator);
                 continue;
             }
             
-            // 找到最大值（正理想解）
-            double maxValue = allValues.stream()
-                    .mapToDouble(Double::doubleValue)
-                    .max()
-                    .orElse(0.0);
+            // 最大值（正理想解）
+            double maxValue = stats.getMax();
             
             // 获取当前值
             Object currentValue = currentData.get(trimmedIndicator);
@@ -204,6 +203,14 @@ public class SpecialAlgorithmServiceImpl implements SpecialAlgorithmService {
             String indicators,
             String currentRegionCode,
             Map<String, Map<String, Object>> allRegionData) {
+        return calculateTopsisNegative(indicators, currentRegionCode, allRegionData, new ColumnStatisticsCache());
+    }
+
+    private Double calculateTopsisNegative(
+            String indicators,
+            String currentRegionCode,
+            Map<String, Map<String, Object>> allRegionData,
+            ColumnStatisticsCache statsCache) {
         
         log.debug("TOPSIS劣解计算: indicators={}, region={}", indicators, currentRegionCode);
         
@@ -231,25 +238,16 @@ public class SpecialAlgorithmServiceImpl implements SpecialAlgorithmService {
         for (String indicator : indicatorArray) {
             String trimmedIndicator = indicator.trim();
             
-            // 收集所有区域该指标的值
-            List<Double> allValues = new ArrayList<>();
-            for (Map.Entry<String, Map<String, Object>> entry : allRegionData.entrySet()) {
-                Object value = entry.getValue().get(trimmedIndicator);
-                if (value != null) {
-                    allValues.add(toDouble(value));
-                }
-            }
+            // 所有区域该指标的统计量
+            ColumnStatistics stats = statsCache.get(trimmedIndicator, allRegionData);
             
-            if (allValues.isEmpty()) {
+            if (stats.isEmpty()) {
                 log.warn("未找到指标值: {}", trimmedIndicator);
                 continue;
             }
             
-            // 找到最小值（负理想解）
-            double minValue = allValues.stream()
-                    .mapToDouble(Double::doubleValue)
-                    .min()
-                    .orElse(0.0);
+            // 最小值（负理想解）
+            double minValue = stats.getMin();
             
             // 获取当前值
             Object currentValue = currentData.get(trimmedIndicator);
@@ -345,43 +343,37 @@ public class SpecialAlgorithmServiceImpl implements SpecialAlgorithmService {
             String scoreField,
             String currentRegionCode,
             Map<String, Map<String, Object>> allRegionData) {
+        return calculateGrade(scoreField, currentRegionCode, allRegionData, new ColumnStatisticsCache());
+    }
+
+    private String calculateGrade(
+            String scoreField,
+            String currentRegionCode,
+            Map<String, Map<String, Object>> allRegionData,
+            ColumnStatisticsCache statsCache) {
         
         log.debug("能力分级计算: scoreField={}, region={}", scoreField, currentRegionCode);
         
-        // 1. 收集所有区域的分数
-        List<Double> allScores = new ArrayList<>();
-        for (Map.Entry<String, Map<String, Object>> entry : allRegionData.entrySet()) {
-            Object value = entry.getValue().get(scoreField);
-            if (value != null) {
-                double scoreValue = toDouble(value);
-                allScores.add(scoreValue);
-                log.debug("[分级调试] 地区 {} 的 {} = {}", entry.getKey(), scoreField, scoreValue);
-            }
-        }
+        // 1. 所有区域分数的统计量
+        ColumnStatistics stats = statsCache.get(scoreField, allRegionData);
         
-        if (allScores.isEmpty()) {
+        if (stats.isEmpty()) {
             log.warn("未找到任何分数值: {}", scoreField);
             return "中等";
         }
         
-        // 2. 计算均值 μ
-        double mean = allScores.stream()
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
+        // 2. 均值 μ
+        double mean = stats.getMean();
         
-        // 3. 计算标准差 σ (使用样本标准差，与Excel的STDEV.S一致)
-        int n = allScores.size();
+        // 3. 标准差 σ (使用样本标准差，与Excel的STDEV.S一致)
+        int n = stats.getCount();
         if (n <= 1) {
             log.warn("样本数量不足，无法计算标准差: {}", n);
             return handleSingleRegionGrading(scoreField, currentRegionCode, allRegionData);
         }
-        double sumSquaredDiff = allScores.stream()
-                .mapToDouble(v -> Math.pow(v - mean, 2))
-                .sum();
-        double stdev = Math.sqrt(sumSquaredDiff / (n - 1));  // 样本标准差：除以(n-1)
+        double stdev = stats.getSampleStdDev();
         
-        log.info("[分级] {} 统计: n={}, μ={}, σ={}", scoreField, n, String.format("%.4f", mean), String.format("%.4f", stdev));
+        log.debug("[分级] {} 统计: n={}, μ={}, σ={}", scoreField, n, mean, stdev);
         
         // 4. 获取当前区域的分数
         Map<String, Object> currentData = allRegionData.get(currentRegionCode);
@@ -401,8 +393,7 @@ public class SpecialAlgorithmServiceImpl implements SpecialAlgorithmService {
         // 5. 根据分级规则计算等级
         String grade = determineGrade(score, mean, stdev);
         
-        log.info("[分级结果] 地区 {} {} 分数={} 等级={}", 
-                currentRegionCode, scoreField, String.format("%.4f", score), grade);
+        log.debug("[分级结果] 地区 {} {} 分数={} 等级={}", currentRegionCode, scoreField, score, grade);
         
         return grade;
     }
@@ -486,18 +477,7 @@ public class SpecialAlgorithmServiceImpl implements SpecialAlgorithmService {
         }
         
         // 对于单区域情况，基于分数的绝对值进行分级
-        String grade;
-        if (score >= 0.8) {
-            grade = "强";
-        } else if (score >= 0.6) {
-            grade = "较强";
-        } else if (score >= 0.4) {
-            grade = "中等";
-        } else if (score >= 0.2) {
-            grade = "较弱";
-        } else {
-            grade = "弱";
-        }
+        String grade = GradeRules.gradeByAbsoluteScore(score);
         
         log.info("[单区域分级] {} 分数={} 等级={}", scoreField, String.format("%.4f", score), grade);
         return grade;
@@ -539,47 +519,7 @@ private String determineGrade(double value, double mean, double stdev) {
                 String.format("%.4f", meanPlusOneAndHalf), String.format("%.4f", meanPlusHalf), 
                 String.format("%.4f", meanMinusHalf), String.format("%.4f", meanMinusOneAndHalf));
         
-        // 确保值不小于0（根据规则中的[0,...)区间)
-        value = Math.max(0, value);
-        
-        if (mean <= halfStdev) {
-            // 情况1：μ ≤ 0.5σ，分为3级
-            log.info("[分级规则] 3级分类: μ({}) ≤ 0.5σ({})", String.format("%.4f", mean), String.format("%.4f", halfStdev));
-            if (value >= meanPlusOneAndHalf) {
-                return "强";
-            } else if (value >= meanPlusHalf) {
-                return "较强";
-            } else {
-                return "中等";
-            }
-        } else if (mean <= oneAndHalfStdev) {
-            // 情况2：0.5σ < μ ≤ 1.5σ，分为4级
-            log.info("[分级规则] 4级分类: 0.5σ({}) < μ({}) ≤ 1.5σ({})", String.format("%.4f", halfStdev), String.format("%.4f", mean), String.format("%.4f", oneAndHalfStdev));
-            
-            if (value >= meanPlusOneAndHalf) {
-                return "强";
-            } else if (value >= meanPlusHalf) {
-                return "较强";
-            } else if (value >= meanMinusHalf) {
-                return "中等";
-            } else {
-                return "较弱";
-            }
-        } else {
-            // 情况3：μ > 1.5σ，默认情况，使用5级分类
-            log.info("[分级规则] 5级分类: μ({}) > 1.5σ({})", String.format("%.4f", mean), String.format("%.4f", oneAndHalfStdev));
-            if (value >= meanPlusOneAndHalf) {
-                return "强";
-            } else if (value >= meanPlusHalf) {
-                return "较强";
-            } else if (value >= meanMinusHalf) {
-                return "中等";
-            } else if (value >= meanMinusOneAndHalf) {
-                return "较弱";
-            } else {
-                return "弱";
-            }
-        }
+        return GradeRules.determineGrade(value, mean, stdev);
     }
 
     /**
@@ -5,20 +5,37 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.evaluate.entity.SurveyData;
 import com.evaluate.mapper.SurveyDataMapper;
 import com.evaluate.service.ISurveyDataService;
+import com.evaluate.service.RegionHierarchyIndex;
+import com.evaluate.service.RegionNameCache;
+import com.evaluate.service.SurveyRegionResolver;
+import com.evaluate.util.ExcelStreamReader;
+import com.evaluate.util.ExcelUtil;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.poi.ss.usermodel.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 调查数据服务实现类
@@ -30,6 +47,26 @@ import java.util.List;
 @Service
 public class SurveyDataServiceImpl extends ServiceImpl<SurveyDataMapper, SurveyData> implements ISurveyDataService {
 
+    @Autowired
+    private SurveyRegionResolver surveyRegionResolver;
+
+    @Autowired
+    private RegionNameCache regionNameCache;
+
+    @Autowired
+    private RegionHierarchyIndex regionHierarchyIndex;
+
+    /**
+     * Excel导入每批写入数据库的行数
+     */
+    @Value("${evaluation.excel-import.batch-size:500}")
+    private int importBatchSize = 500;
+
+    private static final String[] EXPORT_HEADERS = {"行政区代码", "省名称", "市名称", "县名称", "乡镇名称",
+            "常住人口", "管理人员", "风险评估", "资金投入", "物资价值",
+            "医院床位", "消防员数量", "志愿者人数", "民兵预备役",
+            "培训参与人次", "避难场所容量"};
+
     @Override
     public List<SurveyData> getBySurveyName(String surveyName) {
         QueryWrapper<SurveyData> wrapper = new QueryWrapper<>();
@@ -39,33 +76,9 @@ public class SurveyDataServiceImpl extends ServiceImpl<SurveyDataMapper, SurveyD
 
     @Override
     public List<SurveyData> getBySurveyRegion(String surveyRegion) {
-        log.info("开始查询地区数据，输入参数: '{}'", surveyRegion);
-        
-        // 首先查看数据库中所有的township值，用于调试
-        QueryWrapper<SurveyData> debugWrapper = new QueryWrapper<>();
-        debugWrapper.select("DISTINCT township").isNotNull("township");
-        List<SurveyData> allTownships = list(debugWrapper);
-        log.info("数据库中所有township值: {}", 
-            allTownships.stream().map(SurveyData::getTownship).collect(java.util.stream.Collectors.toList()));
-        
-        // 优先进行精确匹配乡镇名称
-        QueryWrapper<SurveyData> exactWrapper = new QueryWrapper<>();
-        exactWrapper.eq("township", surveyRegion);
-        
-        List<SurveyData> result = list(exactWrapper);
-        log.info("精确匹配乡镇名称 '{}' 查询到 {} 条调查数据", surveyRegion, result.size());
-        
-        // 如果精确匹配没有找到数据，尝试模糊匹配
-        if (result.isEmpty()) {
-            QueryWrapper<SurveyData> likeWrapper = new QueryWrapper<>();
-            likeWrapper.like("township", surveyRegion)
-                      .or().like("county", surveyRegion)
-                      .or().like("city", surveyRegion)
-                      .or().like("province", surveyRegion);
-            result = list(likeWrapper);
-            log.info("模糊匹配地区名称 '{}' 查询到 {} 条调查数据", surveyRegion, result.size());
-        }
-        
+        // 优先精确匹配乡镇名称，无结果时按乡镇、区县、市、省名称片段匹配（内存索引）
+        List<SurveyData> result = surveyRegionResolver.findByRegion(surveyRegion);
+        log.debug("地区 '{}' 查询到 {} 条调查数据", surveyRegion, result.size());
         return result;
     }
 
@@ -101,71 +114,61 @@ public class SurveyDataServiceImpl extends ServiceImpl<SurveyDataMapper, SurveyD
             return false;
         }
         
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            List<SurveyData> dataList = new ArrayList<>();
-            
-            // 跳过标题行，从第二行开始读取
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-                
+        // 流式逐行解析，每满一批写入数据库，不在内存中保留整个工作簿和全部数据
+        List<SurveyData> batch = new ArrayList<>(importBatchSize);
+        int[] imported = new int[1];
+        try (InputStream inputStream = file.getInputStream()) {
+            ExcelStreamReader.read(inputStream, row -> {
+                // 跳过标题行
+                if (row.getRowNum() == 0 || row.isEmpty()) {
+                    return;
+                }
                 SurveyData data = parseRowToSurveyData(row);
-                if (data != null) {
-                    dataList.add(data);
+                if (data == null) {
+                    return;
+                }
+                if (!validateSurveyData(data)) {
+                    throw new IllegalArgumentException("第" + (row.getRowNum() + 1) + "行调查数据验证失败: " + data);
                 }
+                batch.add(data);
+                if (batch.size() >= importBatchSize) {
+                    saveBatch(batch, importBatchSize);
+                    imported[0] += batch.size();
+                    batch.clear();
+                }
+            });
+            if (!batch.isEmpty()) {
+                saveBatch(batch, importBatchSize);
+                imported[0] += batch.size();
             }
-            
-            return batchSave(dataList);
-        } catch (IOException e) {
+        } catch (IllegalArgumentException e) {
+            log.error(e.getMessage());
+            markRollbackOnly();
+            return false;
+        } catch (Exception e) {
             log.error("读取Excel文件失败", e);
+            markRollbackOnly();
             return false;
         }
+        log.info("调查数据导入完成 - 导入行数: {}", imported[0]);
+        return imported[0] > 0;
+    }
+
+    /**
+     * 导入中途失败时回滚已写入的批次，保持整个文件要么全部导入要么全部不导入
+     */
+    private void markRollbackOnly() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public byte[] exportToExcel(String surveyName) {
-        List<SurveyData> dataList = getBySurveyName(surveyName);
-        
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("调查数据");
-            
-            // 创建标题行
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"行政区代码", "省名称", "市名称", "县名称", "乡镇名称", 
-                              "常住人口", "管理人员", "风险评估", "资金投入", "物资价值", 
-                              "医院床位", "消防员数量", "志愿者人数", "民兵预备役", 
-                              "培训参与人次", "避难场所容量"};
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-            }
-            
-            // 填充数据
-            for (int i = 0; i < dataList.size(); i++) {
-                Row row = sheet.createRow(i + 1);
-                SurveyData data = dataList.get(i);
-                
-                row.createCell(0).setCellValue(data.getRegionCode());
-                row.createCell(1).setCellValue(data.getProvince());
-                row.createCell(2).setCellValue(data.getCity());
-                row.createCell(3).setCellValue(data.getCounty());
-                row.createCell(4).setCellValue(data.getTownship());
-                row.createCell(5).setCellValue(data.getPopulation() != null ? data.getPopulation() : 0);
-                row.createCell(6).setCellValue(data.getManagementStaff() != null ? data.getManagementStaff() : 0);
-                row.createCell(7).setCellValue(data.getRiskAssessment());
-                row.createCell(8).setCellValue(data.getFundingAmount() != null ? data.getFundingAmount() : 0);
-                row.createCell(9).setCellValue(data.getMaterialValue() != null ? data.getMaterialValue() : 0);
-                row.createCell(10).setCellValue(data.getHospitalBeds() != null ? data.getHospitalBeds() : 0);
-                row.createCell(11).setCellValue(data.getFirefighters() != null ? data.getFirefighters() : 0);
-                row.createCell(12).setCellValue(data.getVolunteers() != null ? data.getVolunteers() : 0);
-                row.createCell(13).setCellValue(data.getMilitiaReserve() != null ? data.getMilitiaReserve() : 0);
-                row.createCell(14).setCellValue(data.getTrainingParticipants() != null ? data.getTrainingParticipants() : 0);
-                row.createCell(15).setCellValue(data.getShelterCapacity() != null ? data.getShelterCapacity() : 0);
-            }
-            
+        try {
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
+            exportToExcel(surveyName, outputStream);
             return outputStream.toByteArray();
         } catch (IOException e) {
             log.error("导出Excel失败", e);
@@ -173,6 +176,14 @@ public class SurveyDataServiceImpl extends ServiceImpl<SurveyDataMapper, SurveyD
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public int exportToExcel(String surveyName, OutputStream outputStream) throws IOException {
+        QueryWrapper<SurveyData> wrapper = new QueryWrapper<>();
+        wrapper.eq("township", surveyName);
+        return writeSurveyExcel(wrapper, outputStream);
+    }
+
     @Override
     public List<String> getAllIndicatorCodes() {
         // survey_data表没有indicator_code字段，返回空列表
@@ -213,7 +224,43 @@ public class SurveyDataServiceImpl extends ServiceImpl<SurveyDataMapper, SurveyD
         // 删除调查数据
         QueryWrapper<SurveyData> wrapper = new QueryWrapper<>();
         wrapper.eq("township", surveyName);
-        return remove(wrapper);
+        boolean removed = remove(wrapper);
+        refreshRegionIndex(() -> regionHierarchyIndex.onTownshipChanged(RegionHierarchyIndex.DATA_TYPE_TOWNSHIP, surveyName));
+        return removed;
+    }
+
+    @Override
+    public boolean save(SurveyData entity) {
+        boolean saved = super.save(entity);
+        List<SurveyData> changed = Collections.singletonList(entity);
+        refreshRegionIndex(() -> regionHierarchyIndex.onRowsChanged(RegionHierarchyIndex.DATA_TYPE_TOWNSHIP, changed));
+        return saved;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean saveBatch(Collection<SurveyData> entityList, int batchSize) {
+        boolean saved = super.saveBatch(entityList, batchSize);
+        // 导入时批次列表会被复用，只保留每个区县的一行用于提交后再次标记
+        List<SurveyData> changed = countyRows(entityList);
+        refreshRegionIndex(() -> regionHierarchyIndex.onRowsChanged(RegionHierarchyIndex.DATA_TYPE_TOWNSHIP, changed));
+        return saved;
+    }
+
+    @Override
+    public boolean updateById(SurveyData entity) {
+        boolean updated = super.updateById(entity);
+        List<SurveyData> changed = Collections.singletonList(entity);
+        refreshRegionIndex(() -> regionHierarchyIndex.onRowsChanged(RegionHierarchyIndex.DATA_TYPE_TOWNSHIP, changed));
+        return updated;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        List<Serializable> removedIds = Collections.singletonList(id);
+        refreshRegionIndex(() -> regionHierarchyIndex.onRowsRemoved(RegionHierarchyIndex.DATA_TYPE_TOWNSHIP, removedIds));
+        return removed;
     }
 
     @Override
@@ -235,139 +282,144 @@ public class SurveyDataServiceImpl extends ServiceImpl<SurveyDataMapper, SurveyD
     }
 
     @Override
+    @Transactional(readOnly = true)
     public byte[] exportAllToExcel() {
         log.info("开始导出所有数据到Excel");
-        List<SurveyData> dataList = list(); // 获取所有数据
-        log.info("获取到 {} 条数据", dataList.size());
-        
-        if (dataList.isEmpty()) {
-            log.warn("没有数据可导出");
-            throw new RuntimeException("没有数据可导出");
-        }
-        
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("调查数据");
-            
-            // 创建标题行
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"行政区代码", "省名称", "市名称", "县名称", "乡镇名称", 
-                              "常住人口", "管理人员", "风险评估", "资金投入", "物资价值", 
-                              "医院床位", "消防员数量", "志愿者人数", "民兵预备役", 
-                              "培训参与人次", "避难场所容量"};
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-            }
-            
-            // 填充数据
-            for (int i = 0; i < dataList.size(); i++) {
-                SurveyData data = dataList.get(i);
-                Row row = sheet.createRow(i + 1);
-                
-                row.createCell(0).setCellValue(data.getRegionCode() != null ? data.getRegionCode() : "");
-                row.createCell(1).setCellValue(data.getProvince() != null ? data.getProvince() : "");
-                row.createCell(2).setCellValue(data.getCity() != null ? data.getCity() : "");
-                row.createCell(3).setCellValue(data.getCounty() != null ? data.getCounty() : "");
-                row.createCell(4).setCellValue(data.getTownship() != null ? data.getTownship() : "");
-                row.createCell(5).setCellValue(data.getPopulation() != null ? data.getPopulation() : 0);
-                row.createCell(6).setCellValue(data.getManagementStaff() != null ? data.getManagementStaff() : 0);
-                row.createCell(7).setCellValue(data.getRiskAssessment() != null ? data.getRiskAssessment() : "");
-                row.createCell(8).setCellValue(data.getFundingAmount() != null ? data.getFundingAmount() : 0.0);
-                row.createCell(9).setCellValue(data.getMaterialValue() != null ? data.getMaterialValue() : 0.0);
-                row.createCell(10).setCellValue(data.getHospitalBeds() != null ? data.getHospitalBeds() : 0);
-                row.createCell(11).setCellValue(data.getFirefighters() != null ? data.getFirefighters() : 0);
-                row.createCell(12).setCellValue(data.getVolunteers() != null ? data.getVolunteers() : 0);
-                row.createCell(13).setCellValue(data.getMilitiaReserve() != null ? data.getMilitiaReserve() : 0);
-                row.createCell(14).setCellValue(data.getTrainingParticipants() != null ? data.getTrainingParticipants() : 0);
-                row.createCell(15).setCellValue(data.getShelterCapacity() != null ? data.getShelterCapacity() : 0);
-            }
-            
-            // 自动调整列宽
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            // 转换为字节数组
+        try {
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
+            exportAllToExcel(outputStream);
             byte[] result = outputStream.toByteArray();
             log.info("Excel文件生成成功，大小: {} 字节", result.length);
             return result;
-            
-        } catch (Exception e) {
+        } catch (IOException e) {
             log.error("导出Excel失败", e);
             throw new RuntimeException("导出Excel失败: " + e.getMessage());
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public int exportAllToExcel(OutputStream outputStream) throws IOException {
+        if (count() == 0) {
+            log.warn("没有数据可导出");
+            throw new RuntimeException("没有数据可导出");
+        }
+        QueryWrapper<SurveyData> wrapper = new QueryWrapper<>();
+        wrapper.orderByAsc("id");
+        int rows = writeSurveyExcel(wrapper, outputStream);
+        log.info("导出所有调查数据完成，共 {} 条", rows);
+        return rows;
+    }
+
+    /**
+     * 以游标逐行读取调查数据并通过 SXSSF 流式写入Excel，不在内存中保留全部数据和整个工作簿
+     */
+    private int writeSurveyExcel(QueryWrapper<SurveyData> wrapper, OutputStream outputStream) throws IOException {
+        try (Cursor<SurveyData> cursor = baseMapper.selectCursor(wrapper)) {
+            return ExcelUtil.writeExcel(outputStream, "调查数据", EXPORT_HEADERS, cursor, this::writeSurveyRow);
+        }
+    }
+
+    private void writeSurveyRow(Row row, SurveyData data) {
+        row.createCell(0).setCellValue(data.getRegionCode() != null ? data.getRegionCode() : "");
+        row.createCell(1).setCellValue(data.getProvince() != null ? data.getProvince() : "");
+        row.createCell(2).setCellValue(data.getCity() != null ? data.getCity() : "");
+        row.createCell(3).setCellValue(data.getCounty() != null ? data.getCounty() : "");
+        row.createCell(4).setCellValue(data.getTownship() != null ? data.getTownship() : "");
+        row.createCell(5).setCellValue(data.getPopulation() != null ? data.getPopulation() : 0);
+        row.createCell(6).setCellValue(data.getManagementStaff() != null ? data.getManagementStaff() : 0);
+        row.createCell(7).setCellValue(data.getRiskAssessment() != null ? data.getRiskAssessment() : "");
+        row.createCell(8).setCellValue(data.getFundingAmount() != null ? data.getFundingAmount() : 0.0);
+        row.createCell(9).setCellValue(data.getMaterialValue() != null ? data.getMaterialValue() : 0.0);
+        row.createCell(10).setCellValue(data.getHospitalBeds() != null ? data.getHospitalBeds() : 0);
+        row.createCell(11).setCellValue(data.getFirefighters() != null ? data.getFirefighters() : 0);
+        row.createCell(12).setCellValue(data.getVolunteers() != null ? data.getVolunteers() : 0);
+        row.createCell(13).setCellValue(data.getMilitiaReserve() != null ? data.getMilitiaReserve() : 0);
+        row.createCell(14).setCellValue(data.getTrainingParticipants() != null ? data.getTrainingParticipants() : 0);
+        row.createCell(15).setCellValue(data.getShelterCapacity() != null ? data.getShelterCapacity() : 0);
+    }
+
+    /**
+     * 调查数据写入后使地区索引和地区名称缓存失效并标记层级索引中受影响的区县；
+     * 在事务中时于提交后再执行一次，避免并发查找按未提交前的数据重建
+     */
+    private void refreshRegionIndex(Runnable hierarchyChange) {
+        surveyRegionResolver.invalidate();
+        regionNameCache.invalidateSurvey();
+        hierarchyChange.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    surveyRegionResolver.invalidate();
+                    regionNameCache.invalidateSurvey();
+                    hierarchyChange.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * 每个（省、市、县）只取一行
+     */
+    private static List<SurveyData> countyRows(Collection<SurveyData> entityList) {
+        Map<String, SurveyData> rows = new LinkedHashMap<>();
+        for (SurveyData data : entityList) {
+            rows.putIfAbsent(data.getProvince() + "\u0000" + data.getCity() + "\u0000" + data.getCounty(), data);
+        }
+        return new ArrayList<>(rows.values());
+    }
+
     /**
      * 解析Excel行数据为SurveyData对象
      */
-    private SurveyData parseRowToSurveyData(Row row) {
+    private SurveyData parseRowToSurveyData(ExcelStreamReader.ExcelRow row) {
         try {
             SurveyData data = new SurveyData();
             
-            data.setRegionCode(getCellStringValue(row.getCell(0)));
-            data.setProvince(getCellStringValue(row.getCell(1)));
-            data.setCity(getCellStringValue(row.getCell(2)));
-            data.setCounty(getCellStringValue(row.getCell(3)));
-            data.setTownship(getCellStringValue(row.getCell(4)));
+            data.setRegionCode(getCellStringValue(row, 0));
+            data.setProvince(getCellStringValue(row, 1));
+            data.setCity(getCellStringValue(row, 2));
+            data.setCounty(getCellStringValue(row, 3));
+            data.setTownship(getCellStringValue(row, 4));
             
-            Cell populationCell = row.getCell(5);
-            if (populationCell != null) {
-                data.setPopulation((long) populationCell.getNumericCellValue());
+            if (row.hasCell(5)) {
+                data.setPopulation((long) getCellNumericValue(row, 5));
             }
-            
-            Cell managementCell = row.getCell(6);
-            if (managementCell != null) {
-                data.setManagementStaff((int) managementCell.getNumericCellValue());
+            if (row.hasCell(6)) {
+                data.setManagementStaff((int) getCellNumericValue(row, 6));
             }
             
-            data.setRiskAssessment(getCellStringValue(row.getCell(7)));
+            data.setRiskAssessment(getCellStringValue(row, 7));
             
-            Cell fundingCell = row.getCell(8);
-            if (fundingCell != null) {
-                data.setFundingAmount(fundingCell.getNumericCellValue());
+            if (row.hasCell(8)) {
+                data.setFundingAmount(getCellNumericValue(row, 8));
             }
-            
-            Cell materialCell = row.getCell(9);
-            if (materialCell != null) {
-                data.setMaterialValue(materialCell.getNumericCellValue());
+            if (row.hasCell(9)) {
+                data.setMaterialValue(getCellNumericValue(row, 9));
             }
-            
-            Cell hospitalBedsCell = row.getCell(10);
-            if (hospitalBedsCell != null) {
-                data.setHospitalBeds((int) hospitalBedsCell.getNumericCellValue());
+            if (row.hasCell(10)) {
+                data.setHospitalBeds((int) getCellNumericValue(row, 10));
             }
-            
-            Cell firefightersCell = row.getCell(11);
-            if (firefightersCell != null) {
-                data.setFirefighters((int) firefightersCell.getNumericCellValue());
+            if (row.hasCell(11)) {
+                data.setFirefighters((int) getCellNumericValue(row, 11));
             }
-            
-            Cell volunteersCell = row.getCell(12);
-            if (volunteersCell != null) {
-                data.setVolunteers((int) volunteersCell.getNumericCellValue());
+            if (row.hasCell(12)) {
+                data.setVolunteers((int) getCellNumericValue(row, 12));
             }
-            
-            Cell militiaReserveCell = row.getCell(13);
-            if (militiaReserveCell != null) {
-                data.setMilitiaReserve((int) militiaReserveCell.getNumericCellValue());
+            if (row.hasCell(13)) {
+                data.setMilitiaReserve((int) getCellNumericValue(row, 13));
             }
-            
-            Cell trainingParticipantsCell = row.getCell(14);
-            if (trainingParticipantsCell != null) {
-                data.setTrainingParticipants((int) trainingParticipantsCell.getNumericCellValue());
+            if (row.hasCell(14)) {
+                data.setTrainingParticipants((int) getCellNumericValue(row, 14));
             }
-            
-            Cell shelterCapacityCell = row.getCell(15);
-            if (shelterCapacityCell != null) {
-                data.setShelterCapacity((int) shelterCapacityCell.getNumericCellValue());
+            if (row.hasCell(15)) {
+                data.setShelterCapacity((int) getCellNumericValue(row, 15));
             }
             
             return data;
         } catch (Exception e) {
-            log.error("解析Excel行数据失败", e);
+            log.error("解析Excel第{}行数据失败", row.getRowNum() + 1, e);
             return null;
         }
     }
@@ -375,20 +427,25 @@ public class SurveyDataServiceImpl extends ServiceImpl<SurveyDataMapper, SurveyD
     /**
      * 获取单元格字符串值
      */
-    private String getCellStringValue(Cell cell) {
-        if (cell == null) {
-            return null;
+    private String getCellStringValue(ExcelStreamReader.ExcelRow row, int column) {
+        Object value = row.getValue(column);
+        if (value instanceof String || value instanceof Double || value instanceof Boolean) {
+            return String.valueOf(value);
         }
-        
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                return String.valueOf(cell.getNumericCellValue());
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            default:
-                return null;
+        return null;
+    }
+
+    /**
+     * 获取单元格数值，空白单元格为0，非数值单元格视为解析失败
+     */
+    private double getCellNumericValue(ExcelStreamReader.ExcelRow row, int column) {
+        Object value = row.getValue(column);
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Double) {
+            return (Double) value;
         }
+        throw new IllegalStateException("第" + (column + 1) + "列不是数值: " + value);
     }
-}
\ No newline at end of file
+}
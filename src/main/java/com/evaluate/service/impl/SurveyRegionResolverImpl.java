@@ -0,0 +1,207 @@
+package com.evaluate.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.evaluate.entity.SurveyData;
+import com.evaluate.mapper.SurveyDataMapper;
+import com.evaluate.service.SurveyRegionResolver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调查数据地区解析服务实现类
+ *
+ * 名称片段查找使用预先构建的 1-gram / 2-gram 倒排索引（乡镇、区县、市、省名称），
+ * 取查询词中倒排列表最短的片段作为候选，再校验完整包含关系，结果与 LIKE '%x%' 一致。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+@Slf4j
+@Service
+public class SurveyRegionResolverImpl implements SurveyRegionResolver {
+
+    @Autowired
+    private SurveyDataMapper surveyDataMapper;
+
+    /**
+     * 索引最长保留时间（分钟），用于发现不经过本服务写入的数据，0 表示只在写入时重建
+     */
+    @Value("${evaluation.survey-region-index.max-age-minutes:10}")
+    private long maxAgeMinutes = 10;
+
+    private volatile Index index;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+
+    @Override
+    public List<SurveyData> findByRegion(String region) {
+        if (region == null) {
+            return new ArrayList<>();
+        }
+        Index current = getIndex();
+        List<SurveyData> exact = current.byTownship.get(region);
+        if (exact != null) {
+            return new ArrayList<>(exact);
+        }
+        return current.findContaining(region);
+    }
+
+    @Override
+    public SurveyData findByRegionCode(String regionCode) {
+        if (regionCode == null) {
+            return null;
+        }
+        return getIndex().byRegionCode.get(regionCode);
+    }
+
+    @Override
+    public void invalidate() {
+        generation.incrementAndGet();
+        index = null;
+    }
+
+    @Override
+    public long getDataVersion() {
+        return generation.get();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Index current = index;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", current != null);
+        stats.put("rows", current != null ? current.rows.size() : 0);
+        stats.put("names", current != null ? current.rowsByName.size() : 0);
+        stats.put("builds", builds.get());
+        stats.put("builtAt", current != null ? current.builtAt : null);
+        return stats;
+    }
+
+    private Index getIndex() {
+        Index current = index;
+        if (current != null && !isExpired(current)) {
+            return current;
+        }
+        synchronized (this) {
+            current = index;
+            if (current != null && !isExpired(current)) {
+                return current;
+            }
+            long buildGeneration = generation.get();
+            long start = System.currentTimeMillis();
+            QueryWrapper<SurveyData> query = new QueryWrapper<>();
+            query.orderByAsc("id");
+            List<SurveyData> rows = surveyDataMapper.selectList(query);
+            current = new Index(rows != null ? rows : Collections.emptyList());
+            builds.incrementAndGet();
+            // 构建期间发生写入时不保存，下次查找重新加载
+            if (generation.get() == buildGeneration) {
+                index = current;
+            }
+            log.info("调查数据地区索引构建完成 - 数据行数: {}, 名称数: {}, 耗时: {}ms",
+                    current.rows.size(), current.rowsByName.size(), System.currentTimeMillis() - start);
+            return current;
+        }
+    }
+
+    private boolean isExpired(Index current) {
+        return maxAgeMinutes > 0
+                && System.currentTimeMillis() - current.builtAt >= TimeUnit.MINUTES.toMillis(maxAgeMinutes);
+    }
+
+    /**
+     * 不可变的索引快照
+     */
+    private static final class Index {
+        private final List<SurveyData> rows;
+        private final Map<String, List<SurveyData>> byTownship = new HashMap<>();
+        private final Map<String, SurveyData> byRegionCode = new HashMap<>();
+        /**
+         * 名称 -> 乡镇、区县、市、省任一字段等于该名称的数据行下标（升序）
+         */
+        private final Map<String, List<Integer>> rowsByName = new HashMap<>();
+        /**
+         * 1-gram / 2-gram -> 包含该片段的名称
+         */
+        private final Map<String, List<String>> namesByGram = new HashMap<>();
+        private final long builtAt = System.currentTimeMillis();
+
+        private Index(List<SurveyData> rows) {
+            this.rows = rows;
+            for (int i = 0; i < rows.size(); i++) {
+                SurveyData data = rows.get(i);
+                if (data.getTownship() != null) {
+                    byTownship.computeIfAbsent(data.getTownship(), k -> new ArrayList<>()).add(data);
+                }
+                if (data.getRegionCode() != null) {
+                    byRegionCode.putIfAbsent(data.getRegionCode(), data);
+                }
+                addName(data.getTownship(), i);
+                addName(data.getCounty(), i);
+                addName(data.getCity(), i);
+                addName(data.getProvince(), i);
+            }
+            for (String name : rowsByName.keySet()) {
+                Set<String> grams = new HashSet<>();
+                for (int j = 0; j < name.length(); j++) {
+                    grams.add(name.substring(j, j + 1));
+                    if (j + 2 <= name.length()) {
+                        grams.add(name.substring(j, j + 2));
+                    }
+                }
+                for (String gram : grams) {
+                    namesByGram.computeIfAbsent(gram, k -> new ArrayList<>()).add(name);
+                }
+            }
+        }
+
+        private void addName(String name, int row) {
+            if (name == null) {
+                return;
+            }
+            List<Integer> indices = rowsByName.computeIfAbsent(name, k -> new ArrayList<>());
+            if (indices.isEmpty() || indices.get(indices.size() - 1) != row) {
+                indices.add(row);
+            }
+        }
+
+        /**
+         * 乡镇、区县、市、省名称包含查询词的数据行（按ID顺序）
+         */
+        private List<SurveyData> findContaining(String keyword) {
+            Collection<String> candidates = rowsByName.keySet();
+            for (int j = 0; j < keyword.length(); j++) {
+                String gram = keyword.substring(j, Math.min(j + 2, keyword.length()));
+                if (gram.length() == 1 && keyword.length() > 1) {
+                    continue;
+                }
+                List<String> names = namesByGram.get(gram);
+                if (names == null) {
+                    return new ArrayList<>();
+                }
+                if (names.size() < candidates.size()) {
+                    candidates = names;
+                }
+            }
+            BitSet matched = new BitSet(rows.size());
+            for (String name : candidates) {
+                if (name.contains(keyword)) {
+                    for (int row : rowsByName.get(name)) {
+                        matched.set(row);
+                    }
+                }
+            }
+            List<SurveyData> result = new ArrayList<>(matched.cardinality());
+            for (int row = matched.nextSetBit(0); row >= 0; row = matched.nextSetBit(row + 1)) {
+                result.add(rows.get(row));
+            }
+            return result;
+        }
+    }
+}
@@ -4,15 +4,24 @@ package com.evaluate.service.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.evaluate.service.TOPSISCalculationLogger;
+import com.evaluate.service.algorithm.CalculationLogStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * TOPSIS计算日志记录器实现类
  * 
  * 实现详细的TOPSIS计算过程日志记录功能
+ * 完成的会话日志交给 {@link CalculationLogStore} 异步持久化，内存中只保留有限的最近会话；
+ * 地区数量较多时距离计算明细按蓄水池抽样保留固定条数
  * 
  * @author System
  * @since 2025-01-01
@@ -26,8 +35,48 @@ public class TOPSISCalculationLoggerImpl implements TOPSISCalculationLogger {
     // 使用ThreadLocal存储当前线程的日志会话
     private final ThreadLocal<Map<String, Object>> currentSessionLog = new ThreadLocal<>();
     
-    // 全局日志存储（可选，用于持久化）
-    private final Map<String, Map<String, Object>> globalLogStorage = new ConcurrentHashMap<>();
+    @Value("${evaluation.topsis-log.max-sessions:200}")
+    private int maxSessions = 200;
+
+    @Value("${evaluation.topsis-log.ttl-minutes:60}")
+    private long ttlMinutes = 60;
+
+    @Value("${evaluation.topsis-log.max-bytes:16777216}")
+    private long maxBytes = 16L * 1024 * 1024;
+
+    @Value("${evaluation.topsis-log.queue-capacity:256}")
+    private int queueCapacity = 256;
+
+    /**
+     * 会话日志追加写入的文件，为空时只保留在内存中
+     */
+    @Value("${evaluation.topsis-log.file:}")
+    private String logFile = "";
+
+    @Value("${evaluation.topsis-log.max-file-bytes:104857600}")
+    private long maxFileBytes = 100L * 1024 * 1024;
+
+    /**
+     * 每个会话保留的距离计算明细条数上限
+     */
+    @Value("${evaluation.topsis-log.distance-sample-size:100}")
+    private int distanceSampleSize = 100;
+
+    // 会话日志存储（有界保留，异步持久化）
+    private CalculationLogStore logStore;
+
+    @PostConstruct
+    public void initLogStore() {
+        logStore = new CalculationLogStore(maxSessions, TimeUnit.MINUTES.toMillis(ttlMinutes), maxBytes,
+                queueCapacity, StringUtils.hasText(logFile) ? Paths.get(logFile) : null, maxFileBytes);
+    }
+
+    @PreDestroy
+    public void closeLogStore() {
+        if (logStore != null) {
+            logStore.close();
+        }
+    }
     
     @Override
     public void logCalculationStart(Long modelId, String stepCode, Map<String, Map<String, Double>> inputData) {
@@ -84,21 +133,29 @@ public class TOPSISCalculationLoggerImpl implements TOPSISCalculationLogger {
         List<Map<String, Object>> distanceCalculations = 
                 (List<Map<String, Object>>) sessionLog.computeIfAbsent("distanceCalculations", k -> new ArrayList<>());
         
-        Map<String, Object> distanceLog = new HashMap<>();
-        distanceLog.put("regionCode", regionCode);
-        distanceLog.put("regionData", new HashMap<>(regionData));
-        distanceLog.put("positiveDistance", positiveDistance);
-        distanceLog.put("negativeDistance", negativeDistance);
-        distanceLog.put("timestamp", System.currentTimeMillis());
-        
         // 计算综合能力值
         double comprehensiveScore = 0.0;
         if (positiveDistance + negativeDistance > 0) {
             comprehensiveScore = negativeDistance / (negativeDistance + positiveDistance);
         }
-        distanceLog.put("comprehensiveScore", comprehensiveScore);
         
-        distanceCalculations.add(distanceLog);
+        // 蓄水池抽样：明细最多保留 distanceSampleSize 条，每个地区被保留的概率相同
+        int seen = (Integer) sessionLog.merge("distanceCalculationCount", 1, (a, b) -> (Integer) a + (Integer) b);
+        int slot = seen <= distanceSampleSize ? seen - 1 : ThreadLocalRandom.current().nextInt(seen);
+        if (slot < distanceSampleSize) {
+            Map<String, Object> distanceLog = new HashMap<>();
+            distanceLog.put("regionCode", regionCode);
+            distanceLog.put("regionData", new HashMap<>(regionData));
+            distanceLog.put("positiveDistance", positiveDistance);
+            distanceLog.put("negativeDistance", negativeDistance);
+            distanceLog.put("timestamp", System.currentTimeMillis());
+            distanceLog.put("comprehensiveScore", comprehensiveScore);
+            if (slot < distanceCalculations.size()) {
+                distanceCalculations.set(slot, distanceLog);
+            } else {
+                distanceCalculations.add(distanceLog);
+            }
+        }
         
         log.debug("区域 {} 距离计算: 正理想解距离={}, 负理想解距离={}, 综合能力值={}", 
                 regionCode, positiveDistance, negativeDistance, comprehensiveScore);
@@ -176,13 +233,32 @@ public class TOPSISCalculationLoggerImpl implements TOPSISCalculationLogger {
         // 生成计算摘要
         generateCalculationSummary(sessionLog);
         
-        // 保存到全局存储（可选）
+        // 交给日志存储异步持久化，并结束当前线程的会话（线程池线程不再保留上一次计算的日志）
         String sessionId = generateSessionId(sessionLog);
-        globalLogStorage.put(sessionId, new HashMap<>(sessionLog));
+        sessionLog.put("logId", sessionId);
+        if (!logStore.offer(sessionId, sessionLog)) {
+            log.warn("TOPSIS计算会话日志队列已满，丢弃会话日志: {}", sessionId);
+        }
+        currentSessionLog.remove();
         
         log.info("TOPSIS计算会话完成，会话ID: {}", sessionId);
     }
     
+    @Override
+    public Map<String, Object> getSessionLog(String sessionId) {
+        return logStore.get(sessionId);
+    }
+    
+    @Override
+    public List<Map<String, Object>> getRecentSessionLogs(int limit) {
+        return logStore.recent(limit);
+    }
+    
+    @Override
+    public Map<String, Object> getLogStoreStats() {
+        return logStore.getStats();
+    }
+    
     @Override
     public Map<String, Object> getCurrentSessionLog() {
         Map<String, Object> sessionLog = currentSessionLog.get();
@@ -472,9 +548,12 @@ public class TOPSISCalculationLoggerImpl implements TOPSISCalculationLogger {
         String stepCode = (String) sessionLog.get("stepCode");
         Long startTime = (Long) sessionLog.get("startTime");
         
-        return String.format("TOPSIS_%s_%s_%s", 
+        String uuid = (String) sessionLog.get("sessionId");
+        
+        return String.format("TOPSIS_%s_%s_%s_%s", 
                 modelId != null ? modelId : "unknown",
                 stepCode != null ? stepCode : "unknown",
-                startTime != null ? startTime : System.currentTimeMillis());
+                startTime != null ? startTime : System.currentTimeMillis(),
+                uuid != null ? uuid.substring(0, 8) : "0");
     }
 }
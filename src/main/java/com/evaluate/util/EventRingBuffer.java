@@ -0,0 +1,150 @@
+package com.evaluate.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 事件环形缓冲区
+ *
+ * 全部事件共用一个固定容量的环，可选地为每个 key 另建一个小容量的环。写入时原子递增序号占位后写入对应槽位，
+ * 不加锁、不移动元素，写满后覆盖最早的记录；读取时从最新序号向前取，结果天然按时间倒序，
+ * 按 key 查询只读该 key 自己的环，耗时与返回条数成正比。
+ *
+ * @param <K> 事件分组 key 的类型
+ * @author System
+ * @since 2025-10-12
+ */
+public class EventRingBuffer<K> {
+
+    private final Ring all;
+    private final int perKeyCapacity;
+    private final Map<K, Ring> byKey = new ConcurrentHashMap<>();
+
+    /**
+     * 只保留全部事件的环，不按 key 分组
+     *
+     * @param capacity 日志容量
+     */
+    public EventRingBuffer(int capacity) {
+        this(capacity, 0);
+    }
+
+    /**
+     * @param capacity 全部事件共用的容量
+     * @param perKeyCapacity 每个 key 保留的容量，0 表示不按 key 分组
+     */
+    public EventRingBuffer(int capacity, int perKeyCapacity) {
+        this.all = new Ring(capacity);
+        this.perKeyCapacity = perKeyCapacity;
+    }
+
+    /**
+     * 追加一条事件（不属于任何 key）
+     */
+    public void append(Map<String, Object> event) {
+        append(null, event);
+    }
+
+    /**
+     * 追加一条事件
+     *
+     * @param key 事件所属的 key，null 或未按 key 分组时只写入全部事件的环
+     * @param event 事件
+     */
+    public void append(K key, Map<String, Object> event) {
+        all.add(event);
+        if (key != null && perKeyCapacity > 0) {
+            byKey.computeIfAbsent(key, k -> new Ring(perKeyCapacity)).add(event);
+        }
+    }
+
+    /**
+     * 最近的事件（按时间倒序）
+     *
+     * @param limit 最大条数
+     */
+    public List<Map<String, Object>> recent(int limit) {
+        return all.recent(limit);
+    }
+
+    /**
+     * 最近的事件（按时间倒序）
+     *
+     * @param key 事件所属的 key，null 表示全部事件
+     * @param limit 最大条数
+     */
+    public List<Map<String, Object>> recent(K key, int limit) {
+        if (key == null) {
+            return all.recent(limit);
+        }
+        Ring ring = byKey.get(key);
+        return ring != null ? ring.recent(limit) : new ArrayList<>();
+    }
+
+    /**
+     * 当前保留的事件条数（全部事件）
+     */
+    public int size() {
+        return all.size();
+    }
+
+    /**
+     * 清空事件，与并发写入互不阻塞
+     */
+    public void clear() {
+        all.clear();
+        byKey.clear();
+    }
+
+    private static final class Slot {
+        private final long sequence;
+        private final Map<String, Object> event;
+
+        private Slot(long sequence, Map<String, Object> event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
+    }
+
+    private static final class Ring {
+        private final AtomicReferenceArray<Slot> slots;
+        private final AtomicLong next = new AtomicLong();
+        private volatile long floor;
+
+        private Ring(int capacity) {
+            this.slots = new AtomicReferenceArray<>(Math.max(1, capacity));
+        }
+
+        private void add(Map<String, Object> event) {
+            long sequence = next.getAndIncrement();
+            slots.set((int) (sequence % slots.length()), new Slot(sequence, event));
+        }
+
+        private List<Map<String, Object>> recent(int limit) {
+            long end = next.get();
+            long start = Math.max(floor, end - slots.length());
+            List<Map<String, Object>> result = new ArrayList<>(Math.max(0, Math.min(limit, (int) (end - start))));
+            for (long sequence = end - 1; sequence >= start && result.size() < limit; sequence--) {
+                Slot slot = slots.get((int) (sequence % slots.length()));
+                // 序号不一致说明槽位已被更新的记录覆盖，或占位后尚未写入
+                if (slot != null && slot.sequence == sequence) {
+                    result.add(slot.event);
+                }
+            }
+            return result;
+        }
+
+        private int size() {
+            long end = next.get();
+            return (int) Math.min(slots.length(), end - Math.min(floor, end));
+        }
+
+        private void clear() {
+            floor = next.get();
+        }
+    }
+}
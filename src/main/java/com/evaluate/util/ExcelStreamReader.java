@@ -0,0 +1,268 @@
+package com.evaluate.util;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Excel流式读取工具类
+ *
+ * .xlsx 文件通过 POI 事件模型（XSSFReader + SAX）逐行解析第一个工作表，
+ * 每解析完一行即回调处理，不在内存中构建整个工作簿；上传内容先写入临时文件，
+ * 按 ZIP 条目随机读取，内存占用与文件大小无关（共享字符串表除外）。
+ * .xls 文件（最多65536行）仍使用 HSSF 读取后逐行回调。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public final class ExcelStreamReader {
+
+    private ExcelStreamReader() {
+    }
+
+    /**
+     * 行处理回调
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void handle(ExcelRow row) throws Exception;
+    }
+
+    /**
+     * 一行单元格的原始值：字符串为 String，数值为 Double，布尔为 Boolean，
+     * 公式取缓存的计算结果；单元格存在但无值（空白、错误值）时 {@link #getValue} 返回null
+     */
+    public static final class ExcelRow {
+        private final int rowNum;
+        private final List<Object> values = new ArrayList<>();
+        private final BitSet present = new BitSet();
+
+        public ExcelRow(int rowNum) {
+            this.rowNum = rowNum;
+        }
+
+        /**
+         * 行号（从0开始，标题行为0）
+         */
+        public int getRowNum() {
+            return rowNum;
+        }
+
+        /**
+         * 指定列是否存在单元格
+         */
+        public boolean hasCell(int column) {
+            return present.get(column);
+        }
+
+        /**
+         * 指定列的单元格值，不存在或无值时返回null
+         */
+        public Object getValue(int column) {
+            return column < values.size() ? values.get(column) : null;
+        }
+
+        /**
+         * 是否没有任何单元格
+         */
+        public boolean isEmpty() {
+            return present.isEmpty();
+        }
+
+        public void setValue(int column, Object value) {
+            while (values.size() <= column) {
+                values.add(null);
+            }
+            values.set(column, value);
+            present.set(column);
+        }
+    }
+
+    /**
+     * 逐行读取Excel第一个工作表（包括标题行）
+     *
+     * @param inputStream Excel输入流（由调用方关闭）
+     * @param handler 行处理回调，抛出的异常原样向上抛出
+     * @return 读取的行数
+     * @throws Exception 文件格式错误、读取失败或行处理失败
+     */
+    public static int read(InputStream inputStream, RowHandler handler) throws Exception {
+        File tempFile = Files.createTempFile("excel-import-", ".tmp").toFile();
+        try {
+            Files.copy(inputStream, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            if (FileMagic.valueOf(tempFile) == FileMagic.OLE2) {
+                return readWorkbook(tempFile, handler);
+            }
+            return readXlsx(tempFile, handler);
+        } finally {
+            if (!tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    private static int readXlsx(File file, RowHandler handler) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return 0;
+            }
+            SheetHandler sheetHandler = new SheetHandler(sharedStrings, handler);
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(sheetHandler);
+                parser.parse(new InputSource(sheet));
+            } catch (SAXException e) {
+                if (e.getException() != null) {
+                    throw e.getException();
+                }
+                throw e;
+            }
+            return sheetHandler.rowCount;
+        } catch (OpenXML4JException | ParserConfigurationException e) {
+            throw new IOException("无法解析Excel文件: " + e.getMessage(), e);
+        }
+    }
+
+    private static int readWorkbook(File file, RowHandler handler) throws Exception {
+        int rowCount = 0;
+        try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            for (Row row : sheet) {
+                ExcelRow excelRow = new ExcelRow(row.getRowNum());
+                for (Cell cell : row) {
+                    CellType type = cell.getCellType() == CellType.FORMULA
+                            ? cell.getCachedFormulaResultType() : cell.getCellType();
+                    Object value = null;
+                    if (type == CellType.STRING) {
+                        value = cell.getStringCellValue();
+                    } else if (type == CellType.NUMERIC) {
+                        value = cell.getNumericCellValue();
+                    } else if (type == CellType.BOOLEAN) {
+                        value = cell.getBooleanCellValue();
+                    }
+                    excelRow.setValue(cell.getColumnIndex(), value);
+                }
+                handler.handle(excelRow);
+                rowCount++;
+            }
+        }
+        return rowCount;
+    }
+
+    /**
+     * 工作表XML的SAX解析：按 &lt;row&gt;/&lt;c&gt;/&lt;v&gt; 逐个单元格还原原始值
+     */
+    private static final class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final RowHandler handler;
+        private final StringBuilder text = new StringBuilder();
+        private ExcelRow row;
+        private int nextRowNum;
+        private int nextColumn;
+        private int column;
+        private String cellType;
+        private boolean collecting;
+        private int rowCount;
+
+        private SheetHandler(ReadOnlySharedStringsTable sharedStrings, RowHandler handler) {
+            this.sharedStrings = sharedStrings;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            String name = elementName(localName, qName);
+            if ("row".equals(name)) {
+                String r = attributes.getValue("r");
+                int rowNum = r != null ? Integer.parseInt(r) - 1 : nextRowNum;
+                row = new ExcelRow(rowNum);
+                nextRowNum = rowNum + 1;
+                nextColumn = 0;
+            } else if ("c".equals(name) && row != null) {
+                String ref = attributes.getValue("r");
+                column = ref != null ? new CellReference(ref).getCol() : nextColumn;
+                nextColumn = column + 1;
+                cellType = attributes.getValue("t");
+                text.setLength(0);
+                row.setValue(column, null);
+            } else if ("v".equals(name) || ("t".equals(name) && "inlineStr".equals(cellType))) {
+                collecting = true;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collecting) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            String name = elementName(localName, qName);
+            if ("v".equals(name) || "t".equals(name)) {
+                collecting = false;
+            } else if ("c".equals(name) && row != null) {
+                row.setValue(column, cellValue());
+            } else if ("row".equals(name) && row != null) {
+                try {
+                    handler.handle(row);
+                } catch (Exception e) {
+                    throw new SAXException(e);
+                }
+                rowCount++;
+                row = null;
+            }
+        }
+
+        private Object cellValue() {
+            if (text.length() == 0 && !"inlineStr".equals(cellType)) {
+                return null;
+            }
+            String raw = text.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                return Double.parseDouble(raw);
+            }
+            switch (cellType) {
+                case "s":
+                    return sharedStrings.getItemAt(Integer.parseInt(raw)).getString();
+                case "b":
+                    return "1".equals(raw);
+                case "e":
+                    return null;
+                default:
+                    // str（公式字符串结果）、inlineStr
+                    return raw;
+            }
+        }
+
+        private static String elementName(String localName, String qName) {
+            return localName != null && !localName.isEmpty() ? localName : qName;
+        }
+    }
+}
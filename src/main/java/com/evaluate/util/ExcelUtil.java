@@ -2,18 +2,25 @@ package com.evaluate.util;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletResponse;
+
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
+import java.net.URLEncoder;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Excel工具类
@@ -26,6 +33,11 @@ public class ExcelUtil {
 
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    /**
+     * 流式写入时内存中保留的行数
+     */
+    public static final int STREAMING_WINDOW_SIZE = 100;
+
     /**
      * 判断文件是否为Excel文件
      *
@@ -69,32 +81,28 @@ public class ExcelUtil {
     public static <T> List<T> readExcel(InputStream inputStream, Class<T> clazz) {
         List<T> dataList = new ArrayList<>();
         
-        try (Workbook workbook = new XSSFWorkbook(inputStream)) {
-            Sheet sheet = workbook.getSheetAt(0);
-            
-            // 获取标题行
-            Row headerRow = sheet.getRow(0);
-            if (headerRow == null) {
-                log.error("Excel文件标题行为空");
-                return dataList;
-            }
-            
-            // 获取字段映射
-            Field[] fields = clazz.getDeclaredFields();
-            
-            // 从第二行开始读取数据
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-                
+        // 获取字段映射
+        Field[] fields = clazz.getDeclaredFields();
+        boolean[] headerFound = new boolean[1];
+        
+        try {
+            // 流式逐行读取，标题行之后的数据行转换为对象
+            ExcelStreamReader.read(inputStream, row -> {
+                if (row.getRowNum() == 0) {
+                    headerFound[0] = true;
+                    return;
+                }
                 T instance = createInstance(row, clazz, fields);
                 if (instance != null) {
                     dataList.add(instance);
                 }
-            }
-        } catch (IOException e) {
+            });
+        } catch (Exception e) {
             log.error("读取Excel文件失败", e);
         }
+        if (!headerFound[0]) {
+            log.error("Excel文件标题行为空");
+        }
         
         return dataList;
     }
@@ -109,49 +117,123 @@ public class ExcelUtil {
      * @return Excel字节数组
      */
     public static <T> byte[] writeExcel(List<T> dataList, String[] headers, String[] fieldNames) {
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("数据");
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            writeExcel(dataList, headers, fieldNames, outputStream);
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            log.error("写入Excel文件失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * 将数据流式写入Excel输出流
+     * 
+     * @param rows 数据（可为游标，逐行读取）
+     * @param headers 表头
+     * @param fieldNames 字段名称数组
+     * @param outputStream 输出流（由调用方关闭）
+     * @param <T> 泛型类型
+     * @return 写入的数据行数
+     * @throws IOException 写入失败
+     */
+    public static <T> int writeExcel(Iterable<T> rows, String[] headers, String[] fieldNames,
+                                     OutputStream outputStream) throws IOException {
+        return writeExcel(outputStream, "数据", headers, rows, (row, data) -> {
+            for (int j = 0; j < fieldNames.length; j++) {
+                setCellValue(row.createCell(j), getFieldValue(data, fieldNames[j]));
+            }
+        });
+    }
+
+    /**
+     * 将表格数据（列定义 prop/label + 行数据）流式写入Excel输出流
+     * 
+     * @param columns 列定义
+     * @param tableData 行数据
+     * @param outputStream 输出流（由调用方关闭）
+     * @return 写入的数据行数
+     * @throws IOException 写入失败
+     */
+    public static int writeTable(List<Map<String, Object>> columns, Iterable<Map<String, Object>> tableData,
+                                 OutputStream outputStream) throws IOException {
+        String[] headers = new String[columns.size()];
+        String[] props = new String[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            Object prop = columns.get(i).get("prop");
+            Object label = columns.get(i).get("label");
+            props[i] = prop != null ? prop.toString() : "";
+            headers[i] = label != null ? label.toString() : props[i];
+        }
+        return writeExcel(outputStream, "数据", headers, tableData, (row, data) -> {
+            for (int j = 0; j < props.length; j++) {
+                setCellValue(row.createCell(j), data.get(props[j]));
+            }
+        });
+    }
+
+    /**
+     * 流式写入Excel：SXSSF 只在内存中保留最近 {@value #STREAMING_WINDOW_SIZE} 行，
+     * 更早的行刷写到压缩临时文件，内存占用与数据行数无关
+     * 
+     * @param outputStream 输出流（由调用方关闭）
+     * @param sheetName 工作表名称
+     * @param headers 表头
+     * @param rows 数据
+     * @param rowWriter 单行写入函数
+     * @param <T> 泛型类型
+     * @return 写入的数据行数
+     * @throws IOException 写入失败
+     */
+    public static <T> int writeExcel(OutputStream outputStream, String sheetName, String[] headers,
+                                     Iterable<T> rows, BiConsumer<Row, T> rowWriter) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_WINDOW_SIZE);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet(sheetName);
             
             // 创建标题行
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
             Row headerRow = sheet.createRow(0);
             for (int i = 0; i < headers.length; i++) {
                 Cell cell = headerRow.createCell(i);
                 cell.setCellValue(headers[i]);
-                
-                // 设置标题样式
-                CellStyle headerStyle = workbook.createCellStyle();
-                Font headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerStyle.setFont(headerFont);
                 cell.setCellStyle(headerStyle);
+                // 流式写入无法按全部内容自动调整列宽，按表头长度设置
+                sheet.setColumnWidth(i, Math.min(255, Math.max(12, headers[i].length() * 2 + 4)) * 256);
             }
             
             // 填充数据
-            for (int i = 0; i < dataList.size(); i++) {
-                Row row = sheet.createRow(i + 1);
-                T data = dataList.get(i);
-                
-                for (int j = 0; j < fieldNames.length; j++) {
-                    Cell cell = row.createCell(j);
-                    Object value = getFieldValue(data, fieldNames[j]);
-                    setCellValue(cell, value);
-                }
-            }
-            
-            // 自动调整列宽
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+            int rowIndex = 0;
+            for (T data : rows) {
+                rowWriter.accept(sheet.createRow(++rowIndex), data);
             }
             
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             workbook.write(outputStream);
-            return outputStream.toByteArray();
-        } catch (IOException e) {
-            log.error("写入Excel文件失败", e);
-            return null;
+            return rowIndex;
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
     }
 
+    /**
+     * 设置Excel文件下载响应头
+     * 
+     * @param response HTTP响应
+     * @param fileName 文件名（不含扩展名）
+     */
+    public static void setDownloadHeaders(HttpServletResponse response, String fileName) throws IOException {
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setCharacterEncoding("UTF-8");
+        String encoded = URLEncoder.encode(fileName + ".xlsx", "UTF-8").replace("+", "%20");
+        response.setHeader("Content-Disposition", "attachment; filename*=UTF-8''" + encoded);
+    }
+
     /**
      * 获取单元格字符串值
      * 
@@ -284,7 +366,7 @@ public class ExcelUtil {
      * @param <T> 泛型类型
      * @return 实例对象
      */
-    private static <T> T createInstance(Row row, Class<T> clazz, Field[] fields) {
+    private static <T> T createInstance(ExcelStreamReader.ExcelRow row, Class<T> clazz, Field[] fields) {
         try {
             T instance = clazz.newInstance();
             
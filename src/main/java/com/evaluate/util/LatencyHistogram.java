@@ -0,0 +1,125 @@
+package com.evaluate.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 执行耗时统计（次数、失败数、平均/最大耗时与分位数）
+ *
+ * 计数与累计耗时使用 LongAdder，多线程同时记录时不争用同一个计数器；
+ * 耗时分布按微秒取以2为底的对数分桶（每个桶再细分为4档），分位数取所在档的上界，相对误差不超过25%。
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final LongAdder totalExecutions = new LongAdder();
+    private final LongAdder failedExecutions = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private volatile long lastExecutionTime;
+
+    /**
+     * 记录一次执行
+     *
+     * @param nanos 执行耗时（纳秒）
+     * @param success 是否执行成功
+     */
+    public void record(long nanos, boolean success) {
+        long value = Math.max(0L, nanos);
+        totalExecutions.increment();
+        if (!success) {
+            failedExecutions.increment();
+        }
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+        histogram.incrementAndGet(bucketOf(value / 1000));
+        lastExecutionTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 记录的执行次数
+     */
+    public long getCount() {
+        return totalExecutions.sum();
+    }
+
+    /**
+     * 平均耗时（毫秒）
+     */
+    public double getAverageMillis() {
+        long total = totalExecutions.sum();
+        return total == 0 ? 0.0 : totalNanos.sum() / 1e6 / total;
+    }
+
+    /**
+     * 统计快照，耗时单位为毫秒
+     */
+    public Map<String, Object> snapshot() {
+        long total = totalExecutions.sum();
+        long failed = failedExecutions.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalExecutions", total);
+        stats.put("successExecutions", Math.max(0L, total - failed));
+        stats.put("failedExecutions", failed);
+        stats.put("totalExecutionTime", totalNanos.sum() / 1e6);
+        stats.put("avgExecutionTime", getAverageMillis());
+        stats.put("maxExecutionTime", maxNanos.get() / 1e6);
+
+        long[] counts = new long[BUCKETS];
+        long counted = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+            counted += counts[i];
+        }
+        stats.put("p50ExecutionTime", percentile(counts, counted, 0.50));
+        stats.put("p95ExecutionTime", percentile(counts, counted, 0.95));
+        stats.put("p99ExecutionTime", percentile(counts, counted, 0.99));
+        stats.put("lastExecutionTime", lastExecutionTime);
+        return stats;
+    }
+
+    private static double percentile(long[] counts, long counted, double quantile) {
+        if (counted == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(quantile * counted);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBoundMicros(i) / 1000.0;
+            }
+        }
+        return upperBoundMicros(counts.length - 1) / 1000.0;
+    }
+
+    /**
+     * 桶序号：前4个桶对应0-3微秒，此后每个2的幂区间分为4档
+     */
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(0L, micros);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) ((micros >>> (exponent - 2)) & (SUB_BUCKETS - 1));
+        return Math.min(BUCKETS - 1, (exponent - 1) * SUB_BUCKETS + sub);
+    }
+
+    static long upperBoundMicros(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 1;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 2)) - 1;
+    }
+}
@@ -0,0 +1,127 @@
+package com.evaluate.config;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * SQL执行耗时拦截器测试类（语句统计、慢查询绑定参数、N+1 检测）
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class SqlTimingInterceptorTest {
+
+    private static final Method QUERY = queryMethod();
+
+    private final Configuration configuration = new Configuration();
+
+    @Test
+    void testStatementStatsAndSlowStatementParameters() throws Throwable {
+        SqlTimingInterceptor interceptor = new SqlTimingInterceptor(true, 0, 10, 50);
+        MappedStatement ms = selectById("com.evaluate.mapper.SurveyDataMapper.selectById");
+        Executor executor = executorReturning(Arrays.asList("a", "b", "c"));
+
+        interceptor.intercept(new Invocation(executor, QUERY, queryArgs(ms, 42L)));
+        interceptor.intercept(new Invocation(executor, QUERY, queryArgs(ms, 43L)));
+
+        List<Map<String, Object>> stats = interceptor.getStatementStats(10);
+        assertEquals(1, stats.size());
+        assertEquals(ms.getId(), stats.get(0).get("statementId"));
+        assertEquals(2L, stats.get(0).get("totalExecutions"));
+        assertEquals(6L, stats.get(0).get("totalRows"));
+
+        List<Map<String, Object>> slow = interceptor.getSlowStatements(10);
+        assertEquals(2, slow.size());
+        assertEquals("SELECT * FROM survey_data WHERE id = ?", slow.get(0).get("sql"));
+        assertEquals(Collections.singletonList(43L), slow.get(0).get("parameters"));
+        assertEquals(3L, slow.get(0).get("rows"));
+    }
+
+    @Test
+    void testFastStatementsAreNotLoggedAsSlow() throws Throwable {
+        SqlTimingInterceptor interceptor = new SqlTimingInterceptor(true, 60_000, 10, 50);
+        MappedStatement ms = selectById("com.evaluate.mapper.SurveyDataMapper.selectById");
+
+        interceptor.intercept(new Invocation(executorReturning(Collections.emptyList()), QUERY, queryArgs(ms, 1L)));
+
+        assertEquals(1L, interceptor.getSummary().get("totalExecutions"));
+        assertTrue(interceptor.getSlowStatements(10).isEmpty());
+    }
+
+    @Test
+    void testRepeatedStatementInOneRequestIsReportedAsNPlusOne() throws Throwable {
+        SqlTimingInterceptor interceptor = new SqlTimingInterceptor(true, 60_000, 10, 3);
+        MappedStatement perRegion = selectById("com.evaluate.mapper.CommunityDisasterReductionCapacityMapper.selectOne");
+        MappedStatement list = selectById("com.evaluate.mapper.SurveyDataMapper.selectList");
+        Executor executor = executorReturning(Collections.singletonList("row"));
+
+        assertTrue(interceptor.beginRequest());
+        assertFalse(interceptor.beginRequest());
+        interceptor.intercept(new Invocation(executor, QUERY, queryArgs(list, 1L)));
+        for (long i = 0; i < 5; i++) {
+            interceptor.intercept(new Invocation(executor, QUERY, queryArgs(perRegion, i)));
+        }
+        interceptor.endRequest("GET /api/evaluation/result");
+
+        List<Map<String, Object>> events = interceptor.getNPlusOneEvents(10);
+        assertEquals(1, events.size());
+        assertEquals(perRegion.getId(), events.get(0).get("statementId"));
+        assertEquals(5, events.get(0).get("executions"));
+        assertEquals("GET /api/evaluation/result", events.get(0).get("requestUri"));
+
+        // 请求范围外的执行不计入
+        for (long i = 0; i < 5; i++) {
+            interceptor.intercept(new Invocation(executor, QUERY, queryArgs(perRegion, i)));
+        }
+        interceptor.endRequest("GET /api/evaluation/result");
+        assertEquals(1, interceptor.getNPlusOneEvents(10).size());
+
+        interceptor.reset();
+        assertTrue(interceptor.getStatementStats(10).isEmpty());
+        assertTrue(interceptor.getNPlusOneEvents(10).isEmpty());
+    }
+
+    private MappedStatement selectById(String id) {
+        ParameterMapping mapping = new ParameterMapping.Builder(configuration, "id", Long.class).build();
+        StaticSqlSource sqlSource = new StaticSqlSource(configuration,
+                "SELECT *\n  FROM survey_data\n WHERE id = ?", Collections.singletonList(mapping));
+        return new MappedStatement.Builder(configuration, id, sqlSource, SqlCommandType.SELECT).build();
+    }
+
+    private static Executor executorReturning(List<?> rows) throws Exception {
+        Executor executor = mock(Executor.class);
+        when(executor.query(any(MappedStatement.class), any(), any(RowBounds.class), any())).thenAnswer(invocation -> rows);
+        return executor;
+    }
+
+    private static Object[] queryArgs(MappedStatement ms, Object parameter) {
+        return new Object[]{ms, parameter, RowBounds.DEFAULT, null};
+    }
+
+    private static Method queryMethod() {
+        try {
+            return Executor.class.getMethod("query", MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
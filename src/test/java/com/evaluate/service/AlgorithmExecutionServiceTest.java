@@ -0,0 +1,171 @@
+package com.evaluate.service;
+
+import com.evaluate.entity.AlgorithmConfig;
+import com.evaluate.entity.SurveyData;
+import com.evaluate.service.algorithm.StepwiseComputationCache;
+import com.evaluate.service.algorithm.StepwiseEvaluationMatrix;
+import com.evaluate.service.impl.AlgorithmExecutionServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 算法执行服务分步计算测试类
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class AlgorithmExecutionServiceTest {
+
+    @Mock
+    private ISurveyDataService surveyDataService;
+
+    @Mock
+    private IIndicatorWeightService indicatorWeightService;
+
+    @Mock
+    private SurveyRegionResolver surveyRegionResolver;
+
+    private AlgorithmExecutionServiceImpl service;
+    private final List<String> regionIds = Arrays.asList("甲镇", "乙镇", "丙镇");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(surveyDataService.getBySurveyRegion("甲镇")).thenReturn(Collections.singletonList(survey("甲镇", 3, 1.0, 5, 100)));
+        when(surveyDataService.getBySurveyRegion("乙镇")).thenReturn(Collections.singletonList(survey("乙镇", 4, 2.0, 6, 200)));
+        when(surveyDataService.getBySurveyRegion("丙镇")).thenReturn(Collections.emptyList());
+        when(indicatorWeightService.getByConfigIdAndLevel(anyLong(), anyInt())).thenReturn(Collections.emptyList());
+
+        service = new AlgorithmExecutionServiceImpl();
+        ReflectionTestUtils.setField(service, "surveyDataService", surveyDataService);
+        ReflectionTestUtils.setField(service, "indicatorWeightService", indicatorWeightService);
+        ReflectionTestUtils.setField(service, "surveyRegionResolver", surveyRegionResolver);
+        service.initStepComputationCache();
+    }
+
+    @Test
+    void testStepViewsShareOneComputation() {
+        List<Map<String, Object>> step1 = tableData(0);
+        assertEquals("3.00000000", step1.get(0).get("teamManagement"));
+        assertEquals("0.00000000", step1.get(2).get("teamManagement"));
+
+        // 归一化：3 / SQRT(3² + 4² + 0²)
+        List<Map<String, Object>> step2 = tableData(1);
+        assertEquals("0.60000000", step2.get(0).get("teamManagement"));
+        assertEquals("0.80000000", step2.get(1).get("teamManagement"));
+
+        Map<String, Object> step3 = service.calculateStepResult(null, 3L, 2, null, regionIds, null);
+        assertEquals(true, step3.get("isDualTable"));
+        assertEquals(String.format("%.8f", 0.6 * 0.37), rows(step3, "table1Data").get(0).get("teamManagement"));
+        assertEquals(String.format("%.8f", 0.6 * 0.33 * 0.37), rows(step3, "table2Data").get(0).get("teamManagement"));
+
+        // 乙镇各指标均不低于甲镇：乙镇为正理想解，甲镇为负理想解，无数据的丙镇不参与
+        clearInvocations(surveyDataService);
+        List<Map<String, Object>> step4 = tableData(3);
+        // 每个地区解析名称一次、加载调查数据一次
+        verify(surveyDataService, times(2 * regionIds.size())).getBySurveyRegion(anyString());
+        assertEquals("0.00000000", step4.get(0).get("comprehensiveCapability"));
+        assertEquals("1.00000000", step4.get(1).get("comprehensiveCapability"));
+        assertEquals("0.00000000", step4.get(1).get("comprehensivePositive"));
+        assertEquals(step4.get(0).get("comprehensivePositive"), step4.get(1).get("comprehensiveNegative"));
+        assertFalse(step4.get(2).containsKey("comprehensivePositive"));
+
+        // 分级样本 [0, 1, 0]：均值1/3，样本标准差√(1/3)
+        List<Map<String, Object>> step5 = tableData(4);
+        assertEquals(step4.get(1).get("disasterManagement"), step5.get(1).get("disasterManagement"));
+        assertEquals("较弱", step5.get(0).get("comprehensiveCapabilityGrade"));
+        assertEquals("较强", step5.get(1).get("comprehensiveCapabilityGrade"));
+        assertEquals("中等", step5.get(2).get("comprehensiveCapabilityGrade"));
+    }
+
+    @Test
+    void testStep5ReusesStep4WithinSameContext() {
+        AlgorithmConfig algorithm = new AlgorithmConfig();
+        algorithm.setId(7L);
+
+        service.calculateStepResult(algorithm, 4L, 3, null, regionIds, null);
+        clearInvocations(surveyDataService, indicatorWeightService);
+        service.calculateStepResult(algorithm, 5L, 4, null, regionIds, null);
+        verifyNoInteractions(surveyDataService);
+        verify(indicatorWeightService, never()).getByConfigIdAndLevel(anyLong(), anyInt());
+
+        // 不同权重配置或不同地区列表的计算互不复用
+        service.calculateStepResult(algorithm, 5L, 4, null, regionIds, Collections.singletonMap("weightConfigId", 2));
+        verify(indicatorWeightService).getByConfigIdAndLevel(2L, 1);
+        service.calculateStepResult(algorithm, 5L, 4, null, regionIds.subList(0, 2), null);
+
+        Map<String, Object> stats = service.getStepCacheStats();
+        assertEquals(3, stats.get("size"));
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(3L, stats.get("misses"));
+        assertEquals(0.25, (Double) stats.get("hitRate"), 1e-12);
+
+        // 调查数据写入后（数据版本变化）重新计算
+        when(surveyRegionResolver.getDataVersion()).thenReturn(1L);
+        clearInvocations(surveyDataService);
+        service.calculateStepResult(algorithm, 5L, 4, null, regionIds, null);
+        verify(surveyDataService, atLeastOnce()).getBySurveyRegion(anyString());
+        assertEquals(4L, service.getStepCacheStats().get("misses"));
+
+        // 指标权重写入后（权重版本变化）重新计算
+        when(indicatorWeightService.getWeightVersion()).thenReturn(1L);
+        clearInvocations(indicatorWeightService);
+        service.calculateStepResult(algorithm, 5L, 4, null, regionIds, null);
+        verify(indicatorWeightService, atLeastOnce()).getByConfigIdAndLevel(anyLong(), anyInt());
+        assertEquals(5L, service.getStepCacheStats().get("misses"));
+    }
+
+    @Test
+    void testStepCacheBoundedByCapacityAndTtl() {
+        StepwiseComputationCache cache = new StepwiseComputationCache(2, 60_000L);
+        StepwiseEvaluationMatrix matrix = new StepwiseEvaluationMatrix(
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyMap(), Collections.emptyMap());
+        for (long algorithmId = 1; algorithmId <= 3; algorithmId++) {
+            cache.getOrCompute(new StepwiseComputationCache.Key(regionIds, 1L, algorithmId, 0L, 0L), false, () -> matrix);
+        }
+        assertEquals(2, cache.getStats().get("size"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+
+        StepwiseComputationCache expiring = new StepwiseComputationCache(2, 0L);
+        expiring.getOrCompute(new StepwiseComputationCache.Key(regionIds, 1L, 1L, 0L, 0L), false, () -> matrix);
+        assertEquals(1, expiring.evictExpired());
+        assertEquals(0, expiring.getStats().get("size"));
+    }
+
+    private List<Map<String, Object>> tableData(int stepIndex) {
+        Map<String, Object> result = service.calculateStepResult(null, (long) stepIndex + 1, stepIndex, null, regionIds, null);
+        assertNull(result.get("error"));
+        return rows(result, "tableData");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> rows(Map<String, Object> result, String key) {
+        return (List<Map<String, Object>>) result.get(key);
+    }
+
+    private static SurveyData survey(String township, int staff, double funding, int beds, int training) {
+        SurveyData data = new SurveyData();
+        data.setTownship(township);
+        data.setPopulation(10000L);
+        data.setManagementStaff(staff);
+        data.setRiskAssessment("是");
+        data.setFundingAmount(funding);
+        data.setMaterialValue(funding * 2);
+        data.setHospitalBeds(beds);
+        data.setFirefighters(staff);
+        data.setVolunteers(staff);
+        data.setMilitiaReserve(0);
+        data.setTrainingParticipants(training);
+        data.setShelterCapacity(training * 10);
+        return data;
+    }
+}
@@ -0,0 +1,232 @@
+package com.evaluate.service;
+
+import com.evaluate.dto.RegionDataSnapshot;
+import com.evaluate.entity.EvaluationModel;
+import com.evaluate.entity.ModelStep;
+import com.evaluate.entity.StepAlgorithm;
+import com.evaluate.mapper.CommunityDisasterReductionCapacityMapper;
+import com.evaluate.mapper.EvaluationModelMapper;
+import com.evaluate.mapper.ModelStepMapper;
+import com.evaluate.mapper.StepAlgorithmMapper;
+import com.evaluate.mapper.SurveyDataMapper;
+import com.evaluate.service.impl.ColumnarExecutionServiceImpl;
+import com.evaluate.service.impl.ModelExecutionServiceImpl;
+import com.evaluate.service.impl.QLExpressServiceImpl;
+import com.evaluate.service.impl.RegionNameCacheImpl;
+import com.evaluate.service.impl.SpecialAlgorithmServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * 列式执行模式测试类
+ *
+ * 同一模型分别以逐地区模式和列式模式执行，验证 stepResults 与 tableData 完全一致
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class ColumnarExecutionServiceTest {
+
+    @Mock
+    private EvaluationModelMapper evaluationModelMapper;
+
+    @Mock
+    private ModelStepMapper modelStepMapper;
+
+    @Mock
+    private StepAlgorithmMapper stepAlgorithmMapper;
+
+    @Mock
+    private CommunityDisasterReductionCapacityMapper communityDataMapper;
+
+    @Mock
+    private SurveyDataMapper surveyDataMapper;
+
+    @Mock
+    private RegionDataLoader regionDataLoader;
+
+    private ModelExecutionServiceImpl modelExecutionService;
+    private Map<String, Map<String, Object>> communityRows;
+    private List<String> regionCodes;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        QLExpressServiceImpl qlExpressService = new QLExpressServiceImpl();
+        qlExpressService.init();
+
+        ColumnarExecutionServiceImpl columnarService = new ColumnarExecutionServiceImpl();
+        ReflectionTestUtils.setField(columnarService, "stepAlgorithmMapper", stepAlgorithmMapper);
+        ReflectionTestUtils.setField(columnarService, "qlExpressService", qlExpressService);
+        ReflectionTestUtils.setField(columnarService, "regionDataLoader", regionDataLoader);
+
+        modelExecutionService = new ModelExecutionServiceImpl();
+        ReflectionTestUtils.setField(modelExecutionService, "evaluationModelMapper", evaluationModelMapper);
+        ReflectionTestUtils.setField(modelExecutionService, "modelStepMapper", modelStepMapper);
+        ReflectionTestUtils.setField(modelExecutionService, "stepAlgorithmMapper", stepAlgorithmMapper);
+        ReflectionTestUtils.setField(modelExecutionService, "communityDataMapper", communityDataMapper);
+        ReflectionTestUtils.setField(modelExecutionService, "surveyDataMapper", surveyDataMapper);
+        RegionNameCacheImpl regionNameCache = new RegionNameCacheImpl();
+        ReflectionTestUtils.setField(regionNameCache, "communityDataMapper", communityDataMapper);
+        ReflectionTestUtils.setField(regionNameCache, "surveyDataMapper", surveyDataMapper);
+        ReflectionTestUtils.setField(modelExecutionService, "regionNameCache", regionNameCache);
+        ReflectionTestUtils.setField(modelExecutionService, "regionDataLoader", regionDataLoader);
+        ReflectionTestUtils.setField(modelExecutionService, "qlExpressService", qlExpressService);
+        ReflectionTestUtils.setField(modelExecutionService, "specialAlgorithmService", new SpecialAlgorithmServiceImpl());
+        ReflectionTestUtils.setField(modelExecutionService, "columnarExecutionService", columnarService);
+
+        // 社区源数据：混合 Integer / Long / BigDecimal / 字符串字段，部分社区缺少乡镇信息
+        communityRows = new LinkedHashMap<>();
+        regionCodes = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 24; i++) {
+            String regionCode = "5114251" + (10 + i);
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", (long) i);
+            row.put("region_code", regionCode);
+            row.put("township_name", i == 5 ? null : "镇" + (i % 4));
+            row.put("population", 500 + random.nextInt(5000));
+            row.put("funding", new BigDecimal(String.valueOf(random.nextInt(100000) / 100.0)));
+            row.put("staff", (long) random.nextInt(40));
+            row.put("flag", random.nextBoolean() ? "是" : "否");
+            communityRows.put(regionCode, row);
+            regionCodes.add(regionCode);
+        }
+        doAnswer(invocation -> {
+            RegionDataSnapshot snapshot = invocation.getArgument(0);
+            Collection<String> codes = invocation.getArgument(1);
+            for (String code : codes) {
+                if (communityRows.containsKey(code)) {
+                    snapshot.getCommunityRows().putIfAbsent(code, communityRows.get(code));
+                }
+            }
+            return null;
+        }).when(regionDataLoader).ensureCommunityData(any(), anyCollection());
+    }
+
+    @Test
+    void testCommunityModelMatchesRegionMode() {
+        List<ModelStep> steps = Arrays.asList(
+                step(41L, 1, "CALC", "CALCULATION"),
+                step(42L, 2, "NORM", "NORMALIZATION"),
+                step(43L, 3, "TOPSIS", "EVALUATION"));
+        List<List<StepAlgorithm>> algorithms = Arrays.asList(
+                Arrays.asList(
+                        algorithm("资金人均", "funding / population * 1000", "A"),
+                        algorithm("人员比例", "staff / population", "B"),
+                        algorithm("预案", "IF(flag == \"是\", 1, 0)", "C"),
+                        algorithm("综合", "A + B * 2 + C", "D")),
+                Arrays.asList(
+                        algorithm("A归一化", "@NORMALIZE:A", "nA"),
+                        algorithm("B归一化", "@NORMALIZE:B", "nB"),
+                        algorithm("D归一化", "@NORMALIZE:D", "nD")),
+                Arrays.asList(
+                        algorithm("优解距离", "@TOPSIS_POSITIVE:nA,nB,nD", "P"),
+                        algorithm("劣解距离", "@TOPSIS_NEGATIVE:nA,nB,nD", "N"),
+                        algorithm("能力值", "@TOPSIS_SCORE:P,N", "S"),
+                        algorithm("分级", "@GRADE:S", "G")));
+
+        assertModesMatch(4L, steps, algorithms);
+    }
+
+    @Test
+    void testTownshipAggregationMatchesRegionMode() {
+        List<ModelStep> steps = Arrays.asList(
+                step(81L, 1, "COMMUNITY", "CALCULATION"),
+                step(82L, 2, "AGG", "AGGREGATION"),
+                step(83L, 3, "NORM", "NORMALIZATION"),
+                step(84L, 4, "GRADE", "EVALUATION"));
+        List<List<StepAlgorithm>> algorithms = Arrays.asList(
+                Arrays.asList(
+                        algorithm("常住人口", "population", "RESIDENT_POPULATION"),
+                        algorithm("预案", "IF(flag == \"是\", 1, 0)", "HAS_EMERGENCY_PLAN"),
+                        algorithm("资金", "funding", "LAST_YEAR_FUNDING_AMOUNT"),
+                        algorithm("人员比例", "staff / population", "X")),
+                Arrays.asList(
+                        algorithm("预案建设", "PLAN_CONSTRUCTION", "PC"),
+                        algorithm("资金投入", "FINANCIAL_INPUT", "FI"),
+                        algorithm("人员比例均值", "X", "XA"),
+                        algorithm("缺失字段", "NOT_EXISTS", "NE")),
+                Arrays.asList(
+                        algorithm("PC归一化", "@NORMALIZE:PC", "nPC"),
+                        algorithm("FI归一化", "@NORMALIZE:FI", "nFI"),
+                        algorithm("XA归一化", "@NORMALIZE:XA", "nXA")),
+                Arrays.asList(
+                        algorithm("优解距离", "@TOPSIS_POSITIVE:nPC,nFI,nXA", "P"),
+                        algorithm("劣解距离", "@TOPSIS_NEGATIVE:nPC,nFI,nXA", "N"),
+                        algorithm("能力值", "@TOPSIS_SCORE:P,N", "S"),
+                        algorithm("分级", "@GRADE:S", "G")));
+
+        Map<String, Object> columnar = assertModesMatch(8L, steps, algorithms);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> aggregation = (Map<String, Object>) ((Map<String, Object>) columnar.get("stepResults")).get("AGG");
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> townships = (Map<String, Map<String, Object>>) aggregation.get("regionResults");
+        assertEquals(4, townships.size());
+        assertTrue(townships.containsKey("TOWNSHIP_镇0"));
+    }
+
+    private Map<String, Object> assertModesMatch(Long modelId, List<ModelStep> steps, List<List<StepAlgorithm>> algorithms) {
+        EvaluationModel model = new EvaluationModel();
+        model.setId(modelId);
+        model.setModelName("测试模型");
+        model.setStatus(1);
+        when(evaluationModelMapper.selectById(modelId)).thenReturn(model);
+        when(modelStepMapper.selectList(any())).thenReturn(steps);
+        for (ModelStep step : steps) {
+            when(modelStepMapper.selectById(step.getId())).thenReturn(step);
+        }
+
+        Map<String, Object> byRegion = execute(modelId, algorithms, false);
+        Map<String, Object> columnar = execute(modelId, algorithms, true);
+
+        assertEquals(byRegion.get("stepResults"), columnar.get("stepResults"));
+        assertEquals(byRegion.get("tableData"), columnar.get("tableData"));
+        assertEquals(byRegion.get("columns"), columnar.get("columns"));
+        return columnar;
+    }
+
+    private Map<String, Object> execute(Long modelId, List<List<StepAlgorithm>> algorithms, boolean columnar) {
+        @SuppressWarnings("unchecked")
+        List<StepAlgorithm>[] perStep = algorithms.toArray(new List[0]);
+        when(stepAlgorithmMapper.selectList(any())).thenReturn(perStep[0],
+                Arrays.copyOfRange(perStep, 1, perStep.length));
+        ReflectionTestUtils.setField(modelExecutionService, "columnarEngine", columnar);
+        return modelExecutionService.executeModel(modelId, regionCodes, null);
+    }
+
+    private ModelStep step(Long id, int order, String code, String type) {
+        ModelStep step = new ModelStep();
+        step.setId(id);
+        step.setStepOrder(order);
+        step.setStepCode(code);
+        step.setStepName(code);
+        step.setStepType(type);
+        step.setStatus(1);
+        return step;
+    }
+
+    private StepAlgorithm algorithm(String name, String expression, String output) {
+        StepAlgorithm algorithm = new StepAlgorithm();
+        algorithm.setAlgorithmName(name);
+        algorithm.setAlgorithmCode(output);
+        algorithm.setQlExpression(expression);
+        algorithm.setOutputParam(output);
+        algorithm.setStatus(1);
+        return algorithm;
+    }
+}
@@ -0,0 +1,186 @@
+package com.evaluate.service;
+
+import com.evaluate.entity.CommunityDisasterReductionCapacity;
+import com.evaluate.mapper.CommunityDisasterReductionCapacityMapper;
+import com.evaluate.service.impl.CommunityDisasterReductionCapacityServiceImpl;
+import com.evaluate.util.ExcelStreamReader;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 社区减灾能力数据流式导入测试类
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class CommunityCapacityImportTest {
+
+    @Mock
+    private CommunityDisasterReductionCapacityMapper mapper;
+
+    @Mock
+    private RegionNameCache regionNameCache;
+
+    @Mock
+    private RegionHierarchyIndex regionHierarchyIndex;
+
+    private CommunityDisasterReductionCapacityServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(mapper.insert(any(CommunityDisasterReductionCapacity.class))).thenReturn(1);
+
+        service = spy(new CommunityDisasterReductionCapacityServiceImpl());
+        ReflectionTestUtils.setField(service, "baseMapper", mapper);
+        ReflectionTestUtils.setField(service, "communityDisasterReductionCapacityMapper", mapper);
+        ReflectionTestUtils.setField(service, "regionNameCache", regionNameCache);
+        ReflectionTestUtils.setField(service, "regionHierarchyIndex", regionHierarchyIndex);
+        ReflectionTestUtils.setField(service, "importBatchSize", 2);
+        doReturn(true).when(service).saveBatch(anyCollection(), anyInt());
+        doReturn(true).when(service).updateBatchById(anyCollection(), anyInt());
+    }
+
+    @Test
+    void testImportStreamsRowsInBatchesWithRowErrors() throws Exception {
+        byte[] content = workbook(new Object[][]{
+                {"行政区代码", "省", "市", "县", "乡镇", "社区"},
+                {511425001.0, "四川省", "眉山市", "青神县", "青竹街道", " 一村 ", true, "否", "yes", null, 1200.0, 35.5, "80"},
+                {"511425002", "四川省", "眉山市", "青神县", "南城镇", null},
+                {"511425003", "四川省", "眉山市", "青神县", "南城镇", "二村"},
+                {"511425004", "四川省", "眉山市", "青神县", "汉阳镇", "三村"},
+        });
+
+        Map<String, Object> result = service.importCommunityCapacityData(new MockMultipartFile(
+                "file", "community.xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", content));
+
+        assertEquals(true, result.get("success"));
+        assertEquals(3, result.get("successCount"));
+        assertEquals(0, result.get("errorCount"));
+        assertEquals(1, ((List<?>) result.get("errorMessages")).size());
+        assertEquals("第3行：社区（行政村）名称不能为空", ((List<?>) result.get("errorMessages")).get(0));
+
+        // 每批一次查询已存在数据、一次批量新增，不逐行查询和写入
+        verify(mapper, times(2)).selectList(any());
+        verify(mapper, never()).insert(any(CommunityDisasterReductionCapacity.class));
+        verify(regionNameCache).invalidateCommunity();
+        // 每批提交后标记本批涉及的区县
+        verify(regionHierarchyIndex, times(2)).onRowsChanged(eq(RegionHierarchyIndex.DATA_TYPE_COMMUNITY), anyCollection());
+        List<CommunityDisasterReductionCapacity> inserted = savedBatches(2);
+        CommunityDisasterReductionCapacity first = inserted.get(0);
+        assertEquals("511425001", first.getRegionCode());
+        assertEquals("一村", first.getCommunityName());
+        assertEquals("是", first.getHasEmergencyPlan());
+        assertEquals("否", first.getHasVulnerableGroupsList());
+        assertEquals("是", first.getHasDisasterPointsList());
+        assertEquals("否", first.getHasDisasterMap());
+        assertEquals(1200, first.getResidentPopulation());
+        assertEquals(BigDecimal.valueOf(35.5), first.getLastYearFundingAmount());
+        assertEquals(0, BigDecimal.valueOf(80).compareTo(first.getMaterialsEquipmentValue()));
+        assertEquals(0, first.getMedicalServiceCount());
+        assertEquals(3, inserted.size());
+    }
+
+    @Test
+    void testImportSplitsInsertsAndUpdatesAndRetriesFailedBatchPerRow() throws Exception {
+        CommunityDisasterReductionCapacity existing = new CommunityDisasterReductionCapacity();
+        existing.setId(9L);
+        existing.setRegionCode("511425003");
+        existing.setCommunityName("二村");
+        when(mapper.selectList(any())).thenReturn(Collections.singletonList(existing));
+        doThrow(new RuntimeException("Duplicate entry")).when(service).saveBatch(anyCollection(), anyInt());
+        doReturn(existing).when(service).getByRegionAndCommunity("511425003", "二村");
+
+        byte[] content = workbook(new Object[][]{
+                {"行政区代码", "省", "市", "县", "乡镇", "社区"},
+                {"511425003", "四川省", "眉山市", "青神县", "南城镇", "二村"},
+                {"511425004", "四川省", "眉山市", "青神县", "汉阳镇", "三村"},
+        });
+        Map<String, Object> result = service.importCommunityCapacityData(new MockMultipartFile(
+                "file", "community.xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", content));
+
+        assertEquals(2, result.get("successCount"));
+        assertEquals(0, result.get("errorCount"));
+        // 批量写入失败后逐行重试：已存在的更新，不存在的新增
+        verify(mapper).updateById(argThat((CommunityDisasterReductionCapacity e) -> Long.valueOf(9L).equals(e.getId())));
+        verify(mapper).insert(argThat((CommunityDisasterReductionCapacity e) -> "三村".equals(e.getCommunityName())));
+        // 重试全部结束后统一通知一次
+        verify(regionNameCache, times(1)).invalidateCommunity();
+        verify(regionHierarchyIndex, times(1)).onRowsChanged(eq(RegionHierarchyIndex.DATA_TYPE_COMMUNITY),
+                argThat((Collection<CommunityDisasterReductionCapacity> rows) -> rows.size() == 2));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CommunityDisasterReductionCapacity> savedBatches(int batches) {
+        ArgumentCaptor<Collection<CommunityDisasterReductionCapacity>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(service, times(batches)).saveBatch(captor.capture(), eq(2));
+        List<CommunityDisasterReductionCapacity> saved = new ArrayList<>();
+        captor.getAllValues().forEach(saved::addAll);
+        return saved;
+    }
+
+    @Test
+    void testStreamReaderKeepsSparseCellPositions() throws Exception {
+        byte[] content = workbook(new Object[][]{
+                {"标题"},
+                null,
+                {null, "B", null, 3.0},
+        });
+
+        List<ExcelStreamReader.ExcelRow> rows = new ArrayList<>();
+        int count = ExcelStreamReader.read(new ByteArrayInputStream(content), rows::add);
+
+        assertEquals(2, count);
+        ExcelStreamReader.ExcelRow row = rows.get(1);
+        assertEquals(2, row.getRowNum());
+        assertFalse(row.hasCell(0));
+        assertEquals("B", row.getValue(1));
+        assertEquals(3.0, row.getValue(3));
+        assertNull(row.getValue(10));
+    }
+
+    private static byte[] workbook(Object[][] rows) throws Exception {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet();
+            for (int i = 0; i < rows.length; i++) {
+                if (rows[i] == null) {
+                    continue;
+                }
+                Row row = sheet.createRow(i);
+                for (int j = 0; j < rows[i].length; j++) {
+                    Object value = rows[i][j];
+                    if (value instanceof String) {
+                        row.createCell(j).setCellValue((String) value);
+                    } else if (value instanceof Double) {
+                        row.createCell(j).setCellValue((Double) value);
+                    } else if (value instanceof Boolean) {
+                        row.createCell(j).setCellValue((Boolean) value);
+                    }
+                }
+            }
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.evaluate.service;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.evaluate.entity.CommunityDisasterReductionCapacity;
+import com.evaluate.entity.IndicatorWeight;
+import com.evaluate.service.adapter.DataSourceAdapter;
+import com.evaluate.service.adapter.impl.CommunityDataSourceAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 社区数据源适配器测试类（IN 查询分批、会话内共享已加载数据、会话按线程隔离）
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class CommunityDataSourceAdapterTest {
+
+    @Mock
+    private ICommunityDisasterReductionCapacityService communityService;
+
+    @Mock
+    private IIndicatorWeightService indicatorWeightService;
+
+    @Mock
+    private RegionNameCache regionNameCache;
+
+    private CommunityDataSourceAdapter adapter;
+    private final List<String> regionCodes = Arrays.asList("A", "B", "C");
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        adapter = new CommunityDataSourceAdapter();
+        ReflectionTestUtils.setField(adapter, "communityService", communityService);
+        ReflectionTestUtils.setField(adapter, "indicatorWeightService", indicatorWeightService);
+        ReflectionTestUtils.setField(adapter, "regionNameCache", regionNameCache);
+        ReflectionTestUtils.setField(adapter, "batchSize", 2);
+
+        List<CommunityDisasterReductionCapacity> table = Arrays.asList(
+                community(1L, "A", 100), community(2L, "A", 999), community(3L, "B", 200), community(4L, "C", 300));
+        when(communityService.list(any(Wrapper.class))).thenAnswer(invocation -> {
+            List<Object> codes = inValues(invocation.getArgument(0));
+            return table.stream().filter(row -> codes.contains(row.getRegionCode())).collect(Collectors.toList());
+        });
+        IndicatorWeight weight = new IndicatorWeight();
+        weight.setIndicatorCode("population");
+        weight.setWeight(1.0);
+        when(indicatorWeightService.getByConfigId(1L)).thenReturn(Collections.singletonList(weight));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSessionSharesBatchedLoad() {
+        DataSourceAdapter.Session session = adapter.openSession();
+        Map<String, Map<String, Double>> indicators;
+        try {
+            assertTrue(adapter.validateDataSource(regionCodes, 1L));
+            indicators = adapter.getIndicatorData(regionCodes, 1L);
+            assertTrue(adapter.isRegionSupported("B"));
+        } finally {
+            session.close();
+        }
+
+        // 3 个地区按每批 2 个查询两次，会话内后续调用不再查询
+        ArgumentCaptor<Wrapper<CommunityDisasterReductionCapacity>> captor = ArgumentCaptor.forClass(Wrapper.class);
+        verify(communityService, times(2)).list(captor.capture());
+        assertEquals(Arrays.asList(Arrays.asList("A", "B"), Collections.singletonList("C")),
+                captor.getAllValues().stream().map(CommunityDataSourceAdapterTest::inValues).collect(Collectors.toList()));
+        // 同一地区取第一行
+        assertEquals(100.0, indicators.get("A").get("population"));
+        assertEquals(300.0, indicators.get("C").get("population"));
+
+        // 会话关闭后重新查询
+        adapter.getIndicatorData(regionCodes, 1L);
+        verify(communityService, times(4)).list(any(Wrapper.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSessionIsPerThreadAndNestedSessionKeepsOuterData() throws Exception {
+        DataSourceAdapter.Session session = adapter.openSession();
+        try {
+            adapter.getRawData(regionCodes, 1L);
+
+            // 其他线程不共享本线程的会话
+            CompletableFuture.runAsync(() -> adapter.getRawData(regionCodes, 1L)).get();
+            verify(communityService, times(4)).list(any(Wrapper.class));
+
+            // 嵌套会话关闭后，外层会话的数据仍然可用
+            DataSourceAdapter.Session nested = adapter.openSession();
+            try {
+                adapter.getRawData(regionCodes, 1L);
+            } finally {
+                nested.close();
+            }
+            adapter.getRawData(regionCodes, 1L);
+            verify(communityService, times(4)).list(any(Wrapper.class));
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * 取出查询条件中 IN 的参数值（按顺序）
+     */
+    private static List<Object> inValues(Wrapper<?> wrapper) {
+        Map<String, Object> params = ((QueryWrapper<?>) wrapper).getParamNameValuePairs();
+        return params.entrySet().stream()
+                .sorted(Comparator.comparingInt(entry -> Integer.parseInt(entry.getKey().replaceAll("\\D", ""))))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+    }
+
+    private static CommunityDisasterReductionCapacity community(Long id, String regionCode, int population) {
+        CommunityDisasterReductionCapacity data = new CommunityDisasterReductionCapacity();
+        data.setId(id);
+        data.setRegionCode(regionCode);
+        data.setResidentPopulation(population);
+        return data;
+    }
+}
@@ -0,0 +1,231 @@
+package com.evaluate.service;
+
+import com.evaluate.entity.DynamicRule;
+import com.evaluate.mapper.DynamicRuleMapper;
+import com.evaluate.service.impl.DynamicRuleEngineServiceImpl;
+import com.evaluate.util.EventRingBuffer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 动态规则引擎编译执行、执行日志与性能统计测试类
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class DynamicRuleEngineServiceTest {
+
+    @Test
+    void testRingBufferKeepsLatestEventsNewestFirst() {
+        EventRingBuffer<Long> log = new EventRingBuffer<>(8, 3);
+        for (long i = 0; i < 20; i++) {
+            log.append(i % 2, Collections.singletonMap("seq", i));
+        }
+
+        assertEquals(8, log.size());
+        List<Map<String, Object>> recent = log.recent(null, 100);
+        assertEquals(8, recent.size());
+        assertEquals(19L, recent.get(0).get("seq"));
+        assertEquals(12L, recent.get(7).get("seq"));
+
+        List<Map<String, Object>> ruleOne = log.recent(1L, 100);
+        assertEquals(3, ruleOne.size());
+        assertEquals(19L, ruleOne.get(0).get("seq"));
+        assertEquals(2, log.recent(0L, 2).size());
+
+        log.clear();
+        assertEquals(0, log.size());
+        assertTrue(log.recent(null, 10).isEmpty());
+        log.append(5L, Collections.singletonMap("seq", 20L));
+        assertEquals(20L, log.recent(null, 10).get(0).get("seq"));
+
+        // 不按 key 分组时只保留全部事件的环
+        EventRingBuffer<Long> single = new EventRingBuffer<>(2);
+        for (long i = 0; i < 3; i++) {
+            single.append(1L, Collections.singletonMap("seq", i));
+        }
+        assertEquals(2, single.recent(10).size());
+        assertEquals(2L, single.recent(10).get(0).get("seq"));
+        assertTrue(single.recent(1L, 10).isEmpty());
+    }
+
+    @Test
+    void testConcurrentExecutionsAreLoggedAndCounted() throws Exception {
+        DynamicRuleEngineServiceImpl service = new DynamicRuleEngineServiceImpl(new ObjectMapper());
+        service.init();
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long ruleId = t % 2 + 1;
+                futures.add(executor.submit(() -> {
+                    DynamicRule rule = new DynamicRule();
+                    rule.setId(ruleId);
+                    rule.setRuleName("rule" + ruleId);
+                    rule.setRuleExpression("i * 2");
+                    for (int i = 0; i < perThread; i++) {
+                        assertEquals(i * 2.0, ((Number) service.executeRule(rule, Collections.singletonMap("i", i))).doubleValue());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Object> stats = service.getRulePerformanceStats(1L);
+        assertEquals((long) threads / 2 * perThread, stats.get("totalExecutions"));
+        assertEquals(0L, stats.get("failedExecutions"));
+        assertTrue((Double) stats.get("p99ExecutionTime") >= (Double) stats.get("p50ExecutionTime"));
+
+        List<Map<String, Object>> logs = service.getRuleExecutionLogs(2L, 50);
+        assertEquals(50, logs.size());
+        assertTrue(logs.stream().allMatch(log -> Long.valueOf(2L).equals(log.get("ruleId"))));
+        assertEquals(1000, service.getRuleExecutionLogs(null, 5000).size());
+        assertEquals(2, service.getPerformanceStats().get("totalRules"));
+    }
+
+    @Test
+    void testCompiledRuleRecompiledWhenRuleUpdated() {
+        DynamicRuleEngineServiceImpl service = new DynamicRuleEngineServiceImpl(new ObjectMapper());
+        service.init();
+        DynamicRule rule = rule(7L, "population / area * factor");
+        rule.setInputParams("{\"factor\": 10}");
+        rule.setUpdateTime(LocalDateTime.of(2025, 1, 1, 0, 0));
+        Map<String, Object> context = new HashMap<>();
+        context.put("population", 1000);
+        context.put("area", 400);
+
+        assertTrue(service.compileRule(rule));
+        assertEquals(25.0, ((Number) service.executeRule(rule, context)).doubleValue(), 1e-9);
+        assertEquals(1, service.getPerformanceStats().get("compiledExpressionCacheSize"));
+
+        // 规则修改后按新版本重新编译
+        DynamicRule updated = rule(7L, "max(population / area, 5) + 1");
+        updated.setUpdateTime(LocalDateTime.of(2025, 1, 2, 0, 0));
+        assertEquals(6.0, ((Number) service.executeRule(updated, context)).doubleValue(), 1e-9);
+        assertEquals(1, service.getPerformanceStats().get("compiledExpressionCacheSize"));
+
+        // max 与QLExpress自带操作符同名，其后的内置函数仍需注册成功
+        assertEquals(402.0, ((Number) service.executeRule(rule(12L, "sqrt(pow(area, 2)) + length(\"ab\")"), context))
+                .doubleValue(), 1e-9);
+
+        assertTrue(service.validateRuleExpression("a > 1 ? 1 : 0"));
+        assertFalse(service.validateRuleExpression("a + * b"));
+        assertFalse(service.compileRule(rule(8L, "a + * b")));
+    }
+
+    @Test
+    void testCachedRuleReloadedWhenUpdateTimeChanges() {
+        DynamicRuleEngineServiceImpl service = new DynamicRuleEngineServiceImpl(new ObjectMapper());
+        service.init();
+        DynamicRuleMapper mapper = mock(DynamicRuleMapper.class);
+        ReflectionTestUtils.setField(service, "dynamicRuleMapper", mapper);
+        ReflectionTestUtils.setField(service, "revalidateMs", 0L);
+        DynamicRule original = rule(9L, "x + 1");
+        original.setUpdateTime(LocalDateTime.of(2025, 1, 1, 0, 0));
+        DynamicRule updated = rule(9L, "x + 2");
+        updated.setUpdateTime(LocalDateTime.of(2025, 1, 2, 0, 0));
+        when(mapper.selectById(9L)).thenReturn(original, updated);
+        when(mapper.selectOne(any())).thenReturn(version(original), version(updated), null);
+        Map<String, Object> input = Collections.singletonMap("x", 1);
+
+        assertEquals(2, ((Number) service.executeRuleWithResult(9L, input).get("result")).intValue());
+        // 版本未变：只校验 update_time，不重新加载
+        assertEquals(2, ((Number) service.executeRuleWithResult(9L, input).get("result")).intValue());
+        verify(mapper, times(1)).selectById(9L);
+        // 规则修改后重新加载
+        assertEquals(3, ((Number) service.executeRuleWithResult(9L, input).get("result")).intValue());
+        verify(mapper, times(2)).selectById(9L);
+        // 规则删除后不再使用缓存
+        assertThrows(IllegalArgumentException.class, () -> service.executeRuleWithResult(9L, input));
+    }
+
+    @Test
+    void testCachedRuleNotRevalidatedWithinIntervalUntilInvalidated() {
+        DynamicRuleEngineServiceImpl service = new DynamicRuleEngineServiceImpl(new ObjectMapper());
+        service.init();
+        DynamicRuleMapper mapper = mock(DynamicRuleMapper.class);
+        ReflectionTestUtils.setField(service, "dynamicRuleMapper", mapper);
+        ReflectionTestUtils.setField(service, "revalidateMs", 60_000L);
+        when(mapper.selectById(12L)).thenReturn(rule(12L, "x + 1"), rule(12L, "x + 2"));
+        Map<String, Object> input = Collections.singletonMap("x", 1);
+
+        // 校验间隔内重复执行不查询数据库
+        for (int i = 0; i < 5; i++) {
+            assertEquals(2, ((Number) service.executeRuleWithResult(12L, input).get("result")).intValue());
+        }
+        verify(mapper, times(1)).selectById(12L);
+        verify(mapper, never()).selectOne(any());
+
+        // 写入后显式失效，下次执行重新加载
+        service.invalidateRule(12L);
+        assertEquals(3, ((Number) service.executeRuleWithResult(12L, input).get("result")).intValue());
+        verify(mapper, times(2)).selectById(12L);
+        verify(mapper, never()).selectOne(any());
+    }
+
+    @Test
+    void testBatchIsolatesFailuresAndChainFeedsResults() {
+        DynamicRuleEngineServiceImpl service = new DynamicRuleEngineServiceImpl(new ObjectMapper());
+        service.init();
+        DynamicRule rule = rule(9L, "x.length()");
+        Map<String, Object> bad = new HashMap<>();
+        bad.put("x", null);
+
+        Map<String, Object> batch = service.executeRuleBatch(rule, Arrays.asList(
+                Collections.singletonMap("x", "abc"), bad, Collections.singletonMap("x", "de")));
+        assertEquals(Arrays.asList(3, null, 2), batch.get("results"));
+        assertEquals(2, batch.get("successCount"));
+        assertEquals(1, batch.get("failedCount"));
+        assertTrue(((Map<?, ?>) batch.get("errors")).containsKey(1));
+        assertEquals(3L, ((Map<?, ?>) batch.get("performance")).get("totalExecutions"));
+
+        DynamicRule first = rule(10L, "a * 2");
+        first.setRuleCode("double");
+        first.setExecutionOrder(1);
+        DynamicRule second = rule(11L, "double_result + 1");
+        second.setRuleCode("plusOne");
+        second.setExecutionOrder(2);
+        Map<String, Object> results = service.executeRuleChain(new ArrayList<>(Arrays.asList(second, first)),
+                Collections.singletonMap("a", 4));
+        assertEquals(8.0, ((Number) results.get("double")).doubleValue(), 1e-9);
+        assertEquals(9.0, ((Number) results.get("plusOne")).doubleValue(), 1e-9);
+    }
+
+    private static DynamicRule rule(Long id, String expression) {
+        DynamicRule rule = new DynamicRule();
+        rule.setId(id);
+        rule.setRuleName("rule" + id);
+        rule.setRuleExpression(expression);
+        return rule;
+    }
+
+    private static DynamicRule version(DynamicRule rule) {
+        DynamicRule version = new DynamicRule();
+        version.setId(rule.getId());
+        version.setUpdateTime(rule.getUpdateTime());
+        return version;
+    }
+}
@@ -0,0 +1,149 @@
+package com.evaluate.service;
+
+import com.evaluate.entity.*;
+import com.evaluate.service.impl.AlgorithmConfigServiceImpl;
+import com.evaluate.service.impl.EvaluationServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 批量评估计算测试类
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class EvaluationBatchTest {
+
+    @Mock
+    private ISurveyDataService surveyDataService;
+    @Mock
+    private IIndicatorWeightService indicatorWeightService;
+    @Mock
+    private AlgorithmConfigServiceImpl algorithmConfigService;
+    @Mock
+    private AlgorithmExecutionService algorithmExecutionService;
+    @Mock
+    private ISecondaryIndicatorResultService secondaryIndicatorResultService;
+    @Mock
+    private IPrimaryIndicatorResultService primaryIndicatorResultService;
+    @Mock
+    private IReportService reportService;
+
+    private ThreadPoolExecutor pool;
+    private EvaluationServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // 队列容量小于任务数，超出的任务由提交线程执行
+        pool = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        service = new EvaluationServiceImpl();
+        ReflectionTestUtils.setField(service, "surveyDataService", surveyDataService);
+        ReflectionTestUtils.setField(service, "indicatorWeightService", indicatorWeightService);
+        ReflectionTestUtils.setField(service, "algorithmConfigService", algorithmConfigService);
+        ReflectionTestUtils.setField(service, "algorithmExecutionService", algorithmExecutionService);
+        ReflectionTestUtils.setField(service, "secondaryIndicatorResultService", secondaryIndicatorResultService);
+        ReflectionTestUtils.setField(service, "primaryIndicatorResultService", primaryIndicatorResultService);
+        ReflectionTestUtils.setField(service, "reportService", reportService);
+        ReflectionTestUtils.setField(service, "batchEvaluationExecutor", pool);
+
+        AlgorithmConfig config = new AlgorithmConfig();
+        config.setId(1L);
+        when(algorithmConfigService.getById(1L)).thenReturn(config);
+        when(indicatorWeightService.getByConfigId(2L)).thenReturn(Arrays.asList(
+                weight(10L, "A", 1, null, 1.0), weight(11L, "A1", 2, 10L, 0.5)));
+        List<SurveyData> surveys = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            if (id != 3) {
+                SurveyData data = new SurveyData();
+                data.setId(id);
+                surveys.add(data);
+            }
+        }
+        when(surveyDataService.listByIds(anyCollection())).thenReturn(surveys);
+        when(algorithmExecutionService.executeAlgorithm(any(), anyList(), anyMap(), anyList()))
+                .thenAnswer(invocation -> {
+                    List<Long> regionIds = invocation.getArgument(3);
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("executionId", "exec-" + regionIds.get(0));
+                    return result;
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchLoadsReferenceOnceAndSavesInFewBatches() {
+        Map<String, Object> response = service.batchEvaluationWithSummary(Arrays.asList(1L, 2L, 3L, 4L, 5L), 1L, 2L);
+
+        List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("results");
+        assertEquals(5, results.size());
+        assertEquals("exec-4", results.get(3).get("executionId"));
+        assertEquals(false, results.get(2).get("success"));
+        assertEquals("调查数据不存在: 3", results.get(2).get("message"));
+        Map<String, Object> summary = (Map<String, Object>) response.get("summary");
+        assertEquals(4, summary.get("successCount"));
+        assertEquals(1, summary.get("failedCount"));
+
+        // 参考数据只加载一次，权重不再逐个一级指标查询
+        verify(algorithmConfigService, times(1)).getById(1L);
+        verify(indicatorWeightService, times(1)).getByConfigId(2L);
+        verify(indicatorWeightService, never()).getChildWeights(any(), any());
+        verify(algorithmExecutionService, times(4)).executeAlgorithm(any(), anyList(), anyMap(), anyList());
+
+        ArgumentCaptor<Collection<SecondaryIndicatorResult>> secondary = ArgumentCaptor.forClass(Collection.class);
+        verify(secondaryIndicatorResultService, times(1)).saveBatch(secondary.capture(), eq(500));
+        assertEquals(4, secondary.getValue().size());
+        verify(primaryIndicatorResultService, times(1)).saveBatch(anyCollection(), eq(500));
+        verify(reportService, times(1)).saveBatch(anyCollection(), eq(500));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedBatchSaveRetriedPerSurvey() {
+        when(secondaryIndicatorResultService.saveBatch(anyCollection(), anyInt())).thenAnswer(invocation -> {
+            Collection<SecondaryIndicatorResult> rows = invocation.getArgument(0);
+            if (rows.size() > 1 || rows.iterator().next().getSurveyDataId() == 2L) {
+                throw new RuntimeException("Deadlock found");
+            }
+            return true;
+        });
+
+        List<Map<String, Object>> results = service.batchEvaluation(Arrays.asList(1L, 2L, 4L), 1L, 2L);
+
+        assertEquals(true, results.get(0).get("success"));
+        assertEquals(false, results.get(1).get("success"));
+        assertTrue(((String) results.get(1).get("message")).startsWith("保存评估结果失败"));
+        assertEquals(true, results.get(2).get("success"));
+        verify(secondaryIndicatorResultService, times(4)).saveBatch(anyCollection(), anyInt());
+    }
+
+    private static IndicatorWeight weight(Long id, String code, int level, Long parentId, double value) {
+        IndicatorWeight weight = new IndicatorWeight();
+        weight.setId(id);
+        weight.setIndicatorCode(code);
+        weight.setIndicatorLevel(level);
+        weight.setParentId(parentId);
+        weight.setWeight(value);
+        return weight;
+    }
+}
@@ -0,0 +1,65 @@
+package com.evaluate.service;
+
+import com.evaluate.entity.CommunityDisasterReductionCapacity;
+import com.evaluate.entity.SurveyData;
+import com.evaluate.service.adapter.IndicatorAccessorRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 指标取值器注册表测试类
+ *
+ * @author System
+ * @since 2025-01-01
+ */
+class IndicatorAccessorRegistryTest {
+
+    @Test
+    void testGettersReadEntityFields() {
+        IndicatorAccessorRegistry<CommunityDisasterReductionCapacity> registry =
+                new IndicatorAccessorRegistry<>(CommunityDisasterReductionCapacity.class);
+        CommunityDisasterReductionCapacity data = new CommunityDisasterReductionCapacity();
+        data.setResidentPopulation(1200);
+        data.setLastYearFundingAmount(new BigDecimal("12.5"));
+        data.setHasEmergencyPlan("是");
+
+        assertEquals(1200, registry.getter("residentPopulation").get(data));
+        assertEquals(12.5, IndicatorAccessorRegistry.toDouble(registry.getter("lastYearFundingAmount").get(data), true));
+        assertEquals(1.0, IndicatorAccessorRegistry.toDouble(registry.getter("hasEmergencyPlan").get(data), true));
+        assertNull(registry.getter("serialVersionUID"));
+        assertNull(registry.getter("notExists"));
+
+        IndicatorAccessorRegistry<SurveyData> surveyRegistry = new IndicatorAccessorRegistry<>(SurveyData.class);
+        assertNotNull(surveyRegistry.getter("regionCode"));
+    }
+
+    @Test
+    void testValueConversion() {
+        assertEquals(0.0, IndicatorAccessorRegistry.toDouble("否", true));
+        assertEquals(1.0, IndicatorAccessorRegistry.toDouble("YES", true));
+        assertEquals(3.5, IndicatorAccessorRegistry.toDouble(" 3.5 ", false));
+        assertNull(IndicatorAccessorRegistry.toDouble("  ", true));
+        assertNull(IndicatorAccessorRegistry.toDouble(null, true));
+        assertThrows(NumberFormatException.class, () -> IndicatorAccessorRegistry.toDouble("是", false));
+    }
+
+    @Test
+    void testIndicatorResolvedOnce() {
+        IndicatorAccessorRegistry<CommunityDisasterReductionCapacity> registry =
+                new IndicatorAccessorRegistry<>(CommunityDisasterReductionCapacity.class);
+        AtomicInteger resolved = new AtomicInteger();
+        CommunityDisasterReductionCapacity data = new CommunityDisasterReductionCapacity();
+        for (int i = 0; i < 100; i++) {
+            Double value = registry.accessor("UNKNOWN_INDICATOR", code -> {
+                resolved.incrementAndGet();
+                return target -> 0.0;
+            }).read(data);
+            assertEquals(0.0, value);
+        }
+        assertEquals(1, resolved.get());
+    }
+}
@@ -0,0 +1,163 @@
+package com.evaluate.service;
+
+import com.evaluate.entity.ModelExecutionRecord;
+import com.evaluate.service.impl.ModelExecutionJobServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 异步模型执行任务服务测试类
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class ModelExecutionJobServiceTest {
+
+    @Mock
+    private ModelExecutionService modelExecutionService;
+
+    @Mock
+    private EvaluationResultService evaluationResultService;
+
+    @Mock
+    private UnifiedEvaluationEngine unifiedEvaluationEngine;
+
+    private ModelExecutionJobServiceImpl jobService;
+    private ThreadPoolExecutor executor;
+    private final List<String> regionCodes = Arrays.asList("511425001", "511425002", "511425003", "511425004");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+
+        ModelExecutionRecord record = new ModelExecutionRecord();
+        record.setId(99L);
+        record.setExecutionCode("EXEC_TEST");
+        when(evaluationResultService.createExecutionRecord(anyLong(), anyList(), any(), any())).thenReturn(record);
+
+        jobService = new ModelExecutionJobServiceImpl();
+        ReflectionTestUtils.setField(jobService, "modelExecutionService", modelExecutionService);
+        ReflectionTestUtils.setField(jobService, "evaluationResultService", evaluationResultService);
+        ReflectionTestUtils.setField(jobService, "unifiedEvaluationEngine", unifiedEvaluationEngine);
+        ReflectionTestUtils.setField(jobService, "jobExecutor", executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testJobCompletesWithProgressAndRecord() throws Exception {
+        when(modelExecutionService.executeModel(eq(4L), eq(regionCodes), eq(1L), isNull(), any()))
+                .thenAnswer(invocation -> {
+                    ExecutionProgressListener listener = invocation.getArgument(4);
+                    for (int step = 0; step < 2; step++) {
+                        listener.onStepStarted("S" + step, "步骤" + step, step, 2);
+                        for (int i = 1; i <= regionCodes.size(); i++) {
+                            listener.onRegionProgress("S" + step, i, regionCodes.size());
+                        }
+                        listener.onStepCompleted("S" + step, step, 2);
+                    }
+                    return Collections.singletonMap("success", true);
+                });
+
+        String jobId = (String) jobService.submitModelExecution(4L, regionCodes, 1L, null, "tester").get("jobId");
+        Map<String, Object> status = awaitFinished(jobId);
+
+        assertEquals("SUCCESS", status.get("status"));
+        assertEquals(100, status.get("percentage"));
+        assertEquals(99L, status.get("executionRecordId"));
+        assertEquals(Collections.singletonMap("success", true), jobService.getJobResult(jobId));
+        verify(evaluationResultService).updateExecutionRecord(eq(99L), eq("SUCCESS"), anyString(), isNull(), isNull());
+    }
+
+    @Test
+    void testCancelRunningAndQueuedJobs() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(modelExecutionService.executeModel(anyLong(), anyList(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    ExecutionProgressListener listener = invocation.getArgument(4);
+                    started.countDown();
+                    while (!listener.isCancelled()) {
+                        Thread.sleep(5);
+                    }
+                    throw new CancellationException("执行已取消");
+                });
+
+        String running = (String) jobService.submitModelExecution(4L, regionCodes, 1L, null, null).get("jobId");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        String queued = (String) jobService.submitModelExecution(4L, regionCodes, 1L, null, null).get("jobId");
+        assertEquals("PENDING", jobService.getJobStatus(queued).get("status"));
+
+        // 线程池与队列均已占满，继续提交被拒绝
+        assertThrows(RuntimeException.class,
+                () -> jobService.submitModelExecution(4L, regionCodes, 1L, null, null));
+
+        assertTrue(jobService.cancelJob(queued));
+        assertEquals("CANCELLED", jobService.getJobStatus(queued).get("status"));
+        assertTrue(jobService.cancelJob(running));
+        assertEquals("CANCELLED", awaitFinished(running).get("status"));
+        assertFalse(jobService.cancelJob(running));
+        verify(evaluationResultService).updateExecutionRecord(eq(99L), eq("CANCELLED"), anyString(), isNull(), anyString());
+
+        // 保留时间为0时，已结束任务全部清理
+        ReflectionTestUtils.setField(jobService, "ttlMinutes", 0L);
+        Thread.sleep(5);
+        assertEquals(2, jobService.cleanupFinishedJobs());
+        assertNull(jobService.getJobStatus(running));
+    }
+
+    @Test
+    void testCancelRunningUnifiedJob() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(unifiedEvaluationEngine.executeEvaluation(any(), any())).thenAnswer(invocation -> {
+            ExecutionProgressListener listener = invocation.getArgument(1);
+            listener.onStepStarted("1", "步骤1", 0, 1);
+            started.countDown();
+            while (!listener.isCancelled()) {
+                Thread.sleep(5);
+            }
+            throw new CancellationException("执行已取消");
+        });
+        UnifiedEvaluationEngine.EvaluationRequest request = new UnifiedEvaluationEngine.EvaluationRequest();
+        request.setDataSourceType("COMMUNITY");
+        request.setRegionCodes(regionCodes);
+
+        String jobId = (String) jobService.submitUnifiedEvaluation(request).get("jobId");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(jobService.cancelJob(jobId));
+
+        assertEquals("CANCELLED", awaitFinished(jobId).get("status"));
+        verify(unifiedEvaluationEngine, never()).executeEvaluation(any());
+    }
+
+    private Map<String, Object> awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            Map<String, Object> status = jobService.getJobStatus(jobId);
+            if (status.get("endTime") != null) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        fail("任务未在限定时间内结束: " + jobId);
+        return null;
+    }
+}
@@ -0,0 +1,415 @@
+package com.evaluate.service;
+
+import com.evaluate.dto.RegionDataSnapshot;
+import com.evaluate.entity.CommunityDisasterReductionCapacity;
+import com.evaluate.entity.EvaluationModel;
+import com.evaluate.entity.ModelStep;
+import com.evaluate.entity.StepAlgorithm;
+import com.evaluate.entity.SurveyData;
+import com.evaluate.mapper.CommunityDisasterReductionCapacityMapper;
+import com.evaluate.mapper.EvaluationModelMapper;
+import com.evaluate.mapper.ModelStepMapper;
+import com.evaluate.mapper.StepAlgorithmMapper;
+import com.evaluate.mapper.SurveyDataMapper;
+import com.evaluate.service.algorithm.AlgorithmDependencyGraph;
+import com.evaluate.service.impl.ExecutionMetricsImpl;
+import com.evaluate.service.impl.ModelExecutionServiceImpl;
+import com.evaluate.service.impl.QLExpressServiceImpl;
+import com.evaluate.service.impl.RegionNameCacheImpl;
+import com.evaluate.service.impl.SpecialAlgorithmServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 模型执行服务测试类
+ *
+ * 验证并行执行模式（算法依赖图调度）与串行执行结果一致（包括地区顺序），
+ * 增量执行与全量执行结果一致，执行指标的记录，以及结果表地区名称的批量查询
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class ModelExecutionServiceTest {
+
+    @Mock
+    private EvaluationModelMapper evaluationModelMapper;
+
+    @Mock
+    private ModelStepMapper modelStepMapper;
+
+    @Mock
+    private StepAlgorithmMapper stepAlgorithmMapper;
+
+    @Mock
+    private CommunityDisasterReductionCapacityMapper communityDataMapper;
+
+    @Mock
+    private SurveyDataMapper surveyDataMapper;
+
+    @Mock
+    private RegionDataLoader regionDataLoader;
+
+    private ModelExecutionServiceImpl modelExecutionService;
+    private ForkJoinPool pool;
+    private List<String> regionCodes;
+    private Map<String, Map<String, Object>> communityRows;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        QLExpressServiceImpl qlExpressService = new QLExpressServiceImpl();
+        qlExpressService.init();
+        pool = new ForkJoinPool(4);
+
+        modelExecutionService = new ModelExecutionServiceImpl();
+        ReflectionTestUtils.setField(modelExecutionService, "evaluationModelMapper", evaluationModelMapper);
+        ReflectionTestUtils.setField(modelExecutionService, "modelStepMapper", modelStepMapper);
+        ReflectionTestUtils.setField(modelExecutionService, "stepAlgorithmMapper", stepAlgorithmMapper);
+        ReflectionTestUtils.setField(modelExecutionService, "communityDataMapper", communityDataMapper);
+        ReflectionTestUtils.setField(modelExecutionService, "surveyDataMapper", surveyDataMapper);
+        RegionNameCacheImpl regionNameCache = new RegionNameCacheImpl();
+        ReflectionTestUtils.setField(regionNameCache, "communityDataMapper", communityDataMapper);
+        ReflectionTestUtils.setField(regionNameCache, "surveyDataMapper", surveyDataMapper);
+        ReflectionTestUtils.setField(modelExecutionService, "regionNameCache", regionNameCache);
+        ReflectionTestUtils.setField(modelExecutionService, "regionDataLoader", regionDataLoader);
+        ReflectionTestUtils.setField(modelExecutionService, "qlExpressService", qlExpressService);
+        ReflectionTestUtils.setField(modelExecutionService, "specialAlgorithmService", new SpecialAlgorithmServiceImpl());
+        ReflectionTestUtils.setField(modelExecutionService, "regionExecutionPool", pool);
+
+        communityRows = new LinkedHashMap<>();
+        regionCodes = new ArrayList<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 60; i++) {
+            String regionCode = "5114252" + (10 + i);
+            Map<String, Object> row = new HashMap<>();
+            row.put("region_code", regionCode);
+            row.put("population", 500 + random.nextInt(5000));
+            row.put("funding", new BigDecimal(String.valueOf(random.nextInt(100000) / 100.0)));
+            row.put("staff", (long) random.nextInt(40));
+            communityRows.put(regionCode, row);
+            regionCodes.add(regionCode);
+        }
+        // 倒序传入，验证结果保持请求中的地区顺序
+        Collections.reverse(regionCodes);
+        doAnswer(invocation -> {
+            RegionDataSnapshot snapshot = invocation.getArgument(0);
+            Collection<String> codes = invocation.getArgument(1);
+            for (String code : codes) {
+                snapshot.getCommunityRows().putIfAbsent(code, communityRows.get(code));
+            }
+            return null;
+        }).when(regionDataLoader).ensureCommunityData(any(), anyCollection());
+
+        EvaluationModel model = new EvaluationModel();
+        model.setId(4L);
+        model.setModelName("社区模型");
+        model.setStatus(1);
+        when(evaluationModelMapper.selectById(4L)).thenReturn(model);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testParallelExecutionMatchesSerial() {
+        List<ModelStep> steps = topsisSteps();
+        List<List<StepAlgorithm>> algorithms = topsisAlgorithms();
+
+        Map<String, Object> serial = execute(steps, algorithms, false);
+        Map<String, Object> parallel = execute(steps, algorithms, true);
+
+        assertEquals(serial.get("stepResults"), parallel.get("stepResults"));
+        assertEquals(serial.get("tableData"), parallel.get("tableData"));
+        assertEquals(serial.get("columns"), parallel.get("columns"));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> topsis = (Map<String, Object>) ((Map<String, Object>) parallel.get("stepResults")).get("TOPSIS");
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> regionResults = (Map<String, Map<String, Object>>) topsis.get("regionResults");
+        assertEquals(regionCodes, new ArrayList<>(regionResults.keySet()));
+    }
+
+    @Test
+    void testMarkerOverSameStepOutputMatchesAcrossModes() {
+        // 特殊标记读取同一步骤中前面算法的输出：两种方式都应在整列计算完成后再执行
+        List<ModelStep> oneStep = Collections.singletonList(step(1L, 1, "CALC"));
+        List<List<StepAlgorithm>> sameStep = Collections.singletonList(Arrays.asList(
+                algorithm("资金人均", "funding / population * 1000", "A"),
+                algorithm("A归一化", "@NORMALIZE:A", "nA"),
+                algorithm("A加倍", "nA * 2", "A2"),
+                algorithm("分级", "@GRADE:A2", "G")));
+
+        Map<String, Object> serial = execute(oneStep, sameStep, false);
+        Map<String, Object> parallel = execute(oneStep, sameStep, true);
+        assertEquals(serial.get("stepResults"), parallel.get("stepResults"));
+        assertEquals(serial.get("tableData"), parallel.get("tableData"));
+
+        // 与把输入列放在前一步骤时的结果相同
+        Map<String, Object> twoSteps = execute(Arrays.asList(step(1L, 1, "CALC"), step(2L, 2, "NORM")),
+                Arrays.asList(
+                        Collections.singletonList(algorithm("资金人均", "funding / population * 1000", "A")),
+                        Arrays.asList(
+                                algorithm("A归一化", "@NORMALIZE:A", "nA"),
+                                algorithm("A加倍", "nA * 2", "A2"),
+                                algorithm("分级", "@GRADE:A2", "G"))),
+                false);
+        Map<String, Map<String, Object>> sameStepResults = regionResults(serial, "CALC");
+        Map<String, Map<String, Object>> splitResults = regionResults(twoSteps, "NORM");
+        for (String regionCode : regionCodes) {
+            for (String output : Arrays.asList("nA", "A2", "G")) {
+                assertEquals(splitResults.get(regionCode).get(output), sameStepResults.get(regionCode).get(output),
+                        regionCode + "." + output);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, Object>> regionResults(Map<String, Object> result, String stepCode) {
+        Map<String, Object> stepResult = (Map<String, Object>) ((Map<String, Object>) result.get("stepResults")).get(stepCode);
+        return (Map<String, Map<String, Object>>) stepResult.get("regionResults");
+    }
+
+    @Test
+    void testIncrementalExecutionMatchesFullRun() {
+        for (boolean parallel : new boolean[]{false, true}) {
+            // 串行与并行共用执行快照，每种方式都从全量执行开始
+            ((Map<?, ?>) ReflectionTestUtils.getField(modelExecutionService, "executionSnapshots")).clear();
+            ReflectionTestUtils.setField(modelExecutionService, "incrementalEnabled", true);
+            ReflectionTestUtils.setField(modelExecutionService, "maxSnapshots", 8);
+            List<ModelStep> steps = topsisSteps();
+            List<List<StepAlgorithm>> algorithms = topsisAlgorithms();
+
+            Map<String, Object> first = execute(steps, algorithms, parallel);
+            assertEquals("FULL", stats(first).get("mode"));
+            // 调用方修改返回结果不影响保存的快照
+            for (Object stepCode : ((Map<?, ?>) first.get("stepResults")).keySet()) {
+                regionResults(first, (String) stepCode).get(regionCodes.get(0)).replaceAll((output, value) -> -1.0);
+            }
+
+            // 只修改一个社区的人员数，其余社区的资金人均、人员比例等本地区结果应直接复用
+            String changedRegion = regionCodes.get(7);
+            communityRows.get(changedRegion).put("staff", parallel ? 77L : 99L);
+            Map<String, Object> incremental = execute(steps, algorithms, parallel);
+            assertEquals("INCREMENTAL", stats(incremental).get("mode"));
+            assertEquals(1, stats(incremental).get("dirtyRegions"));
+            assertTrue((Long) stats(incremental).get("reusedValues") >= 2 * (regionCodes.size() - 1));
+
+            ReflectionTestUtils.setField(modelExecutionService, "incrementalEnabled", false);
+            Map<String, Object> full = execute(steps, algorithms, parallel);
+            assertEquals(full.get("stepResults"), incremental.get("stepResults"));
+            assertEquals(full.get("tableData"), incremental.get("tableData"));
+            assertEquals(full.get("columns"), incremental.get("columns"));
+        }
+    }
+
+    @Test
+    void testExecutionMetricsRecorded() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExecutionMetricsImpl metrics = new ExecutionMetricsImpl(registry);
+        ReflectionTestUtils.setField(metrics, "maxTagValues", 8);
+        ReflectionTestUtils.setField(modelExecutionService, "executionMetrics", metrics);
+
+        execute(topsisSteps(), topsisAlgorithms(), false);
+        execute(topsisSteps(), topsisAlgorithms(), true);
+
+        // 串行与并行各执行一次，每个算法在每个地区上记录一次
+        int executions = 2 * regionCodes.size();
+        assertEquals(executions, registry.get("evaluation.model.algorithm")
+                .tags("model", "4", "step", "CALC", "algorithm", "资金人均", "type", "qlexpress", "outcome", "success")
+                .timer().count());
+        assertEquals(executions, registry.get("evaluation.model.algorithm")
+                .tags("step", "NORM", "algorithm", "A归一化", "type", "marker", "outcome", "success").timer().count());
+        // 算法名称超过取值上限（8个）后记为 OTHER：能力值、分级
+        assertEquals(2L * executions, registry.get("evaluation.model.algorithm")
+                .tags("step", "TOPSIS", "algorithm", "OTHER", "outcome", "success").timer().count());
+
+        assertEquals(2, registry.get("evaluation.model.step").tags("model", "4", "step", "TOPSIS").timer().count());
+        assertEquals(regionCodes.size(), registry.get("evaluation.model.step.regions").tags("step", "NORM").gauge().value());
+        assertTrue(registry.get("evaluation.model.step.context.size").tags("step", "TOPSIS").gauge().value() > 0);
+        for (String phase : Arrays.asList("model", "result_table", "columns")) {
+            assertEquals(2, registry.get("evaluation.model.phase").tags("phase", phase).timer().count());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stats(Map<String, Object> result) {
+        return (Map<String, Object>) result.get("incrementalStats");
+    }
+
+    private List<ModelStep> topsisSteps() {
+        return Arrays.asList(step(1L, 1, "CALC"), step(2L, 2, "NORM"), step(3L, 3, "TOPSIS"));
+    }
+
+    private List<List<StepAlgorithm>> topsisAlgorithms() {
+        return Arrays.asList(
+                Arrays.asList(
+                        algorithm("资金人均", "funding / population * 1000", "A"),
+                        algorithm("人员比例", "staff / population", "B")),
+                Arrays.asList(
+                        algorithm("A归一化", "@NORMALIZE:A", "nA"),
+                        algorithm("A加倍", "nA * 2", "A2"),
+                        algorithm("B归一化", "@NORMALIZE:B", "nB"),
+                        algorithm("合计", "A2 + nB", "T")),
+                Arrays.asList(
+                        algorithm("优解距离", "@TOPSIS_POSITIVE:nA,nB,T", "P"),
+                        algorithm("劣解距离", "@TOPSIS_NEGATIVE:nA,nB,T", "N"),
+                        algorithm("能力值", "@TOPSIS_SCORE:P,N", "S"),
+                        algorithm("分级", "@GRADE:S", "G")));
+    }
+
+    @Test
+    void testParallelExecutionReportsAlgorithmFailure() {
+        List<ModelStep> steps = Collections.singletonList(step(1L, 1, "CALC"));
+        List<List<StepAlgorithm>> algorithms = Collections.singletonList(
+                Arrays.asList(
+                        algorithm("资金人均", "funding / population", "A"),
+                        algorithm("错误算法", "UNKNOWN_FUNCTION(A)", "E")));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> execute(steps, algorithms, true));
+        assertTrue(e.getMessage().contains("错误算法"), e.getMessage());
+    }
+
+    @Test
+    void testResultTableResolvesRegionNamesInOneBatch() {
+        CommunityDisasterReductionCapacity community = new CommunityDisasterReductionCapacity();
+        community.setRegionCode("511425210");
+        community.setTownshipName("青莲镇");
+        community.setCommunityName("太白村");
+        SurveyData survey = new SurveyData();
+        survey.setRegionCode("511425211");
+        survey.setTownship("白鹤镇");
+        when(communityDataMapper.selectList(any())).thenReturn(Collections.singletonList(community));
+        when(surveyDataMapper.selectList(any())).thenReturn(Collections.singletonList(survey));
+
+        Map<String, Map<String, Object>> regionResults = new LinkedHashMap<>();
+        regionResults.put("511425210", Collections.singletonMap("A", 1.123456789));
+        regionResults.put("511425211", Collections.singletonMap("A", 2.0));
+        regionResults.put("511425299", Collections.singletonMap("A", 3.0));
+        Map<String, Object> townshipOutputs = new HashMap<>();
+        townshipOutputs.put("A", 4.0);
+        townshipOutputs.put("_townshipName", "青莲镇");
+        regionResults.put("TOWNSHIP_青莲镇", townshipOutputs);
+        Map<String, Object> stepResult = new HashMap<>();
+        stepResult.put("regionResults", regionResults);
+        stepResult.put("outputToAlgorithmName", Collections.singletonMap("A", "资金人均"));
+        Map<String, Object> executionResults = new HashMap<>();
+        executionResults.put("stepResults", Collections.singletonMap("CALC", stepResult));
+
+        List<Map<String, Object>> table = modelExecutionService.generateResultTable(executionResults);
+        modelExecutionService.generateResultTable(executionResults);
+
+        assertEquals(4, table.size());
+        assertEquals("太白村", table.get(0).get("regionName"));
+        assertEquals("青莲镇", table.get(0).get("townshipName"));
+        assertEquals(1.12345679, table.get(0).get("资金人均"));
+        assertEquals("白鹤镇", table.get(1).get("regionName"));
+        assertNull(table.get(1).get("townshipName"));
+        assertEquals("511425299", table.get(2).get("regionName"));
+        assertEquals("青莲镇", table.get(3).get("regionCode"));
+        assertEquals("青莲镇", table.get(3).get("townshipName"));
+
+        // 每张表各一次批量查询，第二次及库中不存在的代码都由缓存返回
+        verify(communityDataMapper, times(1)).selectList(any());
+        verify(surveyDataMapper, times(1)).selectList(any());
+        verify(communityDataMapper, never()).selectOne(any());
+
+        RegionNameCache regionNameCache =
+                (RegionNameCache) ReflectionTestUtils.getField(modelExecutionService, "regionNameCache");
+        regionNameCache.invalidateCommunity();
+        modelExecutionService.generateResultTable(executionResults);
+        verify(communityDataMapper, times(2)).selectList(any());
+        verify(surveyDataMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void testDependencyGraphLevels() {
+        QLExpressServiceImpl qlExpressService = new QLExpressServiceImpl();
+        qlExpressService.init();
+        AlgorithmDependencyGraph graph = new AlgorithmDependencyGraph(expression -> {
+            try {
+                return qlExpressService.getReferencedVariables(expression);
+            } catch (Exception e) {
+                return null;
+            }
+        });
+        graph.add("A归一化", "@NORMALIZE:A", "nA");
+        graph.add("A加倍", "nA * 2", "A2");
+        graph.add("B归一化", "@NORMALIZE:B", "nB");
+        graph.add("合计", "A2 + nB", "T");
+        graph.add("分级", "@GRADE:T", "G");
+        // 写后读：覆盖 B 之前必须等待 B归一化 读取旧值
+        graph.add("B重算", "B * 10", "B");
+
+        List<List<AlgorithmDependencyGraph.Node>> levels = graph.getLevels();
+        assertEquals(4, levels.size());
+        assertEquals(Arrays.asList("A归一化", "B归一化"), names(levels.get(0)));
+        assertEquals(Arrays.asList("A加倍", "B重算"), names(levels.get(1)));
+        assertEquals(Arrays.asList("A归一化", "A加倍", "合计", "分级"), names(graph.getCriticalPath()));
+
+        Map<String, Object> description = graph.describe();
+        assertEquals(4, description.get("criticalPathLength"));
+        assertEquals(2, description.get("maxParallelism"));
+    }
+
+    private List<String> names(List<AlgorithmDependencyGraph.Node> nodes) {
+        List<String> names = new ArrayList<>();
+        for (AlgorithmDependencyGraph.Node node : nodes) {
+            names.add(node.getName());
+        }
+        return names;
+    }
+
+    private Map<String, Object> execute(List<ModelStep> steps, List<List<StepAlgorithm>> algorithms, boolean parallel) {
+        when(modelStepMapper.selectList(any())).thenReturn(steps);
+        for (ModelStep step : steps) {
+            when(modelStepMapper.selectById(step.getId())).thenReturn(step);
+        }
+        @SuppressWarnings("unchecked")
+        List<StepAlgorithm>[] perStep = algorithms.toArray(new List[0]);
+        when(stepAlgorithmMapper.selectList(any())).thenReturn(perStep[0],
+                Arrays.copyOfRange(perStep, 1, perStep.length));
+        return modelExecutionService.executeModel(4L, regionCodes, null, parallel);
+    }
+
+    private ModelStep step(Long id, int order, String code) {
+        ModelStep step = new ModelStep();
+        step.setId(id);
+        step.setStepOrder(order);
+        step.setStepCode(code);
+        step.setStepName(code);
+        step.setStepType("CALCULATION");
+        step.setStatus(1);
+        return step;
+    }
+
+    private StepAlgorithm algorithm(String name, String expression, String output) {
+        StepAlgorithm algorithm = new StepAlgorithm();
+        algorithm.setAlgorithmName(name);
+        algorithm.setAlgorithmCode(output);
+        algorithm.setQlExpression(expression);
+        algorithm.setOutputParam(output);
+        algorithm.setStatus(1);
+        return algorithm;
+    }
+}
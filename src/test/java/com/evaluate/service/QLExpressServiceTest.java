@@ -0,0 +1,107 @@
+package com.evaluate.service;
+
+import com.evaluate.service.impl.QLExpressServiceImpl;
+import com.ql.util.express.InstructionSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QLExpress规则引擎服务测试类
+ *
+ * 验证编译缓存与按需转换的上下文视图
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class QLExpressServiceTest {
+
+    private QLExpressServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new QLExpressServiceImpl();
+        service.init();
+    }
+
+    @Test
+    void testIntegerValuesUseDoubleDivision() throws Exception {
+        Map<String, Object> context = new HashMap<>();
+        context.put("management_staff", 3);
+        context.put("population", 4L);
+        context.put("funding_amount", new BigDecimal("2.5"));
+
+        assertEquals(0.75, ((Number) service.execute("management_staff / population", context)).doubleValue(), 1e-12);
+        assertEquals(5.0, ((Number) service.execute("funding_amount * 2", context)).doubleValue(), 1e-12);
+        assertEquals(1.0, ((Number) service.execute("IF(management_staff > 2, 1, 0)", context)).doubleValue(), 1e-12);
+    }
+
+    @Test
+    void testLocalAssignmentDoesNotLeakIntoContext() throws Exception {
+        Map<String, Object> context = new HashMap<>();
+        context.put("a", 2);
+
+        Object result = service.execute("b = a * 3; b + 1", context);
+
+        assertEquals(7.0, ((Number) result).doubleValue(), 1e-12);
+        assertFalse(context.containsKey("b"));
+        assertEquals(2, context.get("a"));
+    }
+
+    @Test
+    void testPrecompiledExpressionsHitCache() throws Exception {
+        assertEquals(2, service.precompile(Arrays.asList("a + 1", "a * 2", null, "")).size());
+        assertEquals(2L, service.getCacheStats().get("misses"));
+
+        Map<String, Object> context = new HashMap<>();
+        context.put("a", 1);
+        for (int i = 0; i < 10; i++) {
+            service.execute("a + 1", context);
+            service.execute("a * 2", context);
+        }
+
+        Map<String, Object> stats = service.getCacheStats();
+        assertEquals(2L, stats.get("misses"));
+        assertEquals(20L, stats.get("hits"));
+        assertEquals(2, stats.get("size"));
+    }
+
+    @Test
+    void testPrecompiledInstructionSetsRunWithoutCacheLookup() throws Exception {
+        Map<String, InstructionSet> compiled = service.precompile(Arrays.asList("a + 1", "a + 1", "a +"));
+        assertEquals(1, compiled.size());
+
+        Map<String, Object> context = new HashMap<>();
+        context.put("a", 4);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(5.0, ((Number) service.execute(compiled.get("a + 1"), context)).doubleValue(), 1e-12);
+        }
+        assertEquals(0L, service.getCacheStats().get("hits"));
+    }
+
+    @Test
+    void testCacheIsBoundedInInsertionOrder() throws Exception {
+        QLExpressServiceImpl bounded = new QLExpressServiceImpl();
+        ReflectionTestUtils.setField(bounded, "cacheSize", 2);
+        bounded.init();
+        Map<String, Object> context = new HashMap<>();
+        context.put("a", 1);
+
+        bounded.execute("a + 1", context);
+        bounded.execute("a + 2", context);
+        bounded.execute("a + 3", context);
+        bounded.execute("a + 3", context);
+
+        Map<String, Object> stats = bounded.getCacheStats();
+        assertEquals(2, stats.get("size"));
+        assertEquals(1L, stats.get("evictions"));
+        assertEquals(1L, stats.get("hits"));
+    }
+}
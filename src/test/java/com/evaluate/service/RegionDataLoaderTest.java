@@ -0,0 +1,127 @@
+package com.evaluate.service;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.evaluate.dto.RegionDataSnapshot;
+import com.evaluate.entity.CommunityDisasterReductionCapacity;
+import com.evaluate.entity.SurveyData;
+import com.evaluate.mapper.CommunityDisasterReductionCapacityMapper;
+import com.evaluate.mapper.SurveyDataMapper;
+import com.evaluate.service.impl.RegionDataLoaderImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 地区基础数据批量加载服务测试类（IN 查询分批、同一地区取第一行、已请求代码不重复查询、加载统计）
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class RegionDataLoaderTest {
+
+    @Mock
+    private CommunityDisasterReductionCapacityMapper communityDataMapper;
+
+    @Mock
+    private SurveyDataMapper surveyDataMapper;
+
+    private RegionDataLoaderImpl loader;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        loader = new RegionDataLoaderImpl();
+        ReflectionTestUtils.setField(loader, "communityDataMapper", communityDataMapper);
+        ReflectionTestUtils.setField(loader, "surveyDataMapper", surveyDataMapper);
+        ReflectionTestUtils.setField(loader, "batchSize", 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCommunityDataLoadedInBatchesFirstRowWins() {
+        List<Map<String, Object>> table = Arrays.asList(
+                communityRow(1L, "A"), communityRow(2L, "A"), communityRow(3L, "B"), communityRow(4L, "D"));
+        when(communityDataMapper.selectMaps(any())).thenAnswer(invocation -> {
+            List<Object> codes = inValues(invocation.getArgument(0));
+            return table.stream().filter(row -> codes.contains(row.get("region_code"))).collect(Collectors.toList());
+        });
+        RegionDataSnapshot snapshot = new RegionDataSnapshot();
+
+        // 重复代码和 null 只查询一次
+        loader.ensureCommunityData(snapshot, Arrays.asList("A", "B", "A", null, "C", "D", "E"));
+
+        ArgumentCaptor<Wrapper<CommunityDisasterReductionCapacity>> captor = ArgumentCaptor.forClass(Wrapper.class);
+        verify(communityDataMapper, times(3)).selectMaps(captor.capture());
+        assertEquals(Arrays.asList(2, 2, 1), captor.getAllValues().stream()
+                .map(wrapper -> inValues(wrapper).size()).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("A", "B"), inValues(captor.getAllValues().get(0)));
+
+        assertEquals(1L, snapshot.getCommunityRows().get("A").get("id"));
+        assertEquals(3L, snapshot.getCommunityRows().get("B").get("id"));
+        assertEquals(4L, snapshot.getCommunityRows().get("D").get("id"));
+        assertEquals(new HashSet<>(Arrays.asList("A", "B", "C", "D", "E")), snapshot.getCommunityRequested());
+        assertEquals(3, snapshot.getBatchCount());
+        assertEquals(4, snapshot.getRowsFetched());
+
+        // 库中不存在的代码也记为已请求，再次请求不再查询
+        loader.ensureCommunityData(snapshot, Arrays.asList("C", "D", "E", "A"));
+        verify(communityDataMapper, times(3)).selectMaps(any());
+        assertEquals(3, snapshot.toStats().get("communityRegions"));
+        assertEquals(3, snapshot.toStats().get("batchCount"));
+    }
+
+    @Test
+    void testSurveyDataLoadsOnlyNewCodes() {
+        when(surveyDataMapper.selectList(any())).thenReturn(
+                Arrays.asList(survey(1L, "A"), survey(2L, "A")),
+                Collections.singletonList(survey(3L, "C")));
+        RegionDataSnapshot snapshot = new RegionDataSnapshot();
+
+        loader.ensureSurveyData(snapshot, Arrays.asList("A", "B"));
+        loader.ensureSurveyData(snapshot, Arrays.asList("B", "C"));
+
+        verify(surveyDataMapper, times(2)).selectList(any());
+        assertEquals(1L, snapshot.getSurveyRows().get("A").getId());
+        assertEquals(3L, snapshot.getSurveyRows().get("C").getId());
+        assertFalse(snapshot.getSurveyRows().containsKey("B"));
+        assertEquals(2, snapshot.getBatchCount());
+        assertEquals(3, snapshot.getRowsFetched());
+        verifyNoInteractions(communityDataMapper);
+    }
+
+    /**
+     * 取出查询条件中 IN 的参数值（按顺序）
+     */
+    private static List<Object> inValues(Wrapper<?> wrapper) {
+        Map<String, Object> params = ((QueryWrapper<?>) wrapper).getParamNameValuePairs();
+        return params.entrySet().stream()
+                .sorted(Comparator.comparingInt(entry -> Integer.parseInt(entry.getKey().replaceAll("\\D", ""))))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+    }
+
+    private static Map<String, Object> communityRow(Long id, String regionCode) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("region_code", regionCode);
+        return row;
+    }
+
+    private static SurveyData survey(Long id, String regionCode) {
+        SurveyData data = new SurveyData();
+        data.setId(id);
+        data.setRegionCode(regionCode);
+        return data;
+    }
+}
@@ -0,0 +1,195 @@
+package com.evaluate.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.evaluate.entity.CommunityDisasterReductionCapacity;
+import com.evaluate.entity.SurveyData;
+import com.evaluate.mapper.CommunityDisasterReductionCapacityMapper;
+import com.evaluate.mapper.SurveyDataMapper;
+import com.evaluate.service.impl.RegionHierarchyIndexImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 行政区划层级索引测试类
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class RegionHierarchyIndexTest {
+
+    private static final String SURVEY = RegionHierarchyIndex.DATA_TYPE_TOWNSHIP;
+    private static final String COMMUNITY = RegionHierarchyIndex.DATA_TYPE_COMMUNITY;
+
+    @Mock
+    private SurveyDataMapper surveyDataMapper;
+
+    @Mock
+    private CommunityDisasterReductionCapacityMapper communityDataMapper;
+
+    private RegionHierarchyIndexImpl index;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        index = new RegionHierarchyIndexImpl();
+        ReflectionTestUtils.setField(index, "surveyDataMapper", surveyDataMapper);
+        ReflectionTestUtils.setField(index, "communityDataMapper", communityDataMapper);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChildrenCountsAndRegionCodesFromOneLoad() {
+        List<SurveyData> table = Arrays.asList(
+                survey(1L, "511425001", "眉山市", "青神县", "青竹街道"),
+                survey(2L, "511425002", "眉山市", "青神县", "瑞峰镇"),
+                survey(3L, "511425002", "眉山市", "青神县", "瑞峰镇"),
+                survey(4L, "511421001", "眉山市", "仁寿县", "文林街道"),
+                survey(5L, "510104001", "成都市", "锦江区", "春熙路街道"),
+                survey(6L, "510104002", "成都市", "", "无区县"));
+        when(surveyDataMapper.selectList(any())).thenAnswer(select(table, RegionHierarchyIndexTest::surveyPath));
+
+        List<Map<String, Object>> provinces = index.getChildren(SURVEY);
+        assertEquals(1, provinces.size());
+        assertEquals("四川省", provinces.get(0).get("name"));
+        assertEquals("四川省", provinces.get(0).get("code"));
+        // 区县为空的数据不进入树
+        assertEquals(5, provinces.get(0).get("count"));
+
+        assertEquals(Arrays.asList("眉山市", "成都市"), names(index.getChildren(SURVEY, "四川省")));
+        assertEquals(Arrays.asList("青神县", "仁寿县"), names(index.getChildren(SURVEY, "四川省", "眉山市")));
+        List<Map<String, Object>> townships = index.getChildren(SURVEY, "四川省", "眉山市", "青神县");
+        assertEquals(Arrays.asList("青竹街道", "瑞峰镇"), names(townships));
+        assertEquals(2, townships.get(1).get("count"));
+        assertEquals("511425002", townships.get(1).get("regionCode"));
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), surveyIds(index.getRows(SURVEY, "四川省", "眉山市", "青神县")));
+        assertEquals(Arrays.asList("511425001", "511425002", "511421001"),
+                index.getRegionCodes(SURVEY, "四川省", "眉山市"));
+        assertTrue(index.getChildren(SURVEY, "四川省", "不存在").isEmpty());
+        assertTrue(index.getRows(SURVEY, "四川省", "眉山市", "不存在").isEmpty());
+
+        // 构建索引只查询层级列，一次；数据行按区县查询，不存在的节点不查询
+        ArgumentCaptor<QueryWrapper<SurveyData>> captor = ArgumentCaptor.forClass(QueryWrapper.class);
+        verify(surveyDataMapper, times(2)).selectList(captor.capture());
+        assertEquals("id,region_code,province,city,county,township", captor.getAllValues().get(0).getSqlSelect());
+        assertNull(captor.getAllValues().get(1).getSqlSelect());
+    }
+
+    @Test
+    void testWriteRebuildsOnlyAffectedCounty() {
+        SurveyData added = survey(7L, "511425003", "眉山市", "青神县", "汉阳镇");
+        List<SurveyData> table = new ArrayList<>(Arrays.asList(
+                survey(1L, "511425001", "眉山市", "青神县", "青竹街道"),
+                survey(4L, "511421001", "眉山市", "仁寿县", "文林街道")));
+        when(surveyDataMapper.selectList(any())).thenAnswer(select(table, RegionHierarchyIndexTest::surveyPath));
+
+        assertEquals(1, index.getRows(SURVEY, "四川省", "眉山市", "青神县").size());
+        table.add(added);
+        index.onRowsChanged(SURVEY, Collections.singletonList(added));
+
+        assertEquals(Arrays.asList("青竹街道", "汉阳镇"), names(index.getChildren(SURVEY, "四川省", "眉山市", "青神县")));
+        assertEquals(Arrays.asList(4L), surveyIds(index.getRows(SURVEY, "四川省", "眉山市", "仁寿县")));
+        assertEquals(3, index.getChildren(SURVEY).get(0).get("count"));
+        // 全量构建、增量更新各一次，两次按区县查询数据行
+        verify(surveyDataMapper, times(4)).selectList(any());
+
+        Map<?, ?> stats = (Map<?, ?>) index.getStats().get(SURVEY);
+        assertEquals(1L, stats.get("builds"));
+        assertEquals(1L, stats.get("incrementalUpdates"));
+        assertEquals(3, stats.get("rows"));
+    }
+
+    @Test
+    void testCommunityLeavesAndRemovedRows() {
+        List<CommunityDisasterReductionCapacity> table = new ArrayList<>(Arrays.asList(
+                community(1L, "511425001001", "青竹街道", "一村"),
+                community(2L, "511425001002", "青竹街道", "二村"),
+                community(3L, "511425002001", "瑞峰镇", "三村")));
+        when(communityDataMapper.selectList(any())).thenAnswer(select(table, RegionHierarchyIndexTest::communityPath));
+
+        List<Map<String, Object>> communities = index.getChildren(COMMUNITY, "四川省", "眉山市", "青神县", "青竹街道");
+        assertEquals(Arrays.asList("一村", "二村"), names(communities));
+        assertEquals("511425001002", communities.get(1).get("regionCode"));
+        assertEquals(Arrays.asList("511425001001", "511425001002", "511425002001"),
+                index.getRegionCodes(COMMUNITY, "四川省", "眉山市", "青神县"));
+
+        table.remove(1);
+        index.onRowsRemoved(COMMUNITY, Collections.singletonList(2L));
+
+        assertEquals(Arrays.asList("511425001001", "511425002001"),
+                index.getRegionCodes(COMMUNITY, "四川省", "眉山市", "青神县"));
+        assertEquals(Collections.singletonList("511425001001"),
+                index.getRegionCodes(COMMUNITY, "四川省", "眉山市", "青神县", "青竹街道"));
+        assertEquals(Arrays.asList(1L, 3L), index.getRows(COMMUNITY, "四川省", "眉山市", "青神县").stream()
+                .map(row -> ((CommunityDisasterReductionCapacity) row).getId()).collect(Collectors.toList()));
+        verify(communityDataMapper, times(3)).selectList(any());
+        verifyNoInteractions(surveyDataMapper);
+    }
+
+    /**
+     * 模拟表查询：返回条件中各个非空参数值均出现在层级名称中的数据行（构建索引的查询不带参数时返回整表）
+     */
+    private static <T> Answer<List<T>> select(List<T> table, Function<T, String[]> pathOf) {
+        return invocation -> {
+            QueryWrapper<?> query = invocation.getArgument(0);
+            List<Object> values = query.getParamNameValuePairs().values().stream()
+                    .filter(value -> !"".equals(value)).collect(Collectors.toList());
+            return table.stream().filter(row -> Arrays.asList(pathOf.apply(row)).containsAll(values))
+                    .collect(Collectors.toList());
+        };
+    }
+
+    private static String[] surveyPath(SurveyData data) {
+        return new String[]{data.getProvince(), data.getCity(), data.getCounty(), data.getTownship()};
+    }
+
+    private static String[] communityPath(CommunityDisasterReductionCapacity data) {
+        return new String[]{data.getProvinceName(), data.getCityName(), data.getCountyName(),
+                data.getTownshipName(), data.getCommunityName()};
+    }
+
+    private static List<Object> names(List<Map<String, Object>> children) {
+        return children.stream().map(child -> child.get("name")).collect(Collectors.toList());
+    }
+
+    private static List<Long> surveyIds(List<?> rows) {
+        return rows.stream().map(row -> ((SurveyData) row).getId()).collect(Collectors.toList());
+    }
+
+    private static SurveyData survey(Long id, String regionCode, String city, String county, String township) {
+        SurveyData data = new SurveyData();
+        data.setId(id);
+        data.setRegionCode(regionCode);
+        data.setProvince("四川省");
+        data.setCity(city);
+        data.setCounty(county);
+        data.setTownship(township);
+        return data;
+    }
+
+    private static CommunityDisasterReductionCapacity community(Long id, String regionCode, String township,
+                                                                String communityName) {
+        CommunityDisasterReductionCapacity data = new CommunityDisasterReductionCapacity();
+        data.setId(id);
+        data.setRegionCode(regionCode);
+        data.setProvinceName("四川省");
+        data.setCityName("眉山市");
+        data.setCountyName("青神县");
+        data.setTownshipName(township);
+        data.setCommunityName(communityName);
+        return data;
+    }
+}
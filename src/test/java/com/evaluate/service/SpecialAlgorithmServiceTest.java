@@ -0,0 +1,80 @@
+package com.evaluate.service;
+
+import com.evaluate.service.algorithm.ColumnStatisticsCache;
+import com.evaluate.service.impl.SpecialAlgorithmServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 特殊算法标记服务测试类
+ *
+ * 验证使用步骤级列统计缓存时的计算结果与逐地区扫描完全一致
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class SpecialAlgorithmServiceTest {
+
+    private SpecialAlgorithmService service;
+    private Map<String, Map<String, Object>> allRegionData;
+
+    @BeforeEach
+    void setUp() {
+        service = new SpecialAlgorithmServiceImpl();
+        allRegionData = new LinkedHashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50; i++) {
+            Map<String, Object> region = new HashMap<>();
+            region.put("a", random.nextDouble() * 100);
+            region.put("b", random.nextInt(1000));
+            region.put("score", random.nextDouble());
+            if (i % 7 != 0) {
+                region.put("sparse", String.valueOf(random.nextDouble()));
+            }
+            allRegionData.put("R" + i, region);
+        }
+    }
+
+    @Test
+    void testCachedResultsMatchUncached() {
+        ColumnStatisticsCache cache = new ColumnStatisticsCache();
+        String[][] markers = {
+                {"NORMALIZE", "a"},
+                {"NORMALIZE", "sparse"},
+                {"TOPSIS_POSITIVE", "a,b,sparse"},
+                {"TOPSIS_NEGATIVE", "a, b"},
+                {"GRADE", "score"}
+        };
+        for (String regionCode : allRegionData.keySet()) {
+            Map<String, Object> context = allRegionData.get(regionCode);
+            for (String[] marker : markers) {
+                Object uncached = service.executeSpecialAlgorithm(marker[0], marker[1], regionCode, context, allRegionData);
+                Object cached = service.executeSpecialAlgorithm(marker[0], marker[1], regionCode, context, allRegionData, cache);
+                assertEquals(uncached, cached, marker[0] + " " + marker[1] + " @ " + regionCode);
+            }
+        }
+        // 每列只计算一次
+        assertEquals(4, cache.getMisses());
+        assertTrue(cache.getHits() > 0);
+    }
+
+    @Test
+    void testInvalidateRecomputesColumn() {
+        ColumnStatisticsCache cache = new ColumnStatisticsCache();
+        Object before = service.executeSpecialAlgorithm("NORMALIZE", "a", "R1", allRegionData.get("R1"), allRegionData, cache);
+
+        allRegionData.get("R2").put("a", 1.0e6);
+        Object stale = service.executeSpecialAlgorithm("NORMALIZE", "a", "R1", allRegionData.get("R1"), allRegionData, cache);
+        assertEquals(before, stale, "未失效时应复用缓存的统计量");
+
+        cache.invalidate("a");
+        Object refreshed = service.executeSpecialAlgorithm("NORMALIZE", "a", "R1", allRegionData.get("R1"), allRegionData, cache);
+        Object expected = service.normalize("a", "R1", allRegionData);
+        assertEquals(expected, refreshed);
+        assertNotEquals(before, refreshed);
+    }
+}
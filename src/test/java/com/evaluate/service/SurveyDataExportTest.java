@@ -0,0 +1,96 @@
+package com.evaluate.service;
+
+import com.evaluate.entity.SurveyData;
+import com.evaluate.mapper.SurveyDataMapper;
+import com.evaluate.service.impl.SurveyDataServiceImpl;
+import com.evaluate.util.ExcelStreamReader;
+import com.evaluate.util.ExcelUtil;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 调查数据与结果表流式导出测试类
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class SurveyDataExportTest {
+
+    @Mock
+    private SurveyDataMapper surveyDataMapper;
+
+    @Mock
+    private Cursor<SurveyData> cursor;
+
+    private SurveyDataServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new SurveyDataServiceImpl();
+        ReflectionTestUtils.setField(service, "baseMapper", surveyDataMapper);
+    }
+
+    @Test
+    void testExportAllStreamsRowsFromCursor() throws Exception {
+        List<SurveyData> rows = new ArrayList<>();
+        for (int i = 0; i < ExcelUtil.STREAMING_WINDOW_SIZE * 3; i++) {
+            SurveyData data = new SurveyData();
+            data.setRegionCode("5114250" + i);
+            data.setTownship("镇" + i);
+            data.setPopulation((long) i);
+            rows.add(data);
+        }
+        when(surveyDataMapper.selectCount(any())).thenReturn((long) rows.size());
+        when(surveyDataMapper.selectCursor(any())).thenReturn(cursor);
+        when(cursor.iterator()).thenReturn(rows.iterator());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(rows.size(), service.exportAllToExcel(out));
+        verify(cursor).close();
+
+        List<ExcelStreamReader.ExcelRow> read = new ArrayList<>();
+        ExcelStreamReader.read(new ByteArrayInputStream(out.toByteArray()), read::add);
+        assertEquals(rows.size() + 1, read.size());
+        assertEquals("行政区代码", read.get(0).getValue(0));
+        ExcelStreamReader.ExcelRow last = read.get(rows.size());
+        assertEquals("镇299", last.getValue(4));
+        assertEquals(299.0, last.getValue(5));
+        assertEquals("", last.getValue(1));
+    }
+
+    @Test
+    void testExportAllRejectsEmptyTable() {
+        when(surveyDataMapper.selectCount(any())).thenReturn(0L);
+        assertThrows(RuntimeException.class, () -> service.exportAllToExcel(new ByteArrayOutputStream()));
+        verify(surveyDataMapper, never()).selectCursor(any());
+    }
+
+    @Test
+    void testWriteTableUsesColumnLabels() throws Exception {
+        Map<String, Object> column = new HashMap<>();
+        column.put("prop", "score");
+        column.put("label", "综合得分");
+        Map<String, Object> row = Collections.singletonMap("score", 0.75);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, ExcelUtil.writeTable(Collections.singletonList(column), Collections.singletonList(row), out));
+
+        List<ExcelStreamReader.ExcelRow> read = new ArrayList<>();
+        ExcelStreamReader.read(new ByteArrayInputStream(out.toByteArray()), read::add);
+        assertEquals("综合得分", read.get(0).getValue(0));
+        assertEquals(0.75, read.get(1).getValue(0));
+    }
+}
@@ -0,0 +1,89 @@
+package com.evaluate.service;
+
+import com.evaluate.entity.SurveyData;
+import com.evaluate.mapper.SurveyDataMapper;
+import com.evaluate.service.impl.SurveyRegionResolverImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 调查数据地区解析服务测试类
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class SurveyRegionResolverTest {
+
+    @Mock
+    private SurveyDataMapper surveyDataMapper;
+
+    private SurveyRegionResolverImpl resolver;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(surveyDataMapper.selectList(any())).thenReturn(Arrays.asList(
+                survey(1L, "511425001", "眉山市", "青神县", "青竹街道"),
+                survey(2L, "511425002", "眉山市", "青神县", "瑞峰镇"),
+                survey(3L, "511425002", "眉山市", "青神县", "瑞峰镇"),
+                survey(4L, "511421001", "眉山市", "仁寿县", "文林街道"),
+                survey(5L, "510104001", "成都市", "锦江区", "春熙路街道")));
+        resolver = new SurveyRegionResolverImpl();
+        ReflectionTestUtils.setField(resolver, "surveyDataMapper", surveyDataMapper);
+    }
+
+    @Test
+    void testExactAndFragmentLookup() {
+        assertEquals(Arrays.asList(2L, 3L), ids(resolver.findByRegion("瑞峰镇")));
+        // 与 LIKE '%x%' 一致：乡镇、区县、市、省名称任一包含即可，按ID顺序
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(resolver.findByRegion("青神")));
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), ids(resolver.findByRegion("眉山市")));
+        assertEquals(Arrays.asList(1L, 4L, 5L), ids(resolver.findByRegion("街道")));
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), ids(resolver.findByRegion("眉")));
+        assertTrue(resolver.findByRegion("青竹镇").isEmpty());
+        assertTrue(resolver.findByRegion("不存在").isEmpty());
+        assertTrue(resolver.findByRegion(null).isEmpty());
+
+        assertEquals(2L, resolver.findByRegionCode("511425002").getId());
+        assertNull(resolver.findByRegionCode("000000000"));
+
+        // 全部查找只加载一次
+        verify(surveyDataMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void testInvalidateReloads() {
+        resolver.findByRegion("瑞峰镇");
+        resolver.invalidate();
+        assertEquals(Boolean.FALSE, resolver.getStats().get("loaded"));
+        resolver.findByRegion("瑞峰镇");
+        verify(surveyDataMapper, times(2)).selectList(any());
+        assertEquals(5, resolver.getStats().get("rows"));
+        assertEquals(2L, resolver.getStats().get("builds"));
+    }
+
+    private static List<Long> ids(List<SurveyData> rows) {
+        return rows.stream().map(SurveyData::getId).collect(Collectors.toList());
+    }
+
+    private static SurveyData survey(Long id, String regionCode, String city, String county, String township) {
+        SurveyData data = new SurveyData();
+        data.setId(id);
+        data.setRegionCode(regionCode);
+        data.setProvince("四川省");
+        data.setCity(city);
+        data.setCounty(county);
+        data.setTownship(township);
+        return data;
+    }
+}
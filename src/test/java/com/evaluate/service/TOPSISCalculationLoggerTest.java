@@ -0,0 +1,96 @@
+package com.evaluate.service;
+
+import com.evaluate.service.algorithm.CalculationLogStore;
+import com.evaluate.service.impl.TOPSISCalculationLoggerImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TOPSIS计算日志记录器测试类
+ *
+ * @author System
+ * @since 2025-10-12
+ */
+class TOPSISCalculationLoggerTest {
+
+    private TOPSISCalculationLoggerImpl logger;
+    private CalculationLogStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (logger != null) {
+            logger.closeLogStore();
+        }
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void testSessionSampledPersistedAndQueryable(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("topsis.jsonl");
+        logger = new TOPSISCalculationLoggerImpl();
+        ReflectionTestUtils.setField(logger, "logFile", file.toString());
+        ReflectionTestUtils.setField(logger, "distanceSampleSize", 10);
+        logger.initLogStore();
+
+        Map<String, Map<String, Double>> input = new LinkedHashMap<>();
+        for (int i = 0; i < 500; i++) {
+            input.put("R" + i, Collections.singletonMap("score", (double) i));
+        }
+        logger.logCalculationStart(1L, "step4", input);
+        for (Map.Entry<String, Map<String, Double>> entry : input.entrySet()) {
+            logger.logDistanceCalculation(entry.getKey(), entry.getValue(), 1.0, 2.0);
+        }
+        logger.logCalculationComplete(new HashMap<>(), 5L);
+
+        CalculationLogStore logStore = (CalculationLogStore) ReflectionTestUtils.getField(logger, "logStore");
+        assertTrue(logStore.awaitIdle(5000));
+
+        List<Map<String, Object>> recent = logger.getRecentSessionLogs(10);
+        assertEquals(1, recent.size());
+        Map<String, Object> sessionLog = logger.getSessionLog((String) recent.get(0).get("logId"));
+        assertEquals(500, sessionLog.get("distanceCalculationCount"));
+        assertEquals(10, ((List<?>) sessionLog.get("distanceCalculations")).size());
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"logId\""));
+
+        // 会话结束后当前线程不再保留上一次计算的日志
+        assertNull(logger.getCurrentSessionLog().get("modelId"));
+    }
+
+    @Test
+    void testStoreBoundedBySessionCountAndBytes() throws Exception {
+        store = new CalculationLogStore(3, 60_000L, 0L, 16, null, 0L);
+        for (int i = 0; i < 5; i++) {
+            store.offer("s" + i, Collections.singletonMap("index", i));
+        }
+        assertTrue(store.awaitIdle(5000));
+        assertEquals(3, store.getStats().get("sessions"));
+        assertNull(store.get("s0"));
+        assertEquals(4, store.recent(1).get(0).get("index"));
+
+        CalculationLogStore bytesBounded = new CalculationLogStore(100, 60_000L, 50L, 16, null, 0L);
+        try {
+            for (int i = 0; i < 5; i++) {
+                bytesBounded.offer("s" + i, Collections.singletonMap("payload", "0123456789"));
+            }
+            assertTrue(bytesBounded.awaitIdle(5000));
+            assertTrue((Long) bytesBounded.getStats().get("bytes") <= 50L);
+            assertEquals(2, bytesBounded.getStats().get("sessions"));
+        } finally {
+            bytesBounded.close();
+        }
+    }
+}